@@ -70,6 +70,21 @@ public class ContentMigrationRecord implements Serializable {
      */
     private Map<String, Object> attributes;
 
+    /**
+     * Time milliseconds when this unit of work item began.
+     */
+    private long beginTimeMillis;
+
+    /**
+     * Time milliseconds when this unit of work item ended.
+     */
+    private long endTimeMillis;
+
+    /**
+     * The number of the retries of this unit of work item after transient failures.
+     */
+    private int retryCount;
+
     /**
      * Default constructor.
      */
@@ -172,6 +187,70 @@ public class ContentMigrationRecord implements Serializable {
         this.contentPath = contentPath;
     }
 
+    /**
+     * Returns the time milliseconds when the unit of content migration work item in this record began.
+     * @return the time milliseconds when the unit of content migration work item in this record began
+     */
+    public long getBeginTimeMillis() {
+        return beginTimeMillis;
+    }
+
+    /**
+     * Sets the time milliseconds when the unit of content migration work item in this record began.
+     * @param beginTimeMillis the time milliseconds when the unit of content migration work item in this record began
+     */
+    public void setBeginTimeMillis(long beginTimeMillis) {
+        this.beginTimeMillis = beginTimeMillis;
+    }
+
+    /**
+     * Returns the time milliseconds when the unit of content migration work item in this record ended.
+     * @return the time milliseconds when the unit of content migration work item in this record ended,
+     *         or zero if not ended yet
+     */
+    public long getEndTimeMillis() {
+        return endTimeMillis;
+    }
+
+    /**
+     * Sets the time milliseconds when the unit of content migration work item in this record ended.
+     * @param endTimeMillis the time milliseconds when the unit of content migration work item in this record ended
+     */
+    public void setEndTimeMillis(long endTimeMillis) {
+        this.endTimeMillis = endTimeMillis;
+    }
+
+    /**
+     * Returns the duration milliseconds of the unit of content migration work item in this record.
+     * @return the duration milliseconds of the unit of content migration work item in this record,
+     *         or zero if not ended yet
+     */
+    public long getDurationMillis() {
+        if (beginTimeMillis == 0L || endTimeMillis == 0L) {
+            return 0L;
+        }
+
+        return endTimeMillis - beginTimeMillis;
+    }
+
+    /**
+     * Returns the number of the retries of the unit of content migration work item in this record
+     * after transient failures.
+     * @return the number of the retries of the unit of content migration work item in this record
+     */
+    public int getRetryCount() {
+        return retryCount;
+    }
+
+    /**
+     * Sets the number of the retries of the unit of content migration work item in this record
+     * after transient failures.
+     * @param retryCount the number of the retries of the unit of content migration work item in this record
+     */
+    public void setRetryCount(int retryCount) {
+        this.retryCount = retryCount;
+    }
+
     /**
      * Returns an unmodifiable map of extra custom attributes.
      * @return an unmodifiable map of extra custom attributes
@@ -303,6 +382,10 @@ public class ContentMigrationRecord implements Serializable {
                 .append("succeeded", isSucceeded()).append("contentType", contentType).append("contentId", contentId)
                 .append("contentPath", contentPath).append("errorMessage", getErrorMessage());
 
+        if (retryCount > 0) {
+            builder.append("retryCount", retryCount);
+        }
+
         final Map<String, Object> attributes = getAttributeMap();
 
         for (Map.Entry<String, Object> entry : attributes.entrySet()) {
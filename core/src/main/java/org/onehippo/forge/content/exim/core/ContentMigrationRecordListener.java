@@ -0,0 +1,42 @@
+/*
+ * Copyright 2024 Bloomreach B.V. (https://www.bloomreach.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onehippo.forge.content.exim.core;
+
+/**
+ * Listener interface to get notified whenever a {@link ContentMigrationTask} begins or ends
+ * a unit of content migration work item.
+ * <P>
+ * A listener may be used to stream the records to an external sink (e.g, a spill file or a progress status)
+ * while a task is running, instead of summarizing all the records kept in memory only after the task stops.
+ * </P>
+ */
+public interface ContentMigrationRecordListener {
+
+    /**
+     * Invoked when {@code task} began a new unit of content migration work item.
+     * @param task the content migration task
+     * @param record the content migration record which just began
+     */
+    public void onRecordBegin(ContentMigrationTask task, ContentMigrationRecord record);
+
+    /**
+     * Invoked when {@code task} ended the current unit of content migration work item.
+     * @param task the content migration task
+     * @param record the content migration record which just ended
+     */
+    public void onRecordEnd(ContentMigrationTask task, ContentMigrationRecord record);
+
+}
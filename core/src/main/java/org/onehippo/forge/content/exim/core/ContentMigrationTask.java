@@ -83,6 +83,27 @@ public interface ContentMigrationTask {
      */
     public Collection<ContentMigrationRecord> getContentMigrationRecords();
 
+    /**
+     * Adds a {@link ContentMigrationRecordListener} which is notified whenever a content migration work item record
+     * begins or ends.
+     * <P>
+     * By default, this does nothing for a task not supporting the listeners.
+     * </P>
+     * @param listener a {@link ContentMigrationRecordListener} instance
+     */
+    default void addContentMigrationRecordListener(ContentMigrationRecordListener listener) {
+    }
+
+    /**
+     * Removes the {@link ContentMigrationRecordListener}.
+     * <P>
+     * By default, this does nothing for a task not supporting the listeners.
+     * </P>
+     * @param listener a {@link ContentMigrationRecordListener} instance
+     */
+    default void removeContentMigrationRecordListener(ContentMigrationRecordListener listener) {
+    }
+
     /**
      * Return the execution summary.
      * @return the execution summary
@@ -112,6 +133,37 @@ public interface ContentMigrationTask {
     public void writeContentNodeToJsonFile(ContentNode contentNode, FileObject targetFile)
             throws ContentMigrationException;
 
+    /**
+     * Reads {@code sourceFile} containing a {@link ContentNode} data in any of the {@link ContentNodeFileFormat}s,
+     * detecting the format from the content, and returns a parsed {@link ContentNode} object.
+     * <P>
+     * By default, this reads the {@code sourceFile} in JSON format
+     * by {@link #readContentNodeFromJsonFile(FileObject)}.
+     * </P>
+     * @param sourceFile source file containing a {@link ContentNode} data
+     * @return a parsed {@link ContentNode} object
+     * @throws ContentMigrationException if reading fails.
+     */
+    default ContentNode readContentNodeFromFile(FileObject sourceFile) throws ContentMigrationException {
+        return readContentNodeFromJsonFile(sourceFile);
+    }
+
+    /**
+     * Writes {@code contentNode} object into {@code targetFile} in the {@link ContentNodeFileFormat}
+     * configured for this task.
+     * <P>
+     * By default, this writes the {@code contentNode} in JSON format
+     * by {@link #writeContentNodeToJsonFile(ContentNode, FileObject)}.
+     * </P>
+     * @param contentNode a {@link ContentNode} object
+     * @param targetFile target file to write the {@code contentNode}
+     * @throws ContentMigrationException if writing fails.
+     */
+    default void writeContentNodeToFile(ContentNode contentNode, FileObject targetFile)
+            throws ContentMigrationException {
+        writeContentNodeToJsonFile(contentNode, targetFile);
+    }
+
     /**
      * Reads {@code sourceFile} containing a {@link ContentNode} data in XML format
      * and returns a parsed {@link ContentNode} object.
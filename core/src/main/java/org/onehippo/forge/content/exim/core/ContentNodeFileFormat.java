@@ -0,0 +1,62 @@
+/*
+ * Copyright 2024 Bloomreach B.V. (https://www.bloomreach.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onehippo.forge.content.exim.core;
+
+import org.onehippo.forge.content.pojo.model.ContentNode;
+
+/**
+ * File formats in which a {@link ContentNode} can be written by a {@link ContentMigrationTask}.
+ */
+public enum ContentNodeFileFormat {
+
+    /**
+     * JSON format with the default pretty printer, which is easy to read, for debugging purposes for instance.
+     */
+    PRETTY_JSON("json"),
+
+    /**
+     * JSON format without any whitespaces between tokens.
+     */
+    COMPACT_JSON("json"),
+
+    /**
+     * Binary JSON format, <a href="https://github.com/FasterXML/smile-format-specification">Smile</a>,
+     * which is smaller and faster to parse than the textual JSON formats.
+     */
+    SMILE("smile");
+
+    private final String fileExtension;
+
+    ContentNodeFileFormat(final String fileExtension) {
+        this.fileExtension = fileExtension;
+    }
+
+    /**
+     * Returns the file name extension, without the leading dot, for the files written in this format.
+     * @return the file name extension, without the leading dot, for the files written in this format
+     */
+    public String getFileExtension() {
+        return fileExtension;
+    }
+
+    /**
+     * Returns true if this format is a textual JSON format.
+     * @return true if this format is a textual JSON format
+     */
+    public boolean isJson() {
+        return this == PRETTY_JSON || this == COMPACT_JSON;
+    }
+}
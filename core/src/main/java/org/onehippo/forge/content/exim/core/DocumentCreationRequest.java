@@ -0,0 +1,86 @@
+/*
+ * Copyright 2024 Bloomreach B.V. (https://www.bloomreach.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onehippo.forge.content.exim.core;
+
+import org.apache.commons.lang3.builder.ToStringBuilder;
+
+/**
+ * Describes a document to be created by {@link DocumentManager#createDocuments(String, java.util.List)}.
+ */
+public class DocumentCreationRequest {
+
+    private final String primaryTypeName;
+
+    private final String nodeName;
+
+    private final String locale;
+
+    private final String localizedName;
+
+    /**
+     * Constructs with the same arguments as {@link DocumentManager#createDocument(String, String, String, String, String)}
+     * except the folder location.
+     * @param primaryTypeName primary node type name of document to be created
+     * @param nodeName document node name
+     * @param locale locale for the document display name. e.g, "en"
+     * @param localizedName localized document name associated with the {@code locale}
+     */
+    public DocumentCreationRequest(final String primaryTypeName, final String nodeName, final String locale,
+            final String localizedName) {
+        this.primaryTypeName = primaryTypeName;
+        this.nodeName = nodeName;
+        this.locale = locale;
+        this.localizedName = localizedName;
+    }
+
+    /**
+     * Returns the primary node type name of document to be created.
+     * @return the primary node type name of document to be created
+     */
+    public String getPrimaryTypeName() {
+        return primaryTypeName;
+    }
+
+    /**
+     * Returns the document node name.
+     * @return the document node name
+     */
+    public String getNodeName() {
+        return nodeName;
+    }
+
+    /**
+     * Returns the locale for the document display name.
+     * @return the locale for the document display name
+     */
+    public String getLocale() {
+        return locale;
+    }
+
+    /**
+     * Returns the localized document name associated with the locale.
+     * @return the localized document name associated with the locale
+     */
+    public String getLocalizedName() {
+        return localizedName;
+    }
+
+    @Override
+    public String toString() {
+        return new ToStringBuilder(this).append("primaryTypeName", primaryTypeName).append("nodeName", nodeName)
+                .append("locale", locale).append("localizedName", localizedName).toString();
+    }
+}
@@ -15,6 +15,10 @@
  */
 package org.onehippo.forge.content.exim.core;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
 import javax.jcr.Node;
 import javax.jcr.RepositoryException;
 import javax.jcr.Session;
@@ -118,6 +122,35 @@ public interface DocumentManager {
     String createDocument(String folderLocation, String primaryTypeName, String nodeName, String locale,
             String localizedName) throws DocumentManagerException;
 
+    /**
+     * Creates documents in the specific {@code folderLocation}.
+     * <P>
+     * Unlike invoking {@link #createDocument(String, String, String, String, String)} for each document,
+     * an implementation may resolve or create the folder and its workflow only once for all the documents.
+     * A failure on a document doesn't stop creating the other documents.
+     * </P>
+     * @param folderLocation destination folder path
+     * @param requests document creation requests
+     * @return the item results in the same order as {@code requests}, each containing the created document handle
+     *         path if succeeded
+     */
+    default List<DocumentManagerBatchResult> createDocuments(String folderLocation,
+            List<DocumentCreationRequest> requests) {
+        final List<DocumentManagerBatchResult> results = new ArrayList<>(requests.size());
+
+        for (DocumentCreationRequest request : requests) {
+            try {
+                final String documentPath = createDocument(folderLocation, request.getPrimaryTypeName(),
+                        request.getNodeName(), request.getLocale(), request.getLocalizedName());
+                results.add(new DocumentManagerBatchResult(request.getNodeName(), documentPath, null));
+            } catch (Exception e) {
+                results.add(new DocumentManagerBatchResult(request.getNodeName(), toDocumentManagerException(e)));
+            }
+        }
+
+        return results;
+    }
+
     /**
      * Obtains an editable draft variant {@link Document} under the given document handle path ({@code documentLocation}).
      * @param documentLocation document handle path
@@ -160,6 +193,16 @@ public interface DocumentManager {
      */
     Document disposeEditableDocument(Document editableDocument) throws DocumentManagerException;
 
+    /**
+     * Returns true if the pending changes bound to an editable document are to be saved before committing it,
+     * as the workflow actions see only the saved state. An implementation not going through the workflow may return
+     * false to let the caller save the pending changes of many documents at once, e.g, once per batch.
+     * @return true if the pending changes bound to an editable document are to be saved before committing it
+     */
+    default boolean isSaveBeforeCommitRequired() {
+        return true;
+    }
+
     /**
      * Commits the draft variant which is currently being edited.
      * @param documentLocation document handle path
@@ -177,6 +220,33 @@ public interface DocumentManager {
      */
     Document commitEditableDocument(Document editableDocument) throws DocumentManagerException;
 
+    /**
+     * Commits the draft variants which are currently being edited.
+     * <P>
+     * Unlike invoking {@link #commitEditableDocument(Document)} for each document, an implementation may save
+     * the pending changes of all the documents at once before committing them.
+     * A failure on a document doesn't stop committing the other documents.
+     * </P>
+     * @param editableDocuments document objects
+     * @return the item results in the same order as {@code editableDocuments}, each containing the committed
+     *         {@link Document} if succeeded
+     */
+    default List<DocumentManagerBatchResult> commitEditableDocuments(Collection<Document> editableDocuments) {
+        final List<DocumentManagerBatchResult> results = new ArrayList<>(editableDocuments.size());
+
+        for (Document editableDocument : editableDocuments) {
+            final String location = (editableDocument != null) ? editableDocument.getIdentity() : null;
+
+            try {
+                final Document committed = commitEditableDocument(editableDocument);
+                results.add(new DocumentManagerBatchResult(location, null, committed));
+            } catch (Exception e) {
+                results.add(new DocumentManagerBatchResult(location, toDocumentManagerException(e)));
+            }
+        }
+
+        return results;
+    }
 
     /**
      * Publishes the document at the given document handle path ({@code documentLocation}).
@@ -186,6 +256,31 @@ public interface DocumentManager {
      */
     boolean publishDocument(String documentLocation) throws DocumentManagerException;
 
+    /**
+     * Publishes the documents at the given document handle paths ({@code documentLocations}).
+     * <P>
+     * Unlike invoking {@link #publishDocument(String)} for each document, an implementation may save
+     * the pending changes of all the documents at once before publishing them.
+     * A failure on a document doesn't stop publishing the other documents.
+     * </P>
+     * @param documentLocations document handle paths
+     * @return the item results in the same order as {@code documentLocations}
+     */
+    default List<DocumentManagerBatchResult> publishDocuments(Collection<String> documentLocations) {
+        final List<DocumentManagerBatchResult> results = new ArrayList<>(documentLocations.size());
+
+        for (String documentLocation : documentLocations) {
+            try {
+                publishDocument(documentLocation);
+                results.add(new DocumentManagerBatchResult(documentLocation, documentLocation, null));
+            } catch (Exception e) {
+                results.add(new DocumentManagerBatchResult(documentLocation, toDocumentManagerException(e)));
+            }
+        }
+
+        return results;
+    }
+
     /**
      * Takes offline the document at the given document handle path ({@code documentLocation}).
      * @param documentLocation document handle path
@@ -242,4 +337,18 @@ public interface DocumentManager {
      */
     public DocumentWorkflow getDocumentWorkflow(final Node documentHandleNode) throws RepositoryException;
 
+    /**
+     * Returns {@code e} itself if it is a {@link DocumentManagerException}, or a new {@link DocumentManagerException}
+     * wrapping {@code e} otherwise, to keep the failure in a {@link DocumentManagerBatchResult}.
+     * @param e exception
+     * @return a {@link DocumentManagerException}
+     */
+    private static DocumentManagerException toDocumentManagerException(final Exception e) {
+        if (e instanceof DocumentManagerException) {
+            return (DocumentManagerException) e;
+        }
+
+        return new DocumentManagerException(e.toString(), e);
+    }
+
 }
@@ -0,0 +1,110 @@
+/*
+ * Copyright 2024 Bloomreach B.V. (https://www.bloomreach.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onehippo.forge.content.exim.core;
+
+import org.apache.commons.lang3.builder.ToStringBuilder;
+import org.hippoecm.repository.api.Document;
+
+/**
+ * Result of a single item processed by a batch operation of {@link DocumentManager},
+ * such as {@link DocumentManager#createDocuments(String, java.util.List)},
+ * {@link DocumentManager#commitEditableDocuments(java.util.Collection)} or
+ * {@link DocumentManager#publishDocuments(java.util.Collection)}.
+ * <P>
+ * A failure of an item doesn't stop the batch operation. Instead, the failure is kept in the result of the item.
+ * </P>
+ */
+public class DocumentManagerBatchResult {
+
+    private final String location;
+
+    private final String documentPath;
+
+    private final Document document;
+
+    private final DocumentManagerException exception;
+
+    /**
+     * Constructs a successful item result.
+     * @param location the location or node name of the item given to the batch operation
+     * @param documentPath the resulting document handle path
+     * @param document the resulting {@link Document} if the operation returns one, or null
+     */
+    public DocumentManagerBatchResult(final String location, final String documentPath, final Document document) {
+        this.location = location;
+        this.documentPath = documentPath;
+        this.document = document;
+        this.exception = null;
+    }
+
+    /**
+     * Constructs a failed item result.
+     * @param location the location or node name of the item given to the batch operation
+     * @param exception the exception which made the item fail
+     */
+    public DocumentManagerBatchResult(final String location, final DocumentManagerException exception) {
+        this.location = location;
+        this.documentPath = null;
+        this.document = null;
+        this.exception = exception;
+    }
+
+    /**
+     * Returns the location or node name of the item given to the batch operation.
+     * @return the location or node name of the item given to the batch operation
+     */
+    public String getLocation() {
+        return location;
+    }
+
+    /**
+     * Returns the resulting document handle path if succeeded.
+     * @return the resulting document handle path if succeeded
+     */
+    public String getDocumentPath() {
+        return documentPath;
+    }
+
+    /**
+     * Returns the resulting {@link Document} if succeeded and the operation returns one.
+     * @return the resulting {@link Document} if succeeded and the operation returns one
+     */
+    public Document getDocument() {
+        return document;
+    }
+
+    /**
+     * Returns true if the item was processed successfully.
+     * @return true if the item was processed successfully
+     */
+    public boolean isSucceeded() {
+        return exception == null;
+    }
+
+    /**
+     * Returns the exception which made the item fail, or null if succeeded.
+     * @return the exception which made the item fail, or null if succeeded
+     */
+    public DocumentManagerException getException() {
+        return exception;
+    }
+
+    @Override
+    public String toString() {
+        return new ToStringBuilder(this).append("location", location).append("documentPath", documentPath)
+                .append("succeeded", isSucceeded()).append("exception", exception).toString();
+    }
+}
@@ -16,9 +16,11 @@
 package org.onehippo.forge.content.exim.core.impl;
 
 import javax.jcr.Node;
+import javax.jcr.RepositoryException;
 import javax.jcr.Value;
 
 import org.onehippo.forge.content.exim.core.DocumentManager;
+import org.onehippo.forge.content.exim.core.util.DocumentExistenceResolver;
 import org.onehippo.forge.content.pojo.binder.ContentNodeBinder;
 import org.onehippo.forge.content.pojo.binder.ContentNodeBindingItemFilter;
 import org.onehippo.forge.content.pojo.binder.jcr.DefaultContentNodeJcrBindingItemFilter;
@@ -32,6 +34,7 @@ public class AbstractContentImportTask extends AbstractContentMigrationTask {
 
     protected ContentNodeBinder<Node, ContentItem, Value> contentNodeBinder;
     protected ContentNodeBindingItemFilter<ContentItem> contentNodeBindingItemFilter;
+    private DocumentExistenceResolver documentExistenceResolver;
 
     /**
      * Constructs with {@code documentManager}.
@@ -82,4 +85,35 @@ public class AbstractContentImportTask extends AbstractContentMigrationTask {
         this.contentNodeBindingItemFilter = contentNodeBindingItemFilter;
     }
 
+    /**
+     * Returns {@link DocumentExistenceResolver} instance used to check the existence of documents and folders
+     * before creating them, or null if not set.
+     * @return {@link DocumentExistenceResolver} instance, or null if not set
+     */
+    public DocumentExistenceResolver getDocumentExistenceResolver() {
+        return documentExistenceResolver;
+    }
+
+    /**
+     * Sets {@link DocumentExistenceResolver} instance used to check the existence of documents and folders
+     * before creating them. If not set, the existence is checked through the {@link DocumentManager} each time.
+     * @param documentExistenceResolver {@link DocumentExistenceResolver} instance
+     */
+    public void setDocumentExistenceResolver(DocumentExistenceResolver documentExistenceResolver) {
+        this.documentExistenceResolver = documentExistenceResolver;
+    }
+
+    /**
+     * Discards the pending changes in the session, and clears the snapshot of the {@link DocumentExistenceResolver}
+     * if set, as the snapshot may reflect the discarded changes, e.g, documents marked as created but not saved yet.
+     * @throws RepositoryException if fails to discard the pending changes
+     */
+    public void discardPendingChanges() throws RepositoryException {
+        getDocumentManager().getSession().refresh(false);
+
+        if (documentExistenceResolver != null) {
+            documentExistenceResolver.clear();
+        }
+    }
+
 }
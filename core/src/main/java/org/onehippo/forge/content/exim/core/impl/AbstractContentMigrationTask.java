@@ -26,6 +26,9 @@ import java.util.Collection;
 import java.util.Collections;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.regex.Pattern;
 
 import javax.jcr.Value;
@@ -43,10 +46,15 @@ import org.apache.commons.vfs2.FileFilter;
 import org.apache.commons.vfs2.FileObject;
 import org.apache.commons.vfs2.FileSelector;
 import org.apache.commons.vfs2.FileSystemException;
+import org.onehippo.forge.content.exim.core.Constants;
 import org.onehippo.forge.content.exim.core.ContentMigrationException;
 import org.onehippo.forge.content.exim.core.ContentMigrationRecord;
+import org.onehippo.forge.content.exim.core.ContentMigrationRecordListener;
 import org.onehippo.forge.content.exim.core.ContentMigrationTask;
+import org.onehippo.forge.content.exim.core.ContentNodeFileFormat;
 import org.onehippo.forge.content.exim.core.DocumentManager;
+import org.onehippo.forge.content.exim.core.util.ContentNodeBundleReader;
+import org.onehippo.forge.content.exim.core.util.DataUrlSpillingJsonParser;
 import org.onehippo.forge.content.exim.core.util.FileFilterDepthSelector;
 import org.onehippo.forge.content.exim.core.util.NamePatternFileFilter;
 import org.onehippo.forge.content.pojo.common.ContentValueConverter;
@@ -55,7 +63,13 @@ import org.onehippo.forge.content.pojo.model.ContentNode;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.dataformat.smile.SmileConstants;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
 
 /**
  * Abstract {@link ContentMigrationTask} implementation class to provide common properties and utility operations.
@@ -66,15 +80,41 @@ abstract public class AbstractContentMigrationTask implements ContentMigrationTa
 
     private static ThreadLocal<ContentMigrationRecord> tlCurrentContentMigrationRecord = new ThreadLocal<>();
 
+    /**
+     * Maximum number of idle JAXB (un)marshallers kept in each pool for reuse.
+     */
+    private static final int MAX_POOLED_JAXB_MARSHALLERS = 16;
+
+    /**
+     * {@link JAXBContext} for {@link ContentNode}, which is thread-safe and expensive to create, so shared by all tasks.
+     */
+    private static volatile JAXBContext contentNodeJaxbContext;
+
+    private static final BlockingQueue<Marshaller> contentNodeMarshallerPool = new ArrayBlockingQueue<>(
+            MAX_POOLED_JAXB_MARSHALLERS);
+
+    private static final BlockingQueue<Unmarshaller> contentNodeUnmarshallerPool = new ArrayBlockingQueue<>(
+            MAX_POOLED_JAXB_MARSHALLERS);
+
     private long startedTimeMillis;
     private long stoppedTimeMillis;
     private List<ContentMigrationRecord> contentMigrationRecords = new LinkedList<>();
+    private boolean contentMigrationRecordsRetained = true;
+    private final CountingContentMigrationRecordListener recordCounter = new CountingContentMigrationRecordListener();
+    private final List<ContentMigrationRecordListener> contentMigrationRecordListeners = new CopyOnWriteArrayList<>();
 
     private final DocumentManager documentManager;
     private ObjectMapper objectMapper;
+    private ObjectReader contentNodeReader;
+    private ObjectWriter contentNodeWriter;
+    private ObjectReader smileContentNodeReader;
+    private ObjectWriter smileContentNodeWriter;
+    private ContentNodeFileFormat contentNodeFileFormat = ContentNodeFileFormat.PRETTY_JSON;
     private ContentValueConverter<Value> contentValueConverter;
     private FileObject binaryValueFileFolder;
     private long dataUrlSizeThreashold = 512 * 1024; // 512 KB
+    private FileObject dataUrlSpillFolder;
+    private long dataUrlSpillThreshold = 64 * 1024; // 64 KB
 
     /**
      * Constructs with {@code documentManager}.
@@ -112,6 +152,7 @@ abstract public class AbstractContentMigrationTask implements ContentMigrationTa
         startedTimeMillis = System.currentTimeMillis();
         stoppedTimeMillis = 0L;
         contentMigrationRecords.clear();
+        recordCounter.reset();
         tlCurrentContentMigrationRecord.remove();
     }
 
@@ -152,8 +193,22 @@ abstract public class AbstractContentMigrationTask implements ContentMigrationTa
         ContentMigrationRecord record = new ContentMigrationRecord();
         record.setContentId(contentId);
         record.setContentPath(contentPath);
-        contentMigrationRecords.add(record);
+        record.setBeginTimeMillis(System.currentTimeMillis());
+
+        if (isContentMigrationRecordsRetained()) {
+            contentMigrationRecords.add(record);
+        }
+
         tlCurrentContentMigrationRecord.set(record);
+
+        for (ContentMigrationRecordListener listener : contentMigrationRecordListeners) {
+            try {
+                listener.onRecordBegin(this, record);
+            } catch (Exception e) {
+                getLogger().warn("Content migration record listener failed on record begin: {}", listener, e);
+            }
+        }
+
         return record;
     }
 
@@ -164,6 +219,20 @@ abstract public class AbstractContentMigrationTask implements ContentMigrationTa
     public ContentMigrationRecord endRecord() {
         ContentMigrationRecord record = getCurrentContentMigrationRecord();
         tlCurrentContentMigrationRecord.remove();
+
+        if (record != null) {
+            record.setEndTimeMillis(System.currentTimeMillis());
+            recordCounter.onRecordEnd(this, record);
+
+            for (ContentMigrationRecordListener listener : contentMigrationRecordListeners) {
+                try {
+                    listener.onRecordEnd(this, record);
+                } catch (Exception e) {
+                    getLogger().warn("Content migration record listener failed on record end: {}", listener, e);
+                }
+            }
+        }
+
         return record;
     }
 
@@ -175,6 +244,43 @@ abstract public class AbstractContentMigrationTask implements ContentMigrationTa
         return Collections.unmodifiableCollection(contentMigrationRecords);
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void addContentMigrationRecordListener(ContentMigrationRecordListener listener) {
+        if (listener != null) {
+            contentMigrationRecordListeners.add(listener);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void removeContentMigrationRecordListener(ContentMigrationRecordListener listener) {
+        contentMigrationRecordListeners.remove(listener);
+    }
+
+    /**
+     * Returns true if each {@link ContentMigrationRecord} is retained in memory until this task stops
+     * in order to be summarized with details later. True by default.
+     * @return true if each {@link ContentMigrationRecord} is retained in memory until this task stops
+     */
+    public boolean isContentMigrationRecordsRetained() {
+        return contentMigrationRecordsRetained;
+    }
+
+    /**
+     * Sets whether or not each {@link ContentMigrationRecord} is retained in memory until this task stops.
+     * If set to false, {@link #getSummary()} reports the counts only, which are accumulated incrementally,
+     * and the details are supposed to be streamed by a {@link ContentMigrationRecordListener} instead.
+     * @param contentMigrationRecordsRetained whether or not each {@link ContentMigrationRecord} is retained in memory
+     */
+    public void setContentMigrationRecordsRetained(boolean contentMigrationRecordsRetained) {
+        this.contentMigrationRecordsRetained = contentMigrationRecordsRetained;
+    }
+
     /**
      * Returns the current {@link ContentMigrationRecord} instance in the current context thread.
      * @return the current {@link ContentMigrationRecord} instance in the current context thread
@@ -197,16 +303,22 @@ abstract public class AbstractContentMigrationTask implements ContentMigrationTa
             int processedCount = 0;
             int successCount = 0;
 
-            for (ContentMigrationRecord record : getContentMigrationRecords()) {
-                ++totalCount;
+            if (isContentMigrationRecordsRetained()) {
+                for (ContentMigrationRecord record : getContentMigrationRecords()) {
+                    ++totalCount;
 
-                if (record.isProcessed()) {
-                    ++processedCount;
+                    if (record.isProcessed()) {
+                        ++processedCount;
 
-                    if (record.isSucceeded()) {
-                        ++successCount;
+                        if (record.isSucceeded()) {
+                            ++successCount;
+                        }
                     }
                 }
+            } else {
+                totalCount = recordCounter.getTotalCount();
+                processedCount = recordCounter.getProcessedCount();
+                successCount = recordCounter.getSucceededCount();
             }
 
             out.println(
@@ -219,6 +331,15 @@ abstract public class AbstractContentMigrationTask implements ContentMigrationTa
             out.println();
             out.println(
                     "---------------------------------------------------------------------------------------------------------------");
+            if (!isContentMigrationRecordsRetained()) {
+                out.println("Details not available as the records were not retained.");
+                out.println(
+                        "===============================================================================================================");
+                out.flush();
+
+                return sw.toString();
+            }
+
             out.println("Details (in CSV format):");
             out.println(
                     "---------------------------------------------------------------------------------------------------------------");
@@ -291,6 +412,90 @@ abstract public class AbstractContentMigrationTask implements ContentMigrationTa
      */
     public void setObjectMapper(ObjectMapper objectMapper) {
         this.objectMapper = objectMapper;
+        contentNodeReader = null;
+        contentNodeWriter = null;
+        smileContentNodeReader = null;
+        smileContentNodeWriter = null;
+    }
+
+    /**
+     * Returns an {@link ObjectReader} for {@link ContentNode}, prebuilt from {@link #getObjectMapper()} and reused
+     * for every file to read.
+     * @return an {@link ObjectReader} for {@link ContentNode}
+     */
+    protected ObjectReader getContentNodeReader() {
+        if (contentNodeReader == null) {
+            contentNodeReader = getObjectMapper().readerFor(ContentNode.class);
+        }
+
+        return contentNodeReader;
+    }
+
+    /**
+     * Returns an {@link ObjectWriter} for {@link ContentNode}, prebuilt from {@link #getObjectMapper()}
+     * and reused for every JSON file to write. It uses the default pretty printer unless the file format
+     * of this task is {@link ContentNodeFileFormat#COMPACT_JSON}.
+     * @return an {@link ObjectWriter} for {@link ContentNode}
+     */
+    protected ObjectWriter getContentNodeWriter() {
+        if (contentNodeWriter == null) {
+            ObjectWriter writer = getObjectMapper().writerFor(ContentNode.class);
+
+            if (getContentNodeFileFormat() != ContentNodeFileFormat.COMPACT_JSON) {
+                writer = writer.withDefaultPrettyPrinter();
+            }
+
+            contentNodeWriter = writer;
+        }
+
+        return contentNodeWriter;
+    }
+
+    /**
+     * Returns an {@link ObjectReader} for {@link ContentNode} in the Smile binary JSON format, built from a copy of
+     * {@link #getObjectMapper()} with a {@link SmileFactory} to keep its configuration.
+     * @return an {@link ObjectReader} for {@link ContentNode} in the Smile binary JSON format
+     */
+    protected ObjectReader getSmileContentNodeReader() {
+        if (smileContentNodeReader == null) {
+            smileContentNodeReader = getObjectMapper().copyWith(new SmileFactory()).readerFor(ContentNode.class);
+        }
+
+        return smileContentNodeReader;
+    }
+
+    /**
+     * Returns an {@link ObjectWriter} for {@link ContentNode} in the Smile binary JSON format, built from a copy of
+     * {@link #getObjectMapper()} with a {@link SmileFactory} to keep its configuration.
+     * @return an {@link ObjectWriter} for {@link ContentNode} in the Smile binary JSON format
+     */
+    protected ObjectWriter getSmileContentNodeWriter() {
+        if (smileContentNodeWriter == null) {
+            smileContentNodeWriter = getObjectMapper().copyWith(new SmileFactory()).writerFor(ContentNode.class);
+        }
+
+        return smileContentNodeWriter;
+    }
+
+    /**
+     * Returns the file format used by {@link #writeContentNodeToFile(ContentNode, FileObject)}.
+     * {@link ContentNodeFileFormat#PRETTY_JSON} by default.
+     * @return the file format used by {@link #writeContentNodeToFile(ContentNode, FileObject)}
+     */
+    public ContentNodeFileFormat getContentNodeFileFormat() {
+        return contentNodeFileFormat;
+    }
+
+    /**
+     * Sets the file format used by {@link #writeContentNodeToFile(ContentNode, FileObject)}.
+     * If it is {@link ContentNodeFileFormat#COMPACT_JSON}, {@link #writeContentNodeToJsonFile(ContentNode, FileObject)}
+     * writes compact JSON as well.
+     * @param contentNodeFileFormat the file format used by {@link #writeContentNodeToFile(ContentNode, FileObject)}
+     */
+    public void setContentNodeFileFormat(ContentNodeFileFormat contentNodeFileFormat) {
+        this.contentNodeFileFormat = (contentNodeFileFormat != null) ? contentNodeFileFormat
+                : ContentNodeFileFormat.PRETTY_JSON;
+        contentNodeWriter = null;
     }
 
     /**
@@ -368,6 +573,64 @@ abstract public class AbstractContentMigrationTask implements ContentMigrationTa
         }
     }
 
+    /**
+     * Returns the folder where a large base64 encoded <code>data:</code> URL value is decoded into a file
+     * while reading a {@link ContentNode}, or null if <code>data:</code> URL values are read as they are.
+     * @return the folder where a large base64 encoded <code>data:</code> URL value is decoded into a file
+     */
+    public FileObject getDataUrlSpillFolder() {
+        return dataUrlSpillFolder;
+    }
+
+    /**
+     * Sets the folder where a large base64 encoded <code>data:</code> URL value is decoded into a file
+     * while reading a {@link ContentNode}, to be replaced by the URL of the file, instead of keeping the whole
+     * <code>data:</code> URL string in memory. The files are not deleted by this task, so the caller is supposed to
+     * clean up the folder after the read {@link ContentNode}s are bound and saved.
+     * @param dataUrlSpillFolder the folder where a large base64 encoded <code>data:</code> URL value is decoded
+     *        into a file, or null to read <code>data:</code> URL values as they are
+     */
+    public void setDataUrlSpillFolder(FileObject dataUrlSpillFolder) {
+        this.dataUrlSpillFolder = dataUrlSpillFolder;
+    }
+
+    /**
+     * Returns the minimum length of a <code>data:</code> URL value to decode into a file in the
+     * {@link #getDataUrlSpillFolder()}.
+     * @return the minimum length of a <code>data:</code> URL value to decode into a file
+     */
+    public long getDataUrlSpillThreshold() {
+        return dataUrlSpillThreshold;
+    }
+
+    /**
+     * Sets the minimum length of a <code>data:</code> URL value to decode into a file in the
+     * {@link #getDataUrlSpillFolder()}.
+     * @param dataUrlSpillThreshold the minimum length of a <code>data:</code> URL value to decode into a file
+     */
+    public void setDataUrlSpillThreshold(long dataUrlSpillThreshold) {
+        this.dataUrlSpillThreshold = dataUrlSpillThreshold;
+    }
+
+    /**
+     * Creates a {@link JsonParser} by the {@code reader} on the {@code input}, decoding large base64 encoded
+     * <code>data:</code> URL values into files if {@link #getDataUrlSpillFolder()} is set.
+     * @param reader {@link ObjectReader} for {@link ContentNode}
+     * @param input input stream
+     * @return a {@link JsonParser} to read a {@link ContentNode} with
+     * @throws IOException if the parser cannot be created
+     */
+    protected JsonParser createContentNodeParser(final ObjectReader reader, final InputStream input)
+            throws IOException {
+        final JsonParser parser = reader.getFactory().createParser(input);
+
+        if (dataUrlSpillFolder != null) {
+            return new DataUrlSpillingJsonParser(parser, dataUrlSpillFolder, dataUrlSpillThreshold);
+        }
+
+        return parser;
+    }
+
     /**
      * Finds files (type of {@link FileObject}) under {@code baseFolder} based on the file name pattern specified by the regular expression, {@code nameRegex}.
      * It only matches when the depth of a descendant file in the range, [{@code minDepth}, {@code maxDepth}].
@@ -398,7 +661,7 @@ abstract public class AbstractContentMigrationTask implements ContentMigrationTa
         try {
             is = sourceFile.getContent().getInputStream();
             bis = new BufferedInputStream(is);
-            contentNode = getObjectMapper().readValue(bis, ContentNode.class);
+            contentNode = readContentNode(getContentNodeReader(), bis);
         } catch (IOException e) {
             throw new ContentMigrationException(e.toString(), e);
         } finally {
@@ -409,6 +672,75 @@ abstract public class AbstractContentMigrationTask implements ContentMigrationTa
         return contentNode;
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public ContentNode readContentNodeFromFile(final FileObject sourceFile) throws ContentMigrationException {
+        ContentNode contentNode = null;
+
+        InputStream is = null;
+        BufferedInputStream bis = null;
+
+        try {
+            is = sourceFile.getContent().getInputStream();
+            bis = new BufferedInputStream(is);
+
+            if (startsWithSmileHeader(bis)) {
+                contentNode = readContentNode(getSmileContentNodeReader(), bis);
+            } else {
+                contentNode = readContentNode(getContentNodeReader(), bis);
+            }
+        } catch (IOException e) {
+            throw new ContentMigrationException(e.toString(), e);
+        } finally {
+            IOUtils.closeQuietly(bis);
+            IOUtils.closeQuietly(is);
+        }
+
+        return contentNode;
+    }
+
+    /**
+     * Reads only the {@link Constants#META_PROP_NODE_PATH} meta property value of the {@link ContentNode} data
+     * in {@code sourceFile} in any of the {@link ContentNodeFileFormat}s, streaming the top level properties and
+     * skipping the other values and the child nodes without binding those, e.g, to find the paths to import
+     * the content into before importing.
+     * @param sourceFile source file containing a {@link ContentNode} data
+     * @return the {@link Constants#META_PROP_NODE_PATH} meta property value, or null if not found
+     * @throws ContentMigrationException if reading fails.
+     */
+    public String readContentNodePathFromFile(final FileObject sourceFile) throws ContentMigrationException {
+        try (InputStream is = sourceFile.getContent().getInputStream();
+                BufferedInputStream bis = new BufferedInputStream(is)) {
+            final ObjectReader reader = startsWithSmileHeader(bis) ? getSmileContentNodeReader()
+                    : getContentNodeReader();
+
+            try (JsonParser parser = reader.getFactory().createParser(bis)) {
+                return readContentNodePath(parser);
+            }
+        } catch (IOException e) {
+            throw new ContentMigrationException(e.toString(), e);
+        }
+    }
+
+    /**
+     * Opens a newline-delimited JSON bundle file containing {@link ContentNode} data, one per line,
+     * to read the {@link ContentNode}s one by one.
+     * @param bundleFile bundle file
+     * @return a {@link ContentNodeBundleReader} which must be closed after use
+     * @throws ContentMigrationException if the bundle file cannot be opened
+     */
+    public ContentNodeBundleReader openContentNodeBundle(final FileObject bundleFile)
+            throws ContentMigrationException {
+        try {
+            return new ContentNodeBundleReader(bundleFile, getContentNodeReader(), dataUrlSpillFolder,
+                    dataUrlSpillThreshold);
+        } catch (IOException e) {
+            throw new ContentMigrationException(e.toString(), e);
+        }
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -422,9 +754,9 @@ abstract public class AbstractContentMigrationTask implements ContentMigrationTa
         try {
             is = sourceFile.getContent().getInputStream();
             bis = new BufferedInputStream(is);
-            JAXBContext jaxbContext = JAXBContext.newInstance(ContentNode.class);
-            Unmarshaller jaxbUnmarshaller = jaxbContext.createUnmarshaller();
+            Unmarshaller jaxbUnmarshaller = borrowContentNodeUnmarshaller();
             contentNode = (ContentNode) jaxbUnmarshaller.unmarshal(bis);
+            contentNodeUnmarshallerPool.offer(jaxbUnmarshaller);
         } catch (IOException | JAXBException e) {
             throw new ContentMigrationException(e.toString(), e);
         } finally {
@@ -447,7 +779,33 @@ abstract public class AbstractContentMigrationTask implements ContentMigrationTa
         try {
             os = targetFile.getContent().getOutputStream();
             bos = new BufferedOutputStream(os);
-            getObjectMapper().writerWithDefaultPrettyPrinter().writeValue(bos, contentNode);
+            getContentNodeWriter().writeValue(bos, contentNode);
+        } catch (IOException e) {
+            throw new ContentMigrationException(e.toString(), e);
+        } finally {
+            IOUtils.closeQuietly(bos);
+            IOUtils.closeQuietly(os);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void writeContentNodeToFile(final ContentNode contentNode, final FileObject targetFile)
+            throws ContentMigrationException {
+        if (getContentNodeFileFormat().isJson()) {
+            writeContentNodeToJsonFile(contentNode, targetFile);
+            return;
+        }
+
+        OutputStream os = null;
+        BufferedOutputStream bos = null;
+
+        try {
+            os = targetFile.getContent().getOutputStream();
+            bos = new BufferedOutputStream(os);
+            getSmileContentNodeWriter().writeValue(bos, contentNode);
         } catch (IOException e) {
             throw new ContentMigrationException(e.toString(), e);
         } finally {
@@ -468,10 +826,9 @@ abstract public class AbstractContentMigrationTask implements ContentMigrationTa
         try {
             os = targetFile.getContent().getOutputStream();
             bos = new BufferedOutputStream(os);
-            JAXBContext jaxbContext = JAXBContext.newInstance(ContentNode.class);
-            Marshaller jaxbMarshaller = jaxbContext.createMarshaller();
-            jaxbMarshaller.setProperty(Marshaller.JAXB_FORMATTED_OUTPUT, true);
+            Marshaller jaxbMarshaller = borrowContentNodeMarshaller();
             jaxbMarshaller.marshal(contentNode, bos);
+            contentNodeMarshallerPool.offer(jaxbMarshaller);
         } catch (IOException | JAXBException e) {
             throw new ContentMigrationException(e.toString(), e);
         } finally {
@@ -480,6 +837,149 @@ abstract public class AbstractContentMigrationTask implements ContentMigrationTa
         }
     }
 
+    /**
+     * Returns the shared {@link JAXBContext} for {@link ContentNode}, creating it on the first call.
+     * @return the shared {@link JAXBContext} for {@link ContentNode}
+     * @throws JAXBException if the {@link JAXBContext} cannot be created
+     */
+    protected static JAXBContext getContentNodeJaxbContext() throws JAXBException {
+        JAXBContext jaxbContext = contentNodeJaxbContext;
+
+        if (jaxbContext == null) {
+            synchronized (AbstractContentMigrationTask.class) {
+                jaxbContext = contentNodeJaxbContext;
+
+                if (jaxbContext == null) {
+                    jaxbContext = JAXBContext.newInstance(ContentNode.class);
+                    contentNodeJaxbContext = jaxbContext;
+                }
+            }
+        }
+
+        return jaxbContext;
+    }
+
+    /**
+     * Takes an idle {@link Marshaller} from the pool or creates a new one if the pool is empty.
+     * A {@link Marshaller} is not thread-safe, so it must be given back to the pool only after use.
+     * @return a formatting {@link Marshaller} for {@link ContentNode}
+     * @throws JAXBException if a {@link Marshaller} cannot be created
+     */
+    private static Marshaller borrowContentNodeMarshaller() throws JAXBException {
+        Marshaller jaxbMarshaller = contentNodeMarshallerPool.poll();
+
+        if (jaxbMarshaller == null) {
+            jaxbMarshaller = getContentNodeJaxbContext().createMarshaller();
+            jaxbMarshaller.setProperty(Marshaller.JAXB_FORMATTED_OUTPUT, true);
+        }
+
+        return jaxbMarshaller;
+    }
+
+    /**
+     * Takes an idle {@link Unmarshaller} from the pool or creates a new one if the pool is empty.
+     * An {@link Unmarshaller} is not thread-safe, so it must be given back to the pool only after use.
+     * @return an {@link Unmarshaller} for {@link ContentNode}
+     * @throws JAXBException if an {@link Unmarshaller} cannot be created
+     */
+    private static Unmarshaller borrowContentNodeUnmarshaller() throws JAXBException {
+        Unmarshaller jaxbUnmarshaller = contentNodeUnmarshallerPool.poll();
+
+        if (jaxbUnmarshaller == null) {
+            jaxbUnmarshaller = getContentNodeJaxbContext().createUnmarshaller();
+        }
+
+        return jaxbUnmarshaller;
+    }
+
+    /**
+     * Reads a {@link ContentNode} from the {@code input} by the {@code reader}, through the parser created by
+     * {@link #createContentNodeParser(ObjectReader, InputStream)}.
+     * @param reader {@link ObjectReader} for {@link ContentNode}
+     * @param input input stream
+     * @return a parsed {@link ContentNode} object
+     * @throws IOException if reading fails
+     */
+    private ContentNode readContentNode(final ObjectReader reader, final InputStream input) throws IOException {
+        try (JsonParser parser = createContentNodeParser(reader, input)) {
+            return reader.readValue(parser);
+        }
+    }
+
+    /**
+     * Reads the first value of the {@link Constants#META_PROP_NODE_PATH} property in the top level properties
+     * of the {@link ContentNode} JSON, skipping the other fields.
+     * @param parser JSON parser positioned before the {@link ContentNode} JSON object
+     * @return the first value of the {@link Constants#META_PROP_NODE_PATH} property, or null if not found
+     * @throws IOException if reading fails
+     */
+    private static String readContentNodePath(final JsonParser parser) throws IOException {
+        if (parser.nextToken() != JsonToken.START_OBJECT) {
+            return null;
+        }
+
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            final String fieldName = parser.getCurrentName();
+
+            if (parser.nextToken() != JsonToken.START_ARRAY || !"properties".equals(fieldName)) {
+                parser.skipChildren();
+                continue;
+            }
+
+            while (parser.nextToken() == JsonToken.START_OBJECT) {
+                String name = null;
+                String firstValue = null;
+
+                while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                    final String propFieldName = parser.getCurrentName();
+                    final JsonToken token = parser.nextToken();
+
+                    if ("name".equals(propFieldName)) {
+                        name = parser.getValueAsString();
+                    } else if ("values".equals(propFieldName) && token == JsonToken.START_ARRAY) {
+                        JsonToken valueToken;
+
+                        while ((valueToken = parser.nextToken()) != JsonToken.END_ARRAY && valueToken != null) {
+                            if (firstValue == null && valueToken == JsonToken.VALUE_STRING) {
+                                firstValue = parser.getText();
+                            } else {
+                                parser.skipChildren();
+                            }
+                        }
+                    } else {
+                        parser.skipChildren();
+                    }
+                }
+
+                if (Constants.META_PROP_NODE_PATH.equals(name)) {
+                    return firstValue;
+                }
+            }
+
+            return null;
+        }
+
+        return null;
+    }
+
+    /**
+     * Returns true if the stream begins with the Smile format header, leaving the stream at the beginning.
+     * @param bis buffered input stream supporting mark and reset
+     * @return true if the stream begins with the Smile format header
+     * @throws IOException if reading fails
+     */
+    private static boolean startsWithSmileHeader(final BufferedInputStream bis) throws IOException {
+        bis.mark(3);
+
+        try {
+            return bis.read() == (SmileConstants.HEADER_BYTE_1 & 0xFF)
+                    && bis.read() == (SmileConstants.HEADER_BYTE_2 & 0xFF)
+                    && bis.read() == (SmileConstants.HEADER_BYTE_3 & 0xFF);
+        } finally {
+            bis.reset();
+        }
+    }
+
     /**
      * Returns true if this task was already started.
      * @return true if this task was already started
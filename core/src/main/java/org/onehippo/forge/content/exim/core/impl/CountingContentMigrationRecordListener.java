@@ -0,0 +1,110 @@
+/*
+ * Copyright 2024 Bloomreach B.V. (https://www.bloomreach.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onehippo.forge.content.exim.core.impl;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.onehippo.forge.content.exim.core.ContentMigrationRecord;
+import org.onehippo.forge.content.exim.core.ContentMigrationRecordListener;
+import org.onehippo.forge.content.exim.core.ContentMigrationTask;
+
+/**
+ * {@link ContentMigrationRecordListener} implementation which keeps counters of the ended records only,
+ * without retaining the records themselves.
+ */
+public class CountingContentMigrationRecordListener implements ContentMigrationRecordListener {
+
+    private final AtomicInteger totalCount = new AtomicInteger();
+    private final AtomicInteger processedCount = new AtomicInteger();
+    private final AtomicInteger succeededCount = new AtomicInteger();
+    private final AtomicLong totalDurationMillis = new AtomicLong();
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void onRecordBegin(ContentMigrationTask task, ContentMigrationRecord record) {
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void onRecordEnd(ContentMigrationTask task, ContentMigrationRecord record) {
+        totalCount.incrementAndGet();
+
+        if (record.isProcessed()) {
+            processedCount.incrementAndGet();
+
+            if (record.isSucceeded()) {
+                succeededCount.incrementAndGet();
+            }
+        }
+
+        totalDurationMillis.addAndGet(record.getDurationMillis());
+    }
+
+    /**
+     * Returns the total count of the ended records.
+     * @return the total count of the ended records
+     */
+    public int getTotalCount() {
+        return totalCount.get();
+    }
+
+    /**
+     * Returns the count of the ended records which were processed.
+     * @return the count of the ended records which were processed
+     */
+    public int getProcessedCount() {
+        return processedCount.get();
+    }
+
+    /**
+     * Returns the count of the ended records which were processed successfully.
+     * @return the count of the ended records which were processed successfully
+     */
+    public int getSucceededCount() {
+        return succeededCount.get();
+    }
+
+    /**
+     * Returns the count of the ended records which were processed but failed.
+     * @return the count of the ended records which were processed but failed
+     */
+    public int getFailedCount() {
+        return processedCount.get() - succeededCount.get();
+    }
+
+    /**
+     * Returns the sum of the duration milliseconds of the ended records.
+     * @return the sum of the duration milliseconds of the ended records
+     */
+    public long getTotalDurationMillis() {
+        return totalDurationMillis.get();
+    }
+
+    /**
+     * Resets all the counters.
+     */
+    public void reset() {
+        totalCount.set(0);
+        processedCount.set(0);
+        succeededCount.set(0);
+        totalDurationMillis.set(0L);
+    }
+}
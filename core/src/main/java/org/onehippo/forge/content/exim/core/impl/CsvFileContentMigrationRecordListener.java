@@ -0,0 +1,134 @@
+/*
+ * Copyright 2024 Bloomreach B.V. (https://www.bloomreach.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onehippo.forge.content.exim.core.impl;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.commons.csv.CSVFormat;
+import org.apache.commons.csv.CSVPrinter;
+import org.apache.commons.lang3.ObjectUtils;
+import org.apache.commons.lang3.StringUtils;
+import org.onehippo.forge.content.exim.core.ContentMigrationRecord;
+import org.onehippo.forge.content.exim.core.ContentMigrationRecordListener;
+import org.onehippo.forge.content.exim.core.ContentMigrationTask;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * {@link ContentMigrationRecordListener} implementation which spills each ended record into a CSV file,
+ * so that the records do not have to be retained in memory until the task stops.
+ * <P>
+ * The CSV file has the columns of the details section of {@link AbstractContentMigrationTask#getSummary()}
+ * followed by an additional {@code DURATION} column with the duration milliseconds of each record:
+ * {@code SEQ, PROCESSED, SUCCEEDED, ID, PATH, TYPE, ATTRIBUTES, ERROR, DURATION}.
+ * So, the file cannot be appended to the details section as it is.
+ * </P>
+ */
+public class CsvFileContentMigrationRecordListener implements ContentMigrationRecordListener, Closeable {
+
+    private static Logger log = LoggerFactory.getLogger(CsvFileContentMigrationRecordListener.class);
+
+    private final File file;
+    private final AtomicInteger seq = new AtomicInteger();
+    private CSVPrinter csvPrinter;
+
+    /**
+     * Constructs with the spill file.
+     * @param file the CSV file to spill the records into
+     */
+    public CsvFileContentMigrationRecordListener(final File file) {
+        this.file = file;
+    }
+
+    /**
+     * Returns the CSV file to spill the records into.
+     * @return the CSV file to spill the records into
+     */
+    public File getFile() {
+        return file;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void onRecordBegin(ContentMigrationTask task, ContentMigrationRecord record) {
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public synchronized void onRecordEnd(ContentMigrationTask task, ContentMigrationRecord record) {
+        try {
+            if (csvPrinter == null) {
+                csvPrinter = CSVFormat.DEFAULT
+                        .withHeader("SEQ", "PROCESSED", "SUCCEEDED", "ID", "PATH", "TYPE", "ATTRIBUTES", "ERROR",
+                                "DURATION")
+                        .print(new BufferedWriter(
+                                new OutputStreamWriter(new FileOutputStream(file), StandardCharsets.UTF_8)));
+            }
+
+            csvPrinter.printRecord(seq.incrementAndGet(), record.isProcessed(), record.isSucceeded(),
+                    StringUtils.defaultString(record.getContentId()),
+                    StringUtils.defaultString(record.getContentPath()),
+                    StringUtils.defaultString(record.getContentType()),
+                    ObjectUtils.toString(record.getAttributeMap()),
+                    StringUtils.defaultString(record.getErrorMessage()), record.getDurationMillis());
+        } catch (IOException e) {
+            log.error("Failed to spill the record into {}: {}", file, record, e);
+        }
+    }
+
+    /**
+     * Flushes the records written so far into the file.
+     */
+    public synchronized void flush() {
+        if (csvPrinter != null) {
+            try {
+                csvPrinter.flush();
+            } catch (IOException e) {
+                log.error("Failed to flush the records into {}.", file, e);
+            }
+        }
+    }
+
+    /**
+     * Returns the count of the records written into the file.
+     * @return the count of the records written into the file
+     */
+    public int getRecordCount() {
+        return seq.get();
+    }
+
+    /**
+     * Closes the underlying writer of the spill file.
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        if (csvPrinter != null) {
+            csvPrinter.close();
+            csvPrinter = null;
+        }
+    }
+}
@@ -25,6 +25,7 @@ import org.onehippo.forge.content.exim.core.Constants;
 import org.onehippo.forge.content.exim.core.ContentMigrationException;
 import org.onehippo.forge.content.exim.core.DocumentManager;
 import org.onehippo.forge.content.exim.core.DocumentManagerException;
+import org.onehippo.forge.content.exim.core.util.DocumentExistenceResolver;
 import org.onehippo.forge.content.exim.core.util.HippoBinaryNodeUtils;
 import org.onehippo.forge.content.pojo.binder.ContentNodeBindingItemFilter;
 import org.onehippo.forge.content.pojo.binder.jcr.DefaultContentNodeJcrBindingItemFilter;
@@ -73,15 +74,28 @@ public class DefaultBinaryImportTask extends AbstractContentImportTask implement
     public String createOrUpdateBinaryFolder(String folderLocation, String primaryTypeName, String[] folderTypes,
             String[] galleryTypes) throws ContentMigrationException {
         String folderPath = null;
+        final DocumentExistenceResolver existenceResolver = getDocumentExistenceResolver();
 
         try {
+            if (existenceResolver != null) {
+                folderPath = existenceResolver.getExistingFolderPath(folderLocation);
+
+                if (folderPath != null) {
+                    return folderPath;
+                }
+            }
+
             final Node folderNode = HippoBinaryNodeUtils.createMissingHippoBinaryFolders(getDocumentManager().getSession(),
                     folderLocation, primaryTypeName, folderTypes, galleryTypes);
             getDocumentManager().getSession().save();
             folderPath = folderNode.getPath();
-        } catch (RepositoryException | WorkflowException e) {
+
+            if (existenceResolver != null) {
+                existenceResolver.markFolderCreated(folderLocation, folderNode);
+            }
+        } catch (RepositoryException | WorkflowException | DocumentManagerException e) {
             try {
-                getDocumentManager().getSession().refresh(false);
+                discardPendingChanges();
             } catch (RepositoryException re) {
                 e.printStackTrace();
             }
@@ -129,7 +143,7 @@ public class DefaultBinaryImportTask extends AbstractContentImportTask implement
             getDocumentManager().getSession().save();
         } catch (Exception e) {
             try {
-                getDocumentManager().getSession().refresh(false);
+                discardPendingChanges();
             } catch (RepositoryException re) {
                 e.printStackTrace();
             }
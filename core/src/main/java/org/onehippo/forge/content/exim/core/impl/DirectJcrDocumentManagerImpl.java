@@ -0,0 +1,478 @@
+/*
+ * Copyright 2024 Bloomreach B.V. (https://www.bloomreach.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onehippo.forge.content.exim.core.impl;
+
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.List;
+import java.util.UUID;
+
+import javax.jcr.Node;
+import javax.jcr.NodeIterator;
+import javax.jcr.RepositoryException;
+import javax.jcr.Session;
+
+import org.apache.commons.lang3.StringUtils;
+import org.hippoecm.repository.HippoStdNodeType;
+import org.hippoecm.repository.api.Document;
+import org.hippoecm.repository.api.HippoNodeType;
+import org.hippoecm.repository.util.JcrUtils;
+import org.onehippo.forge.content.exim.core.DocumentCreationRequest;
+import org.onehippo.forge.content.exim.core.DocumentManager;
+import org.onehippo.forge.content.exim.core.DocumentManagerBatchResult;
+import org.onehippo.forge.content.exim.core.DocumentManagerException;
+import org.onehippo.forge.content.exim.core.util.ContentPathUtils;
+import org.onehippo.forge.content.exim.core.util.HippoNodeUtils;
+
+/**
+ * {@link DocumentManager} implementation creating, committing, publishing and depublishing documents directly
+ * through JCR API, without going through Hippo Workflow APIs, for fast bulk loads into an environment
+ * without concurrent editors.
+ * <P>
+ * The handle and variant nodes are created with the same mixins and the same <code>hippostd:state</code>,
+ * <code>hippostd:stateSummary</code>, <code>hippostdpubwf:*</code>, <code>hippo:availability</code> and
+ * <code>hippotranslation:*</code> properties as the document workflow would set, but this implementation neither
+ * applies the document type prototype nor creates version history on publication, and it never saves the session
+ * by itself. The caller is supposed to save the session, e.g, in batches.
+ * </P>
+ * <P>
+ * The other operations such as copying, deleting or translating documents are done through Hippo Workflow APIs
+ * as {@link WorkflowDocumentManagerImpl} does.
+ * </P>
+ */
+public class DirectJcrDocumentManagerImpl extends WorkflowDocumentManagerImpl {
+
+    private static final String MIX_REFERENCEABLE = "mix:referenceable";
+
+    private static final String HIPPO_NAMED = "hippo:named";
+
+    private static final String HIPPO_NAME = "hippo:name";
+
+    private static final String HIPPOSTD_HOLDER = "hippostd:holder";
+
+    private static final String HIPPOSTD_PUBLISHABLE_SUMMARY = "hippostd:publishableSummary";
+
+    private static final String HIPPOSTD_STATE_SUMMARY = "hippostd:stateSummary";
+
+    private static final String STATE_SUMMARY_NEW = "new";
+
+    private static final String STATE_SUMMARY_LIVE = "live";
+
+    private static final String STATE_SUMMARY_CHANGED = "changed";
+
+    private static final String HIPPOSTDPUBWF_CREATED_BY = "hippostdpubwf:createdBy";
+
+    private static final String HIPPOSTDPUBWF_CREATION_DATE = "hippostdpubwf:creationDate";
+
+    private static final String HIPPOSTDPUBWF_LAST_MODIFIED_BY = "hippostdpubwf:lastModifiedBy";
+
+    private static final String HIPPOSTDPUBWF_LAST_MODIFIED_DATE = "hippostdpubwf:lastModificationDate";
+
+    private static final String HIPPOSTDPUBWF_PUBLICATION_DATE = "hippostdpubwf:publicationDate";
+
+    private static final String HIPPOTRANSLATION_TRANSLATED = "hippotranslation:translated";
+
+    private static final String HIPPOTRANSLATION_LOCALE = "hippotranslation:locale";
+
+    private static final String HIPPOTRANSLATION_ID = "hippotranslation:id";
+
+    private static final String AVAILABILITY_LIVE = "live";
+
+    private static final String AVAILABILITY_PREVIEW = "preview";
+
+    /**
+     * Constructs with {@code session}.
+     *
+     * @param session JCR session to use
+     */
+    public DirectJcrDocumentManagerImpl(final Session session) {
+        super(session);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String createDocument(String folderLocation, String primaryTypeName, String nodeName, String locale,
+            String localizedName) throws DocumentManagerException {
+        getLogger().debug("##### createDocument under '{}')", folderLocation);
+
+        try {
+            final Node folderNode = getOrCreateFolderNode(folderLocation);
+            final Node handle = addDocumentNodes(folderNode, primaryTypeName, nodeName, locale, localizedName);
+            return handle.getPath();
+        } catch (Exception e) {
+            getLogger().error("Failed to add a document with '{}' under '{}'.", nodeName, folderLocation, e);
+            throw new DocumentManagerException(
+                    "Failed to add a document with '" + nodeName + "' under '" + folderLocation + "'. " + e, e);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     * <P>
+     * This resolves or creates the folder only once for all the documents.
+     * </P>
+     */
+    @Override
+    public List<DocumentManagerBatchResult> createDocuments(String folderLocation,
+            List<DocumentCreationRequest> requests) {
+        getLogger().debug("##### createDocuments under '{}')", folderLocation);
+
+        final List<DocumentManagerBatchResult> results = new ArrayList<>(requests.size());
+        final Node folderNode;
+
+        try {
+            folderNode = getOrCreateFolderNode(folderLocation);
+        } catch (Exception e) {
+            getLogger().error("Failed to add documents under '{}'.", folderLocation, e);
+            final DocumentManagerException dme = new DocumentManagerException(
+                    "Failed to add documents under '" + folderLocation + "'. " + e, e);
+
+            for (DocumentCreationRequest request : requests) {
+                results.add(new DocumentManagerBatchResult(request.getNodeName(), dme));
+            }
+
+            return results;
+        }
+
+        for (DocumentCreationRequest request : requests) {
+            final String nodeName = request.getNodeName();
+
+            try {
+                final Node handle = addDocumentNodes(folderNode, request.getPrimaryTypeName(), nodeName,
+                        request.getLocale(), request.getLocalizedName());
+                results.add(new DocumentManagerBatchResult(nodeName, handle.getPath(), null));
+            } catch (Exception e) {
+                getLogger().error("Failed to add a document with '{}' under '{}'.", nodeName, folderLocation, e);
+                results.add(new DocumentManagerBatchResult(nodeName, new DocumentManagerException(
+                        "Failed to add a document with '" + nodeName + "' under '" + folderLocation + "'. " + e, e)));
+            }
+        }
+
+        return results;
+    }
+
+    /**
+     * Adds a document handle node and its unpublished variant node under {@code folderNode}.
+     *
+     * @param folderNode folder node
+     * @param primaryTypeName primary node type name of document to be created
+     * @param nodeName document node name
+     * @param locale locale for the document display name. e.g, "en"
+     * @param localizedName localized document name associated with the {@code locale}
+     * @return the added document handle node
+     * @throws RepositoryException if unexpected repository exception occurs
+     */
+    protected Node addDocumentNodes(final Node folderNode, final String primaryTypeName, final String nodeName,
+            final String locale, final String localizedName) throws RepositoryException {
+        final String handleName = ContentPathUtils
+                .encodeNodePath(ContentPathUtils.removeIndexNotationInNodePath(nodeName));
+
+        if (folderNode.hasNode(handleName)) {
+            throw new IllegalStateException("Node already exists at '" + folderNode.getPath() + "/" + handleName
+                    + "'.");
+        }
+
+        final Node handle = folderNode.addNode(handleName, HippoNodeType.NT_HANDLE);
+        handle.addMixin(MIX_REFERENCEABLE);
+
+        if (StringUtils.isNotBlank(localizedName)) {
+            handle.addMixin(HIPPO_NAMED);
+            handle.setProperty(HIPPO_NAME, localizedName);
+        }
+
+        final Node variant = handle.addNode(handleName, primaryTypeName);
+        variant.addMixin(MIX_REFERENCEABLE);
+
+        final Calendar now = Calendar.getInstance();
+        final String userId = getSession().getUserID();
+
+        variant.setProperty(HippoStdNodeType.HIPPOSTD_STATE, HippoStdNodeType.UNPUBLISHED);
+        variant.setProperty(HippoNodeType.HIPPO_AVAILABILITY, new String[] { AVAILABILITY_PREVIEW });
+        variant.setProperty(HIPPOSTDPUBWF_CREATED_BY, userId);
+        variant.setProperty(HIPPOSTDPUBWF_CREATION_DATE, now);
+        variant.setProperty(HIPPOSTDPUBWF_LAST_MODIFIED_BY, userId);
+        variant.setProperty(HIPPOSTDPUBWF_LAST_MODIFIED_DATE, now);
+
+        if (StringUtils.isNotBlank(locale)) {
+            if (!variant.isNodeType(HIPPOTRANSLATION_TRANSLATED)) {
+                variant.addMixin(HIPPOTRANSLATION_TRANSLATED);
+            }
+
+            variant.setProperty(HIPPOTRANSLATION_LOCALE, locale);
+            variant.setProperty(HIPPOTRANSLATION_ID, UUID.randomUUID().toString());
+        }
+
+        updateStateSummary(handle);
+
+        return handle;
+    }
+
+    /**
+     * {@inheritDoc}
+     * <P>
+     * This returns the unpublished variant, creating it from the published variant if missing,
+     * so the content is bound to the unpublished variant directly.
+     * </P>
+     */
+    @Override
+    public Document obtainEditableDocument(final Node documentHandleNode) throws DocumentManagerException {
+        if (documentHandleNode == null) {
+            throw new IllegalArgumentException("Document handle node may not be null");
+        }
+
+        String handlePath = "";
+
+        try {
+            handlePath = documentHandleNode.getPath();
+            getLogger().debug("##### obtainEditableDocument for path {}", handlePath);
+
+            Node unpublished = HippoNodeUtils.getDocumentVariantByHippoStdState(documentHandleNode,
+                    HippoStdNodeType.UNPUBLISHED);
+
+            if (unpublished == null) {
+                final Node published = HippoNodeUtils.getDocumentVariantByHippoStdState(documentHandleNode,
+                        HippoStdNodeType.PUBLISHED);
+
+                if (published == null) {
+                    throw new IllegalStateException("No unpublished or published variant in document at '"
+                            + handlePath + "'.");
+                }
+
+                unpublished = copyVariant(published, HippoStdNodeType.UNPUBLISHED,
+                        new String[] { AVAILABILITY_PREVIEW });
+            }
+
+            return new Document(unpublished);
+        } catch (Exception e) {
+            final String message = "Failed to obtain editable instance for document '" + handlePath + "'";
+            getLogger().error(message, e);
+            throw new DocumentManagerException(message, e);
+        }
+    }
+
+    /**
+     * Returns the unpublished variant as there's no separate draft to discard, as the content is bound
+     * to the unpublished variant directly.
+     */
+    @Override
+    protected Document disposeEditableDocument(final Node documentHandleNode) throws DocumentManagerException {
+        if (documentHandleNode == null) {
+            throw new IllegalArgumentException("Document handle node may not be null");
+        }
+
+        try {
+            final Node unpublished = HippoNodeUtils.getDocumentVariantByHippoStdState(documentHandleNode,
+                    HippoStdNodeType.UNPUBLISHED);
+            return (unpublished != null) ? new Document(unpublished) : null;
+        } catch (RepositoryException e) {
+            getLogger().error("Failed to dispose editable instance on document.", e);
+            throw new DocumentManagerException(e);
+        }
+    }
+
+    /**
+     * Updates the modification properties of the unpublished variant,
+     * and replaces the draft variant by a copy of the unpublished variant, as the document workflow would leave
+     * the draft variant after committing.
+     */
+    @Override
+    protected Document commitEditableDocument(final Node documentHandleNode) throws DocumentManagerException {
+        if (documentHandleNode == null) {
+            throw new IllegalArgumentException("Document handle node may not be null");
+        }
+
+        String handlePath = "";
+
+        try {
+            handlePath = documentHandleNode.getPath();
+
+            final Node unpublished = HippoNodeUtils.getDocumentVariantByHippoStdState(documentHandleNode,
+                    HippoStdNodeType.UNPUBLISHED);
+
+            if (unpublished == null) {
+                throw new IllegalStateException("No unpublished variant in document at '" + handlePath + "'.");
+            }
+
+            unpublished.setProperty(HIPPOSTDPUBWF_LAST_MODIFIED_BY, getSession().getUserID());
+            unpublished.setProperty(HIPPOSTDPUBWF_LAST_MODIFIED_DATE, Calendar.getInstance());
+
+            removeVariant(documentHandleNode, HippoStdNodeType.DRAFT);
+            final Node draft = copyVariant(unpublished, HippoStdNodeType.DRAFT, new String[0]);
+
+            if (draft.hasProperty(HIPPOSTD_HOLDER)) {
+                draft.getProperty(HIPPOSTD_HOLDER).remove();
+            }
+
+            updateStateSummary(documentHandleNode);
+
+            return new Document(unpublished);
+        } catch (Exception e) {
+            final String message = "Failed to commit editable instance on document '" + handlePath + "'";
+            getLogger().error(message, e);
+            throw new DocumentManagerException(message, e);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     * <P>
+     * This replaces the published variant by a copy of the unpublished variant.
+     * </P>
+     */
+    @Override
+    public boolean publishDocument(String documentLocation) throws DocumentManagerException {
+        getLogger().debug("##### publishDocument('{}')", documentLocation);
+
+        if (StringUtils.isBlank(documentLocation)) {
+            throw new IllegalArgumentException("Invalid document location: '" + documentLocation + "'.");
+        }
+
+        try {
+            final Node documentHandleNode = getExistingDocumentHandleNode(documentLocation);
+            final Node unpublished = HippoNodeUtils.getDocumentVariantByHippoStdState(documentHandleNode,
+                    HippoStdNodeType.UNPUBLISHED);
+
+            if (unpublished == null) {
+                throw new IllegalStateException("Document at '" + documentLocation + "' doesn't have publish action.");
+            }
+
+            removeVariant(documentHandleNode, HippoStdNodeType.PUBLISHED);
+            final Node published = copyVariant(unpublished, HippoStdNodeType.PUBLISHED,
+                    new String[] { AVAILABILITY_LIVE });
+            published.setProperty(HIPPOSTDPUBWF_PUBLICATION_DATE, Calendar.getInstance());
+            unpublished.setProperty(HippoNodeType.HIPPO_AVAILABILITY, new String[] { AVAILABILITY_PREVIEW });
+            updateStateSummary(documentHandleNode);
+        } catch (RepositoryException e) {
+            getLogger().error("Failed to publish document at '{}'.", documentLocation, e);
+            throw new DocumentManagerException("Failed to publish document at '" + documentLocation + "'. " + e, e);
+        }
+
+        return true;
+    }
+
+    /**
+     * {@inheritDoc}
+     * <P>
+     * This takes the published variant offline by clearing its availability.
+     * </P>
+     */
+    @Override
+    public boolean depublishDocument(String documentLocation) throws DocumentManagerException {
+        getLogger().debug("##### depublishDocument('{}')", documentLocation);
+
+        if (StringUtils.isBlank(documentLocation)) {
+            throw new IllegalArgumentException("Invalid document location: '" + documentLocation + "'.");
+        }
+
+        try {
+            final Node documentHandleNode = getExistingDocumentHandleNode(documentLocation);
+
+            if (HippoNodeUtils.isDocumentHandleLive(documentHandleNode)) {
+                final Node published = HippoNodeUtils.getDocumentVariantByHippoStdState(documentHandleNode,
+                        HippoStdNodeType.PUBLISHED);
+                published.setProperty(HippoNodeType.HIPPO_AVAILABILITY, new String[0]);
+                updateStateSummary(documentHandleNode);
+            }
+        } catch (RepositoryException e) {
+            getLogger().error("Failed to depublish document at '{}'.", documentLocation, e);
+            throw new DocumentManagerException("Failed to depublish document at '" + documentLocation + "'. " + e, e);
+        }
+
+        return true;
+    }
+
+    /**
+     * {@inheritDoc}
+     * <P>
+     * This returns false as committing doesn't go through the workflow, so the caller may save the pending
+     * changes of many documents at once.
+     * </P>
+     */
+    @Override
+    public boolean isSaveBeforeCommitRequired() {
+        return false;
+    }
+
+    /**
+     * {@inheritDoc}
+     * <P>
+     * This does nothing as this implementation never saves the session by itself, and the batch operations
+     * don't invoke workflow actions which need to see the pending changes.
+     * </P>
+     */
+    @Override
+    protected void savePendingChanges() throws RepositoryException {
+    }
+
+    /**
+     * Copies the {@code sourceVariant} to a new sibling variant in the {@code state}
+     * with the {@code availability}.
+     * @param sourceVariant source variant node
+     * @param state <code>hippostd:state</code> property value of the new variant
+     * @param availability <code>hippo:availability</code> property values of the new variant
+     * @return the new variant node
+     * @throws RepositoryException if unexpected repository exception occurs
+     */
+    protected Node copyVariant(final Node sourceVariant, final String state, final String[] availability)
+            throws RepositoryException {
+        final Node handle = sourceVariant.getParent();
+        final Node variant = JcrUtils.copy(sourceVariant, handle.getName(), handle);
+        variant.setProperty(HippoStdNodeType.HIPPOSTD_STATE, state);
+        variant.setProperty(HippoNodeType.HIPPO_AVAILABILITY, availability);
+        return variant;
+    }
+
+    /**
+     * Sets the <code>hippostd:stateSummary</code> property of each variant under the {@code handle} if the variant
+     * type supports it, as the document workflow would: "new" if the document is not live, "changed" if the
+     * unpublished variant was modified after the live variant had been published, or "live" otherwise.
+     * @param handle document handle node
+     * @throws RepositoryException if unexpected repository exception occurs
+     */
+    protected void updateStateSummary(final Node handle) throws RepositoryException {
+        final Node unpublished = HippoNodeUtils.getDocumentVariantByHippoStdState(handle,
+                HippoStdNodeType.UNPUBLISHED);
+        String stateSummary = STATE_SUMMARY_NEW;
+
+        if (HippoNodeUtils.isDocumentHandleLive(handle)) {
+            final Node published = HippoNodeUtils.getDocumentVariantByHippoStdState(handle,
+                    HippoStdNodeType.PUBLISHED);
+            stateSummary = (unpublished != null && unpublished.hasProperty(HIPPOSTDPUBWF_LAST_MODIFIED_DATE)
+                    && published.hasProperty(HIPPOSTDPUBWF_LAST_MODIFIED_DATE)
+                    && unpublished.getProperty(HIPPOSTDPUBWF_LAST_MODIFIED_DATE).getDate()
+                            .after(published.getProperty(HIPPOSTDPUBWF_LAST_MODIFIED_DATE).getDate()))
+                                    ? STATE_SUMMARY_CHANGED : STATE_SUMMARY_LIVE;
+        }
+
+        for (NodeIterator nodeIt = handle.getNodes(handle.getName()); nodeIt.hasNext();) {
+            final Node variant = nodeIt.nextNode();
+
+            if (variant != null && variant.isNodeType(HIPPOSTD_PUBLISHABLE_SUMMARY)) {
+                variant.setProperty(HIPPOSTD_STATE_SUMMARY, stateSummary);
+            }
+        }
+    }
+
+    private void removeVariant(final Node handle, final String state) throws RepositoryException {
+        final Node variant = HippoNodeUtils.getDocumentVariantByHippoStdState(handle, state);
+
+        if (variant != null) {
+            variant.remove();
+        }
+    }
+}
@@ -16,7 +16,11 @@
 package org.onehippo.forge.content.exim.core.impl;
 
 import java.rmi.RemoteException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
 import java.util.Map;
+import java.util.stream.Collectors;
 
 import javax.jcr.Node;
 import javax.jcr.RepositoryException;
@@ -29,10 +33,13 @@ import org.hippoecm.repository.HippoStdNodeType;
 import org.hippoecm.repository.api.Document;
 import org.hippoecm.repository.api.HippoNodeType;
 import org.hippoecm.repository.api.WorkflowException;
+import org.hippoecm.repository.api.WorkflowManager;
 import org.hippoecm.repository.standardworkflow.DefaultWorkflow;
 import org.hippoecm.repository.standardworkflow.FolderWorkflow;
 import org.hippoecm.repository.translation.TranslationWorkflow;
+import org.onehippo.forge.content.exim.core.DocumentCreationRequest;
 import org.onehippo.forge.content.exim.core.DocumentManager;
+import org.onehippo.forge.content.exim.core.DocumentManagerBatchResult;
 import org.onehippo.forge.content.exim.core.DocumentManagerException;
 import org.onehippo.forge.content.exim.core.DocumentManagerNotFoundException;
 import org.onehippo.forge.content.exim.core.util.ContentPathUtils;
@@ -82,6 +89,11 @@ public class WorkflowDocumentManagerImpl implements DocumentManager {
 
     private final Session session;
 
+    /**
+     * {@link WorkflowManager} resolved once and shared by the items in a batch operation, or null otherwise.
+     */
+    private WorkflowManager batchWorkflowManager;
+
     /**
      * Constructs with {@code session}.
      *
@@ -392,24 +404,7 @@ public class WorkflowDocumentManagerImpl implements DocumentManager {
         String createdDocPath = null;
 
         try {
-            String existingFolderPath = getExistingFolderPath(folderLocation);
-            Node folderNode = null;
-
-            if (existingFolderPath != null) {
-                folderNode = getSession().getNode(existingFolderPath);
-            } else {
-                folderNode = HippoNodeUtils.createMissingHippoFolders(getSession(),
-                        ContentPathUtils.encodeNodePath(ContentPathUtils.removeIndexNotationInNodePath(folderLocation)));
-
-                if (folderNode == null) {
-                    throw new IllegalArgumentException("Folder is not available at '" + folderLocation + "'.");
-                }
-
-                if (!folderNode.isNodeType(HippoStdNodeType.NT_FOLDER)) {
-                    throw new IllegalStateException("Invalid folder found at '" + folderLocation + "', not 'hippostd:folder' type.");
-                }
-            }
-
+            final Node folderNode = getOrCreateFolderNode(folderLocation);
             final FolderWorkflow folderWorkflow = getFolderWorkflow(folderNode);
 
             Boolean add = (Boolean) folderWorkflow.hints().get("add");
@@ -433,6 +428,102 @@ public class WorkflowDocumentManagerImpl implements DocumentManager {
         return createdDocPath;
     }
 
+    /**
+     * {@inheritDoc}
+     * <P>
+     * This resolves or creates the folder and gets its folder workflow only once for all the documents,
+     * and gets the workflows of the created documents from the same {@link WorkflowManager}.
+     * </P>
+     */
+    @Override
+    public List<DocumentManagerBatchResult> createDocuments(String folderLocation,
+            List<DocumentCreationRequest> requests) {
+        getLogger().debug("##### createDocuments under '{}')", folderLocation);
+
+        final List<DocumentManagerBatchResult> results = new ArrayList<>(requests.size());
+        final FolderWorkflow folderWorkflow;
+
+        try {
+            beginBatchOperation();
+            final Node folderNode = getOrCreateFolderNode(folderLocation);
+            folderWorkflow = getFolderWorkflow(folderNode);
+
+            Boolean add = (Boolean) folderWorkflow.hints().get("add");
+
+            if (!BooleanUtils.isTrue(add)) {
+                throw new IllegalStateException("Folder at '" + folderLocation + "' is not allowed to add a document.");
+            }
+        } catch (Exception e) {
+            getLogger().error("Failed to add documents under '{}'.", folderLocation, e);
+            final DocumentManagerException dme = new DocumentManagerException(
+                    "Failed to add documents under '" + folderLocation + "'. " + e, e);
+
+            for (DocumentCreationRequest request : requests) {
+                results.add(new DocumentManagerBatchResult(request.getNodeName(), dme));
+            }
+
+            endBatchOperation();
+            return results;
+        }
+
+        try {
+            for (DocumentCreationRequest request : requests) {
+                final String nodeName = request.getNodeName();
+
+                try {
+                    final String addedDocPath = folderWorkflow.add("new-document", request.getPrimaryTypeName(),
+                            ContentPathUtils.encodeNodePath(ContentPathUtils.removeIndexNotationInNodePath(nodeName)));
+                    final Node handle = HippoNodeUtils.getHippoDocumentHandle(getSession().getNode(addedDocPath));
+                    final DefaultWorkflow defaultWorkflow = getDefaultWorkflow(handle);
+                    defaultWorkflow.setDisplayName(request.getLocalizedName());
+                    results.add(new DocumentManagerBatchResult(nodeName, handle.getPath(), null));
+                } catch (Exception e) {
+                    getLogger().error("Failed to add a document with '{}' under '{}'.", nodeName, folderLocation, e);
+                    results.add(new DocumentManagerBatchResult(nodeName, new DocumentManagerException(
+                            "Failed to add a document with '" + nodeName + "' under '" + folderLocation + "'. " + e,
+                            e)));
+                }
+            }
+        } finally {
+            endBatchOperation();
+        }
+
+        return results;
+    }
+
+    /**
+     * Returns the existing folder node at {@code folderLocation}, or creates the missing folders
+     * and returns the last created folder node.
+     *
+     * @param folderLocation folder path
+     * @return the existing or created folder node
+     * @throws RepositoryException if unexpected repository exception occurs
+     * @throws WorkflowException if folder creation fails
+     * @throws DocumentManagerException if fails to find the folder
+     */
+    protected Node getOrCreateFolderNode(final String folderLocation)
+            throws RepositoryException, WorkflowException, DocumentManagerException {
+        String existingFolderPath = getExistingFolderPath(folderLocation);
+        Node folderNode = null;
+
+        if (existingFolderPath != null) {
+            folderNode = getSession().getNode(existingFolderPath);
+        } else {
+            folderNode = HippoNodeUtils.createMissingHippoFolders(getSession(),
+                    ContentPathUtils.encodeNodePath(ContentPathUtils.removeIndexNotationInNodePath(folderLocation)));
+
+            if (folderNode == null) {
+                throw new IllegalArgumentException("Folder is not available at '" + folderLocation + "'.");
+            }
+
+            if (!folderNode.isNodeType(HippoStdNodeType.NT_FOLDER)) {
+                throw new IllegalStateException("Invalid folder found at '" + folderLocation + "', not 'hippostd:folder' type.");
+            }
+        }
+
+        return folderNode;
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -612,6 +703,31 @@ public class WorkflowDocumentManagerImpl implements DocumentManager {
         }
     }
 
+    /**
+     * {@inheritDoc}
+     * <P>
+     * This saves the pending changes of all the documents at once before committing them, and gets the workflows
+     * of all the documents from the same {@link WorkflowManager}.
+     * </P>
+     */
+    @Override
+    public List<DocumentManagerBatchResult> commitEditableDocuments(Collection<Document> editableDocuments) {
+        try {
+            savePendingChanges();
+            beginBatchOperation();
+        } catch (RepositoryException e) {
+            getLogger().error("Failed to save editable instances before committing", e);
+            return failAll(editableDocuments.stream().map(doc -> (doc != null) ? doc.getIdentity() : null)
+                    .collect(Collectors.toList()), new DocumentManagerException(e));
+        }
+
+        try {
+            return DocumentManager.super.commitEditableDocuments(editableDocuments);
+        } finally {
+            endBatchOperation();
+        }
+    }
+
     /**
      * Commits the draft variant which is currently being edited.
      */
@@ -673,6 +789,30 @@ public class WorkflowDocumentManagerImpl implements DocumentManager {
         return published;
     }
 
+    /**
+     * {@inheritDoc}
+     * <P>
+     * This saves the pending changes of all the documents at once before publishing them, and gets the workflows
+     * of all the documents from the same {@link WorkflowManager}.
+     * </P>
+     */
+    @Override
+    public List<DocumentManagerBatchResult> publishDocuments(Collection<String> documentLocations) {
+        try {
+            savePendingChanges();
+            beginBatchOperation();
+        } catch (RepositoryException e) {
+            getLogger().error("Failed to save pending changes before publishing", e);
+            return failAll(documentLocations, new DocumentManagerException(e));
+        }
+
+        try {
+            return DocumentManager.super.publishDocuments(documentLocations);
+        } finally {
+            endBatchOperation();
+        }
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -850,6 +990,34 @@ public class WorkflowDocumentManagerImpl implements DocumentManager {
         return translatedDocument;
     }
 
+    /**
+     * Saves the pending changes in the session, if any, before invoking workflow actions in a batch operation,
+     * so that the workflow actions see the changes.
+     *
+     * @throws RepositoryException if unexpected repository exception occurs
+     */
+    protected void savePendingChanges() throws RepositoryException {
+        if (getSession().hasPendingChanges()) {
+            getSession().save();
+        }
+    }
+
+    /**
+     * Resolves the {@link WorkflowManager} once to get the workflows of all the items in a batch operation.
+     *
+     * @throws RepositoryException if unexpected repository exception occurs
+     */
+    protected void beginBatchOperation() throws RepositoryException {
+        batchWorkflowManager = HippoNodeUtils.getHippoWorkflowManager(getSession());
+    }
+
+    /**
+     * Ends the batch operation begun by {@link #beginBatchOperation()}.
+     */
+    protected void endBatchOperation() {
+        batchWorkflowManager = null;
+    }
+
     /**
      * {@inheritDoc}
      *
@@ -859,8 +1027,8 @@ public class WorkflowDocumentManagerImpl implements DocumentManager {
      */
     @Override
     public DocumentWorkflow getDocumentWorkflow(final Node documentHandleNode) throws RepositoryException {
-        return (DocumentWorkflow) HippoNodeUtils.getHippoWorkflow(getSession(), getDocumentWorkflowCategory(),
-                documentHandleNode);
+        return (DocumentWorkflow) HippoNodeUtils.getHippoWorkflow(getSession(), batchWorkflowManager,
+                getDocumentWorkflowCategory(), documentHandleNode);
     }
 
     /**
@@ -871,7 +1039,8 @@ public class WorkflowDocumentManagerImpl implements DocumentManager {
      * @throws RepositoryException if unexpected repository exception occurs
      */
     protected FolderWorkflow getFolderWorkflow(final Node folderNode) throws RepositoryException {
-        return (FolderWorkflow) HippoNodeUtils.getHippoWorkflow(getSession(), getFolderWorkflowCategory(), folderNode);
+        return (FolderWorkflow) HippoNodeUtils.getHippoWorkflow(getSession(), batchWorkflowManager,
+                getFolderWorkflowCategory(), folderNode);
     }
 
     /**
@@ -882,8 +1051,8 @@ public class WorkflowDocumentManagerImpl implements DocumentManager {
      * @throws RepositoryException if unexpected repository exception occurs
      */
     protected DefaultWorkflow getDefaultWorkflow(final Node documentHandleNode) throws RepositoryException {
-        return (DefaultWorkflow) HippoNodeUtils.getHippoWorkflow(getSession(), getDefaultWorkflowCategory(),
-                documentHandleNode);
+        return (DefaultWorkflow) HippoNodeUtils.getHippoWorkflow(getSession(), batchWorkflowManager,
+                getDefaultWorkflowCategory(), documentHandleNode);
     }
 
     /**
@@ -894,7 +1063,7 @@ public class WorkflowDocumentManagerImpl implements DocumentManager {
      * @throws RepositoryException if unexpected repository exception occurs
      */
     protected TranslationWorkflow getFolderTranslationWorkflow(final Node folderNode) throws RepositoryException {
-        return (TranslationWorkflow) HippoNodeUtils.getHippoWorkflow(getSession(),
+        return (TranslationWorkflow) HippoNodeUtils.getHippoWorkflow(getSession(), batchWorkflowManager,
                 getFolderTranslationWorkflowCategory(), folderNode);
     }
 
@@ -907,8 +1076,19 @@ public class WorkflowDocumentManagerImpl implements DocumentManager {
      */
     protected TranslationWorkflow getDocumentVariantTranslationWorkflow(final Node documentVariantNode)
             throws RepositoryException {
-        return (TranslationWorkflow) HippoNodeUtils.getHippoWorkflow(getSession(),
+        return (TranslationWorkflow) HippoNodeUtils.getHippoWorkflow(getSession(), batchWorkflowManager,
                 getDocumentTranslationWorkflowCategory(), documentVariantNode);
     }
 
+    private static List<DocumentManagerBatchResult> failAll(final Collection<String> locations,
+            final DocumentManagerException exception) {
+        final List<DocumentManagerBatchResult> results = new ArrayList<>(locations.size());
+
+        for (String location : locations) {
+            results.add(new DocumentManagerBatchResult(location, exception));
+        }
+
+        return results;
+    }
+
 }
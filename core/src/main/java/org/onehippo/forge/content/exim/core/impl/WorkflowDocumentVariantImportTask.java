@@ -27,7 +27,9 @@ import org.onehippo.forge.content.exim.core.DocumentManager;
 import org.onehippo.forge.content.exim.core.DocumentManagerException;
 import org.onehippo.forge.content.exim.core.DocumentVariantImportTask;
 import org.onehippo.forge.content.exim.core.util.ContentPathUtils;
+import org.onehippo.forge.content.exim.core.util.DocumentExistenceResolver;
 import org.onehippo.forge.content.exim.core.util.HippoNodeUtils;
+import org.onehippo.forge.content.exim.core.util.RetryPolicy;
 import org.onehippo.forge.content.pojo.binder.ContentNodeBindingItemFilter;
 import org.onehippo.forge.content.pojo.binder.jcr.DefaultContentNodeJcrBindingItemFilter;
 import org.onehippo.forge.content.pojo.model.ContentItem;
@@ -38,6 +40,11 @@ import org.onehippo.forge.content.pojo.model.ContentNode;
  */
 public class WorkflowDocumentVariantImportTask extends AbstractContentImportTask implements DocumentVariantImportTask {
 
+    /**
+     * Retry policy for the document imports failing transiently by concurrent modifications. No retries if null.
+     */
+    private RetryPolicy retryPolicy;
+
     /**
      * Constructs with {@code documentManager}.
      * @param documentManager {@link DocumentManager} instance
@@ -46,6 +53,25 @@ public class WorkflowDocumentVariantImportTask extends AbstractContentImportTask
         super(documentManager);
     }
 
+    /**
+     * Returns the retry policy for the document imports failing transiently by concurrent modifications.
+     * @return the retry policy for the document imports failing transiently by concurrent modifications
+     */
+    public RetryPolicy getRetryPolicy() {
+        return retryPolicy;
+    }
+
+    /**
+     * Sets the retry policy for the document imports failing transiently by concurrent modifications.
+     * If set, a document creation or update failing transiently, e.g, by an {@link javax.jcr.InvalidItemStateException}
+     * or a workflow hint denying an action temporarily, is retried after discarding the pending changes
+     * in the session and backing off, and the retry count is recorded in the current content migration record.
+     * @param retryPolicy the retry policy for the document imports failing transiently by concurrent modifications
+     */
+    public void setRetryPolicy(RetryPolicy retryPolicy) {
+        this.retryPolicy = retryPolicy;
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -74,24 +100,37 @@ public class WorkflowDocumentVariantImportTask extends AbstractContentImportTask
     @Override
     public String createOrUpdateDocumentFromVariantContentNode(ContentNode contentNode, String primaryTypeName,
             String documentLocation, String locale, String localizedName) throws ContentMigrationException {
-        String createdOrUpdatedDocumentLocation = documentLocation;
+        int retryCount = 0;
 
-        try {
-            if (getCurrentContentMigrationRecord() != null) {
-                getCurrentContentMigrationRecord().setContentType(primaryTypeName);
-            }
+        while (true) {
+            String createdOrUpdatedDocumentLocation = documentLocation;
 
-            if (!getDocumentManager().documentExists(documentLocation)) {
-                createdOrUpdatedDocumentLocation =
-                        createDocument(primaryTypeName, documentLocation, locale, localizedName);
-            }
+            try {
+                if (getCurrentContentMigrationRecord() != null) {
+                    getCurrentContentMigrationRecord().setContentType(primaryTypeName);
+                }
 
-            createdOrUpdatedDocumentLocation = updateDocument(createdOrUpdatedDocumentLocation, contentNode);
-        } catch (DocumentManagerException | RepositoryException e) {
-            throw new ContentMigrationException(e.toString(), e);
-        }
+                final DocumentExistenceResolver existenceResolver = getDocumentExistenceResolver();
+                final boolean exists = (existenceResolver != null)
+                        ? existenceResolver.documentExists(documentLocation)
+                        : getDocumentManager().documentExists(documentLocation);
+
+                if (!exists) {
+                    createdOrUpdatedDocumentLocation =
+                            createDocument(primaryTypeName, documentLocation, locale, localizedName);
+
+                    if (existenceResolver != null) {
+                        existenceResolver.markCreated(documentLocation);
+                    }
+                }
 
-        return createdOrUpdatedDocumentLocation;
+                createdOrUpdatedDocumentLocation = updateDocument(createdOrUpdatedDocumentLocation, contentNode);
+
+                return createdOrUpdatedDocumentLocation;
+            } catch (DocumentManagerException | RepositoryException e) {
+                retryCount = retryOrThrow(retryCount, documentLocation, e);
+            }
+        }
     }
 
     @Override
@@ -119,12 +158,63 @@ public class WorkflowDocumentVariantImportTask extends AbstractContentImportTask
                 getCurrentContentMigrationRecord().setContentType(contentNode.getPrimaryType());
             }
 
-            return updateDocument(documentHandleNode, contentNode);
+            int retryCount = 0;
+
+            while (true) {
+                try {
+                    return updateDocument(documentHandleNode, contentNode);
+                } catch (DocumentManagerException | RepositoryException e) {
+                    retryCount = retryOrThrow(retryCount, documentHandleNode.getPath(), e);
+                }
+            }
         } catch (DocumentManagerException | RepositoryException e) {
             throw new ContentMigrationException(e.toString(), e);
         }
     }
 
+    /**
+     * Prepares the next retry of a document import failed by {@code failure} after {@code retryCount} retries
+     * if the {@link RetryPolicy} allows it, by discarding the pending changes in the session and backing off,
+     * and returns the updated retry count. Otherwise, throws a {@link ContentMigrationException}.
+     * <P>
+     * No retry is made if the {@link DocumentManager} leaves the save to the caller, as discarding the pending
+     * changes would discard the other documents not saved yet, too.
+     * </P>
+     * @param retryCount the number of the retries done so far
+     * @param documentLocation document handle node path of the document import
+     * @param failure the failure of the last try
+     * @return the updated retry count
+     * @throws ContentMigrationException if not to retry
+     */
+    private int retryOrThrow(final int retryCount, final String documentLocation, final Exception failure)
+            throws ContentMigrationException {
+        if (retryPolicy == null || !retryPolicy.canRetry(retryCount, failure)
+                || !getDocumentManager().isSaveBeforeCommitRequired()) {
+            throw new ContentMigrationException(failure.toString(), failure);
+        }
+
+        final int retry = retryCount + 1;
+
+        if (getCurrentContentMigrationRecord() != null) {
+            getCurrentContentMigrationRecord().setRetryCount(retry);
+        }
+
+        try {
+            // Discards the stale pending changes to read the latest state on retry.
+            discardPendingChanges();
+            final long backoffMillis = retryPolicy.backoff(retry);
+            getLogger().warn("Retrying ({}/{}) to import document at {} after {}ms backoff from transient failure: {}",
+                    retry, retryPolicy.getMaxRetries(), documentLocation, backoffMillis, failure.toString());
+        } catch (RepositoryException e) {
+            throw new ContentMigrationException(e.toString(), e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ContentMigrationException(failure.toString(), failure);
+        }
+
+        return retry;
+    }
+
 
     /**
      * @deprecated renamed to #createDocument
@@ -224,7 +314,11 @@ public class WorkflowDocumentVariantImportTask extends AbstractContentImportTask
 
             getContentNodeBinder().bind(variant, contentNode, getContentNodeBindingItemFilter(),
                     getContentValueConverter());
-            getDocumentManager().getSession().save();
+
+            // Otherwise, the caller saves the pending changes, e.g, once per batch.
+            if (getDocumentManager().isSaveBeforeCommitRequired()) {
+                getDocumentManager().getSession().save();
+            }
 
             getDocumentManager().commitEditableDocument(editableDocument);
 
@@ -143,6 +143,27 @@ public class AntPathMatcher {
         String[] pattDirs = tokenizeToStringArray(pattern, this.pathSeparator);
         String[] pathDirs = tokenizeToStringArray(path, this.pathSeparator);
 
+        return doMatch(pattern, pattDirs, path, pathDirs, fullMatch, isCaseSensitive);
+    }
+
+    /**
+     * Actually match the given <code>path</code> against the given <code>pattern</code>,
+     * which were already tokenized by {@link #tokenizeToStringArray(String, String)} with the path separator.
+     * This doesn't check if both <code>pattern</code> and <code>path</code> start with the path separator.
+     *
+     * @param pattern the pattern to match against
+     * @param pattDirs the tokens of the <code>pattern</code>
+     * @param path the path String to test
+     * @param pathDirs the tokens of the <code>path</code>
+     * @param fullMatch whether a full pattern match is required (else a pattern
+     *            match as far as the given base path goes is sufficient)
+     * @param isCaseSensitive Whether or not matching should be performed
+     *                        case sensitively.
+     * @return <code>true</code> if the supplied <code>path</code> matched,
+     *         <code>false</code> if it didn't
+     */
+    protected boolean doMatch(String pattern, String[] pattDirs, String path, String[] pathDirs, boolean fullMatch,
+            boolean isCaseSensitive) {
         int pattIdxStart = 0;
         int pattIdxEnd = pattDirs.length - 1;
         int pathIdxStart = 0;
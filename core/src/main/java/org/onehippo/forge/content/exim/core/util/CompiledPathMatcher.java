@@ -0,0 +1,258 @@
+/*
+ * Copyright 2024 Bloomreach B.V. (https://www.bloomreach.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onehippo.forge.content.exim.core.util;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.commons.lang3.StringUtils;
+
+/**
+ * Include and exclude path filter by Ant-style path patterns, matching in the same way as
+ * {@link AntPathMatcher#match(String, String)}, but compiled once for many paths.
+ * <P>
+ * Each pattern is tokenized only once on construction and indexed in a trie by its leading literal path segments
+ * (the segments without any wildcard), and each path is tokenized only once on matching. So, only the patterns
+ * whose literal prefix is on the path are actually matched against the path.
+ * </P>
+ * <P>
+ * A path is included if it doesn't match any exclude pattern, and it matches any include pattern
+ * or there is no include pattern at all.
+ * </P>
+ */
+public class CompiledPathMatcher {
+
+    private final AntPathMatcher pathMatcher = new AntPathMatcher();
+
+    private final List<String> includes;
+
+    private final List<String> excludes;
+
+    private final PatternTrie includeTrie;
+
+    private final PatternTrie excludeTrie;
+
+    /**
+     * Constructs with include and exclude Ant-style path patterns.
+     * @param includes include path patterns, or null if everything is included
+     * @param excludes exclude path patterns, or null if nothing is excluded
+     */
+    public CompiledPathMatcher(final Collection<String> includes, final Collection<String> excludes) {
+        this.includes = (includes != null) ? Collections.unmodifiableList(new ArrayList<>(includes))
+                : Collections.emptyList();
+        this.excludes = (excludes != null) ? Collections.unmodifiableList(new ArrayList<>(excludes))
+                : Collections.emptyList();
+        includeTrie = new PatternTrie(this.includes);
+        excludeTrie = new PatternTrie(this.excludes);
+    }
+
+    /**
+     * Returns the include path patterns.
+     * @return the include path patterns
+     */
+    public List<String> getIncludes() {
+        return includes;
+    }
+
+    /**
+     * Returns the exclude path patterns.
+     * @return the exclude path patterns
+     */
+    public List<String> getExcludes() {
+        return excludes;
+    }
+
+    /**
+     * Returns true if the {@code path} doesn't match any exclude pattern, and it matches any include pattern
+     * or there is no include pattern.
+     * @param path path
+     * @return true if the {@code path} is included
+     */
+    public boolean isIncluded(final String path) {
+        if (includes.isEmpty() && excludes.isEmpty()) {
+            return true;
+        }
+
+        final boolean absolute = path.startsWith(AntPathMatcher.DEFAULT_PATH_SEPARATOR);
+        final String[] pathDirs = AntPathMatcher.tokenizeToStringArray(path, AntPathMatcher.DEFAULT_PATH_SEPARATOR);
+
+        if (!excludes.isEmpty() && excludeTrie.matchesAny(path, pathDirs, absolute)) {
+            return false;
+        }
+
+        return includes.isEmpty() || includeTrie.matchesAny(path, pathDirs, absolute);
+    }
+
+    /**
+     * Returns true if the {@code path} matches any include pattern.
+     * @param path path
+     * @return true if the {@code path} matches any include pattern
+     */
+    public boolean matchesInclude(final String path) {
+        return includeTrie.matchesAny(path,
+                AntPathMatcher.tokenizeToStringArray(path, AntPathMatcher.DEFAULT_PATH_SEPARATOR),
+                path.startsWith(AntPathMatcher.DEFAULT_PATH_SEPARATOR));
+    }
+
+    /**
+     * Returns true if the {@code path} matches any exclude pattern.
+     * @param path path
+     * @return true if the {@code path} matches any exclude pattern
+     */
+    public boolean matchesExclude(final String path) {
+        return excludeTrie.matchesAny(path,
+                AntPathMatcher.tokenizeToStringArray(path, AntPathMatcher.DEFAULT_PATH_SEPARATOR),
+                path.startsWith(AntPathMatcher.DEFAULT_PATH_SEPARATOR));
+    }
+
+    /**
+     * Returns the leading literal path segments of the {@code pattern}, which any matching path must start with.
+     * @param pattern Ant-style path pattern
+     * @return the leading literal path segments of the {@code pattern}
+     */
+    public static String[] getLiteralPrefixDirs(final String pattern) {
+        final String[] pattDirs = AntPathMatcher.tokenizeToStringArray(pattern,
+                AntPathMatcher.DEFAULT_PATH_SEPARATOR);
+        int count = 0;
+
+        while (count < pattDirs.length && !isWildcardDir(pattDirs[count])) {
+            count++;
+        }
+
+        final String[] prefixDirs = new String[count];
+        System.arraycopy(pattDirs, 0, prefixDirs, 0, count);
+        return prefixDirs;
+    }
+
+    private static boolean isWildcardDir(final String dir) {
+        return StringUtils.containsAny(dir, '*', '?');
+    }
+
+    /**
+     * A compiled pattern.
+     */
+    private static class CompiledPattern {
+
+        private final String pattern;
+
+        private final String[] pattDirs;
+
+        private final boolean absolute;
+
+        private CompiledPattern(final String pattern) {
+            this.pattern = pattern;
+            pattDirs = AntPathMatcher.tokenizeToStringArray(pattern, AntPathMatcher.DEFAULT_PATH_SEPARATOR);
+            absolute = pattern.startsWith(AntPathMatcher.DEFAULT_PATH_SEPARATOR);
+        }
+    }
+
+    /**
+     * Trie node keyed by a literal path segment, holding the patterns whose literal prefix ends at this node.
+     */
+    private static class TrieNode {
+
+        private Map<String, TrieNode> children;
+
+        private List<CompiledPattern> patterns;
+
+        private TrieNode getOrCreateChild(final String dir) {
+            if (children == null) {
+                children = new HashMap<>();
+            }
+
+            return children.computeIfAbsent(dir, key -> new TrieNode());
+        }
+
+        private TrieNode getChild(final String dir) {
+            return (children != null) ? children.get(dir) : null;
+        }
+
+        private void addPattern(final CompiledPattern compiledPattern) {
+            if (patterns == null) {
+                patterns = new ArrayList<>();
+            }
+
+            patterns.add(compiledPattern);
+        }
+    }
+
+    /**
+     * Trie of the compiled patterns by their literal prefixes.
+     */
+    private class PatternTrie {
+
+        private final TrieNode root = new TrieNode();
+
+        private PatternTrie(final List<String> patterns) {
+            for (String pattern : patterns) {
+                final CompiledPattern compiledPattern = new CompiledPattern(pattern);
+                TrieNode node = root;
+
+                for (String dir : compiledPattern.pattDirs) {
+                    if (isWildcardDir(dir)) {
+                        break;
+                    }
+
+                    node = node.getOrCreateChild(dir);
+                }
+
+                node.addPattern(compiledPattern);
+            }
+        }
+
+        private boolean matchesAny(final String path, final String[] pathDirs, final boolean absolute) {
+            TrieNode node = root;
+
+            if (matchesAny(node, path, pathDirs, absolute)) {
+                return true;
+            }
+
+            for (String pathDir : pathDirs) {
+                node = node.getChild(pathDir);
+
+                if (node == null) {
+                    return false;
+                }
+
+                if (matchesAny(node, path, pathDirs, absolute)) {
+                    return true;
+                }
+            }
+
+            return false;
+        }
+
+        private boolean matchesAny(final TrieNode node, final String path, final String[] pathDirs,
+                final boolean absolute) {
+            if (node.patterns == null) {
+                return false;
+            }
+
+            for (CompiledPattern compiledPattern : node.patterns) {
+                if (compiledPattern.absolute == absolute && pathMatcher.doMatch(compiledPattern.pattern,
+                        compiledPattern.pattDirs, path, pathDirs, true, true)) {
+                    return true;
+                }
+            }
+
+            return false;
+        }
+    }
+}
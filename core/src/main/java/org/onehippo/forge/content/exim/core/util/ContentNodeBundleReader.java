@@ -0,0 +1,212 @@
+/*
+ * Copyright 2024 Bloomreach B.V. (https://www.bloomreach.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onehippo.forge.content.exim.core.util;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.lang3.StringUtils;
+import org.apache.commons.vfs2.FileObject;
+import org.onehippo.forge.content.pojo.model.ContentNode;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectReader;
+
+/**
+ * Reads {@link ContentNode} objects one by one from a newline-delimited JSON (NDJSON) bundle file written by
+ * {@link ContentNodeBundleWriter}, streaming the file instead of loading it at once.
+ */
+public class ContentNodeBundleReader implements Closeable {
+
+    private final FileObject bundleFile;
+    private InputStream input;
+    private MappingIterator<ContentNode> iterator;
+    private int lineNumber;
+
+    /**
+     * Opens the {@code bundleFile} to read.
+     * @param bundleFile bundle file
+     * @param contentNodeReader {@link ObjectReader} for {@link ContentNode}
+     * @throws IOException if the bundle file cannot be opened
+     */
+    public ContentNodeBundleReader(final FileObject bundleFile, final ObjectReader contentNodeReader)
+            throws IOException {
+        this(bundleFile, contentNodeReader, null, 0L);
+    }
+
+    /**
+     * Opens the {@code bundleFile} to read, decoding large base64 encoded <code>data:</code> URL values into files
+     * in the {@code dataUrlSpillFolder} by {@link DataUrlSpillingJsonParser}.
+     * @param bundleFile bundle file
+     * @param contentNodeReader {@link ObjectReader} for {@link ContentNode}
+     * @param dataUrlSpillFolder the folder to decode large <code>data:</code> URL values into files in,
+     *        or null to read <code>data:</code> URL values as they are
+     * @param dataUrlSpillThreshold the minimum length of a <code>data:</code> URL value to decode into a file
+     * @throws IOException if the bundle file cannot be opened
+     */
+    public ContentNodeBundleReader(final FileObject bundleFile, final ObjectReader contentNodeReader,
+            final FileObject dataUrlSpillFolder, final long dataUrlSpillThreshold) throws IOException {
+        this.bundleFile = bundleFile;
+        input = new BufferedInputStream(bundleFile.getContent().getInputStream());
+        final ObjectReader reader = contentNodeReader.forType(ContentNode.class);
+        JsonParser parser = reader.getFactory().createParser(input);
+
+        if (dataUrlSpillFolder != null) {
+            parser = new DataUrlSpillingJsonParser(parser, dataUrlSpillFolder, dataUrlSpillThreshold);
+        }
+
+        iterator = reader.readValues(parser);
+    }
+
+    /**
+     * Returns the bundle file.
+     * @return the bundle file
+     */
+    public FileObject getBundleFile() {
+        return bundleFile;
+    }
+
+    /**
+     * Reads the next {@link ContentNode} in the bundle, or returns null if there's nothing more to read.
+     * @return the next {@link ContentNode} in the bundle, or null if there's nothing more to read
+     * @throws IOException if reading fails
+     */
+    public ContentNode read() throws IOException {
+        if (iterator == null || !iterator.hasNextValue()) {
+            return null;
+        }
+
+        ContentNode contentNode = iterator.nextValue();
+        ++lineNumber;
+        return contentNode;
+    }
+
+    /**
+     * Returns the line number, starting from 1, of the last {@link ContentNode} read.
+     * @return the line number of the last {@link ContentNode} read
+     */
+    public int getLineNumber() {
+        return lineNumber;
+    }
+
+    /**
+     * Closes the bundle file.
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            if (iterator != null) {
+                iterator.close();
+            }
+        } finally {
+            iterator = null;
+            IOUtils.closeQuietly(input);
+            input = null;
+        }
+    }
+
+    /**
+     * Returns the index file of the {@code bundleFile}.
+     * @param bundleFile bundle file
+     * @return the index file of the {@code bundleFile}
+     * @throws IOException if the index file cannot be resolved
+     */
+    public static FileObject getIndexFile(final FileObject bundleFile) throws IOException {
+        final String indexFileName = StringUtils.removeEnd(bundleFile.getName().getBaseName(),
+                ContentNodeBundleWriter.BUNDLE_FILE_EXTENSION) + ContentNodeBundleWriter.INDEX_FILE_EXTENSION;
+        return bundleFile.getParent().resolveFile(indexFileName);
+    }
+
+    /**
+     * Reads the content paths of the entries in the {@code bundleFile} from its index file, without reading
+     * the bundle file itself, or returns null if the index file is not available.
+     * @param bundleFile bundle file
+     * @return the content paths of the entries in the {@code bundleFile} in order, or null if the index file
+     *         is not available
+     * @throws IOException if reading fails
+     */
+    public static List<String> readIndexedContentPaths(final FileObject bundleFile) throws IOException {
+        final FileObject indexFile = getIndexFile(bundleFile);
+
+        if (!indexFile.exists()) {
+            return null;
+        }
+
+        final List<String> contentPaths = new ArrayList<>();
+
+        try (BufferedReader reader = new BufferedReader(
+                new InputStreamReader(indexFile.getContent().getInputStream(), StandardCharsets.UTF_8))) {
+            String line;
+
+            while ((line = reader.readLine()) != null) {
+                // each line consists of the byte offset, the byte length and the content path, separated by a tab.
+                final String[] tokens = StringUtils.split(line, "\t", 3);
+
+                if (tokens.length == 3) {
+                    contentPaths.add(tokens[2]);
+                }
+            }
+        }
+
+        return contentPaths;
+    }
+
+    /**
+     * Counts the entries in the {@code bundleFile}, by its index file if available, or by the lines of the bundle
+     * file itself otherwise.
+     * @param bundleFile bundle file
+     * @return the number of entries in the {@code bundleFile}
+     * @throws IOException if reading fails
+     */
+    public static int countEntries(final FileObject bundleFile) throws IOException {
+        final FileObject indexFile = getIndexFile(bundleFile);
+
+        if (indexFile.exists()) {
+            try (BufferedReader reader = new BufferedReader(
+                    new InputStreamReader(indexFile.getContent().getInputStream(), StandardCharsets.UTF_8))) {
+                int count = 0;
+
+                while (reader.readLine() != null) {
+                    ++count;
+                }
+
+                return count;
+            }
+        }
+
+        try (InputStream is = new BufferedInputStream(bundleFile.getContent().getInputStream())) {
+            int count = 0;
+            int b;
+
+            while ((b = is.read()) != -1) {
+                if (b == '\n') {
+                    ++count;
+                }
+            }
+
+            return count;
+        }
+    }
+}
@@ -0,0 +1,333 @@
+/*
+ * Copyright 2024 Bloomreach B.V. (https://www.bloomreach.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onehippo.forge.content.exim.core.util;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.vfs2.FileObject;
+import org.onehippo.forge.content.pojo.model.ContentNode;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+/**
+ * Writes {@link ContentNode} objects into newline-delimited JSON (NDJSON) bundle files, one {@link ContentNode}
+ * per line, instead of one file per {@link ContentNode}.
+ * <P>
+ * The bundle files are named like <code>documents-0001.ndjson</code>, <code>documents-0002.ndjson</code>, etc.
+ * by the given name prefix, rolling over to the next bundle when a bundle reaches the maximum number of entries.
+ * Next to each bundle file, an index file (e.g, <code>documents-0001.idx</code>) is written, containing
+ * the byte offset, the byte length and the content path of each entry, separated by a tab, one entry per line.
+ * </P>
+ * <P>
+ * The position of the writer may be recorded by {@link #getBundleSeq()}, {@link #getBundleEntryCount()},
+ * {@link #getBundleLength()} and {@link #getIndexLength()}, e.g, in a checkpoint, and a writer in a follow-up run
+ * may continue from the recorded position by {@link #resume(int, int, long, long)}.
+ * </P>
+ */
+public class ContentNodeBundleWriter implements Closeable, Flushable {
+
+    /**
+     * Bundle file name extension.
+     */
+    public static final String BUNDLE_FILE_EXTENSION = ".ndjson";
+
+    /**
+     * Bundle index file name extension.
+     */
+    public static final String INDEX_FILE_EXTENSION = ".idx";
+
+    private final FileObject baseFolder;
+    private final String namePrefix;
+    private final int maxEntriesPerBundle;
+    private final ObjectWriter contentNodeWriter;
+    private final int firstBundleSeq;
+
+    private int bundleSeq;
+    private FileObject bundleFile;
+    private OutputStream bundleOutput;
+    private PrintWriter indexOutput;
+    private int bundleEntryCount;
+    private long bundleOffset;
+    private long indexOffset;
+    private int totalEntryCount;
+
+    /**
+     * Constructs a bundle writer.
+     * @param baseFolder base folder where bundle files are written
+     * @param namePrefix bundle file name prefix, e.g, "documents"
+     * @param maxEntriesPerBundle maximum number of entries in a bundle file. Unlimited if zero or negative.
+     * @param objectMapper {@link ObjectMapper} to write each {@link ContentNode} in JSON
+     */
+    public ContentNodeBundleWriter(final FileObject baseFolder, final String namePrefix,
+            final int maxEntriesPerBundle, final ObjectMapper objectMapper) {
+        this(baseFolder, namePrefix, maxEntriesPerBundle, objectMapper, 1);
+    }
+
+    /**
+     * Constructs a bundle writer, starting the bundle file sequence from {@code firstBundleSeq},
+     * e.g, to continue after the bundle files written by a previous run in the same folder.
+     * @param baseFolder base folder where bundle files are written
+     * @param namePrefix bundle file name prefix, e.g, "documents"
+     * @param maxEntriesPerBundle maximum number of entries in a bundle file. Unlimited if zero or negative.
+     * @param objectMapper {@link ObjectMapper} to write each {@link ContentNode} in JSON
+     * @param firstBundleSeq the sequence number of the first bundle file to write
+     */
+    public ContentNodeBundleWriter(final FileObject baseFolder, final String namePrefix,
+            final int maxEntriesPerBundle, final ObjectMapper objectMapper, final int firstBundleSeq) {
+        this.baseFolder = baseFolder;
+        this.namePrefix = namePrefix;
+        this.maxEntriesPerBundle = maxEntriesPerBundle;
+        this.contentNodeWriter = objectMapper.writerFor(ContentNode.class)
+                .without(SerializationFeature.INDENT_OUTPUT);
+        this.firstBundleSeq = Math.max(1, firstBundleSeq);
+        this.bundleSeq = this.firstBundleSeq - 1;
+    }
+
+    /**
+     * Returns the sequence number next to the last bundle file existing in {@code baseFolder} by {@code namePrefix},
+     * or 1 if there is no bundle file yet.
+     * @param baseFolder base folder where bundle files are written
+     * @param namePrefix bundle file name prefix, e.g, "documents"
+     * @return the sequence number next to the last bundle file existing in {@code baseFolder}
+     * @throws IOException if IO exception occurs
+     */
+    public static int getNextBundleSeq(final FileObject baseFolder, final String namePrefix) throws IOException {
+        int seq = 1;
+
+        while (baseFolder.resolveFile(getBundleBaseName(namePrefix, seq) + BUNDLE_FILE_EXTENSION).exists()) {
+            ++seq;
+        }
+
+        return seq;
+    }
+
+    /**
+     * Writes {@code contentNode} as a line in the current bundle file and returns the entry name,
+     * which consists of the bundle file path and the line number, e.g, <code>/documents-0001.ndjson#12</code>.
+     * @param contentNode {@link ContentNode} to write
+     * @param contentPath the content path of the {@code contentNode}, recorded in the index
+     * @return the entry name of the {@code contentNode} written
+     * @throws IOException if writing fails
+     */
+    public String write(final ContentNode contentNode, final String contentPath) throws IOException {
+        if (bundleOutput == null || (maxEntriesPerBundle > 0 && bundleEntryCount >= maxEntriesPerBundle)) {
+            openNextBundle();
+        }
+
+        final byte[] bytes = contentNodeWriter.writeValueAsBytes(contentNode);
+        bundleOutput.write(bytes);
+        bundleOutput.write('\n');
+
+        final String indexLine = bundleOffset + "\t" + bytes.length + "\t" + contentPath + "\n";
+        indexOutput.print(indexLine);
+
+        bundleOffset += bytes.length + 1;
+        indexOffset += indexLine.getBytes(StandardCharsets.UTF_8).length;
+        ++bundleEntryCount;
+        ++totalEntryCount;
+
+        return bundleFile.getName().getPath() + "#" + bundleEntryCount;
+    }
+
+    /**
+     * Returns the total number of entries written in all the bundles.
+     * @return the total number of entries written in all the bundles
+     */
+    public int getTotalEntryCount() {
+        return totalEntryCount;
+    }
+
+    /**
+     * Returns the sequence number of the current bundle file, or the sequence number before the first bundle file
+     * if no bundle file was opened yet.
+     * @return the sequence number of the current bundle file
+     */
+    public int getBundleSeq() {
+        return bundleSeq;
+    }
+
+    /**
+     * Returns the number of entries written in the current bundle file.
+     * @return the number of entries written in the current bundle file
+     */
+    public int getBundleEntryCount() {
+        return bundleEntryCount;
+    }
+
+    /**
+     * Returns the byte length of the entries written in the current bundle file.
+     * @return the byte length of the entries written in the current bundle file
+     */
+    public long getBundleLength() {
+        return bundleOffset;
+    }
+
+    /**
+     * Returns the byte length of the index lines written in the index file of the current bundle file.
+     * @return the byte length of the index lines written in the index file of the current bundle file
+     */
+    public long getIndexLength() {
+        return indexOffset;
+    }
+
+    /**
+     * Resumes writing from the position recorded by a previous run, supposed to be invoked before writing
+     * any entry. The bundle file by {@code bundleSeq} and its index file are truncated to {@code bundleLength} and
+     * {@code indexLength}, dropping the entries written after the position was recorded, and the bundle files
+     * after {@code bundleSeq} are deleted. If {@code bundleSeq} is zero, all the bundle files are deleted.
+     * @param bundleSeq the recorded sequence number of the bundle file, or zero if no bundle file was opened
+     * @param bundleEntryCount the recorded number of entries in the bundle file
+     * @param bundleLength the recorded byte length of the bundle file
+     * @param indexLength the recorded byte length of the index file
+     * @throws IOException if the bundle file is shorter than recorded or IO exception occurs
+     */
+    public void resume(final int bundleSeq, final int bundleEntryCount, final long bundleLength,
+            final long indexLength) throws IOException {
+        closeCurrentBundle();
+
+        int seq = Math.max(0, bundleSeq) + 1;
+
+        while (deleteBundle(seq)) {
+            ++seq;
+        }
+
+        this.bundleSeq = Math.max(0, bundleSeq);
+        this.bundleEntryCount = 0;
+        this.bundleOffset = 0L;
+        this.indexOffset = 0L;
+
+        if (this.bundleSeq == 0) {
+            return;
+        }
+
+        final String baseName = getBundleBaseName(namePrefix, this.bundleSeq);
+        bundleFile = baseFolder.resolveFile(baseName + BUNDLE_FILE_EXTENSION);
+        final FileObject indexFile = baseFolder.resolveFile(baseName + INDEX_FILE_EXTENSION);
+        truncate(bundleFile, bundleLength);
+        truncate(indexFile, indexLength);
+
+        bundleOutput = new BufferedOutputStream(bundleFile.getContent().getOutputStream(true));
+        indexOutput = new PrintWriter(
+                new OutputStreamWriter(indexFile.getContent().getOutputStream(true), StandardCharsets.UTF_8));
+        this.bundleEntryCount = bundleEntryCount;
+        this.bundleOffset = bundleLength;
+        this.indexOffset = indexLength;
+    }
+
+    /**
+     * Returns the number of bundle files written.
+     * @return the number of bundle files written
+     */
+    public int getBundleCount() {
+        return bundleSeq - firstBundleSeq + 1;
+    }
+
+    /**
+     * Flushes the current bundle file and its index file, e.g, before recording a checkpoint.
+     */
+    @Override
+    public void flush() throws IOException {
+        if (bundleOutput != null) {
+            bundleOutput.flush();
+            indexOutput.flush();
+        }
+    }
+
+    /**
+     * Closes the current bundle file and its index file.
+     */
+    @Override
+    public void close() throws IOException {
+        closeCurrentBundle();
+    }
+
+    private void openNextBundle() throws IOException {
+        closeCurrentBundle();
+
+        ++bundleSeq;
+        final String baseName = getBundleBaseName(namePrefix, bundleSeq);
+        bundleFile = baseFolder.resolveFile(baseName + BUNDLE_FILE_EXTENSION);
+        bundleOutput = new BufferedOutputStream(bundleFile.getContent().getOutputStream());
+        final FileObject indexFile = baseFolder.resolveFile(baseName + INDEX_FILE_EXTENSION);
+        indexOutput = new PrintWriter(
+                new OutputStreamWriter(indexFile.getContent().getOutputStream(), StandardCharsets.UTF_8));
+        bundleEntryCount = 0;
+        bundleOffset = 0L;
+        indexOffset = 0L;
+    }
+
+    private boolean deleteBundle(final int seq) throws IOException {
+        final String baseName = getBundleBaseName(namePrefix, seq);
+        final FileObject file = baseFolder.resolveFile(baseName + BUNDLE_FILE_EXTENSION);
+
+        if (!file.exists()) {
+            return false;
+        }
+
+        file.delete();
+        baseFolder.resolveFile(baseName + INDEX_FILE_EXTENSION).delete();
+        return true;
+    }
+
+    private static void truncate(final FileObject file, final long length) throws IOException {
+        final long size = file.exists() ? file.getContent().getSize() : 0L;
+
+        if (size == length) {
+            return;
+        }
+
+        if (size < length) {
+            throw new IOException("The file at " + file.getName().getPath() + " is shorter (" + size
+                    + " bytes) than the recorded length (" + length + " bytes).");
+        }
+
+        final FileObject tempFile = file.getParent().resolveFile(file.getName().getBaseName() + ".tmp");
+
+        try (InputStream input = file.getContent().getInputStream();
+                OutputStream output = tempFile.getContent().getOutputStream()) {
+            IOUtils.copyLarge(input, output, 0L, length);
+        }
+
+        tempFile.moveTo(file);
+    }
+
+    private static String getBundleBaseName(final String namePrefix, final int seq) {
+        return String.format("%s-%04d", namePrefix, seq);
+    }
+
+    private void closeCurrentBundle() throws IOException {
+        try {
+            if (bundleOutput != null) {
+                bundleOutput.close();
+            }
+        } finally {
+            bundleOutput = null;
+            IOUtils.closeQuietly(indexOutput);
+            indexOutput = null;
+        }
+    }
+}
@@ -26,6 +26,8 @@ import javax.jcr.Session;
 
 import org.apache.commons.collections4.CollectionUtils;
 import org.apache.commons.lang3.StringUtils;
+import org.apache.commons.vfs2.FileObject;
+import org.apache.commons.vfs2.VFS;
 import org.onehippo.forge.content.pojo.model.ContentNode;
 import org.onehippo.forge.content.pojo.model.ContentProperty;
 import org.onehippo.forge.content.pojo.model.ContentPropertyType;
@@ -226,4 +228,68 @@ public class ContentNodeUtils {
         List<String> values = prop.getValues();
         return values.contains(value);
     }
+
+    /**
+     * Return the number of the nodes in the {@code contentNode} tree, including the {@code contentNode} itself.
+     * @param contentNode content node
+     * @return the number of the nodes in the {@code contentNode} tree
+     */
+    public static int countNodes(final ContentNode contentNode) {
+        int count = 1;
+
+        for (ContentNode childNode : contentNode.getNodes()) {
+            count += countNodes(childNode);
+        }
+
+        return count;
+    }
+
+    /**
+     * Return an estimated byte size of the property values in the {@code contentNode} tree: two bytes per character
+     * of a string value, the decoded size of a binary value in a DATA URL, or the file size of a binary value
+     * referring to a file by URL if resolvable.
+     * @param contentNode content node
+     * @return an estimated byte size of the property values in the {@code contentNode} tree
+     */
+    public static long estimateByteSize(final ContentNode contentNode) {
+        long size = 0L;
+
+        for (ContentProperty prop : contentNode.getProperties()) {
+            for (String value : prop.getValues()) {
+                if (value == null) {
+                    continue;
+                }
+
+                if (prop.getType() == ContentPropertyType.BINARY) {
+                    size += estimateBinaryValueByteSize(value);
+                } else {
+                    size += 2L * value.length();
+                }
+            }
+        }
+
+        for (ContentNode childNode : contentNode.getNodes()) {
+            size += estimateByteSize(childNode);
+        }
+
+        return size;
+    }
+
+    private static long estimateBinaryValueByteSize(final String value) {
+        if (StringUtils.startsWith(value, "data:")) {
+            return (value.length() - value.indexOf(',') - 1) * 3L / 4L;
+        }
+
+        try {
+            final FileObject file = VFS.getManager().resolveFile(value);
+
+            if (file.isFile()) {
+                return file.getContent().getSize();
+            }
+        } catch (Exception ignore) {
+            // not a resolvable URL, e.g, a relative path in an exported content.
+        }
+
+        return 2L * value.length();
+    }
 }
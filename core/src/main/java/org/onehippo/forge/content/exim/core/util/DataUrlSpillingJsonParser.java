@@ -0,0 +1,392 @@
+/*
+ * Copyright 2024 Bloomreach B.V. (https://www.bloomreach.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onehippo.forge.content.exim.core.util;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.Writer;
+import java.util.ArrayDeque;
+import java.util.Base64;
+import java.util.Deque;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.lang3.StringUtils;
+import org.apache.commons.vfs2.FileObject;
+
+import com.fasterxml.jackson.core.JsonLocation;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonStreamContext;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.SerializableString;
+import com.fasterxml.jackson.core.util.JsonParserDelegate;
+
+/**
+ * {@link JsonParser} wrapper which decodes a large base64 encoded <code>data:</code> URL string value into a file
+ * in a spill folder while parsing, and returns the URL of the file as the string value instead.
+ * <P>
+ * So, a large binary value embedded in a <code>data:</code> URL never becomes a huge {@link String}
+ * in the parsed object, but is read from the file by the value converter on binding, just like a binary value
+ * stored in an external file on exporting.
+ * </P>
+ * <P>
+ * Only the values of a <code>BINARY</code> property are decoded, that is, the string values in the
+ * <code>"values"</code> array of an object whose <code>"type"</code> field is <code>"BINARY"</code> and comes before
+ * the array, as a <code>ContentProperty</code> is serialized. The values of the other properties, e.g, a
+ * <code>STRING</code> property holding a <code>data:</code> URL, are kept as they are.
+ * </P>
+ * <P>
+ * Note that the underlying parser still buffers the whole base64 encoded characters of a value to decode,
+ * as the value is decoded from the characters returned by {@link JsonParser#getTextCharacters()}. What is saved is
+ * the {@link String} copy of the characters and the decoded bytes in memory.
+ * </P>
+ * <P>
+ * The files in the spill folder are not deleted by this parser, so the caller is supposed to clean up the spill
+ * folder when the binary values are no longer needed, e.g, after saving the bound content.
+ * </P>
+ */
+public class DataUrlSpillingJsonParser extends JsonParserDelegate {
+
+    private static final String DATA_URL_PREFIX = "data:";
+
+    private static final String BASE64_MARKER = ";base64";
+
+    private static final String TYPE_FIELD_NAME = "type";
+
+    private static final String VALUES_FIELD_NAME = "values";
+
+    private static final String BINARY_TYPE = "BINARY";
+
+    /**
+     * Placeholder in {@link #objectTypes} for an object without a <code>"type"</code> field, as {@link ArrayDeque}
+     * doesn't allow null elements.
+     */
+    private static final String NO_TYPE = "";
+
+    /**
+     * Maximum length of the data: URL header, e.g, <code>data:image/png;base64,</code>, to look for the comma.
+     */
+    private static final int MAX_DATA_URL_HEADER_LENGTH = 256;
+
+    private static final AtomicLong spillFileSeq = new AtomicLong();
+
+    private final FileObject spillFolder;
+    private final long threshold;
+
+    /**
+     * The <code>"type"</code> field values of the objects being parsed, the innermost object first.
+     */
+    private final Deque<String> objectTypes = new ArrayDeque<>();
+
+    private JsonLocation checkedTokenLocation;
+    private String spilledText;
+
+    /**
+     * Constructs by wrapping the {@code parser}.
+     * @param parser the underlying parser
+     * @param spillFolder the folder to write decoded binary data files in
+     * @param threshold the minimum length of a <code>data:</code> URL string value to decode into a file
+     */
+    public DataUrlSpillingJsonParser(final JsonParser parser, final FileObject spillFolder, final long threshold) {
+        super(parser);
+        this.spillFolder = spillFolder;
+        this.threshold = threshold;
+    }
+
+    /**
+     * {@inheritDoc}
+     * <P>
+     * This keeps track of the <code>"type"</code> field values of the enclosing objects. So, the other
+     * <code>next*()</code> methods and {@link #skipChildren()} are overridden to advance through this method,
+     * instead of the underlying parser.
+     * </P>
+     */
+    @Override
+    public JsonToken nextToken() throws IOException {
+        final JsonToken token = delegate.nextToken();
+
+        if (token == JsonToken.START_OBJECT) {
+            objectTypes.push(NO_TYPE);
+        } else if (token == JsonToken.END_OBJECT) {
+            objectTypes.poll();
+        } else if (token == JsonToken.VALUE_STRING && !objectTypes.isEmpty()
+                && delegate.getParsingContext().inObject()
+                && TYPE_FIELD_NAME.equals(delegate.getCurrentName())) {
+            objectTypes.pop();
+            objectTypes.push(delegate.getText());
+        }
+
+        return token;
+    }
+
+    @Override
+    public JsonToken nextValue() throws IOException {
+        final JsonToken token = nextToken();
+        return (token == JsonToken.FIELD_NAME) ? nextToken() : token;
+    }
+
+    @Override
+    public String nextFieldName() throws IOException {
+        return (nextToken() == JsonToken.FIELD_NAME) ? getCurrentName() : null;
+    }
+
+    @Override
+    public boolean nextFieldName(SerializableString str) throws IOException {
+        return (nextToken() == JsonToken.FIELD_NAME) && str.getValue().equals(getCurrentName());
+    }
+
+    @Override
+    public String nextTextValue() throws IOException {
+        return (nextToken() == JsonToken.VALUE_STRING) ? getText() : null;
+    }
+
+    @Override
+    public int nextIntValue(int defaultValue) throws IOException {
+        return (nextToken() == JsonToken.VALUE_NUMBER_INT) ? getIntValue() : defaultValue;
+    }
+
+    @Override
+    public long nextLongValue(long defaultValue) throws IOException {
+        return (nextToken() == JsonToken.VALUE_NUMBER_INT) ? getLongValue() : defaultValue;
+    }
+
+    @Override
+    public Boolean nextBooleanValue() throws IOException {
+        final JsonToken token = nextToken();
+
+        if (token == JsonToken.VALUE_TRUE) {
+            return Boolean.TRUE;
+        } else if (token == JsonToken.VALUE_FALSE) {
+            return Boolean.FALSE;
+        }
+
+        return null;
+    }
+
+    @Override
+    public JsonParser skipChildren() throws IOException {
+        final JsonToken token = currentToken();
+
+        if (token != JsonToken.START_OBJECT && token != JsonToken.START_ARRAY) {
+            return this;
+        }
+
+        int open = 1;
+
+        while (open > 0) {
+            final JsonToken next = nextToken();
+
+            if (next == null) {
+                break;
+            } else if (next.isStructStart()) {
+                ++open;
+            } else if (next.isStructEnd()) {
+                --open;
+            }
+        }
+
+        return this;
+    }
+
+    @Override
+    public String getText() throws IOException {
+        final String text = getSpilledText();
+        return (text != null) ? text : delegate.getText();
+    }
+
+    @Override
+    public String getValueAsString() throws IOException {
+        final String text = getSpilledText();
+        return (text != null) ? text : delegate.getValueAsString();
+    }
+
+    @Override
+    public String getValueAsString(String defaultValue) throws IOException {
+        final String text = getSpilledText();
+        return (text != null) ? text : delegate.getValueAsString(defaultValue);
+    }
+
+    @Override
+    public int getText(Writer writer) throws IOException {
+        final String text = getSpilledText();
+
+        if (text != null) {
+            writer.write(text);
+            return text.length();
+        }
+
+        return delegate.getText(writer);
+    }
+
+    @Override
+    public boolean hasTextCharacters() {
+        if (spilledText != null && delegate.currentToken() == JsonToken.VALUE_STRING
+                && delegate.getTokenLocation().equals(checkedTokenLocation)) {
+            return false;
+        }
+
+        return delegate.hasTextCharacters();
+    }
+
+    @Override
+    public char[] getTextCharacters() throws IOException {
+        final String text = getSpilledText();
+        return (text != null) ? text.toCharArray() : delegate.getTextCharacters();
+    }
+
+    @Override
+    public int getTextLength() throws IOException {
+        final String text = getSpilledText();
+        return (text != null) ? text.length() : delegate.getTextLength();
+    }
+
+    @Override
+    public int getTextOffset() throws IOException {
+        final String text = getSpilledText();
+        return (text != null) ? 0 : delegate.getTextOffset();
+    }
+
+    /**
+     * Returns the URL of the spill file if the current token is a large base64 encoded <code>data:</code> URL
+     * string value of a <code>BINARY</code> property, decoding it into a new spill file on the first call for
+     * the token. Otherwise, returns null.
+     * @return the URL of the spill file if the current token is a large base64 encoded <code>data:</code> URL
+     *         string value. Otherwise, null
+     * @throws IOException if decoding or writing fails
+     */
+    private String getSpilledText() throws IOException {
+        if (delegate.currentToken() != JsonToken.VALUE_STRING) {
+            return null;
+        }
+
+        final JsonLocation tokenLocation = delegate.getTokenLocation();
+
+        if (tokenLocation.equals(checkedTokenLocation)) {
+            return spilledText;
+        }
+
+        checkedTokenLocation = tokenLocation;
+        spilledText = null;
+
+        if (delegate.getTextLength() < threshold || !isBinaryPropertyValue()) {
+            return null;
+        }
+
+        final char[] chars = delegate.getTextCharacters();
+        final int offset = delegate.getTextOffset();
+        final int length = delegate.getTextLength();
+
+        if (!startsWith(chars, offset, length, DATA_URL_PREFIX)) {
+            return null;
+        }
+
+        int comma = -1;
+        final int headerEnd = offset + Math.min(length, MAX_DATA_URL_HEADER_LENGTH);
+
+        for (int i = offset + DATA_URL_PREFIX.length(); i < headerEnd; i++) {
+            if (chars[i] == ',') {
+                comma = i;
+                break;
+            }
+        }
+
+        if (comma == -1 || !StringUtils.endsWith(new String(chars, offset, comma - offset), BASE64_MARKER)) {
+            return null;
+        }
+
+        spilledText = spill(chars, comma + 1, offset + length);
+        return spilledText;
+    }
+
+    /**
+     * Returns true if the current token is in the <code>"values"</code> array of an object whose
+     * <code>"type"</code> field is <code>"BINARY"</code>.
+     */
+    private boolean isBinaryPropertyValue() {
+        final JsonStreamContext context = delegate.getParsingContext();
+
+        if (context == null || !context.inArray()) {
+            return false;
+        }
+
+        final JsonStreamContext parent = context.getParent();
+
+        return parent != null && parent.inObject() && VALUES_FIELD_NAME.equals(parent.getCurrentName())
+                && BINARY_TYPE.equals(objectTypes.peek());
+    }
+
+    private String spill(final char[] chars, final int begin, final int end) throws IOException {
+        final FileObject spillFile = spillFolder.resolveFile("data-" + spillFileSeq.incrementAndGet() + ".bin");
+
+        try (InputStream input = Base64.getDecoder().wrap(new AsciiCharArrayInputStream(chars, begin, end));
+                OutputStream output = spillFile.getContent().getOutputStream()) {
+            IOUtils.copy(input, output);
+        }
+
+        return spillFile.getURL().toString();
+    }
+
+    private static boolean startsWith(final char[] chars, final int offset, final int length, final String prefix) {
+        if (length < prefix.length()) {
+            return false;
+        }
+
+        for (int i = 0; i < prefix.length(); i++) {
+            if (chars[offset + i] != prefix.charAt(i)) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * {@link InputStream} reading the ASCII characters in a range of a char array as bytes, without copying.
+     */
+    private static class AsciiCharArrayInputStream extends InputStream {
+
+        private final char[] chars;
+        private final int end;
+        private int pos;
+
+        AsciiCharArrayInputStream(final char[] chars, final int begin, final int end) {
+            this.chars = chars;
+            this.pos = begin;
+            this.end = end;
+        }
+
+        @Override
+        public int read() {
+            return (pos < end) ? (chars[pos++] & 0xFF) : -1;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) {
+            if (pos >= end) {
+                return -1;
+            }
+
+            final int n = Math.min(len, end - pos);
+
+            for (int i = 0; i < n; i++) {
+                b[off + i] = (byte) chars[pos++];
+            }
+
+            return n;
+        }
+    }
+}
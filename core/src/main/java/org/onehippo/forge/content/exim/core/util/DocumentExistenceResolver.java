@@ -0,0 +1,243 @@
+/*
+ * Copyright 2024 Bloomreach B.V. (https://www.bloomreach.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onehippo.forge.content.exim.core.util;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import javax.jcr.Node;
+import javax.jcr.NodeIterator;
+import javax.jcr.RepositoryException;
+
+import org.apache.commons.lang3.StringUtils;
+import org.hippoecm.repository.api.HippoNodeType;
+import org.onehippo.forge.content.exim.core.DocumentManager;
+import org.onehippo.forge.content.exim.core.DocumentManagerException;
+import org.onehippo.forge.content.exim.core.DocumentManagerNotFoundException;
+
+/**
+ * Answers document and folder existence checks from a snapshot of folders taken through a {@link DocumentManager}.
+ * <P>
+ * Each distinct folder is resolved only once, and the names of its child document handle nodes are listed only
+ * once, instead of resolving the folder path node by node for every existence check as
+ * {@link DocumentManager#documentExists(String)} does. This is useful when importing many documents
+ * under the same folders.
+ * </P>
+ * <P>
+ * The snapshot is not updated by the changes made by others. So, documents created through this resolver's user
+ * should be notified by {@link #markCreated(String)}, and the snapshot should be {@link #clear() cleared}
+ * when it may be outdated, e.g, for each run. As the snapshot may reflect pending changes which are not saved yet,
+ * e.g, documents created in a batch to be saved at once, it must be {@link #clear() cleared} as well whenever
+ * the pending changes are discarded.
+ * </P>
+ */
+public class DocumentExistenceResolver {
+
+    private final DocumentManager documentManager;
+
+    /**
+     * Folder snapshots keyed by the logical folder location.
+     */
+    private final Map<String, FolderSnapshot> folderSnapshots = new HashMap<>();
+
+    /**
+     * Constructs with {@code documentManager} which is used to resolve folders.
+     * @param documentManager {@link DocumentManager} instance
+     */
+    public DocumentExistenceResolver(final DocumentManager documentManager) {
+        this.documentManager = documentManager;
+    }
+
+    /**
+     * Resolves each distinct folder of the {@code documentLocations} once, if not resolved yet.
+     * @param documentLocations logical document locations
+     * @throws DocumentManagerException if fails to resolve a folder
+     */
+    public void prefetch(final Collection<String> documentLocations) throws DocumentManagerException {
+        for (String documentLocation : documentLocations) {
+            getFolderSnapshot(splitToFolderLocationAndHandleName(documentLocation)[0]);
+        }
+    }
+
+    /**
+     * Returns true if a document exists at {@code documentLocation}, in the same way as
+     * {@link DocumentManager#documentExists(String)}, but from the snapshot of the folder.
+     * @param documentLocation logical document location
+     * @return true if a document exists at {@code documentLocation}
+     * @throws DocumentManagerException if fails to resolve the folder
+     */
+    public boolean documentExists(final String documentLocation) throws DocumentManagerException {
+        final String[] folderLocationAndHandleName = splitToFolderLocationAndHandleName(documentLocation);
+        final FolderSnapshot snapshot = getFolderSnapshot(folderLocationAndHandleName[0]);
+        return snapshot.exists() && snapshot.handleNames.contains(folderLocationAndHandleName[1]);
+    }
+
+    /**
+     * Returns true if a folder exists at {@code folderLocation}, in the same way as
+     * {@link DocumentManager#folderExists(String)}, but from the snapshot of the folder.
+     * @param folderLocation logical folder location
+     * @return true if a folder exists at {@code folderLocation}
+     * @throws DocumentManagerException if fails to resolve the folder
+     */
+    public boolean folderExists(final String folderLocation) throws DocumentManagerException {
+        return getFolderSnapshot(normalizeFolderLocation(folderLocation)).exists();
+    }
+
+    /**
+     * Returns the physical folder node path for the logical folder location from the snapshot of the folder,
+     * or null if the folder doesn't exist.
+     * @param folderLocation logical folder location
+     * @return the physical folder node path for the logical folder location, or null if the folder doesn't exist
+     * @throws DocumentManagerException if fails to resolve the folder
+     */
+    public String getExistingFolderPath(final String folderLocation) throws DocumentManagerException {
+        return getFolderSnapshot(normalizeFolderLocation(folderLocation)).folderPath;
+    }
+
+    /**
+     * Reflects a document created at {@code documentLocation} in the snapshot.
+     * If its folder was not found in the snapshot, the folder is resolved again on the next check
+     * as the folder might have been created together.
+     * @param documentLocation logical document location of the created document
+     */
+    public void markCreated(final String documentLocation) {
+        final String[] folderLocationAndHandleName = splitToFolderLocationAndHandleName(documentLocation);
+        final FolderSnapshot snapshot = folderSnapshots.get(folderLocationAndHandleName[0]);
+
+        if (snapshot == null) {
+            return;
+        }
+
+        if (snapshot.exists()) {
+            snapshot.handleNames.add(folderLocationAndHandleName[1]);
+        } else {
+            folderSnapshots.remove(folderLocationAndHandleName[0]);
+        }
+    }
+
+    /**
+     * Reflects a folder created, or found in another way, at {@code folderLocation} in the snapshot.
+     * @param folderLocation logical folder location of the created folder
+     * @param folderNode the created folder node
+     * @throws DocumentManagerException if fails to list the child nodes of the folder
+     */
+    public void markFolderCreated(final String folderLocation, final Node folderNode)
+            throws DocumentManagerException {
+        try {
+            folderSnapshots.put(normalizeFolderLocation(folderLocation), createFolderSnapshot(folderNode));
+        } catch (RepositoryException e) {
+            throw new DocumentManagerException("Failed to resolve folder at '" + folderLocation + "'. " + e, e);
+        }
+    }
+
+    /**
+     * Clears the snapshot.
+     */
+    public void clear() {
+        folderSnapshots.clear();
+    }
+
+    /**
+     * Returns the number of folders resolved in the snapshot.
+     * @return the number of folders resolved in the snapshot
+     */
+    public int getResolvedFolderCount() {
+        return folderSnapshots.size();
+    }
+
+    private FolderSnapshot getFolderSnapshot(final String folderLocation) throws DocumentManagerException {
+        FolderSnapshot snapshot = folderSnapshots.get(folderLocation);
+
+        if (snapshot == null) {
+            snapshot = resolveFolderSnapshot(folderLocation);
+            folderSnapshots.put(folderLocation, snapshot);
+        }
+
+        return snapshot;
+    }
+
+    private FolderSnapshot resolveFolderSnapshot(final String folderLocation) throws DocumentManagerException {
+        try {
+            return createFolderSnapshot(documentManager.getExistingFolderNode(folderLocation));
+        } catch (DocumentManagerNotFoundException e) {
+            return new FolderSnapshot(null, null);
+        } catch (RepositoryException e) {
+            throw new DocumentManagerException("Failed to resolve folder at '" + folderLocation + "'. " + e, e);
+        }
+    }
+
+    private static FolderSnapshot createFolderSnapshot(final Node folderNode) throws RepositoryException {
+        final Set<String> handleNames = new HashSet<>();
+
+        for (NodeIterator nodeIt = folderNode.getNodes(); nodeIt.hasNext();) {
+            final Node childNode = nodeIt.nextNode();
+
+            if (childNode != null && childNode.isNodeType(HippoNodeType.NT_HANDLE)) {
+                handleNames.add(childNode.getName());
+            }
+        }
+
+        return new FolderSnapshot(folderNode.getPath(), handleNames);
+    }
+
+    /**
+     * Splits the {@code documentLocation} to the folder location and the handle node name, encoded in the same way
+     * as {@link DocumentManager#getExistingDocumentHandleNode(String)} does.
+     */
+    private static String[] splitToFolderLocationAndHandleName(final String documentLocation) {
+        if (StringUtils.isBlank(documentLocation)) {
+            throw new IllegalArgumentException("Invalid document location argument: '" + documentLocation + "'.");
+        }
+
+        final int offset = documentLocation.lastIndexOf('/');
+
+        if (offset <= 0 || offset == documentLocation.length() - 1) {
+            throw new IllegalArgumentException("Invalid document location argument: '" + documentLocation + "'.");
+        }
+
+        final String handleName = HippoNodeUtils.getDefaultUriEncoding()
+                .encode(ContentPathUtils.removeIndexNotationInNodePath(documentLocation.substring(offset + 1)));
+
+        return new String[] { documentLocation.substring(0, offset), handleName };
+    }
+
+    private static String normalizeFolderLocation(final String folderLocation) {
+        if (StringUtils.isBlank(folderLocation)) {
+            throw new IllegalArgumentException("Invalid folder location argument: '" + folderLocation + "'.");
+        }
+
+        return StringUtils.removeEnd(folderLocation, "/");
+    }
+
+    private static class FolderSnapshot {
+
+        private final String folderPath;
+
+        private final Set<String> handleNames;
+
+        private FolderSnapshot(final String folderPath, final Set<String> handleNames) {
+            this.folderPath = folderPath;
+            this.handleNames = handleNames;
+        }
+
+        private boolean exists() {
+            return folderPath != null;
+        }
+    }
+}
@@ -15,19 +15,27 @@
  */
 package org.onehippo.forge.content.exim.core.util;
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.rmi.RemoteException;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
 
+import javax.jcr.Binary;
 import javax.jcr.ItemNotFoundException;
 import javax.jcr.Node;
 import javax.jcr.NodeIterator;
+import javax.jcr.Property;
+import javax.jcr.PropertyIterator;
+import javax.jcr.PropertyType;
 import javax.jcr.RepositoryException;
 import javax.jcr.Session;
+import javax.jcr.Value;
 import javax.jcr.Workspace;
 
+import org.apache.commons.io.IOUtils;
 import org.apache.commons.lang3.ArrayUtils;
 import org.apache.commons.lang3.StringUtils;
 import org.hippoecm.repository.HippoStdNodeType;
@@ -57,6 +65,13 @@ public class HippoNodeUtils {
      */
     private static final String DOCUMENT_PATH_PREFIX = "/content/documents/";
 
+    /**
+     * Workflow property names, having different values in the variants of the same content, in addition to the
+     * <code>hippostdpubwf:*</code> properties.
+     */
+    private static final String[] WORKFLOW_PROPERTY_NAMES = { HippoNodeType.HIPPO_AVAILABILITY, "hippo:paths",
+            "hippo:related", "hippostd:holder", HippoStdNodeType.HIPPOSTD_STATE, "hippostd:stateSummary" };
+
     /**
      * Hippo gallery path prefix.
      */
@@ -143,6 +158,16 @@ public class HippoNodeUtils {
         return null;
     }
 
+    /**
+     * Returns the {@link WorkflowManager} of the {@code session}.
+     * @param session JCR session
+     * @return the {@link WorkflowManager} of the {@code session}
+     * @throws RepositoryException if any repository exception occurs
+     */
+    public static WorkflowManager getHippoWorkflowManager(final Session session) throws RepositoryException {
+        return ((HippoWorkspace) session.getWorkspace()).getWorkflowManager();
+    }
+
     /**
      * Returns {@link Workflow} instance by the {@code category} for the {@code node}.
      * @param session JCR session
@@ -153,6 +178,21 @@ public class HippoNodeUtils {
      */
     public static Workflow getHippoWorkflow(final Session session, final String category, final Node node)
             throws RepositoryException {
+        return getHippoWorkflow(session, null, category, node);
+    }
+
+    /**
+     * Returns {@link Workflow} instance by the {@code category} for the {@code node}, from the {@code workflowManager}
+     * resolved once for many nodes, e.g, in a batch operation.
+     * @param session JCR session
+     * @param workflowManager workflow manager of the {@code session}, or null to get it from the {@code session}
+     * @param category workflow category
+     * @param node folder or document node
+     * @return {@link Workflow} instance for the {@code node} and the {@code category}
+     * @throws RepositoryException if any repository/workflow exception occurs
+     */
+    public static Workflow getHippoWorkflow(final Session session, final WorkflowManager workflowManager,
+            final String category, final Node node) throws RepositoryException {
         Workspace workspace = session.getWorkspace();
 
         ClassLoader workspaceClassloader = workspace.getClass().getClassLoader();
@@ -163,7 +203,8 @@ public class HippoNodeUtils {
                 Thread.currentThread().setContextClassLoader(workspaceClassloader);
             }
 
-            WorkflowManager wfm = ((HippoWorkspace) workspace).getWorkflowManager();
+            WorkflowManager wfm = (workflowManager != null) ? workflowManager
+                    : ((HippoWorkspace) workspace).getWorkflowManager();
 
             return wfm.getWorkflow(category, node);
         } finally {
@@ -267,6 +308,49 @@ public class HippoNodeUtils {
         return false;
     }
 
+    /**
+     * Detects if the two document variant nodes have the same content, comparing the primary node types, the property
+     * values and the child nodes recursively. The protected properties such as <code>jcr:uuid</code> and the workflow
+     * properties such as <code>hippostd:state</code> or <code>hippostdpubwf:lastModificationDate</code> are not
+     * compared as those differ between the variants of the same content.
+     * @param variant1 document variant node
+     * @param variant2 the other document variant node
+     * @return true if the two document variant nodes have the same content
+     * @throws RepositoryException if any repository exception occurs
+     */
+    public static boolean hasSameVariantContent(final Node variant1, final Node variant2) throws RepositoryException {
+        if (!StringUtils.equals(variant1.getPrimaryNodeType().getName(), variant2.getPrimaryNodeType().getName())) {
+            return false;
+        }
+
+        final Map<String, Property> properties1 = getComparableProperties(variant1);
+        final Map<String, Property> properties2 = getComparableProperties(variant2);
+
+        if (!properties1.keySet().equals(properties2.keySet())) {
+            return false;
+        }
+
+        for (Map.Entry<String, Property> entry : properties1.entrySet()) {
+            if (!hasSameValues(entry.getValue(), properties2.get(entry.getKey()))) {
+                return false;
+            }
+        }
+
+        final NodeIterator childIt1 = variant1.getNodes();
+        final NodeIterator childIt2 = variant2.getNodes();
+
+        while (childIt1.hasNext() && childIt2.hasNext()) {
+            final Node child1 = childIt1.nextNode();
+            final Node child2 = childIt2.nextNode();
+
+            if (!StringUtils.equals(child1.getName(), child2.getName()) || !hasSameVariantContent(child1, child2)) {
+                return false;
+            }
+        }
+
+        return !childIt1.hasNext() && !childIt2.hasNext();
+    }
+
     /**
      * Checks if all the folders exist in the given {@code absPath} and creates folders if not existing.
      * @param session JCR session
@@ -620,4 +704,64 @@ public class HippoNodeUtils {
             throw new WorkflowException(e.toString(), e);
         }
     }
-}
\ No newline at end of file
+
+    private static Map<String, Property> getComparableProperties(final Node node) throws RepositoryException {
+        final Map<String, Property> properties = new HashMap<>();
+
+        for (PropertyIterator propIt = node.getProperties(); propIt.hasNext(); ) {
+            final Property property = propIt.nextProperty();
+            final String name = property.getName();
+
+            if (!property.getDefinition().isProtected() && !isWorkflowPropertyName(name)) {
+                properties.put(name, property);
+            }
+        }
+
+        return properties;
+    }
+
+    private static boolean isWorkflowPropertyName(final String name) {
+        return StringUtils.startsWith(name, "hippostdpubwf:")
+                || ArrayUtils.contains(WORKFLOW_PROPERTY_NAMES, name);
+    }
+
+    private static boolean hasSameValues(final Property property1, final Property property2)
+            throws RepositoryException {
+        if (property1.getType() != property2.getType() || property1.isMultiple() != property2.isMultiple()) {
+            return false;
+        }
+
+        final Value[] values1 = property1.isMultiple() ? property1.getValues() : new Value[] { property1.getValue() };
+        final Value[] values2 = property2.isMultiple() ? property2.getValues() : new Value[] { property2.getValue() };
+
+        if (values1.length != values2.length) {
+            return false;
+        }
+
+        for (int i = 0; i < values1.length; i++) {
+            if (!hasSameValue(values1[i], values2[i])) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    private static boolean hasSameValue(final Value value1, final Value value2) throws RepositoryException {
+        if (value1.getType() != PropertyType.BINARY) {
+            return StringUtils.equals(value1.getString(), value2.getString());
+        }
+
+        final Binary binary1 = value1.getBinary();
+        final Binary binary2 = value2.getBinary();
+
+        try (InputStream input1 = binary1.getStream(); InputStream input2 = binary2.getStream()) {
+            return binary1.getSize() == binary2.getSize() && IOUtils.contentEquals(input1, input2);
+        } catch (IOException e) {
+            throw new RepositoryException("Failed to compare binary values.", e);
+        } finally {
+            binary1.dispose();
+            binary2.dispose();
+        }
+    }
+}
@@ -0,0 +1,164 @@
+/*
+ * Copyright 2024 Bloomreach B.V. (https://www.bloomreach.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onehippo.forge.content.exim.core.util;
+
+import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
+
+import javax.jcr.InvalidItemStateException;
+import javax.jcr.lock.LockException;
+
+import org.apache.commons.lang3.StringUtils;
+
+/**
+ * Retry policy for content migration work items failing transiently by concurrent modifications,
+ * with exponential backoff and jitter.
+ * <P>
+ * A failure is regarded as transient if its cause chain contains an {@link InvalidItemStateException},
+ * a {@link LockException}, or a workflow hint denying to obtain, commit or dispose an editable instance,
+ * which are usually caused by editors or scheduled jobs modifying the same items at the same time.
+ * Other workflow hints denying an action, e.g, "not allowed to add a document" on a folder, are permanent.
+ * </P>
+ * <P>
+ * The backoff of the n-th retry is half of {@code min(maxBackoffMillis, initialBackoffMillis * 2^(n-1))}
+ * plus a random jitter up to the other half, not to let concurrent retries collide again.
+ * </P>
+ */
+public class RetryPolicy {
+
+    /**
+     * Message fragments of the exceptions thrown when a workflow hint denies an action on an editable instance.
+     */
+    private static final String[] EDITABLE_INSTANCE_NOT_ALLOWED_HINTS = {
+            "is not allowed to obtain an editable instance",
+            "is not allowed to commit an editable instance",
+            "is not allowed to dispose an editable instance"
+    };
+
+    private final int maxRetries;
+
+    private final long initialBackoffMillis;
+
+    private final long maxBackoffMillis;
+
+    private final Random random;
+
+    /**
+     * Constructs with the maximum retries, the initial backoff milliseconds and the maximum backoff milliseconds.
+     * @param maxRetries maximum retries of a work item. Zero to disable retries
+     * @param initialBackoffMillis backoff milliseconds before the first retry
+     * @param maxBackoffMillis maximum backoff milliseconds before a retry
+     */
+    public RetryPolicy(final int maxRetries, final long initialBackoffMillis, final long maxBackoffMillis) {
+        this(maxRetries, initialBackoffMillis, maxBackoffMillis, null);
+    }
+
+    RetryPolicy(final int maxRetries, final long initialBackoffMillis, final long maxBackoffMillis,
+            final Random random) {
+        this.maxRetries = Math.max(0, maxRetries);
+        this.initialBackoffMillis = Math.max(0L, initialBackoffMillis);
+        this.maxBackoffMillis = Math.max(this.initialBackoffMillis, maxBackoffMillis);
+        this.random = random;
+    }
+
+    /**
+     * Returns the maximum retries of a work item.
+     * @return the maximum retries of a work item
+     */
+    public int getMaxRetries() {
+        return maxRetries;
+    }
+
+    /**
+     * Returns the backoff milliseconds before the first retry.
+     * @return the backoff milliseconds before the first retry
+     */
+    public long getInitialBackoffMillis() {
+        return initialBackoffMillis;
+    }
+
+    /**
+     * Returns the maximum backoff milliseconds before a retry.
+     * @return the maximum backoff milliseconds before a retry
+     */
+    public long getMaxBackoffMillis() {
+        return maxBackoffMillis;
+    }
+
+    /**
+     * Returns true if a work item failed by {@code failure} after {@code retryCount} retries may be retried again.
+     * @param retryCount the number of the retries done so far
+     * @param failure the failure of the last try
+     * @return true if a work item failed by {@code failure} after {@code retryCount} retries may be retried again
+     */
+    public boolean canRetry(final int retryCount, final Throwable failure) {
+        return retryCount < maxRetries && isTransient(failure);
+    }
+
+    /**
+     * Returns true if {@code failure} is regarded as a transient failure caused by concurrent modifications.
+     * @param failure failure
+     * @return true if {@code failure} is regarded as a transient failure caused by concurrent modifications
+     */
+    public boolean isTransient(final Throwable failure) {
+        for (Throwable cause = failure; cause != null; cause = cause.getCause()) {
+            if (cause instanceof InvalidItemStateException || cause instanceof LockException) {
+                return true;
+            }
+
+            if (cause instanceof IllegalStateException
+                    && StringUtils.containsAny(cause.getMessage(), EDITABLE_INSTANCE_NOT_ALLOWED_HINTS)) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * Returns the backoff milliseconds before the {@code retry}-th retry, including a random jitter.
+     * @param retry the sequence number of the retry, starting from 1
+     * @return the backoff milliseconds before the {@code retry}-th retry
+     */
+    public long getBackoffMillis(final int retry) {
+        long backoff = initialBackoffMillis;
+
+        for (int i = 1; i < retry && backoff < maxBackoffMillis; i++) {
+            backoff *= 2L;
+        }
+
+        backoff = Math.min(maxBackoffMillis, backoff);
+
+        final double jitter = (random != null) ? random.nextDouble() : ThreadLocalRandom.current().nextDouble();
+        return backoff / 2L + Math.round(jitter * (backoff - backoff / 2L));
+    }
+
+    /**
+     * Sleeps for the backoff milliseconds before the {@code retry}-th retry.
+     * @param retry the sequence number of the retry, starting from 1
+     * @return the milliseconds slept for
+     * @throws InterruptedException if interrupted while sleeping
+     */
+    public long backoff(final int retry) throws InterruptedException {
+        final long backoffMillis = getBackoffMillis(retry);
+
+        if (backoffMillis > 0L) {
+            Thread.sleep(backoffMillis);
+        }
+
+        return backoffMillis;
+    }
+}
@@ -0,0 +1,168 @@
+/*
+ * Copyright 2024 Bloomreach B.V. (https://www.bloomreach.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onehippo.forge.content.exim.core.benchmark;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.concurrent.TimeUnit;
+
+import jakarta.xml.bind.JAXBContext;
+import jakarta.xml.bind.Marshaller;
+import jakarta.xml.bind.Unmarshaller;
+
+import org.apache.commons.vfs2.FileObject;
+import org.apache.commons.vfs2.VFS;
+import org.onehippo.forge.content.exim.core.impl.AbstractContentMigrationTask;
+import org.onehippo.forge.content.pojo.model.ContentNode;
+import org.onehippo.forge.content.pojo.model.ContentProperty;
+import org.onehippo.forge.content.pojo.model.ContentPropertyType;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Measures the per-file overhead of reading and writing a {@link ContentNode} in JSON and XML formats,
+ * comparing the former way of creating a {@link JAXBContext} or a JSON writer on every call
+ * with the cached and pooled ones in {@link AbstractContentMigrationTask}.
+ * <P>
+ * Run it from the IDE or by executing {@link #main(String[])} with the test classpath.
+ * </P>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ContentNodeSerializationBenchmark {
+
+    private AbstractContentMigrationTask task;
+    private ObjectMapper objectMapper;
+    private ContentNode contentNode;
+    private FileObject jsonFile;
+    private FileObject xmlFile;
+    private byte[] jsonBytes;
+    private byte[] xmlBytes;
+
+    @Setup
+    public void setUp() throws Exception {
+        task = new AbstractContentMigrationTask(null) {};
+        objectMapper = new ObjectMapper();
+        contentNode = createContentNode();
+
+        jsonFile = VFS.getManager().resolveFile("ram://benchmark/content.json");
+        xmlFile = VFS.getManager().resolveFile("ram://benchmark/content.xml");
+        task.writeContentNodeToJsonFile(contentNode, jsonFile);
+        task.writeContentNodeToXmlFile(contentNode, xmlFile);
+
+        jsonBytes = objectMapper.writerWithDefaultPrettyPrinter().writeValueAsBytes(contentNode);
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        JAXBContext.newInstance(ContentNode.class).createMarshaller().marshal(contentNode, baos);
+        xmlBytes = baos.toByteArray();
+    }
+
+    @TearDown
+    public void tearDown() throws Exception {
+        jsonFile.delete();
+        xmlFile.delete();
+    }
+
+    @Benchmark
+    public Object readXmlWithNewJaxbContext() throws Exception {
+        Unmarshaller unmarshaller = JAXBContext.newInstance(ContentNode.class).createUnmarshaller();
+        return unmarshaller.unmarshal(new ByteArrayInputStream(xmlBytes));
+    }
+
+    @Benchmark
+    public Object writeXmlWithNewJaxbContext() throws Exception {
+        ByteArrayOutputStream baos = new ByteArrayOutputStream(xmlBytes.length);
+        Marshaller marshaller = JAXBContext.newInstance(ContentNode.class).createMarshaller();
+        marshaller.setProperty(Marshaller.JAXB_FORMATTED_OUTPUT, true);
+        marshaller.marshal(contentNode, baos);
+        return baos;
+    }
+
+    @Benchmark
+    public Object readJsonWithObjectMapper() throws Exception {
+        return objectMapper.readValue(jsonBytes, ContentNode.class);
+    }
+
+    @Benchmark
+    public Object writeJsonWithNewPrettyWriter() throws Exception {
+        return objectMapper.writerWithDefaultPrettyPrinter().writeValueAsBytes(contentNode);
+    }
+
+    @Benchmark
+    public Object readXmlFileByTask() throws Exception {
+        return task.readContentNodeFromXmlFile(xmlFile);
+    }
+
+    @Benchmark
+    public void writeXmlFileByTask() throws Exception {
+        task.writeContentNodeToXmlFile(contentNode, xmlFile);
+    }
+
+    @Benchmark
+    public Object readJsonFileByTask() throws Exception {
+        return task.readContentNodeFromJsonFile(jsonFile);
+    }
+
+    @Benchmark
+    public void writeJsonFileByTask() throws Exception {
+        task.writeContentNodeToJsonFile(contentNode, jsonFile);
+    }
+
+    public static void main(String[] args) throws Exception {
+        Options options = new OptionsBuilder().include(ContentNodeSerializationBenchmark.class.getSimpleName())
+                .build();
+        new Runner(options).run();
+    }
+
+    private static ContentNode createContentNode() {
+        ContentNode contentNode = new ContentNode("benchmark-document", "nt:unstructured");
+        contentNode.setProperty("jcr:path", "/content/documents/benchmark/benchmark-document");
+        contentNode.setProperty("exim:title", "Benchmark Document");
+
+        ContentProperty tags = new ContentProperty("exim:tags", ContentPropertyType.STRING, true);
+
+        for (int i = 0; i < 20; i++) {
+            tags.addValue("tag-" + i);
+        }
+
+        contentNode.setProperty(tags);
+
+        for (int i = 0; i < 10; i++) {
+            ContentNode child = new ContentNode("exim:paragraph", "nt:unstructured");
+            child.setProperty("exim:text", "Lorem ipsum dolor sit amet, consectetur adipiscing elit " + i);
+            contentNode.addNode(child);
+        }
+
+        return contentNode;
+    }
+}
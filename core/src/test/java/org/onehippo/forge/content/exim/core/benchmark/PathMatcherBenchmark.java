@@ -0,0 +1,147 @@
+/*
+ * Copyright 2024 Bloomreach B.V. (https://www.bloomreach.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onehippo.forge.content.exim.core.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.onehippo.forge.content.exim.core.util.AntPathMatcher;
+import org.onehippo.forge.content.exim.core.util.CompiledPathMatcher;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Measures filtering a set of content paths by include and exclude path patterns,
+ * comparing the former way of looping over the patterns with {@link AntPathMatcher} for each path
+ * with {@link CompiledPathMatcher}.
+ * <P>
+ * Run it from the IDE or by executing {@link #main(String[])} with the test classpath.
+ * </P>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PathMatcherBenchmark {
+
+    private static final int PATH_COUNT = 1000;
+
+    @Param({ "4", "40" })
+    public int patternCount;
+
+    private List<String> includes;
+    private List<String> excludes;
+    private List<String> paths;
+    private AntPathMatcher antPathMatcher;
+    private CompiledPathMatcher compiledPathMatcher;
+
+    @Setup
+    public void setUp() {
+        includes = new ArrayList<>();
+        excludes = new ArrayList<>();
+
+        for (int i = 0; i < patternCount / 2; i++) {
+            includes.add("/content/documents/site" + i + "/**");
+            excludes.add("/content/documents/site" + i + "/archive/**/*.pdf");
+        }
+
+        paths = new ArrayList<>();
+
+        for (int i = 0; i < PATH_COUNT; i++) {
+            paths.add("/content/documents/site" + (i % (patternCount + 2)) + "/news/" + (2000 + i % 25) + "/article-"
+                    + i);
+        }
+
+        antPathMatcher = new AntPathMatcher();
+        compiledPathMatcher = new CompiledPathMatcher(includes, excludes);
+    }
+
+    @Benchmark
+    public int filterByAntPathMatcher() {
+        int count = 0;
+
+        for (String path : paths) {
+            if (isIncludedByAntPathMatcher(path)) {
+                count++;
+            }
+        }
+
+        return count;
+    }
+
+    @Benchmark
+    public int filterByCompiledPathMatcher() {
+        int count = 0;
+
+        for (String path : paths) {
+            if (compiledPathMatcher.isIncluded(path)) {
+                count++;
+            }
+        }
+
+        return count;
+    }
+
+    @Benchmark
+    public int compileAndFilterByCompiledPathMatcher() {
+        final CompiledPathMatcher matcher = new CompiledPathMatcher(includes, excludes);
+        int count = 0;
+
+        for (String path : paths) {
+            if (matcher.isIncluded(path)) {
+                count++;
+            }
+        }
+
+        return count;
+    }
+
+    public static void main(String[] args) throws Exception {
+        Options options = new OptionsBuilder().include(PathMatcherBenchmark.class.getSimpleName()).build();
+        new Runner(options).run();
+    }
+
+    private boolean isIncludedByAntPathMatcher(final String path) {
+        for (String exclude : excludes) {
+            if (antPathMatcher.match(exclude, path)) {
+                return false;
+            }
+        }
+
+        for (String include : includes) {
+            if (antPathMatcher.match(include, path)) {
+                return true;
+            }
+        }
+
+        return includes.isEmpty();
+    }
+}
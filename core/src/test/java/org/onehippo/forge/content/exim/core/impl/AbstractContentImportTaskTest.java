@@ -16,18 +16,24 @@
 package org.onehippo.forge.content.exim.core.impl;
 
 import javax.jcr.Node;
+import javax.jcr.NodeIterator;
+import javax.jcr.Session;
 import javax.jcr.Value;
 
 import org.easymock.EasyMock;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.onehippo.forge.content.exim.core.DocumentManager;
+import org.onehippo.forge.content.exim.core.util.DocumentExistenceResolver;
 import org.onehippo.forge.content.pojo.binder.ContentNodeBinder;
 import org.onehippo.forge.content.pojo.binder.ContentNodeBindingItemFilter;
 import org.onehippo.forge.content.pojo.binder.jcr.DefaultContentNodeJcrBindingItemFilter;
 import org.onehippo.forge.content.pojo.binder.jcr.DefaultJcrContentNodeBinder;
 import org.onehippo.forge.content.pojo.model.ContentItem;
 
+import static org.easymock.EasyMock.expect;
+import static org.easymock.EasyMock.replay;
+import static org.easymock.EasyMock.verify;
 import static org.junit.jupiter.api.Assertions.*;
 
 class AbstractContentImportTaskTest {
@@ -116,4 +122,35 @@ class AbstractContentImportTaskTest {
         assertNotSame(defaultFilter, task.getContentNodeBindingItemFilter());
         assertSame(customFilter, task.getContentNodeBindingItemFilter());
     }
+
+    @Test
+    void discardPendingChanges_refreshesSessionAndClearsDocumentExistenceResolver() throws Exception {
+        DocumentManager documentManager = EasyMock.createMock(DocumentManager.class);
+        Session session = EasyMock.createMock(Session.class);
+        Node folderNode = EasyMock.createMock(Node.class);
+        NodeIterator nodeIt = EasyMock.createMock(NodeIterator.class);
+        expect(documentManager.getSession()).andReturn(session).anyTimes();
+        // resolved again after the snapshot is cleared.
+        expect(documentManager.getExistingFolderNode("/content/documents/news")).andReturn(folderNode).times(2);
+        expect(folderNode.getPath()).andReturn("/content/documents/news").anyTimes();
+        expect(folderNode.getNodes()).andReturn(nodeIt).anyTimes();
+        expect(nodeIt.hasNext()).andReturn(false).anyTimes();
+        session.refresh(false);
+        EasyMock.expectLastCall().once();
+        replay(documentManager, session, folderNode, nodeIt);
+
+        AbstractContentImportTask importTask = new AbstractContentImportTask(documentManager) {};
+        DocumentExistenceResolver resolver = new DocumentExistenceResolver(documentManager);
+        importTask.setDocumentExistenceResolver(resolver);
+
+        assertFalse(resolver.documentExists("/content/documents/news/doc-1"));
+        resolver.markCreated("/content/documents/news/doc-1");
+        assertTrue(resolver.documentExists("/content/documents/news/doc-1"));
+
+        importTask.discardPendingChanges();
+
+        assertEquals(0, resolver.getResolvedFolderCount());
+        assertFalse(resolver.documentExists("/content/documents/news/doc-1"));
+        verify(documentManager, session);
+    }
 }
@@ -0,0 +1,389 @@
+/*
+ * Copyright 2024 Bloomreach B.V. (https://www.bloomreach.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onehippo.forge.content.exim.core.impl;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.List;
+
+import org.apache.commons.vfs2.FileObject;
+import org.apache.commons.vfs2.VFS;
+import org.easymock.EasyMock;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.onehippo.forge.content.exim.core.ContentMigrationRecord;
+import org.onehippo.forge.content.exim.core.ContentMigrationRecordListener;
+import org.onehippo.forge.content.exim.core.ContentMigrationTask;
+import org.onehippo.forge.content.exim.core.ContentNodeFileFormat;
+import org.onehippo.forge.content.exim.core.DocumentManager;
+import org.onehippo.forge.content.pojo.model.ContentNode;
+import org.onehippo.forge.content.pojo.model.ContentPropertyType;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AbstractContentMigrationTaskTest {
+
+    private AbstractContentMigrationTask task;
+
+    @BeforeEach
+    void setUp() {
+        DocumentManager mockDocumentManager = EasyMock.createMock(DocumentManager.class);
+        task = new AbstractContentMigrationTask(mockDocumentManager) {};
+    }
+
+    // ========================================================================
+    // Record listeners
+    // ========================================================================
+
+    @Test
+    void beginAndEndRecord_notifiesListenersWithTimings() {
+        final List<String> events = new ArrayList<>();
+
+        task.addContentMigrationRecordListener(new ContentMigrationRecordListener() {
+            @Override
+            public void onRecordBegin(ContentMigrationTask t, ContentMigrationRecord record) {
+                assertSame(task, t);
+                assertTrue(record.getBeginTimeMillis() > 0L);
+                assertEquals(0L, record.getEndTimeMillis());
+                events.add("begin:" + record.getContentPath());
+            }
+
+            @Override
+            public void onRecordEnd(ContentMigrationTask t, ContentMigrationRecord record) {
+                assertTrue(record.getEndTimeMillis() >= record.getBeginTimeMillis());
+                events.add("end:" + record.getContentPath());
+            }
+        });
+
+        task.start();
+        task.beginRecord("id1", "/content/documents/a");
+        task.endRecord();
+        task.stop();
+
+        assertEquals(List.of("begin:/content/documents/a", "end:/content/documents/a"), events);
+    }
+
+    @Test
+    void removeContentMigrationRecordListener_stopsNotifications() {
+        final CountingContentMigrationRecordListener counter = new CountingContentMigrationRecordListener();
+        task.addContentMigrationRecordListener(counter);
+        task.start();
+        task.beginRecord("id1", "/a");
+        task.endRecord();
+
+        task.removeContentMigrationRecordListener(counter);
+        task.beginRecord("id2", "/b");
+        task.endRecord();
+        task.stop();
+
+        assertEquals(1, counter.getTotalCount());
+    }
+
+    @Test
+    void endRecord_whenListenerFails_continuesWithOtherListeners() {
+        final CountingContentMigrationRecordListener counter = new CountingContentMigrationRecordListener();
+        task.addContentMigrationRecordListener(new ContentMigrationRecordListener() {
+            @Override
+            public void onRecordBegin(ContentMigrationTask t, ContentMigrationRecord record) {
+                throw new IllegalStateException("begin");
+            }
+
+            @Override
+            public void onRecordEnd(ContentMigrationTask t, ContentMigrationRecord record) {
+                throw new IllegalStateException("end");
+            }
+        });
+        task.addContentMigrationRecordListener(counter);
+
+        task.start();
+        task.beginRecord("id1", "/a");
+        task.endRecord();
+        task.stop();
+
+        assertEquals(1, counter.getTotalCount());
+    }
+
+    // ========================================================================
+    // Summary without retained records
+    // ========================================================================
+
+    @Test
+    void getSummary_whenRecordsNotRetained_reportsIncrementalCounts() {
+        task.setContentMigrationRecordsRetained(false);
+        task.start();
+
+        ContentMigrationRecord record = task.beginRecord("id1", "/a");
+        record.setProcessed(true);
+        record.setSucceeded(true);
+        task.endRecord();
+
+        record = task.beginRecord("id2", "/b");
+        record.setProcessed(true);
+        task.endRecord();
+
+        task.stop();
+
+        assertTrue(task.getContentMigrationRecords().isEmpty());
+        String summary = task.getSummary();
+        assertTrue(summary.contains("Total: 2, Processed: 2, Suceeded: 1, Failed: 1"), summary);
+        assertFalse(summary.contains("SEQ,PROCESSED"), summary);
+    }
+
+    @Test
+    void getSummary_whenRecordsRetained_includesDetails() {
+        task.start();
+        ContentMigrationRecord record = task.beginRecord("id1", "/a");
+        record.setProcessed(true);
+        record.setSucceeded(true);
+        task.endRecord();
+        task.stop();
+
+        assertEquals(1, task.getContentMigrationRecords().size());
+        String summary = task.getSummary();
+        assertTrue(summary.contains("Total: 1, Processed: 1, Suceeded: 1, Failed: 0"), summary);
+        assertTrue(summary.contains("SEQ,PROCESSED"), summary);
+    }
+
+    // ========================================================================
+    // CSV spill file listener
+    // ========================================================================
+
+    @Test
+    void csvFileListener_spillsEachEndedRecord(@TempDir Path tempDir) throws Exception {
+        final File file = tempDir.resolve("records.csv").toFile();
+
+        try (CsvFileContentMigrationRecordListener spill = new CsvFileContentMigrationRecordListener(file)) {
+            task.setContentMigrationRecordsRetained(false);
+            task.addContentMigrationRecordListener(spill);
+            task.start();
+
+            ContentMigrationRecord record = task.beginRecord("id1", "/content/documents/a");
+            record.setProcessed(true);
+            record.setSucceeded(true);
+            task.endRecord();
+
+            record = task.beginRecord("id2", "/content/documents/b");
+            record.setErrorMessage("boom");
+            task.endRecord();
+
+            task.stop();
+            assertEquals(2, spill.getRecordCount());
+        }
+
+        List<String> lines = Files.readAllLines(file.toPath(), StandardCharsets.UTF_8);
+        assertEquals(3, lines.size());
+        assertTrue(lines.get(0).startsWith("SEQ,PROCESSED,SUCCEEDED,ID,PATH,TYPE,ATTRIBUTES,ERROR,DURATION"));
+        assertTrue(lines.get(1).startsWith("1,true,true,id1,/content/documents/a,"));
+        assertTrue(lines.get(2).startsWith("2,false,false,id2,/content/documents/b,"));
+        assertTrue(lines.get(2).contains("boom"));
+    }
+
+    // ========================================================================
+    // Cached JSON/XML (de)serialization
+    // ========================================================================
+
+    @Test
+    void writeAndReadXmlFile_repeatedly_roundTripsWithPooledMarshallers() throws Exception {
+        final FileObject file = VFS.getManager().resolveFile("ram://exim-test/xml-roundtrip.xml");
+
+        try {
+            for (int i = 0; i < 3; i++) {
+                ContentNode contentNode = new ContentNode("doc" + i, "nt:unstructured");
+                contentNode.setProperty("exim:title", "Title " + i);
+                task.writeContentNodeToXmlFile(contentNode, file);
+
+                ContentNode read = task.readContentNodeFromXmlFile(file);
+                assertEquals("doc" + i, read.getName());
+                assertEquals("Title " + i, read.getProperty("exim:title").getValue());
+            }
+
+            assertSame(AbstractContentMigrationTask.getContentNodeJaxbContext(),
+                    AbstractContentMigrationTask.getContentNodeJaxbContext());
+        } finally {
+            file.delete();
+        }
+    }
+
+    @Test
+    void writeAndReadJsonFile_roundTripsWithPrebuiltReaderAndWriter() throws Exception {
+        final FileObject file = VFS.getManager().resolveFile("ram://exim-test/json-roundtrip.json");
+
+        try {
+            ContentNode contentNode = new ContentNode("doc", "nt:unstructured");
+            contentNode.setProperty("exim:title", "Title");
+            task.writeContentNodeToJsonFile(contentNode, file);
+
+            assertSame(task.getContentNodeReader(), task.getContentNodeReader());
+            assertSame(task.getContentNodeWriter(), task.getContentNodeWriter());
+            assertEquals("Title", task.readContentNodeFromJsonFile(file).getProperty("exim:title").getValue());
+        } finally {
+            file.delete();
+        }
+    }
+
+    @Test
+    void setObjectMapper_resetsPrebuiltReaderAndWriter() {
+        final Object reader = task.getContentNodeReader();
+        final Object writer = task.getContentNodeWriter();
+
+        task.setObjectMapper(new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT));
+
+        assertNotSame(reader, task.getContentNodeReader());
+        assertNotSame(writer, task.getContentNodeWriter());
+    }
+
+    @Test
+    void getSmileContentNodeReaderAndWriter_keepObjectMapperConfiguration() {
+        final Object smileReader = task.getSmileContentNodeReader();
+        final Object smileWriter = task.getSmileContentNodeWriter();
+
+        task.setObjectMapper(new ObjectMapper().disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES)
+                .enable(SerializationFeature.ORDER_MAP_ENTRIES_BY_KEYS));
+
+        assertNotSame(smileReader, task.getSmileContentNodeReader());
+        assertNotSame(smileWriter, task.getSmileContentNodeWriter());
+        assertTrue(task.getSmileContentNodeReader().getFactory() instanceof SmileFactory);
+        assertFalse(task.getSmileContentNodeReader().isEnabled(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES));
+        assertTrue(task.getSmileContentNodeWriter().isEnabled(SerializationFeature.ORDER_MAP_ENTRIES_BY_KEYS));
+    }
+
+    // ========================================================================
+    // Content node file formats
+    // ========================================================================
+
+    @Test
+    void writeContentNodeToFile_compactJson_writesNoWhitespaces() throws Exception {
+        final FileObject file = VFS.getManager().resolveFile("ram://exim-test/compact.json");
+
+        try {
+            ContentNode contentNode = new ContentNode("doc", "nt:unstructured");
+            contentNode.setProperty("exim:title", "Title");
+
+            task.setContentNodeFileFormat(ContentNodeFileFormat.COMPACT_JSON);
+            task.writeContentNodeToFile(contentNode, file);
+
+            String json = new String(file.getContent().getByteArray(), StandardCharsets.UTF_8);
+            assertFalse(json.contains("\n"), json);
+            assertEquals("Title", task.readContentNodeFromFile(file).getProperty("exim:title").getValue());
+        } finally {
+            file.delete();
+        }
+    }
+
+    @Test
+    void readContentNodeFromFile_detectsSmileAndJsonPerFile() throws Exception {
+        final FileObject smileFile = VFS.getManager().resolveFile("ram://exim-test/doc.smile");
+        final FileObject jsonFile = VFS.getManager().resolveFile("ram://exim-test/doc.json");
+
+        try {
+            ContentNode contentNode = new ContentNode("doc", "nt:unstructured");
+            contentNode.setProperty("exim:title", "Title");
+
+            task.setContentNodeFileFormat(ContentNodeFileFormat.SMILE);
+            task.writeContentNodeToFile(contentNode, smileFile);
+            task.setContentNodeFileFormat(ContentNodeFileFormat.PRETTY_JSON);
+            task.writeContentNodeToFile(contentNode, jsonFile);
+
+            byte[] smileBytes = smileFile.getContent().getByteArray();
+            assertEquals(':', smileBytes[0]);
+            assertEquals(')', smileBytes[1]);
+
+            assertEquals("Title", task.readContentNodeFromFile(smileFile).getProperty("exim:title").getValue());
+            assertEquals("Title", task.readContentNodeFromFile(jsonFile).getProperty("exim:title").getValue());
+        } finally {
+            smileFile.delete();
+            jsonFile.delete();
+        }
+    }
+
+    @Test
+    void readContentNodePathFromFile_readsTopLevelMetaPathInJsonAndSmile() throws Exception {
+        final FileObject smileFile = VFS.getManager().resolveFile("ram://exim-test/path.smile");
+        final FileObject jsonFile = VFS.getManager().resolveFile("ram://exim-test/path.json");
+
+        try {
+            ContentNode contentNode = new ContentNode("doc", "nt:unstructured");
+            contentNode.setProperty("exim:title", "Title");
+            ContentNode childNode = new ContentNode("child", "nt:unstructured");
+            childNode.setProperty("jcr:path", "/content/documents/child");
+            contentNode.addNode(childNode);
+            contentNode.setProperty("jcr:path", "/content/documents/doc");
+
+            task.setContentNodeFileFormat(ContentNodeFileFormat.SMILE);
+            task.writeContentNodeToFile(contentNode, smileFile);
+            task.setContentNodeFileFormat(ContentNodeFileFormat.PRETTY_JSON);
+            task.writeContentNodeToFile(contentNode, jsonFile);
+
+            assertEquals("/content/documents/doc", task.readContentNodePathFromFile(smileFile));
+            assertEquals("/content/documents/doc", task.readContentNodePathFromFile(jsonFile));
+
+            task.writeContentNodeToFile(childNode, jsonFile);
+            assertEquals("/content/documents/child", task.readContentNodePathFromFile(jsonFile));
+
+            task.writeContentNodeToFile(new ContentNode("none", "nt:unstructured"), jsonFile);
+            assertNull(task.readContentNodePathFromFile(jsonFile));
+        } finally {
+            smileFile.delete();
+            jsonFile.delete();
+        }
+    }
+
+    @Test
+    void setContentNodeFileFormat_null_fallsBackToPrettyJson() {
+        task.setContentNodeFileFormat(null);
+
+        assertEquals(ContentNodeFileFormat.PRETTY_JSON, task.getContentNodeFileFormat());
+        assertEquals("json", task.getContentNodeFileFormat().getFileExtension());
+        assertEquals("smile", ContentNodeFileFormat.SMILE.getFileExtension());
+    }
+
+    @Test
+    void readContentNodeFromFile_withDataUrlSpillFolder_decodesLargeDataUrlIntoFile() throws Exception {
+        final FileObject file = VFS.getManager().resolveFile("ram://exim-test/binary.json");
+        final FileObject spillFolder = VFS.getManager().resolveFile("ram://exim-test/spill");
+        spillFolder.createFolder();
+
+        try {
+            final byte[] data = new byte[8192];
+            Arrays.fill(data, (byte) 7);
+            ContentNode contentNode = new ContentNode("img", "hippogallery:image");
+            contentNode.setProperty("jcr:data", ContentPropertyType.BINARY,
+                    "data:image/png;base64," + Base64.getEncoder().encodeToString(data));
+            task.writeContentNodeToFile(contentNode, file);
+
+            task.setDataUrlSpillFolder(spillFolder);
+            task.setDataUrlSpillThreshold(1024);
+
+            String value = task.readContentNodeFromFile(file).getProperty("jcr:data").getValue();
+            assertTrue(value.startsWith("ram:"), value);
+            assertArrayEquals(data, VFS.getManager().resolveFile(value).getContent().getByteArray());
+        } finally {
+            file.delete();
+            spillFolder.deleteAll();
+        }
+    }
+}
@@ -15,14 +15,22 @@
  */
 package org.onehippo.forge.content.exim.core.impl;
 
+import java.util.Arrays;
+import java.util.List;
+
 import javax.jcr.Node;
+import javax.jcr.RepositoryException;
 import javax.jcr.Session;
 import javax.jcr.Value;
 
 import org.easymock.EasyMock;
 import org.hippoecm.repository.api.Document;
+import org.hippoecm.repository.api.HippoWorkspace;
+import org.hippoecm.repository.api.WorkflowManager;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.onehippo.forge.content.exim.core.DocumentCreationRequest;
+import org.onehippo.forge.content.exim.core.DocumentManagerBatchResult;
 import org.onehippo.forge.content.exim.core.DocumentManagerException;
 import org.onehippo.forge.content.pojo.binder.ContentNodeBinder;
 import org.onehippo.forge.content.pojo.binder.ContentNodeBindingItemFilter;
@@ -189,4 +197,85 @@ class WorkflowDocumentManagerImplTest {
 
         verify(mockDocument, mockNode, mockBinder);
     }
+
+    @Test
+    void publishDocuments_savesPendingChangesOnceAndReportsFailuresPerItem() throws Exception {
+        HippoWorkspace mockWorkspace = EasyMock.createMock(HippoWorkspace.class);
+        WorkflowManager mockWorkflowManager = EasyMock.createMock(WorkflowManager.class);
+        expect(mockSession.hasPendingChanges()).andReturn(true);
+        mockSession.save();
+        EasyMock.expectLastCall().once();
+        expect(mockSession.getWorkspace()).andReturn(mockWorkspace).once();
+        expect(mockWorkspace.getWorkflowManager()).andReturn(mockWorkflowManager).once();
+
+        replay(mockSession, mockWorkspace, mockWorkflowManager);
+
+        List<DocumentManagerBatchResult> results = documentManager.publishDocuments(Arrays.asList(" ", ""));
+
+        assertEquals(2, results.size());
+        assertFalse(results.get(0).isSucceeded());
+        assertEquals(" ", results.get(0).getLocation());
+        assertNotNull(results.get(0).getException());
+        assertFalse(results.get(1).isSucceeded());
+        verify(mockSession, mockWorkspace);
+    }
+
+    @Test
+    void commitEditableDocuments_whenSaveFails_failsAllItems() throws Exception {
+        Document mockDocument = EasyMock.createMock(Document.class);
+        expect(mockDocument.getIdentity()).andReturn("doc-id").anyTimes();
+        expect(mockSession.hasPendingChanges()).andReturn(true);
+        mockSession.save();
+        EasyMock.expectLastCall().andThrow(new RepositoryException("Save failed"));
+
+        replay(mockSession, mockDocument);
+
+        List<DocumentManagerBatchResult> results = documentManager.commitEditableDocuments(
+                Arrays.asList(mockDocument));
+
+        assertEquals(1, results.size());
+        assertFalse(results.get(0).isSucceeded());
+        assertEquals("doc-id", results.get(0).getLocation());
+        verify(mockSession);
+    }
+
+    @Test
+    void createDocuments_whenFolderCannotBeResolved_failsAllItems() throws Exception {
+        HippoWorkspace mockWorkspace = EasyMock.createMock(HippoWorkspace.class);
+        WorkflowManager mockWorkflowManager = EasyMock.createMock(WorkflowManager.class);
+        expect(mockSession.getWorkspace()).andReturn(mockWorkspace).once();
+        expect(mockWorkspace.getWorkflowManager()).andReturn(mockWorkflowManager).once();
+        expect(mockSession.getRootNode()).andThrow(new RepositoryException("Lookup failed"));
+
+        replay(mockSession, mockWorkspace, mockWorkflowManager);
+
+        List<DocumentManagerBatchResult> results = documentManager.createDocuments("/content/documents/news",
+                Arrays.asList(new DocumentCreationRequest("ns:doc", "doc-1", "en", "Doc 1"),
+                        new DocumentCreationRequest("ns:doc", "doc-2", "en", "Doc 2")));
+
+        assertEquals(2, results.size());
+        assertFalse(results.get(0).isSucceeded());
+        assertEquals("doc-1", results.get(0).getLocation());
+        assertFalse(results.get(1).isSucceeded());
+        assertEquals("doc-2", results.get(1).getLocation());
+        assertSame(results.get(0).getException(), results.get(1).getException());
+        verify(mockSession, mockWorkspace);
+    }
+
+    @Test
+    void publishDocuments_whenSaveFails_failsAllItems() throws Exception {
+        expect(mockSession.hasPendingChanges()).andReturn(true);
+        mockSession.save();
+        EasyMock.expectLastCall().andThrow(new RepositoryException("Save failed"));
+
+        replay(mockSession);
+
+        List<DocumentManagerBatchResult> results = documentManager.publishDocuments(
+                Arrays.asList("/content/documents/doc"));
+
+        assertEquals(1, results.size());
+        assertFalse(results.get(0).isSucceeded());
+        assertEquals("/content/documents/doc", results.get(0).getLocation());
+        verify(mockSession);
+    }
 }
@@ -20,6 +20,7 @@ import javax.jcr.Session;
 import javax.jcr.Value;
 
 import org.easymock.EasyMock;
+import org.hippoecm.repository.api.Document;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.onehippo.forge.content.exim.core.DocumentManager;
@@ -27,11 +28,13 @@ import org.onehippo.forge.content.pojo.binder.ContentNodeBinder;
 import org.onehippo.forge.content.pojo.binder.ContentNodeBindingItemFilter;
 import org.onehippo.forge.content.pojo.binder.jcr.DefaultContentNodeJcrBindingItemFilter;
 import org.onehippo.forge.content.pojo.binder.jcr.DefaultJcrContentNodeBinder;
+import org.onehippo.forge.content.pojo.common.ContentValueConverter;
 import org.onehippo.forge.content.pojo.model.ContentItem;
 import org.onehippo.forge.content.pojo.model.ContentNode;
 
 import static org.easymock.EasyMock.expect;
 import static org.easymock.EasyMock.replay;
+import static org.easymock.EasyMock.verify;
 import static org.junit.jupiter.api.Assertions.*;
 
 class WorkflowDocumentVariantImportTaskTest {
@@ -135,4 +138,44 @@ class WorkflowDocumentVariantImportTaskTest {
 
         assertTrue(exception.getMessage().contains("Cannot update document"));
     }
+
+    @Test
+    void updateDocument_saveBeforeCommitRequired_savesEachDocument() throws Exception {
+        Session session = EasyMock.createMock(Session.class);
+        session.save();
+        EasyMock.expectLastCall().once();
+
+        assertUpdateDocumentSaves(true, session);
+    }
+
+    @Test
+    void updateDocument_saveBeforeCommitNotRequired_leavesSaveToCaller() throws Exception {
+        // no save expected on the session.
+        Session session = EasyMock.createMock(Session.class);
+
+        assertUpdateDocumentSaves(false, session);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static void assertUpdateDocumentSaves(boolean saveBeforeCommitRequired, Session session)
+            throws Exception {
+        DocumentManager documentManager = EasyMock.createMock(DocumentManager.class);
+        Document editableDocument = EasyMock.createMock(Document.class);
+        Node variant = EasyMock.createNiceMock(Node.class);
+        ContentNodeBinder<Node, ContentItem, Value> binder = EasyMock.createNiceMock(ContentNodeBinder.class);
+
+        expect(documentManager.getSession()).andReturn(session).anyTimes();
+        expect(documentManager.isSaveBeforeCommitRequired()).andReturn(saveBeforeCommitRequired).anyTimes();
+        expect(documentManager.commitEditableDocument(editableDocument)).andReturn(editableDocument);
+        expect(editableDocument.getCheckedOutNode(session)).andReturn(variant);
+        expect(variant.isNodeType("hippo:handle")).andReturn(true).anyTimes();
+        replay(documentManager, session, editableDocument, variant, binder);
+
+        WorkflowDocumentVariantImportTask importTask = new WorkflowDocumentVariantImportTask(documentManager);
+        importTask.setContentNodeBinder(binder);
+        importTask.setContentValueConverter(EasyMock.createNiceMock(ContentValueConverter.class));
+
+        assertSame(variant, importTask.updateDocument(editableDocument, new ContentNode()));
+        verify(documentManager, session);
+    }
 }
@@ -0,0 +1,98 @@
+/*
+ * Copyright 2024 Bloomreach B.V. (https://www.bloomreach.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onehippo.forge.content.exim.core.util;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CompiledPathMatcherTest {
+
+    private static final List<String> PATTERNS = Arrays.asList("/content/documents/**", "/content/documents",
+            "/content/documents/news/**", "/content/documents/*/2024/**", "/content/gallery/**/*.png",
+            "/content/assets/report?.pdf", "/content/**/archive/**", "/**/hidden", "**/*.xml", "content/relative/**",
+            "/content/documents/news/", "/content/*", "/*/documents/events/*");
+
+    private static final List<String> PATHS = Arrays.asList("/content/documents", "/content/documents/",
+            "/content/documents/news", "/content/documents/news/", "/content/documents/news/article",
+            "/content/documents/blog/2024/post", "/content/documents/blog/2023/post",
+            "/content/gallery/images/logo.png", "/content/gallery/logo.jpg", "/content/assets/report1.pdf",
+            "/content/assets/report12.pdf", "/content/foo/archive/bar", "/content/archive", "/a/b/hidden",
+            "/hidden", "/x/y.xml", "content/relative/doc", "/content/relative/doc", "/content",
+            "/content/x", "/other/documents/events/e1", "/", "");
+
+    private final AntPathMatcher antPathMatcher = new AntPathMatcher();
+
+    @Test
+    void matchesInclude_isEquivalentToAntPathMatcherForEachPattern() {
+        for (String pattern : PATTERNS) {
+            CompiledPathMatcher matcher = new CompiledPathMatcher(Collections.singletonList(pattern), null);
+
+            for (String path : PATHS) {
+                assertEquals(antPathMatcher.match(pattern, path), matcher.matchesInclude(path),
+                        "pattern: '" + pattern + "', path: '" + path + "'");
+            }
+        }
+    }
+
+    @Test
+    void isIncluded_isEquivalentToLoopingOverPatterns() {
+        List<String> includes = PATTERNS.subList(0, 6);
+        List<String> excludes = PATTERNS.subList(6, PATTERNS.size());
+        CompiledPathMatcher matcher = new CompiledPathMatcher(includes, excludes);
+
+        for (String path : PATHS) {
+            boolean expected = excludes.stream().noneMatch(pattern -> antPathMatcher.match(pattern, path))
+                    && includes.stream().anyMatch(pattern -> antPathMatcher.match(pattern, path));
+            assertEquals(expected, matcher.isIncluded(path), "path: '" + path + "'");
+        }
+    }
+
+    @Test
+    void isIncluded_withoutPatterns_includesEverything() {
+        CompiledPathMatcher matcher = new CompiledPathMatcher(null, null);
+
+        assertTrue(matcher.isIncluded("/content/documents/news"));
+        assertFalse(matcher.matchesInclude("/content/documents/news"));
+        assertFalse(matcher.matchesExclude("/content/documents/news"));
+    }
+
+    @Test
+    void isIncluded_withExcludesOnly_includesNotExcludedPaths() {
+        CompiledPathMatcher matcher = new CompiledPathMatcher(null,
+                Collections.singletonList("/content/documents/news/**"));
+
+        assertTrue(matcher.isIncluded("/content/documents/events/e1"));
+        assertFalse(matcher.isIncluded("/content/documents/news/article"));
+    }
+
+    @Test
+    void getLiteralPrefixDirs_returnsSegmentsBeforeFirstWildcard() {
+        assertArrayEquals(new String[] { "content", "documents" },
+                CompiledPathMatcher.getLiteralPrefixDirs("/content/documents/**"));
+        assertArrayEquals(new String[] { "content" }, CompiledPathMatcher.getLiteralPrefixDirs("/content/*/news"));
+        assertArrayEquals(new String[] { "content", "assets" },
+                CompiledPathMatcher.getLiteralPrefixDirs("/content/assets/report?.pdf"));
+        assertArrayEquals(new String[0], CompiledPathMatcher.getLiteralPrefixDirs("/**/hidden"));
+    }
+}
@@ -0,0 +1,242 @@
+/*
+ * Copyright 2024 Bloomreach B.V. (https://www.bloomreach.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onehippo.forge.content.exim.core.util;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import org.apache.commons.vfs2.FileObject;
+import org.apache.commons.vfs2.Selectors;
+import org.apache.commons.vfs2.VFS;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.onehippo.forge.content.pojo.model.ContentNode;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ContentNodeBundleWriterTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT);
+
+    private FileObject baseFolder;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        baseFolder = VFS.getManager().resolveFile("ram://exim-bundle-test");
+        baseFolder.createFolder();
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        baseFolder.delete(Selectors.SELECT_ALL);
+    }
+
+    @Test
+    void write_rollsOverBundlesByMaxEntries() throws Exception {
+        try (ContentNodeBundleWriter writer = new ContentNodeBundleWriter(baseFolder, "documents", 2, objectMapper)) {
+            for (int i = 1; i <= 5; i++) {
+                String entryName = writer.write(createContentNode(i), "/content/documents/doc" + i);
+
+                if (i == 3) {
+                    assertEquals("/exim-bundle-test/documents-0002.ndjson#1", entryName);
+                }
+            }
+
+            assertEquals(5, writer.getTotalEntryCount());
+            assertEquals(3, writer.getBundleCount());
+        }
+
+        assertTrue(baseFolder.resolveFile("documents-0001.ndjson").exists());
+        assertTrue(baseFolder.resolveFile("documents-0003.idx").exists());
+        assertFalse(baseFolder.resolveFile("documents-0004.ndjson").exists());
+    }
+
+    @Test
+    void write_continuesAfterExistingBundles() throws Exception {
+        try (ContentNodeBundleWriter writer = new ContentNodeBundleWriter(baseFolder, "documents", 1, objectMapper)) {
+            writer.write(createContentNode(1), "/content/documents/doc1");
+            writer.write(createContentNode(2), "/content/documents/doc2");
+        }
+
+        final int nextBundleSeq = ContentNodeBundleWriter.getNextBundleSeq(baseFolder, "documents");
+        assertEquals(3, nextBundleSeq);
+
+        try (ContentNodeBundleWriter writer = new ContentNodeBundleWriter(baseFolder, "documents", 1, objectMapper,
+                nextBundleSeq)) {
+            assertEquals("/exim-bundle-test/documents-0003.ndjson#1",
+                    writer.write(createContentNode(3), "/content/documents/doc3"));
+            writer.flush();
+            assertEquals(1, writer.getBundleCount());
+        }
+
+        assertEquals(1, ContentNodeBundleReader.countEntries(baseFolder.resolveFile("documents-0002.ndjson")));
+        assertEquals(1, ContentNodeBundleReader.countEntries(baseFolder.resolveFile("documents-0003.ndjson")));
+    }
+
+    @Test
+    void resume_truncatesEntriesAfterRecordedPosition() throws Exception {
+        int bundleSeq;
+        int bundleEntryCount;
+        long bundleLength;
+        long indexLength;
+
+        try (ContentNodeBundleWriter writer = new ContentNodeBundleWriter(baseFolder, "documents", 2, objectMapper)) {
+            for (int i = 1; i <= 3; i++) {
+                writer.write(createContentNode(i), "/content/documents/doc" + i);
+            }
+
+            writer.flush();
+            bundleSeq = writer.getBundleSeq();
+            bundleEntryCount = writer.getBundleEntryCount();
+            bundleLength = writer.getBundleLength();
+            indexLength = writer.getIndexLength();
+
+            // written after the position was recorded, to be dropped on resume.
+            writer.write(createContentNode(4), "/content/documents/doc4");
+            writer.write(createContentNode(5), "/content/documents/doc5");
+        }
+
+        assertTrue(baseFolder.resolveFile("documents-0003.ndjson").exists());
+
+        try (ContentNodeBundleWriter writer = new ContentNodeBundleWriter(baseFolder, "documents", 2, objectMapper)) {
+            writer.resume(bundleSeq, bundleEntryCount, bundleLength, indexLength);
+            assertEquals("/exim-bundle-test/documents-0002.ndjson#2",
+                    writer.write(createContentNode(6), "/content/documents/doc6"));
+        }
+
+        assertFalse(baseFolder.resolveFile("documents-0003.ndjson").exists());
+        assertFalse(baseFolder.resolveFile("documents-0003.idx").exists());
+
+        try (ContentNodeBundleReader reader = new ContentNodeBundleReader(
+                baseFolder.resolveFile("documents-0002.ndjson"), objectMapper.readerFor(ContentNode.class))) {
+            assertEquals("doc3", reader.read().getName());
+            assertEquals("doc6", reader.read().getName());
+            assertNull(reader.read());
+        }
+
+        String index = new String(baseFolder.resolveFile("documents-0002.idx").getContent().getByteArray(),
+                StandardCharsets.UTF_8);
+        String[] indexLines = index.split("\n");
+        assertEquals(2, indexLines.length);
+        assertTrue(indexLines[0].endsWith("\t/content/documents/doc3"));
+        assertTrue(indexLines[1].startsWith(bundleLength + "\t"));
+        assertTrue(indexLines[1].endsWith("\t/content/documents/doc6"));
+    }
+
+    @Test
+    void resume_withoutRecordedBundle_deletesAllBundles() throws Exception {
+        try (ContentNodeBundleWriter writer = new ContentNodeBundleWriter(baseFolder, "binaries", 1, objectMapper)) {
+            writer.write(createContentNode(1), "/content/gallery/img1");
+            writer.write(createContentNode(2), "/content/gallery/img2");
+        }
+
+        try (ContentNodeBundleWriter writer = new ContentNodeBundleWriter(baseFolder, "binaries", 1, objectMapper)) {
+            writer.resume(0, 0, 0L, 0L);
+
+            assertFalse(baseFolder.resolveFile("binaries-0001.ndjson").exists());
+            assertFalse(baseFolder.resolveFile("binaries-0002.ndjson").exists());
+            assertEquals("/exim-bundle-test/binaries-0001.ndjson#1",
+                    writer.write(createContentNode(3), "/content/gallery/img3"));
+        }
+    }
+
+    @Test
+    void write_writesCompactJsonLinesWithIndex() throws Exception {
+        try (ContentNodeBundleWriter writer = new ContentNodeBundleWriter(baseFolder, "binaries", 0, objectMapper)) {
+            writer.write(createContentNode(1), "/content/gallery/img1");
+            writer.write(createContentNode(2), "/content/gallery/img2");
+        }
+
+        String bundle = new String(baseFolder.resolveFile("binaries-0001.ndjson").getContent().getByteArray(),
+                StandardCharsets.UTF_8);
+        String[] lines = bundle.split("\n");
+        assertEquals(2, lines.length);
+        assertTrue(lines[0].startsWith("{") && lines[0].endsWith("}"), lines[0]);
+
+        String index = new String(baseFolder.resolveFile("binaries-0001.idx").getContent().getByteArray(),
+                StandardCharsets.UTF_8);
+        String[] indexLines = index.split("\n");
+        assertEquals(2, indexLines.length);
+        assertEquals("0\t" + lines[0].length() + "\t/content/gallery/img1", indexLines[0]);
+        assertEquals((lines[0].length() + 1) + "\t" + lines[1].length() + "\t/content/gallery/img2",
+                indexLines[1]);
+    }
+
+    @Test
+    void read_roundTripsEntriesInOrder() throws Exception {
+        try (ContentNodeBundleWriter writer = new ContentNodeBundleWriter(baseFolder, "documents", 0, objectMapper)) {
+            for (int i = 1; i <= 3; i++) {
+                writer.write(createContentNode(i), "/content/documents/doc" + i);
+            }
+        }
+
+        final FileObject bundleFile = baseFolder.resolveFile("documents-0001.ndjson");
+        assertEquals(3, ContentNodeBundleReader.countEntries(bundleFile));
+
+        try (ContentNodeBundleReader reader = new ContentNodeBundleReader(bundleFile,
+                objectMapper.readerFor(ContentNode.class))) {
+            for (int i = 1; i <= 3; i++) {
+                ContentNode contentNode = reader.read();
+                assertEquals("doc" + i, contentNode.getName());
+                assertEquals("Title " + i, contentNode.getProperty("exim:title").getValue());
+                assertEquals(i, reader.getLineNumber());
+            }
+
+            assertNull(reader.read());
+        }
+    }
+
+    @Test
+    void readIndexedContentPaths_readsPathsFromIndexFile() throws Exception {
+        try (ContentNodeBundleWriter writer = new ContentNodeBundleWriter(baseFolder, "documents", 0, objectMapper)) {
+            writer.write(createContentNode(1), "/content/documents/doc1/doc1");
+            writer.write(createContentNode(2), "/content/documents/my docs/doc2/doc2");
+        }
+
+        final FileObject bundleFile = baseFolder.resolveFile("documents-0001.ndjson");
+        assertEquals(Arrays.asList("/content/documents/doc1/doc1", "/content/documents/my docs/doc2/doc2"),
+                ContentNodeBundleReader.readIndexedContentPaths(bundleFile));
+
+        baseFolder.resolveFile("documents-0001.idx").delete();
+
+        assertNull(ContentNodeBundleReader.readIndexedContentPaths(bundleFile));
+    }
+
+    @Test
+    void countEntries_countsLinesWithoutIndexFile() throws Exception {
+        try (ContentNodeBundleWriter writer = new ContentNodeBundleWriter(baseFolder, "documents", 0, objectMapper)) {
+            writer.write(createContentNode(1), "/content/documents/doc1");
+            writer.write(createContentNode(2), "/content/documents/doc2");
+        }
+
+        baseFolder.resolveFile("documents-0001.idx").delete();
+
+        assertEquals(2, ContentNodeBundleReader.countEntries(baseFolder.resolveFile("documents-0001.ndjson")));
+    }
+
+    private ContentNode createContentNode(int seq) {
+        ContentNode contentNode = new ContentNode("doc" + seq, "nt:unstructured");
+        contentNode.setProperty("exim:title", "Title " + seq);
+        return contentNode;
+    }
+}
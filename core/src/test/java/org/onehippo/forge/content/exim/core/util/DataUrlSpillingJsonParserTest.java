@@ -0,0 +1,118 @@
+/*
+ * Copyright 2024 Bloomreach B.V. (https://www.bloomreach.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onehippo.forge.content.exim.core.util;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.commons.vfs2.FileObject;
+import org.apache.commons.vfs2.Selectors;
+import org.apache.commons.vfs2.VFS;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class DataUrlSpillingJsonParserTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private FileObject spillFolder;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        spillFolder = VFS.getManager().resolveFile("ram://exim-spill-test");
+        spillFolder.createFolder();
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        spillFolder.delete(Selectors.SELECT_ALL);
+    }
+
+    @Test
+    void largeBase64DataUrl_isDecodedIntoSpillFile() throws Exception {
+        final byte[] data = createData(4096);
+        final String dataUrl = "data:image/png;base64," + Base64.getEncoder().encodeToString(data);
+
+        final Map<String, Object> map = parse("{\"name\":\"jcr:data\",\"type\":\"BINARY\",\"multiple\":false,"
+                + "\"values\":[\"" + dataUrl + "\"]}", 1024);
+
+        final String value = ((List<String>) map.get("values")).get(0);
+        assertTrue(value.startsWith("ram:"), value);
+        assertArrayEquals(data, VFS.getManager().resolveFile(value).getContent().getByteArray());
+        assertEquals("jcr:data", map.get("name"));
+        assertEquals(1, spillFolder.getChildren().length);
+    }
+
+    @Test
+    void largeBase64DataUrlInStringProperty_isKeptAsItIs() throws Exception {
+        final String dataUrl = "data:image/png;base64," + Base64.getEncoder().encodeToString(createData(4096));
+        final String binaryDataUrl = "data:;base64," + Base64.getEncoder().encodeToString(createData(2048));
+
+        final Map<String, Object> map = parse("{\"name\":\"doc\",\"properties\":["
+                + "{\"name\":\"exim:image\",\"type\":\"STRING\",\"multiple\":false,\"values\":[\"" + dataUrl
+                + "\"]},{\"name\":\"jcr:data\",\"type\":\"BINARY\",\"multiple\":false,\"values\":[\""
+                + binaryDataUrl + "\"]},{\"name\":\"exim:text\",\"values\":[\"" + dataUrl + "\"]}]}", 1024);
+
+        final List<Map<String, Object>> properties = (List<Map<String, Object>>) map.get("properties");
+        assertEquals(dataUrl, ((List<String>) properties.get(0).get("values")).get(0));
+        assertTrue(((List<String>) properties.get(1).get("values")).get(0).startsWith("ram:"));
+        assertEquals(dataUrl, ((List<String>) properties.get(2).get("values")).get(0));
+        assertEquals(1, spillFolder.getChildren().length);
+    }
+
+    @Test
+    void smallDataUrlAndOtherStrings_areKeptAsTheyAre() throws Exception {
+        final String smallDataUrl = "data:image/png;base64," + Base64.getEncoder().encodeToString(createData(16));
+        final String largeText = new String(new char[4096]).replace('\0', 'x');
+        final String largePlainDataUrl = "data:text/plain," + largeText;
+
+        final Map<String, Object> map = parse("{\"small\":\"" + smallDataUrl + "\",\"text\":\"" + largeText
+                + "\",\"plain\":\"" + largePlainDataUrl + "\"}", 1024);
+
+        assertEquals(smallDataUrl, map.get("small"));
+        assertEquals(largeText, map.get("text"));
+        assertEquals(largePlainDataUrl, map.get("plain"));
+        assertEquals(0, spillFolder.getChildren().length);
+    }
+
+    private Map<String, Object> parse(final String json, final long threshold) throws Exception {
+        try (JsonParser parser = new DataUrlSpillingJsonParser(
+                objectMapper.getFactory().createParser(json.getBytes(StandardCharsets.UTF_8)), spillFolder,
+                threshold)) {
+            return objectMapper.readValue(parser, Map.class);
+        }
+    }
+
+    private byte[] createData(final int size) {
+        final byte[] data = new byte[size];
+
+        for (int i = 0; i < size; i++) {
+            data[i] = (byte) i;
+        }
+
+        return data;
+    }
+}
@@ -0,0 +1,154 @@
+/*
+ * Copyright 2024 Bloomreach B.V. (https://www.bloomreach.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onehippo.forge.content.exim.core.util;
+
+import java.util.Arrays;
+
+import javax.jcr.Node;
+import javax.jcr.NodeIterator;
+
+import org.easymock.EasyMock;
+import org.hippoecm.repository.api.HippoNodeType;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.onehippo.forge.content.exim.core.DocumentManager;
+import org.onehippo.forge.content.exim.core.DocumentManagerNotFoundException;
+
+import static org.easymock.EasyMock.expect;
+import static org.easymock.EasyMock.replay;
+import static org.easymock.EasyMock.verify;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class DocumentExistenceResolverTest {
+
+    private static final String FOLDER = "/content/documents/news";
+
+    private DocumentManager documentManager;
+    private DocumentExistenceResolver resolver;
+
+    @BeforeEach
+    void setUp() {
+        documentManager = EasyMock.createMock(DocumentManager.class);
+        resolver = new DocumentExistenceResolver(documentManager);
+    }
+
+    @Test
+    void documentExists_resolvesEachFolderOnlyOnce() throws Exception {
+        Node folderNode = createFolderNode(FOLDER, "doc-1", "doc-2");
+        expect(documentManager.getExistingFolderNode(FOLDER)).andReturn(folderNode).once();
+        replay(documentManager);
+
+        assertTrue(resolver.documentExists(FOLDER + "/doc-1"));
+        assertTrue(resolver.documentExists(FOLDER + "/doc-2"));
+        assertFalse(resolver.documentExists(FOLDER + "/doc-3"));
+        assertFalse(resolver.documentExists(FOLDER + "/subfolder"));
+        assertTrue(resolver.folderExists(FOLDER));
+        assertEquals(FOLDER, resolver.getExistingFolderPath(FOLDER + "/"));
+        assertEquals(1, resolver.getResolvedFolderCount());
+
+        verify(documentManager);
+    }
+
+    @Test
+    void prefetch_resolvesDistinctFolders() throws Exception {
+        Node newsFolder = createFolderNode(FOLDER, "doc-1");
+        Node eventsFolder = createFolderNode("/content/documents/events");
+        expect(documentManager.getExistingFolderNode(FOLDER)).andReturn(newsFolder).once();
+        expect(documentManager.getExistingFolderNode("/content/documents/events")).andReturn(eventsFolder).once();
+        replay(documentManager);
+
+        resolver.prefetch(Arrays.asList(FOLDER + "/doc-1", FOLDER + "/doc-2", "/content/documents/events/doc-1"));
+
+        assertEquals(2, resolver.getResolvedFolderCount());
+        assertTrue(resolver.documentExists(FOLDER + "/doc-1"));
+        assertFalse(resolver.documentExists("/content/documents/events/doc-1"));
+
+        verify(documentManager);
+    }
+
+    @Test
+    void markCreated_inExistingFolder_addsDocument() throws Exception {
+        Node folderNode = createFolderNode(FOLDER);
+        expect(documentManager.getExistingFolderNode(FOLDER)).andReturn(folderNode).once();
+        replay(documentManager);
+
+        assertFalse(resolver.documentExists(FOLDER + "/doc-1"));
+        resolver.markCreated(FOLDER + "/doc-1");
+        assertTrue(resolver.documentExists(FOLDER + "/doc-1"));
+
+        verify(documentManager);
+    }
+
+    @Test
+    void markCreated_inMissingFolder_resolvesFolderAgain() throws Exception {
+        Node folderNode = createFolderNode(FOLDER, "doc-1");
+        expect(documentManager.getExistingFolderNode(FOLDER))
+                .andThrow(new DocumentManagerNotFoundException("Not found")).once();
+        expect(documentManager.getExistingFolderNode(FOLDER)).andReturn(folderNode).once();
+        replay(documentManager);
+
+        assertFalse(resolver.documentExists(FOLDER + "/doc-1"));
+        assertNull(resolver.getExistingFolderPath(FOLDER));
+        resolver.markCreated(FOLDER + "/doc-1");
+        assertTrue(resolver.documentExists(FOLDER + "/doc-1"));
+
+        verify(documentManager);
+    }
+
+    @Test
+    void markFolderCreated_usesGivenFolderNode() throws Exception {
+        Node folderNode = createFolderNode(FOLDER, "doc-1");
+        replay(documentManager);
+
+        resolver.markFolderCreated(FOLDER, folderNode);
+
+        assertTrue(resolver.folderExists(FOLDER));
+        assertTrue(resolver.documentExists(FOLDER + "/doc-1"));
+
+        verify(documentManager);
+    }
+
+    private static Node createFolderNode(final String path, final String... handleNames) throws Exception {
+        Node folderNode = EasyMock.createMock(Node.class);
+        NodeIterator nodeIt = EasyMock.createMock(NodeIterator.class);
+
+        expect(folderNode.getPath()).andReturn(path).anyTimes();
+        expect(folderNode.getNodes()).andReturn(nodeIt).anyTimes();
+
+        for (String handleName : handleNames) {
+            Node handleNode = EasyMock.createMock(Node.class);
+            expect(handleNode.isNodeType(HippoNodeType.NT_HANDLE)).andReturn(true).anyTimes();
+            expect(handleNode.getName()).andReturn(handleName).anyTimes();
+            replay(handleNode);
+            expect(nodeIt.hasNext()).andReturn(true);
+            expect(nodeIt.nextNode()).andReturn(handleNode);
+        }
+
+        Node subfolderNode = EasyMock.createMock(Node.class);
+        expect(subfolderNode.isNodeType(HippoNodeType.NT_HANDLE)).andReturn(false).anyTimes();
+        expect(subfolderNode.getName()).andReturn("subfolder").anyTimes();
+        replay(subfolderNode);
+        expect(nodeIt.hasNext()).andReturn(true);
+        expect(nodeIt.nextNode()).andReturn(subfolderNode);
+        expect(nodeIt.hasNext()).andReturn(false);
+
+        replay(folderNode, nodeIt);
+        return folderNode;
+    }
+}
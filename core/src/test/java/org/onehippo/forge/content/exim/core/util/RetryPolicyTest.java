@@ -0,0 +1,97 @@
+/*
+ * Copyright 2024 Bloomreach B.V. (https://www.bloomreach.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onehippo.forge.content.exim.core.util;
+
+import java.util.Random;
+
+import javax.jcr.InvalidItemStateException;
+import javax.jcr.RepositoryException;
+
+import org.junit.jupiter.api.Test;
+import org.onehippo.forge.content.exim.core.DocumentManagerException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RetryPolicyTest {
+
+    @Test
+    void isTransient_concurrentModificationCauses_true() {
+        RetryPolicy policy = new RetryPolicy(3, 100L, 5000L);
+
+        assertTrue(policy.isTransient(new InvalidItemStateException("Item cannot be saved")));
+        assertTrue(policy.isTransient(new DocumentManagerException("Failed to commit",
+                new InvalidItemStateException("Item cannot be saved"))));
+        assertTrue(policy.isTransient(new DocumentManagerException("Failed to obtain editable instance",
+                new IllegalStateException("Document at '/a' is not allowed to obtain an editable instance."))));
+        assertTrue(policy.isTransient(new DocumentManagerException("Failed to commit editable instance",
+                new IllegalStateException("Document at '/a' is not allowed to commit an editable instance."))));
+    }
+
+    @Test
+    void isTransient_otherCauses_false() {
+        RetryPolicy policy = new RetryPolicy(3, 100L, 5000L);
+
+        assertFalse(policy.isTransient(new RepositoryException("No such node")));
+        assertFalse(policy.isTransient(new DocumentManagerException("Failed", new IllegalStateException("Bad"))));
+        assertFalse(policy.isTransient(new DocumentManagerException("Failed to create document",
+                new IllegalStateException("Folder at '/a' is not allowed to add a document."))));
+        assertFalse(policy.isTransient(new DocumentManagerException("Failed to delete document",
+                new IllegalStateException("Document at '/a' is not allowed to delete."))));
+        assertFalse(policy.isTransient(null));
+    }
+
+    @Test
+    void canRetry_upToMaxRetries() {
+        RetryPolicy policy = new RetryPolicy(2, 100L, 5000L);
+        InvalidItemStateException failure = new InvalidItemStateException("Item cannot be saved");
+
+        assertTrue(policy.canRetry(0, failure));
+        assertTrue(policy.canRetry(1, failure));
+        assertFalse(policy.canRetry(2, failure));
+        assertFalse(new RetryPolicy(0, 100L, 5000L).canRetry(0, failure));
+    }
+
+    @Test
+    void getBackoffMillis_exponentialWithJitterUpToMax() {
+        RetryPolicy noJitter = new RetryPolicy(10, 100L, 1000L, new FixedRandom(0.0));
+        RetryPolicy fullJitter = new RetryPolicy(10, 100L, 1000L, new FixedRandom(1.0));
+
+        assertEquals(50L, noJitter.getBackoffMillis(1));
+        assertEquals(100L, fullJitter.getBackoffMillis(1));
+        assertEquals(100L, noJitter.getBackoffMillis(2));
+        assertEquals(400L, fullJitter.getBackoffMillis(3));
+        assertEquals(500L, noJitter.getBackoffMillis(8));
+        assertEquals(1000L, fullJitter.getBackoffMillis(8));
+    }
+
+    private static class FixedRandom extends Random {
+
+        private static final long serialVersionUID = 1L;
+
+        private final double value;
+
+        FixedRandom(final double value) {
+            this.value = value;
+        }
+
+        @Override
+        public double nextDouble() {
+            return value;
+        }
+    }
+}
@@ -28,6 +28,7 @@ import java.util.Collection;
 import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.TimeUnit;
 
 import javax.jcr.Credentials;
 import javax.jcr.LoginException;
@@ -39,9 +40,11 @@ import javax.jcr.SimpleCredentials;
 import javax.jcr.query.Query;
 import javax.jcr.query.QueryResult;
 import jakarta.servlet.http.HttpServletRequest;
+import jakarta.ws.rs.core.Response;
 import jakarta.ws.rs.core.SecurityContext;
 
 import org.apache.commons.collections4.CollectionUtils;
+import org.apache.commons.io.FileUtils;
 import org.apache.commons.io.IOUtils;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.commons.lang3.math.NumberUtils;
@@ -51,12 +54,18 @@ import org.apache.cxf.jaxrs.ext.multipart.Attachment;
 import org.apache.cxf.jaxrs.ext.multipart.ContentDisposition;
 import org.onehippo.cms7.utilities.logging.PrintStreamLogger;
 import org.onehippo.forge.content.exim.core.ContentMigrationRecord;
+import org.onehippo.forge.content.exim.core.ContentNodeFileFormat;
+import org.onehippo.forge.content.exim.core.DocumentManager;
+import org.onehippo.forge.content.exim.core.impl.DirectJcrDocumentManagerImpl;
+import org.onehippo.forge.content.exim.core.impl.WorkflowDocumentManagerImpl;
 import org.onehippo.forge.content.exim.core.util.AntPathMatcher;
+import org.onehippo.forge.content.exim.core.util.CompiledPathMatcher;
 import org.onehippo.forge.content.exim.core.util.TeeLoggerWrapper;
 import org.onehippo.forge.content.exim.repository.jaxrs.param.ExecutionParams;
 import org.onehippo.forge.content.exim.repository.jaxrs.param.QueriesAndPaths;
 import org.onehippo.forge.content.exim.repository.jaxrs.param.ResultItem;
 import org.onehippo.forge.content.exim.repository.jaxrs.status.ProcessStatus;
+import org.onehippo.forge.content.exim.repository.jaxrs.util.BatchThrottle;
 import org.onehippo.forge.content.exim.repository.jaxrs.util.ServletRequestUtils;
 import org.onehippo.forge.content.pojo.model.ContentNode;
 import org.slf4j.Logger;
@@ -110,6 +119,27 @@ public abstract class AbstractContentEximService {
      */
     protected static final String STOP_REQUEST_FILE_REL_PATH = "EXIM-INF/_stop_";
 
+    /**
+     * Bundle file name prefix for the binaries in the bundled archive layout.
+     */
+    protected static final String BINARIES_BUNDLE_NAME_PREFIX = "binaries";
+
+    /**
+     * Bundle file name prefix for the documents in the bundled archive layout.
+     */
+    protected static final String DOCUMENTS_BUNDLE_NAME_PREFIX = "documents";
+
+    /**
+     * Name of the local folder under the system temporary folder, where checkpoint files are kept to resume a run
+     * which didn't complete.
+     */
+    protected static final String CHECKPOINT_FOLDER_NAME = TEMP_PREFIX + "checkpoints";
+
+    /**
+     * The maximum age of a checkpoint file not modified by any run, after which it is deleted as abandoned.
+     */
+    protected static final long CHECKPOINT_MAX_AGE_MILLIS = TimeUnit.DAYS.toMillis(7);
+
     private ProcessMonitor processMonitor;
 
     /**
@@ -179,6 +209,23 @@ public abstract class AbstractContentEximService {
         return getDaemonSession().impersonate(SYSTEM_CREDENTIALS);
     }
 
+    /**
+     * Return the local folder where checkpoint files are kept to resume a run which didn't complete.
+     * @return the local folder where checkpoint files are kept
+     */
+    protected File getCheckpointFolder() {
+        return new File(FileUtils.getTempDirectory(), CHECKPOINT_FOLDER_NAME);
+    }
+
+    /**
+     * Return the maximum age in milliseconds of a checkpoint file not modified by any run, after which it is deleted
+     * as abandoned.
+     * @return the maximum age in milliseconds of a checkpoint file not modified by any run
+     */
+    protected long getCheckpointMaxAge() {
+        return CHECKPOINT_MAX_AGE_MILLIS;
+    }
+
     /**
      * Return true if a stop signal file is found under the base folder.
      * @param baseFolder the base folder where zip content files are created temporarily.
@@ -195,6 +242,144 @@ public abstract class AbstractContentEximService {
         return false;
     }
 
+    /**
+     * Return true if stopping the process is requested, either by the cancellation flag of the {@code processStatus}
+     * or by a stop signal file under the base folder.
+     * @param processStatus process status, which may be null
+     * @param baseFolder the base folder where zip content files are created temporarily.
+     * @return true if stopping the process is requested
+     */
+    protected boolean isStopRequested(ProcessStatus processStatus, FileObject baseFolder) {
+        if (processStatus != null && processStatus.isCancelRequested()) {
+            return true;
+        }
+
+        return isStopRequested(baseFolder);
+    }
+
+    /**
+     * Return true if stopping the process is requested, checked in each iteration of a processing loop.
+     * The cancellation flag of the {@code processStatus} is checked in every iteration, but the stop signal file
+     * is looked up only at a batch boundary, setting the cancellation flag if found. The caller tells the batch
+     * boundary, right after a batch was saved or refreshed, as the skipped items and the automatically sized
+     * batches do not let the boundaries be derived from an item count.
+     * @param processStatus process status, which may be null
+     * @param baseFolder the base folder where zip content files are created temporarily.
+     * @param batchBoundary whether or not the loop is at a batch boundary
+     * @return true if stopping the process is requested
+     */
+    protected boolean isStopRequested(ProcessStatus processStatus, FileObject baseFolder, boolean batchBoundary) {
+        if (processStatus != null && processStatus.isCancelRequested()) {
+            return true;
+        }
+
+        if (batchBoundary && isStopRequested(baseFolder)) {
+            if (processStatus != null) {
+                processStatus.requestCancel();
+            }
+
+            return true;
+        }
+
+        return false;
+    }
+
+    /**
+     * Waits until the {@link ProcessMonitor} admits the process to run, queued by the {@code params}' priority
+     * if the running processes, in total or of the {@code kind}, are at the maximum, and returns null if admitted.
+     * Otherwise, returns the error status: {@code 429 Too Many Requests} if the queue is full, or
+     * {@code 409 Conflict} if the process was cancelled while queued.
+     * @param procLogger process logger
+     * @param processStatus process status
+     * @param kind kind of the process
+     * @param params {@link ExecutionParams} instance
+     * @return null if admitted, or the error status otherwise
+     * @throws InterruptedException if the current thread is interrupted while queued
+     */
+    protected Response.Status admitProcess(Logger procLogger, ProcessStatus processStatus,
+            ProcessMonitor.ProcessKind kind, ExecutionParams params) throws InterruptedException {
+        processStatus.setPriority(params.getPriority());
+
+        final ProcessMonitor.Admission admission = getProcessMonitor().admitProcess(processStatus, kind);
+
+        if (admission == ProcessMonitor.Admission.REJECTED) {
+            procLogger.warn("Process {} rejected as {} processes are queued already.", processStatus.getId(),
+                    getProcessMonitor().getMaxQueuedProcesses());
+            return Response.Status.TOO_MANY_REQUESTS;
+        } else if (admission == ProcessMonitor.Admission.CANCELLED) {
+            procLogger.info("Process {} cancelled while queued.", processStatus.getId());
+            return Response.Status.CONFLICT;
+        }
+
+        if (processStatus.getQueuedTimeMillis() > 0L) {
+            procLogger.info("Process {} admitted after {}ms in the queue.", processStatus.getId(),
+                    processStatus.getQueuedTimeMillis());
+        }
+
+        return null;
+    }
+
+    /**
+     * Parks the current thread if pausing the process is requested, until it is resumed or cancelled.
+     * This is supposed to be invoked at a batch boundary, after saving or refreshing the session.
+     * @param procLogger process logger
+     * @param processStatus process status, which may be null
+     * @throws InterruptedException if the current thread is interrupted while parked
+     */
+    protected void pauseIfRequested(Logger procLogger, ProcessStatus processStatus) throws InterruptedException {
+        if (processStatus == null || !processStatus.isPauseRequested()) {
+            return;
+        }
+
+        procLogger.info("Process {} paused.", processStatus.getId());
+        final long pausedTimeMillis = processStatus.getPausedTimeMillis();
+        processStatus.awaitResume();
+        procLogger.info("Process {} resumed after {}ms paused.", processStatus.getId(),
+                processStatus.getPausedTimeMillis() - pausedTimeMillis);
+    }
+
+    /**
+     * Ends a batch by recording the save or refresh latency in the {@code throttle}, logging and reporting
+     * the adaptive throttle decision if changed, parking if pausing is requested, and sleeping for the throttle.
+     * This is supposed to be invoked at a batch boundary, after saving or refreshing the session.
+     * @param procLogger process logger
+     * @param processStatus process status, which may be null
+     * @param throttle batch throttle
+     * @param saveLatencyMillis the save or refresh latency milliseconds of the batch
+     * @throws InterruptedException if the current thread is interrupted while parked or sleeping
+     */
+    protected void throttleBatch(Logger procLogger, ProcessStatus processStatus, BatchThrottle throttle,
+            long saveLatencyMillis) throws InterruptedException {
+        if (throttle.endBatch(saveLatencyMillis)) {
+            procLogger.info("Adaptive throttle: {}", throttle.getSummary());
+        }
+
+        if (processStatus != null && (throttle.isAdaptive() || throttle.isAutoBatchSize())) {
+            processStatus.setThrottleInfo(throttle.getSummary());
+        }
+
+        pauseIfRequested(procLogger, processStatus);
+        throttle.sleep();
+    }
+
+    /**
+     * Adds the milliseconds elapsed since {@code startTimeMillis} to the time spent in the {@code phase}
+     * of the process, and returns the current time milliseconds to start timing the next phase.
+     * @param processStatus process status, which may be null
+     * @param phase phase name, one of the {@code ProcessStatus.PHASE_*} constants
+     * @param startTimeMillis the time milliseconds when the phase started
+     * @return the current time milliseconds
+     */
+    protected long addPhaseTime(ProcessStatus processStatus, String phase, long startTimeMillis) {
+        final long now = System.currentTimeMillis();
+
+        if (processStatus != null) {
+            processStatus.addPhaseTimeMillis(phase, now - startTimeMillis);
+        }
+
+        return now;
+    }
+
     /**
      * Return a JSON string by stringifying the {@code object} with the Jackson ObjectMapper.
      * @param object object to stringify
@@ -255,6 +440,44 @@ public abstract class AbstractContentEximService {
         return item;
     }
 
+    /**
+     * Returns the {@link ContentNodeFileFormat} to export each content in, by the {@code params}' export format.
+     * @param params {@link ExecutionParams} instance
+     * @return the {@link ContentNodeFileFormat} to export each content in
+     */
+    protected ContentNodeFileFormat getContentNodeFileFormat(ExecutionParams params) {
+        if (ExecutionParams.EXPORT_FORMAT_COMPACT_JSON.equals(params.getExportFormat())) {
+            return ContentNodeFileFormat.COMPACT_JSON;
+        } else if (ExecutionParams.EXPORT_FORMAT_SMILE.equals(params.getExportFormat())) {
+            return ContentNodeFileFormat.SMILE;
+        }
+
+        return ContentNodeFileFormat.PRETTY_JSON;
+    }
+
+    /**
+     * Creates a {@link DocumentManager} by the {@code params}' document manager type.
+     * @param session JCR session
+     * @param params {@link ExecutionParams} instance
+     * @return a {@link DocumentManager} by the {@code params}' document manager type
+     */
+    protected DocumentManager createDocumentManager(Session session, ExecutionParams params) {
+        if (ExecutionParams.DOCUMENT_MANAGER_TYPE_DIRECT.equals(params.getDocumentManagerType())) {
+            return new DirectJcrDocumentManagerImpl(session);
+        }
+
+        return new WorkflowDocumentManagerImpl(session);
+    }
+
+    /**
+     * Returns true if the {@code params} asks to export contents in bundle files instead of a file per content.
+     * @param params {@link ExecutionParams} instance
+     * @return true if the {@code params} asks to export contents in bundle files
+     */
+    protected boolean isBundledArchiveLayout(ExecutionParams params) {
+        return ExecutionParams.ARCHIVE_LAYOUT_BUNDLES.equals(params.getArchiveLayout());
+    }
+
     /**
      * Executes JCR query using the query {@code statement} in the query {@code language} and collect all the result
      * node paths in a set to return.
@@ -296,11 +519,19 @@ public abstract class AbstractContentEximService {
             String throttleParam, String publishOnImportParam, String dataUrlSizeThresholdParam,
             String docbasePropNamesParam, String documentTagsParam, String binaryTagsParam) {
         if (StringUtils.isNotBlank(batchSizeParam)) {
-            params.setBatchSize(NumberUtils.toInt(batchSizeParam, params.getBatchSize()));
+            if (StringUtils.equalsIgnoreCase(batchSizeParam, ExecutionParams.BATCH_SIZE_MODE_AUTO)) {
+                params.setBatchSizeMode(ExecutionParams.BATCH_SIZE_MODE_AUTO);
+            } else {
+                params.setBatchSize(NumberUtils.toInt(batchSizeParam, params.getBatchSize()));
+            }
         }
 
         if (StringUtils.isNotBlank(throttleParam)) {
-            params.setThrottle(NumberUtils.toLong(throttleParam, params.getThrottle()));
+            if (StringUtils.equalsIgnoreCase(throttleParam, ExecutionParams.THROTTLE_MODE_ADAPTIVE)) {
+                params.setThrottleMode(ExecutionParams.THROTTLE_MODE_ADAPTIVE);
+            } else {
+                params.setThrottle(NumberUtils.toLong(throttleParam, params.getThrottle()));
+            }
         }
 
         if (StringUtils.isNotBlank(publishOnImportParam)) {
@@ -481,6 +712,34 @@ public abstract class AbstractContentEximService {
         return isPathIncluded(pathMatcher, queriesAndPaths.getExcludes(), queriesAndPaths.getIncludes(), path);
     }
 
+    /**
+     * Creates a {@link CompiledPathMatcher} by the {@code param}'s binary path includes and excludes parameters,
+     * to check many binary paths in a run.
+     * @param params Execution params
+     * @return a {@link CompiledPathMatcher} by the {@code param}'s binary path includes and excludes parameters
+     */
+    protected CompiledPathMatcher createBinaryPathMatcher(final ExecutionParams params) {
+        return createPathMatcher(params.getBinaries());
+    }
+
+    /**
+     * Creates a {@link CompiledPathMatcher} by the {@code param}'s document path includes and excludes parameters,
+     * to check many document paths in a run.
+     * @param params Execution params
+     * @return a {@link CompiledPathMatcher} by the {@code param}'s document path includes and excludes parameters
+     */
+    protected CompiledPathMatcher createDocumentPathMatcher(final ExecutionParams params) {
+        return createPathMatcher(params.getDocuments());
+    }
+
+    private CompiledPathMatcher createPathMatcher(final QueriesAndPaths queriesAndPaths) {
+        if (queriesAndPaths == null) {
+            return new CompiledPathMatcher(null, null);
+        }
+
+        return new CompiledPathMatcher(queriesAndPaths.getIncludes(), queriesAndPaths.getExcludes());
+    }
+
     private boolean isPathIncluded(final AntPathMatcher pathMatcher, final Collection<String> excludes,
             final Collection<String> includes, final String path) {
         if (CollectionUtils.isNotEmpty(excludes)) {
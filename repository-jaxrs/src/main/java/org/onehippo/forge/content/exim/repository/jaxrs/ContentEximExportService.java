@@ -24,8 +24,11 @@ import java.io.PrintStream;
 import java.nio.file.Files;
 import java.util.Calendar;
 import java.util.LinkedHashSet;
+import java.util.ListIterator;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Pattern;
 
 import javax.jcr.Node;
 import javax.jcr.Session;
@@ -45,6 +48,7 @@ import org.apache.commons.collections4.CollectionUtils;
 import org.apache.commons.compress.archivers.zip.ZipArchiveOutputStream;
 import org.apache.commons.compress.utils.IOUtils;
 import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.output.CountingOutputStream;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.commons.lang3.time.DateFormatUtils;
 import org.apache.commons.vfs2.FileObject;
@@ -53,12 +57,15 @@ import org.apache.cxf.jaxrs.ext.multipart.Attachment;
 import org.apache.cxf.jaxrs.ext.multipart.Multipart;
 import org.hippoecm.repository.HippoStdNodeType;
 import org.hippoecm.repository.api.Document;
+import org.hippoecm.repository.api.HippoNodeType;
 import org.onehippo.forge.content.exim.core.ContentMigrationRecord;
+import org.onehippo.forge.content.exim.core.ContentNodeFileFormat;
 import org.onehippo.forge.content.exim.core.DocumentManager;
 import org.onehippo.forge.content.exim.core.impl.DefaultBinaryExportTask;
 import org.onehippo.forge.content.exim.core.impl.WorkflowDocumentManagerImpl;
 import org.onehippo.forge.content.exim.core.impl.WorkflowDocumentVariantExportTask;
-import org.onehippo.forge.content.exim.core.util.AntPathMatcher;
+import org.onehippo.forge.content.exim.core.util.CompiledPathMatcher;
+import org.onehippo.forge.content.exim.core.util.ContentNodeBundleWriter;
 import org.onehippo.forge.content.exim.core.util.ContentNodeUtils;
 import org.onehippo.forge.content.exim.core.util.ContentPathUtils;
 import org.onehippo.forge.content.exim.core.util.HippoNodeUtils;
@@ -66,6 +73,9 @@ import org.onehippo.forge.content.exim.repository.jaxrs.param.ExecutionParams;
 import org.onehippo.forge.content.exim.repository.jaxrs.param.Result;
 import org.onehippo.forge.content.exim.repository.jaxrs.param.ResultItem;
 import org.onehippo.forge.content.exim.repository.jaxrs.status.ProcessStatus;
+import org.onehippo.forge.content.exim.repository.jaxrs.status.ProcessStatusRecordListener;
+import org.onehippo.forge.content.exim.repository.jaxrs.util.BatchThrottle;
+import org.onehippo.forge.content.exim.repository.jaxrs.util.ExportCheckpoint;
 import org.onehippo.forge.content.exim.repository.jaxrs.util.ResultItemSetCollector;
 import org.onehippo.forge.content.exim.repository.jaxrs.util.ZipCompressUtils;
 import org.onehippo.forge.content.pojo.model.ContentNode;
@@ -80,6 +90,29 @@ public class ContentEximExportService extends AbstractContentEximService {
 
     private static Logger log = LoggerFactory.getLogger(ContentEximExportService.class);
 
+    /**
+     * Staging folder name prefix of a resumable export in the checkpoint folder, followed by the export ID.
+     */
+    private static final String EXPORT_STAGING_FOLDER_PREFIX = "export-";
+
+    /**
+     * Checkpoint file name extension of a resumable export, kept next to its staging folder.
+     */
+    private static final String EXPORT_CHECKPOINT_FILE_EXTENSION = ".checkpoint.json";
+
+    /**
+     * History folder name extension of a resumable export, kept next to its staging folder, containing
+     * the execution log and the summaries of the previous runs to merge into the archive of the next run.
+     */
+    private static final String EXPORT_HISTORY_FOLDER_EXTENSION = ".history";
+
+    /**
+     * The export IDs of the running resumable exports, until their archives are streamed.
+     */
+    private static final Set<String> RUNNING_EXPORT_IDS = ConcurrentHashMap.newKeySet();
+
+    private static final Pattern EXPORT_ID_PATTERN = Pattern.compile("^[\\w.-]+$");
+
     public ContentEximExportService() {
         super();
     }
@@ -104,7 +137,13 @@ public class ContentEximExportService extends AbstractContentEximService {
         File tempLogFile = null;
         PrintStream tempLogOut = null;
         File baseFolder = null;
+        File checkpointFile = null;
+        File historyFolder = null;
+        String runningExportId = null;
+        ExportCheckpoint checkpoint = null;
         Session session = null;
+        WorkflowDocumentVariantExportTask documentExportTask = null;
+        DefaultBinaryExportTask binaryExportTask = null;
         ExecutionParams params = new ExecutionParams();
         ProcessStatus processStatus = null;
 
@@ -119,9 +158,6 @@ public class ContentEximExportService extends AbstractContentEximService {
                 processStatus.setLogFile(tempLogFile);
             }
 
-            baseFolder = Files.createTempDirectory(TEMP_PREFIX).toFile();
-            procLogger.info("ContentEximService#exportContentToZip begins at {}.", baseFolder);
-
             if (paramsAttachment != null) {
                 final String json = attachmentToString(paramsAttachment, "UTF-8");
                 if (StringUtils.isNotBlank(json)) {
@@ -135,52 +171,164 @@ public class ContentEximExportService extends AbstractContentEximService {
             overrideExecutionParamsByParameters(params, batchSizeParam, throttleParam, publishOnImportParam,
                     dataUrlSizeThresholdParam, docbasePropNamesParam, documentTagsParam, binaryTagsParam);
 
+            if (isBundledArchiveLayout(params) && StringUtils.isNotBlank(params.getExportFormat())
+                    && !ExecutionParams.EXPORT_FORMAT_JSON.equals(params.getExportFormat())) {
+                procLogger.warn("exportFormat '{}' is ignored as the bundles are always written in NDJSON.",
+                        params.getExportFormat());
+            }
+
+            if (StringUtils.isNotBlank(params.getExportId())) {
+                if (!EXPORT_ID_PATTERN.matcher(params.getExportId()).matches()) {
+                    throw new IllegalArgumentException("Invalid exportId: " + params.getExportId());
+                }
+
+                if (!RUNNING_EXPORT_IDS.add(params.getExportId())) {
+                    procLogger.error("Another export by exportId '{}' is running.", params.getExportId());
+                    return Response.status(Response.Status.CONFLICT)
+                            .entity(Response.Status.CONFLICT.getReasonPhrase() + "\r\n").build();
+                }
+
+                runningExportId = params.getExportId();
+            }
+
             if (processStatus != null) {
                 processStatus.setExecutionParams(params);
+
+                final Response.Status admissionError = admitProcess(procLogger, processStatus,
+                        ProcessMonitor.ProcessKind.EXPORT, params);
+
+                if (admissionError != null) {
+                    return Response.status(admissionError).entity(admissionError.getReasonPhrase() + "\r\n")
+                            .build();
+                }
             }
 
-            session = createSession();
-            Result result = ResultItemSetCollector.collectItemsFromExecutionParams(session, params);
-            session.refresh(false);
+            if (runningExportId != null) {
+                baseFolder = new File(getCheckpointFolder(), EXPORT_STAGING_FOLDER_PREFIX + runningExportId);
+                checkpointFile = new File(getCheckpointFolder(),
+                        EXPORT_STAGING_FOLDER_PREFIX + runningExportId + EXPORT_CHECKPOINT_FILE_EXTENSION);
+                historyFolder = new File(getCheckpointFolder(),
+                        EXPORT_STAGING_FOLDER_PREFIX + runningExportId + EXPORT_HISTORY_FOLDER_EXTENSION);
+                checkpoint = ExportCheckpoint.load(checkpointFile, getObjectMapper());
+
+                if (checkpoint == null) {
+                    FileUtils.deleteDirectory(baseFolder);
+                    FileUtils.deleteDirectory(historyFolder);
+                }
+
+                FileUtils.forceMkdir(baseFolder);
+            } else {
+                baseFolder = Files.createTempDirectory(TEMP_PREFIX).toFile();
+            }
+
+            procLogger.info("ContentEximService#exportContentToZip begins at {}.", baseFolder);
 
             FileObject baseFolderObject = VFS.getManager().resolveFile(baseFolder.toURI());
+
+            session = createSession();
+            Result result;
+
+            if (checkpoint != null) {
+                // a stop request of the previous run must not stop this run again.
+                baseFolderObject.resolveFile(STOP_REQUEST_FILE_REL_PATH).delete();
+                result = checkpoint.getResult();
+                procLogger.info("Resuming export '{}' from the {} phase at item {} of {}.", params.getExportId(),
+                        checkpoint.getPhase(), checkpoint.getCursor(), result.getItems().size());
+            } else {
+                final long collectStartMillis = System.currentTimeMillis();
+                result = ResultItemSetCollector.collectItemsFromExecutionParams(session, params,
+                        createBinaryPathMatcher(params), createDocumentPathMatcher(params));
+                session.refresh(false);
+                addPhaseTime(processStatus, ProcessStatus.PHASE_COLLECT, collectStartMillis);
+
+                if (checkpointFile != null) {
+                    checkpoint = new ExportCheckpoint();
+                    checkpoint.setResult(result);
+                    checkpoint.save(checkpointFile, getObjectMapper());
+                }
+            }
+
             FileObject attachmentsFolderObject = baseFolderObject.resolveFile(BINARY_ATTACHMENT_REL_PATH);
 
             DocumentManager documentManager = new WorkflowDocumentManagerImpl(session);
 
-            final WorkflowDocumentVariantExportTask documentExportTask = new WorkflowDocumentVariantExportTask(
-                    documentManager);
+            documentExportTask = new WorkflowDocumentVariantExportTask(documentManager);
             documentExportTask.setLogger(log);
             documentExportTask.setBinaryValueFileFolder(attachmentsFolderObject);
             documentExportTask.setDataUrlSizeThreashold(params.getDataUrlSizeThreshold());
 
-            final DefaultBinaryExportTask binaryExportTask = new DefaultBinaryExportTask(documentManager);
+            binaryExportTask = new DefaultBinaryExportTask(documentManager);
             binaryExportTask.setLogger(log);
             binaryExportTask.setBinaryValueFileFolder(attachmentsFolderObject);
             binaryExportTask.setDataUrlSizeThreashold(params.getDataUrlSizeThreshold());
 
-            int batchCount = 0;
+            final ContentNodeFileFormat fileFormat = getContentNodeFileFormat(params);
+            documentExportTask.setContentNodeFileFormat(fileFormat);
+            binaryExportTask.setContentNodeFileFormat(fileFormat);
 
-            Set<String> referredNodePaths = new LinkedHashSet<>();
-
-            try {
-                documentExportTask.start();
-                batchCount = exportDocuments(procLogger, processStatus, params, documentExportTask, result, batchCount,
-                        baseFolderObject, referredNodePaths);
-            } finally {
-                documentExportTask.stop();
+            if (processStatus != null) {
+                final ProcessStatusRecordListener recordListener = new ProcessStatusRecordListener(processStatus);
+                documentExportTask.addContentMigrationRecordListener(recordListener);
+                binaryExportTask.addContentMigrationRecordListener(recordListener);
             }
 
-            if (!referredNodePaths.isEmpty()) {
-                ResultItemSetCollector.fillResultItemsForNodePaths(session, referredNodePaths, true, null, result);
-                session.refresh(false);
+            int batchCount = (checkpoint != null) ? checkpoint.getBatchCount() : 0;
+            final BatchThrottle throttle = new BatchThrottle(params);
+
+            Set<String> referredNodePaths = (checkpoint != null) ? checkpoint.getReferredNodePaths()
+                    : new LinkedHashSet<>();
+
+            ContentNodeBundleWriter bundleWriter = null;
+
+            if (checkpoint == null || ExportCheckpoint.PHASE_DOCUMENTS.equals(checkpoint.getPhase())) {
+                try {
+                    documentExportTask.start();
+                    if (isBundledArchiveLayout(params)) {
+                        bundleWriter = new ContentNodeBundleWriter(baseFolderObject, DOCUMENTS_BUNDLE_NAME_PREFIX,
+                                params.getBundleSize(), documentExportTask.getObjectMapper());
+                        if (checkpoint != null) {
+                            // drops the entries written after the last completed batch by the previous run.
+                            checkpoint.resumeBundleWriter(ExportCheckpoint.PHASE_DOCUMENTS, bundleWriter);
+                        }
+                    }
+                    batchCount = exportDocuments(procLogger, processStatus, params, throttle, documentExportTask,
+                            result, batchCount, baseFolderObject, bundleWriter, referredNodePaths, checkpoint,
+                            checkpointFile);
+                } finally {
+                    IOUtils.closeQuietly(bundleWriter);
+                    bundleWriter = null;
+                    documentExportTask.stop();
+                }
+
+                if (!referredNodePaths.isEmpty()) {
+                    final long collectStartMillis = System.currentTimeMillis();
+                    ResultItemSetCollector.fillResultItemsForNodePaths(session, referredNodePaths, true, null, result);
+                    session.refresh(false);
+                    addPhaseTime(processStatus, ProcessStatus.PHASE_COLLECT, collectStartMillis);
+                }
+
+                if (checkpoint != null && !isStopRequested(processStatus, baseFolderObject)) {
+                    checkpoint.setResult(result);
+                    checkpoint.recordBundlePosition(null);
+                    checkpoint.advance(ExportCheckpoint.PHASE_BINARIES, 0, batchCount, checkpointFile,
+                            getObjectMapper());
+                }
             }
 
             try {
                 binaryExportTask.start();
-                batchCount = exportBinaries(procLogger, processStatus, params, binaryExportTask, result, batchCount,
-                        baseFolderObject);
+                if (isBundledArchiveLayout(params)) {
+                    bundleWriter = new ContentNodeBundleWriter(baseFolderObject, BINARIES_BUNDLE_NAME_PREFIX,
+                            params.getBundleSize(), binaryExportTask.getObjectMapper());
+                    if (checkpoint != null) {
+                        // drops the entries written after the last completed batch by the previous run.
+                        checkpoint.resumeBundleWriter(ExportCheckpoint.PHASE_BINARIES, bundleWriter);
+                    }
+                }
+                batchCount = exportBinaries(procLogger, processStatus, params, throttle, binaryExportTask, result,
+                        batchCount, baseFolderObject, bundleWriter, checkpoint, checkpointFile);
             } finally {
+                IOUtils.closeQuietly(bundleWriter);
                 binaryExportTask.stop();
             }
 
@@ -193,15 +341,42 @@ public class ContentEximExportService extends AbstractContentEximService {
             tempLogOut = null;
             procLogger = log;
 
-            final String tempLogOutString = FileUtils.readFileToString(tempLogFile, "UTF-8");
+            // merges the execution log and the summaries of the previous runs of a resumed export.
+            final String tempLogOutString = mergeExportHistory(historyFolder, EXIM_EXECUTION_LOG_REL_PATH,
+                    FileUtils.readFileToString(tempLogFile, "UTF-8"));
+            final String binariesSummary = mergeExportHistory(historyFolder, EXIM_SUMMARY_BINARIES_LOG_REL_PATH,
+                    binaryExportTask.getSummary());
+            final String documentsSummary = mergeExportHistory(historyFolder, EXIM_SUMMARY_DOCUMENTS_LOG_REL_PATH,
+                    documentExportTask.getSummary());
             final File zipBaseFolder = baseFolder;
+            final File zipHistoryFolder = historyFolder;
+            final String shardInfo = (params.getShardCount() > 1) ? getShardInfo(params, result) : null;
+            final File zipCheckpointFile = checkpointFile;
+            final boolean retainBaseFolder = (checkpointFile != null)
+                    && isStopRequested(processStatus, baseFolderObject);
+            // The archive is streamed after the process stops, adding to its compress and cleanup time in the history.
+            final ProcessStatus zipProcessStatus = processStatus;
+
+            if (retainBaseFolder) {
+                procLogger.info("Retaining the staging folder at {} to resume the stopped export by exportId '{}'.",
+                        baseFolder, params.getExportId());
+                saveExportHistory(historyFolder, EXIM_EXECUTION_LOG_REL_PATH, tempLogOutString);
+                saveExportHistory(historyFolder, EXIM_SUMMARY_BINARIES_LOG_REL_PATH, binariesSummary);
+                saveExportHistory(historyFolder, EXIM_SUMMARY_DOCUMENTS_LOG_REL_PATH, documentsSummary);
+            }
+
+            // keeps the export ID running until the staging folder is archived, not to be changed by another run.
+            final String zipExportId = runningExportId;
+            runningExportId = null;
 
             final StreamingOutput entity = new StreamingOutput() {
                 @Override
                 public void write(OutputStream output) throws IOException, WebApplicationException {
+                    final CountingOutputStream countingOutput = new CountingOutputStream(output);
                     ZipArchiveOutputStream zipOutput = null;
+                    long phaseStartMillis = System.currentTimeMillis();
                     try {
-                        zipOutput = new ZipArchiveOutputStream(output);
+                        zipOutput = new ZipArchiveOutputStream(countingOutput);
                         // FORGE-448: Enable Unicode extra fields for proper handling of non-ASCII filenames (e.g., Cyrillic characters)
                         // This ensures that filenames with Unicode characters are correctly preserved in the ZIP archive
                         // without being mangled or converted to question marks during extraction
@@ -209,15 +384,36 @@ public class ContentEximExportService extends AbstractContentEximService {
 
                         ZipCompressUtils.addEntryToZip(EXIM_EXECUTION_LOG_REL_PATH, tempLogOutString, "UTF-8",
                                 zipOutput);
-                        ZipCompressUtils.addEntryToZip(EXIM_SUMMARY_BINARIES_LOG_REL_PATH,
-                                binaryExportTask.getSummary(), "UTF-8", zipOutput);
-                        ZipCompressUtils.addEntryToZip(EXIM_SUMMARY_DOCUMENTS_LOG_REL_PATH,
-                                documentExportTask.getSummary(), "UTF-8", zipOutput);
+                        ZipCompressUtils.addEntryToZip(EXIM_SUMMARY_BINARIES_LOG_REL_PATH, binariesSummary,
+                                "UTF-8", zipOutput);
+                        ZipCompressUtils.addEntryToZip(EXIM_SUMMARY_DOCUMENTS_LOG_REL_PATH, documentsSummary,
+                                "UTF-8", zipOutput);
+                        if (shardInfo != null) {
+                            ZipCompressUtils.addEntryToZip(ZipCompressUtils.SHARD_INFO_ENTRY_NAME, shardInfo,
+                                    "UTF-8", zipOutput);
+                        }
                         ZipCompressUtils.addFileEntriesInFolderToZip(zipBaseFolder, "", zipOutput);
                     } finally {
                         zipOutput.finish();
                         IOUtils.closeQuietly(zipOutput);
-                        FileUtils.deleteDirectory(zipBaseFolder);
+                        phaseStartMillis = addPhaseTime(zipProcessStatus, ProcessStatus.PHASE_COMPRESS,
+                                phaseStartMillis);
+                        if (zipProcessStatus != null) {
+                            zipProcessStatus.addByteCount(countingOutput.getByteCount());
+                        }
+                        if (!retainBaseFolder) {
+                            FileUtils.deleteDirectory(zipBaseFolder);
+                            if (zipCheckpointFile != null) {
+                                FileUtils.deleteQuietly(zipCheckpointFile);
+                            }
+                            if (zipHistoryFolder != null) {
+                                FileUtils.deleteQuietly(zipHistoryFolder);
+                            }
+                        }
+                        if (zipExportId != null) {
+                            RUNNING_EXPORT_IDS.remove(zipExportId);
+                        }
+                        addPhaseTime(zipProcessStatus, ProcessStatus.PHASE_CLEANUP, phaseStartMillis);
                     }
                 }
             };
@@ -228,7 +424,30 @@ public class ContentEximExportService extends AbstractContentEximService {
                     .entity(entity).build();
         } catch (Exception e) {
             procLogger.error("Failed to export content.", e);
-            if (baseFolder != null) {
+            if (processStatus != null) {
+                processStatus.setFailed(true);
+            }
+            if (checkpointFile != null && checkpointFile.isFile()) {
+                procLogger.info("Retaining the staging folder at {} to resume the failed export by exportId '{}'.",
+                        baseFolder, params.getExportId());
+                try {
+                    if (tempLogOut != null) {
+                        tempLogOut.flush();
+                    }
+                    saveExportHistory(historyFolder, EXIM_EXECUTION_LOG_REL_PATH, mergeExportHistory(historyFolder,
+                            EXIM_EXECUTION_LOG_REL_PATH, FileUtils.readFileToString(tempLogFile, "UTF-8")));
+                    if (binaryExportTask != null && binaryExportTask.getStartedTimeMillis() > 0L) {
+                        saveExportHistory(historyFolder, EXIM_SUMMARY_BINARIES_LOG_REL_PATH, mergeExportHistory(
+                                historyFolder, EXIM_SUMMARY_BINARIES_LOG_REL_PATH, binaryExportTask.getSummary()));
+                    }
+                    if (documentExportTask != null && documentExportTask.getStartedTimeMillis() > 0L) {
+                        saveExportHistory(historyFolder, EXIM_SUMMARY_DOCUMENTS_LOG_REL_PATH, mergeExportHistory(
+                                historyFolder, EXIM_SUMMARY_DOCUMENTS_LOG_REL_PATH, documentExportTask.getSummary()));
+                    }
+                } catch (Exception he) {
+                    procLogger.error("Failed to save the execution log and the summaries of the failed export.", he);
+                }
+            } else if (baseFolder != null) {
                 try {
                     FileUtils.deleteDirectory(baseFolder);
                 } catch (Exception ioe) {
@@ -240,6 +459,10 @@ public class ContentEximExportService extends AbstractContentEximService {
         } finally {
             procLogger.info("ContentEximService#exportContentToZip finally ends.");
 
+            if (runningExportId != null) {
+                RUNNING_EXPORT_IDS.remove(runningExportId);
+            }
+
             if (getProcessMonitor() != null) {
                 try {
                     getProcessMonitor().stopProcess(processStatus);
@@ -270,24 +493,63 @@ public class ContentEximExportService extends AbstractContentEximService {
         }
     }
 
+    /**
+     * Returns {@code content} of this run appended to the content of the previous runs kept by {@code relPath}
+     * in {@code historyFolder}, or {@code content} as it is if there is no history.
+     */
+    private String mergeExportHistory(final File historyFolder, final String relPath, final String content)
+            throws IOException {
+        if (historyFolder == null) {
+            return content;
+        }
+
+        final File historyFile = new File(historyFolder, relPath);
+
+        if (!historyFile.isFile()) {
+            return content;
+        }
+
+        return FileUtils.readFileToString(historyFile, "UTF-8") + content;
+    }
+
+    private void saveExportHistory(final File historyFolder, final String relPath, final String mergedContent)
+            throws IOException {
+        FileUtils.writeStringToFile(new File(historyFolder, relPath), mergedContent, "UTF-8");
+    }
+
+    private String getShardInfo(final ExecutionParams params, final Result result) {
+        return new StringBuilder().append("shardIndex=").append(params.getShardIndex()).append('\n')
+                .append("shardCount=").append(params.getShardCount()).append('\n')
+                .append("itemCount=").append(result.getItems().size()).append('\n').toString();
+    }
+
     private int exportBinaries(Logger procLogger, ProcessStatus processStatus, ExecutionParams params,
-            DefaultBinaryExportTask exportTask, Result result, int batchCount, FileObject baseFolder) throws Exception {
+            BatchThrottle throttle, DefaultBinaryExportTask exportTask, Result result, int batchCount,
+            FileObject baseFolder, ContentNodeBundleWriter bundleWriter, ExportCheckpoint checkpoint,
+            File checkpointFile) throws Exception {
         final String baseFolderUrlPrefix = baseFolder.getURL().toString() + "/";
-        final AntPathMatcher pathMatcher = new AntPathMatcher();
+        final CompiledPathMatcher pathMatcher = createBinaryPathMatcher(params);
+        final int cursor = (checkpoint != null && ExportCheckpoint.PHASE_BINARIES.equals(checkpoint.getPhase()))
+                ? checkpoint.getCursor() : 0;
+        final ListIterator<ResultItem> itemIt = result.getItems().listIterator(cursor);
+        boolean batchBoundary = true;
+
+        while (itemIt.hasNext()) {
+            final ResultItem item = itemIt.next();
 
-        for (ResultItem item : result.getItems()) {
-            if (isStopRequested(baseFolder)) {
-                procLogger.info("Stop requested by file at {}/{}", baseFolder.getName().getPath(),
-                        STOP_REQUEST_FILE_REL_PATH);
+            if (isStopRequested(processStatus, baseFolder, batchBoundary)) {
+                procLogger.info("Stop requested after {} items.", batchCount);
                 break;
             }
 
+            batchBoundary = false;
+
             ContentMigrationRecord record = null;
 
             try {
                 String handlePath = item.getPath();
 
-                if (!isBinaryPathIncluded(pathMatcher, params, handlePath)) {
+                if (!pathMatcher.isIncluded(handlePath)) {
                     continue;
                 }
 
@@ -300,17 +562,28 @@ public class ContentEximExportService extends AbstractContentEximService {
                 }
 
                 Node handle = exportTask.getDocumentManager().getSession().getNode(handlePath);
+
+                if (!handle.isNodeType(HippoNodeType.NT_HANDLE)) {
+                    continue;
+                }
+
                 Node variant = HippoNodeUtils.getFirstVariantNode(handle);
 
                 if (variant == null) {
                     continue;
                 }
 
+                if (item.getPrimaryType() == null) {
+                    item.setPrimaryType(variant.getPrimaryNodeType().getName());
+                }
+
                 String variantPath = variant.getPath();
                 record = exportTask.beginRecord(variant.getIdentifier(), variantPath);
 
+                long phaseStartMillis = System.currentTimeMillis();
                 ContentNode contentNode = exportTask.exportBinarySetToContentNode(variant);
                 record.setProcessed(true);
+                throttle.addPending(contentNode);
 
                 ContentNodeUtils.replaceDocbasesByPaths(exportTask.getDocumentManager().getSession(), contentNode,
                         ContentNodeUtils.MIRROR_DOCBASES_XPATH);
@@ -327,13 +600,23 @@ public class ContentEximExportService extends AbstractContentEximService {
 
                 applyTagContentProperties(contentNode, params.getBinaryTags());
 
-                String relPath = StringUtils.removeStart(ContentPathUtils.removeIndexNotationInNodePath(variantPath),
-                        "/");
-                FileObject file = baseFolder.resolveFile(relPath + ".json");
-                record.setAttribute("file", file.getName().getPath());
-                exportTask.writeContentNodeToJsonFile(contentNode, file);
+                phaseStartMillis = addPhaseTime(processStatus, ProcessStatus.PHASE_MAP, phaseStartMillis);
+
+                if (bundleWriter != null) {
+                    final String entryName = bundleWriter.write(contentNode, variantPath);
+                    record.setAttribute("file", entryName);
+                    procLogger.debug("Exported document from {} to {}.", handlePath, entryName);
+                } else {
+                    String relPath = StringUtils.removeStart(
+                            ContentPathUtils.removeIndexNotationInNodePath(variantPath), "/");
+                    FileObject file = baseFolder.resolveFile(
+                            relPath + "." + exportTask.getContentNodeFileFormat().getFileExtension());
+                    record.setAttribute("file", file.getName().getPath());
+                    exportTask.writeContentNodeToFile(contentNode, file);
+                    procLogger.debug("Exported document from {} to {}.", handlePath, file.getName().getPath());
+                }
 
-                procLogger.debug("Exported document from {} to {}.", handlePath, file.getName().getPath());
+                addPhaseTime(processStatus, ProcessStatus.PHASE_WRITE, phaseStartMillis);
                 record.setSucceeded(true);
             } catch (Exception e) {
                 procLogger.error("Failed to process record: {}", record, e);
@@ -354,11 +637,19 @@ public class ContentEximExportService extends AbstractContentEximService {
                     }
                 }
                 ++batchCount;
-                if (batchCount % params.getBatchSize() == 0) {
+                if (throttle.nextItem()) {
+                    final long saveStartMillis = System.currentTimeMillis();
                     exportTask.getDocumentManager().getSession().refresh(false);
-                    if (params.getThrottle() > 0) {
-                        Thread.sleep(params.getThrottle());
+                    if (checkpoint != null) {
+                        if (bundleWriter != null) {
+                            bundleWriter.flush();
+                            checkpoint.recordBundlePosition(bundleWriter);
+                        }
+                        checkpoint.advance(ExportCheckpoint.PHASE_BINARIES, itemIt.nextIndex(), batchCount,
+                                checkpointFile, getObjectMapper());
                     }
+                    throttleBatch(procLogger, processStatus, throttle, System.currentTimeMillis() - saveStartMillis);
+                    batchBoundary = true;
                 }
             }
         }
@@ -369,24 +660,32 @@ public class ContentEximExportService extends AbstractContentEximService {
     }
 
     private int exportDocuments(Logger procLogger, ProcessStatus processStatus, ExecutionParams params,
-            WorkflowDocumentVariantExportTask exportTask, Result result, int batchCount, FileObject baseFolder,
-            Set<String> referredBinaryPaths) throws Exception {
+            BatchThrottle throttle, WorkflowDocumentVariantExportTask exportTask, Result result, int batchCount,
+            FileObject baseFolder, ContentNodeBundleWriter bundleWriter, Set<String> referredBinaryPaths,
+            ExportCheckpoint checkpoint, File checkpointFile) throws Exception {
         final String baseFolderUrlPrefix = baseFolder.getURL().toString() + "/";
-        final AntPathMatcher pathMatcher = new AntPathMatcher();
+        final CompiledPathMatcher pathMatcher = createDocumentPathMatcher(params);
+        final int cursor = (checkpoint != null && ExportCheckpoint.PHASE_DOCUMENTS.equals(checkpoint.getPhase()))
+                ? checkpoint.getCursor() : 0;
+        final ListIterator<ResultItem> itemIt = result.getItems().listIterator(cursor);
+        boolean batchBoundary = true;
+
+        while (itemIt.hasNext()) {
+            final ResultItem item = itemIt.next();
 
-        for (ResultItem item : result.getItems()) {
-            if (isStopRequested(baseFolder)) {
-                procLogger.info("Stop requested by file at {}/{}", baseFolder.getName().getPath(),
-                        STOP_REQUEST_FILE_REL_PATH);
+            if (isStopRequested(processStatus, baseFolder, batchBoundary)) {
+                procLogger.info("Stop requested after {} items.", batchCount);
                 break;
             }
 
+            batchBoundary = false;
+
             ContentMigrationRecord record = null;
 
             try {
                 String handlePath = item.getPath();
 
-                if (!isDocumentPathIncluded(pathMatcher, params, handlePath)) {
+                if (!pathMatcher.isIncluded(handlePath)) {
                     continue;
                 }
 
@@ -399,6 +698,11 @@ public class ContentEximExportService extends AbstractContentEximService {
                 }
 
                 Node handle = exportTask.getDocumentManager().getSession().getNode(handlePath);
+
+                if (!handle.isNodeType(HippoNodeType.NT_HANDLE)) {
+                    continue;
+                }
+
                 Map<String, Node> variantsMap = HippoNodeUtils.getDocumentVariantsMap(handle);
                 Node variant = variantsMap.get(HippoStdNodeType.PUBLISHED);
                 if (variant == null) {
@@ -409,12 +713,18 @@ public class ContentEximExportService extends AbstractContentEximService {
                     continue;
                 }
 
+                if (item.getPrimaryType() == null) {
+                    item.setPrimaryType(variant.getPrimaryNodeType().getName());
+                }
+
                 String variantPath = variant.getPath();
                 record = exportTask.beginRecord(variant.getIdentifier(), variantPath);
 
                 Document document = new Document(variant.getIdentifier());
+                long phaseStartMillis = System.currentTimeMillis();
                 ContentNode contentNode = exportTask.exportVariantToContentNode(document);
                 record.setProcessed(true);
+                throttle.addPending(contentNode);
 
                 ContentNodeUtils.replaceDocbasesByPaths(exportTask.getDocumentManager().getSession(), contentNode,
                         ContentNodeUtils.MIRROR_DOCBASES_XPATH, referredBinaryPaths);
@@ -431,13 +741,23 @@ public class ContentEximExportService extends AbstractContentEximService {
 
                 applyTagContentProperties(contentNode, params.getDocumentTags());
 
-                String relPath = StringUtils.removeStart(ContentPathUtils.removeIndexNotationInNodePath(variantPath),
-                        "/");
-                FileObject file = baseFolder.resolveFile(relPath + ".json");
-                record.setAttribute("file", file.getName().getPath());
+                phaseStartMillis = addPhaseTime(processStatus, ProcessStatus.PHASE_MAP, phaseStartMillis);
+
+                if (bundleWriter != null) {
+                    final String entryName = bundleWriter.write(contentNode, variantPath);
+                    record.setAttribute("file", entryName);
+                    procLogger.debug("Exported document from {} to {}.", handlePath, entryName);
+                } else {
+                    String relPath = StringUtils.removeStart(
+                            ContentPathUtils.removeIndexNotationInNodePath(variantPath), "/");
+                    FileObject file = baseFolder.resolveFile(
+                            relPath + "." + exportTask.getContentNodeFileFormat().getFileExtension());
+                    record.setAttribute("file", file.getName().getPath());
+                    exportTask.writeContentNodeToFile(contentNode, file);
+                    procLogger.debug("Exported document from {} to {}.", handlePath, file.getName().getPath());
+                }
 
-                exportTask.writeContentNodeToJsonFile(contentNode, file);
-                procLogger.debug("Exported document from {} to {}.", handlePath, file.getName().getPath());
+                addPhaseTime(processStatus, ProcessStatus.PHASE_WRITE, phaseStartMillis);
                 record.setSucceeded(true);
             } catch (Exception e) {
                 procLogger.error("Failed to process record: {}", record, e);
@@ -458,11 +778,19 @@ public class ContentEximExportService extends AbstractContentEximService {
                     }
                 }
                 ++batchCount;
-                if (batchCount % params.getBatchSize() == 0) {
+                if (throttle.nextItem()) {
+                    final long saveStartMillis = System.currentTimeMillis();
                     exportTask.getDocumentManager().getSession().refresh(false);
-                    if (params.getThrottle() > 0) {
-                        Thread.sleep(params.getThrottle());
+                    if (checkpoint != null) {
+                        if (bundleWriter != null) {
+                            bundleWriter.flush();
+                            checkpoint.recordBundlePosition(bundleWriter);
+                        }
+                        checkpoint.advance(ExportCheckpoint.PHASE_DOCUMENTS, itemIt.nextIndex(), batchCount,
+                                checkpointFile, getObjectMapper());
                     }
+                    throttleBatch(procLogger, processStatus, throttle, System.currentTimeMillis() - saveStartMillis);
+                    batchBoundary = true;
                 }
             }
         }
@@ -19,12 +19,23 @@ import java.io.BufferedOutputStream;
 import java.io.File;
 import java.io.FileOutputStream;
 import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.TreeSet;
 
 import javax.jcr.Node;
 import javax.jcr.Property;
+import javax.jcr.RepositoryException;
 import javax.jcr.Session;
 import javax.jcr.query.Query;
 import jakarta.servlet.http.HttpServletRequest;
@@ -43,25 +54,39 @@ import org.apache.commons.io.IOUtils;
 import org.apache.commons.lang3.ArrayUtils;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.commons.vfs2.FileObject;
+import org.apache.commons.vfs2.Selectors;
 import org.apache.commons.vfs2.VFS;
 import org.apache.cxf.jaxrs.ext.multipart.Attachment;
 import org.apache.cxf.jaxrs.ext.multipart.Multipart;
 import org.apache.cxf.jaxrs.ext.multipart.MultipartBody;
+import org.hippoecm.repository.HippoStdNodeType;
 import org.hippoecm.repository.api.HippoNodeType;
 import org.hippoecm.repository.util.JcrUtils;
 import org.onehippo.forge.content.exim.core.ContentMigrationRecord;
 import org.onehippo.forge.content.exim.core.DocumentManager;
+import org.onehippo.forge.content.exim.core.DocumentManagerBatchResult;
+import org.onehippo.forge.content.exim.core.impl.AbstractContentImportTask;
+import org.onehippo.forge.content.exim.core.impl.AbstractContentMigrationTask;
 import org.onehippo.forge.content.exim.core.impl.DefaultBinaryImportTask;
-import org.onehippo.forge.content.exim.core.impl.WorkflowDocumentManagerImpl;
 import org.onehippo.forge.content.exim.core.impl.WorkflowDocumentVariantImportTask;
-import org.onehippo.forge.content.exim.core.util.AntPathMatcher;
+import org.onehippo.forge.content.exim.core.util.CompiledPathMatcher;
+import org.onehippo.forge.content.exim.core.util.ContentNodeBundleReader;
 import org.onehippo.forge.content.exim.core.util.ContentNodeUtils;
 import org.onehippo.forge.content.exim.core.util.ContentPathUtils;
+import org.onehippo.forge.content.exim.core.util.DocumentExistenceResolver;
 import org.onehippo.forge.content.exim.core.util.HippoBinaryNodeUtils;
 import org.onehippo.forge.content.exim.core.util.HippoNodeUtils;
+import org.onehippo.forge.content.exim.core.util.RetryPolicy;
 import org.onehippo.forge.content.exim.repository.jaxrs.param.ExecutionParams;
 import org.onehippo.forge.content.exim.repository.jaxrs.param.Result;
 import org.onehippo.forge.content.exim.repository.jaxrs.status.ProcessStatus;
+import org.onehippo.forge.content.exim.repository.jaxrs.status.ProcessStatusRecordListener;
+import org.onehippo.forge.content.exim.repository.jaxrs.util.BatchSaveBisector;
+import org.onehippo.forge.content.exim.repository.jaxrs.util.BatchThrottle;
+import org.onehippo.forge.content.exim.repository.jaxrs.util.ContentNodeEntry;
+import org.onehippo.forge.content.exim.repository.jaxrs.util.ContentNodeEntryReader;
+import org.onehippo.forge.content.exim.repository.jaxrs.util.ImportCheckpointJournal;
+import org.onehippo.forge.content.exim.repository.jaxrs.util.PathLeases;
 import org.onehippo.forge.content.pojo.model.ContentNode;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -76,6 +101,8 @@ public class ContentEximImportService extends AbstractContentEximService {
 
     private static Logger log = LoggerFactory.getLogger(ContentEximImportService.class);
 
+    private static final String LAST_MODIFICATION_DATE_PROP = "hippostdpubwf:lastModificationDate";
+
     public ContentEximImportService() {
         super();
     }
@@ -109,9 +136,12 @@ public class ContentEximImportService extends AbstractContentEximService {
         File tempZipFile = null;
         // The logical zip file folder in commons-VFS FileObject. This is the reading source.
         FileObject baseFolder = null;
+        // The temporary folder where large data: URL binary values are decoded into files while reading.
+        File dataUrlSpillFolder = null;
         Session session = null;
         ExecutionParams params = new ExecutionParams();
         ProcessStatus processStatus = null;
+        ImportCheckpointJournal journal = null;
 
         try {
             tempLogFile = File.createTempFile(TEMP_PREFIX, ".log");
@@ -149,13 +179,88 @@ public class ContentEximImportService extends AbstractContentEximService {
                 processStatus.setExecutionParams(params);
             }
 
+            final long writeStartMillis = System.currentTimeMillis();
             transferAttachmentToFile(packageAttachment, tempZipFile);
+            addPhaseTime(processStatus, ProcessStatus.PHASE_WRITE, writeStartMillis);
+
+            if (processStatus != null) {
+                processStatus.addByteCount(tempZipFile.length());
+            }
 
             baseFolder = VFS.getManager().resolveFile("zip:" + tempZipFile.toURI());
 
+            final int expiredJournalCount = ImportCheckpointJournal.deleteExpiredJournals(getCheckpointFolder(),
+                    getCheckpointMaxAge());
+
+            if (expiredJournalCount > 0) {
+                procLogger.info("Deleted {} expired checkpoint journals.", expiredJournalCount);
+            }
+
+            // Records the entries saved in each batch, to skip those when the same package is imported again
+            // with the same parameters.
+            journal = ImportCheckpointJournal.forPackage(getCheckpointFolder(), tempZipFile,
+                    computeCheckpointParamsChecksum(params));
+
+            if (!journal.lock()) {
+                journal = null;
+                result.addError("Another import of the same package with the same parameters is running.");
+                return Response.status(Response.Status.CONFLICT).entity(toJsonString(result)).build();
+            }
+
+            if (!params.getResume()) {
+                if (journal.getCompletedCount() > 0) {
+                    procLogger.info("Discarding the checkpoint journal at {} not to resume the previous import.",
+                            journal.getJournalFile().getPath());
+                }
+
+                journal.delete();
+            } else if (journal.getCompletedCount() > 0) {
+                procLogger.info("Resuming import with {} completed entries in the checkpoint journal at {}",
+                        journal.getCompletedCount(), journal.getJournalFile().getPath());
+            }
+
+            // Not bound to a document manager, only to find and read the files in the package before the session.
+            final DefaultBinaryImportTask packageReadingTask = new DefaultBinaryImportTask(null);
+
+            final long collectStartMillis = System.currentTimeMillis();
+            // Each file may be in any of the JSON or Smile formats, detected on reading.
+            FileObject[] jsonFiles = packageReadingTask.findFilesByNamePattern(baseFolder, "^.+\\.(json|smile)$", 1,
+                    20);
+            // Bundle files contain a content per line, exported in the bundled archive layout.
+            FileObject[] bundleFiles = packageReadingTask.findFilesByNamePattern(baseFolder, "^.+\\.ndjson$", 1,
+                    20);
+            final int entryCount = ContentNodeEntryReader.countEntries(jsonFiles, bundleFiles);
+            addPhaseTime(processStatus, ProcessStatus.PHASE_COLLECT, collectStartMillis);
+
+            Set<String> pathLeases = null;
+
+            if (processStatus != null && getProcessMonitor().isPathLeasesEnabled()) {
+                final long planStartMillis = System.currentTimeMillis();
+                pathLeases = planPathLeases(packageReadingTask, params, jsonFiles, bundleFiles);
+                addPhaseTime(processStatus, ProcessStatus.PHASE_COLLECT, planStartMillis);
+                procLogger.info("Acquiring path leases: {}", pathLeases);
+
+                // Acquired before the admission, not to hold a running process slot while waiting for the leases.
+                if (!getProcessMonitor().acquirePathLeases(processStatus, pathLeases)) {
+                    procLogger.info("Process {} cancelled while waiting for path leases.", processStatus.getId());
+                    result.addError(Response.Status.CONFLICT.getReasonPhrase());
+                    return Response.status(Response.Status.CONFLICT).entity(toJsonString(result)).build();
+                }
+            }
+
+            if (processStatus != null) {
+                final Response.Status admissionError = admitProcess(procLogger, processStatus,
+                        ProcessMonitor.ProcessKind.IMPORT, params);
+
+                if (admissionError != null) {
+                    result.addError(admissionError.getReasonPhrase());
+                    return Response.status(admissionError).entity(toJsonString(result)).build();
+                }
+            }
+
             session = createSession();
 
-            DocumentManager documentManager = new WorkflowDocumentManagerImpl(session);
+            DocumentManager documentManager = createDocumentManager(session, params);
 
             final DefaultBinaryImportTask binaryImportTask = new DefaultBinaryImportTask(documentManager);
             binaryImportTask.setLogger(procLogger);
@@ -163,29 +268,67 @@ public class ContentEximImportService extends AbstractContentEximService {
             final WorkflowDocumentVariantImportTask documentImportTask = new WorkflowDocumentVariantImportTask(
                     documentManager);
             documentImportTask.setLogger(procLogger);
+            documentImportTask.setRetryPolicy(new RetryPolicy(params.getMaxRetries(), params.getRetryBackoff(),
+                    params.getMaxRetryBackoff()));
+
+            // Resolves each folder once for the whole run instead of walking the folder path for each item.
+            final DocumentExistenceResolver existenceResolver = new DocumentExistenceResolver(documentManager);
+            binaryImportTask.setDocumentExistenceResolver(existenceResolver);
+            documentImportTask.setDocumentExistenceResolver(existenceResolver);
+
+            dataUrlSpillFolder = Files.createTempDirectory(TEMP_PREFIX).toFile();
+            final FileObject dataUrlSpillFolderObject = VFS.getManager().resolveFile(dataUrlSpillFolder.toURI());
+            binaryImportTask.setDataUrlSpillFolder(dataUrlSpillFolderObject);
+            documentImportTask.setDataUrlSpillFolder(dataUrlSpillFolderObject);
 
-            FileObject[] jsonFiles = binaryImportTask.findFilesByNamePattern(baseFolder, "^.+\\.json$", 1, 20);
+            if (processStatus != null) {
+                final ProcessStatusRecordListener recordListener = new ProcessStatusRecordListener(processStatus);
+                binaryImportTask.addContentMigrationRecordListener(recordListener);
+                documentImportTask.addContentMigrationRecordListener(recordListener);
+            }
 
             int batchCount = 0;
+            final BatchThrottle throttle = new BatchThrottle(params);
+
+            ContentNodeEntryReader entryReader = null;
 
             try {
                 binaryImportTask.start();
-                batchCount = importBinaries(procLogger, processStatus, jsonFiles, params, baseFolder, binaryImportTask,
-                        result, batchCount);
+                entryReader = new ContentNodeEntryReader(binaryImportTask, jsonFiles,
+                        filterBundleFiles(bundleFiles, DOCUMENTS_BUNDLE_NAME_PREFIX));
+                batchCount = importBinaries(procLogger, processStatus, entryReader, entryCount, params, throttle,
+                        baseFolder, binaryImportTask, journal, result, batchCount);
             } finally {
+                IOUtils.closeQuietly(entryReader);
+                entryReader = null;
                 binaryImportTask.stop();
             }
 
             try {
                 documentImportTask.start();
-                batchCount = importDocuments(procLogger, processStatus, jsonFiles, params, baseFolder,
-                        documentImportTask, result, batchCount);
+                entryReader = new ContentNodeEntryReader(documentImportTask, jsonFiles,
+                        filterBundleFiles(bundleFiles, BINARIES_BUNDLE_NAME_PREFIX));
+                batchCount = importDocuments(procLogger, processStatus, entryReader, entryCount, params, throttle,
+                        baseFolder, documentImportTask, journal, result, batchCount);
             } finally {
+                IOUtils.closeQuietly(entryReader);
                 documentImportTask.stop();
             }
 
-            batchCount = cleanMirrorDocbaseValues(procLogger, processStatus, session, params, result, batchCount);
-            batchCount = cleanAllDocbaseFieldValues(procLogger, processStatus, session, params, result, batchCount);
+            final long cleanupStartMillis = System.currentTimeMillis();
+            // Scoped to the path leases if any, not to write into the subtrees leased by other processes.
+            batchCount = cleanMirrorDocbaseValues(procLogger, processStatus, session, params, throttle, pathLeases,
+                    result, batchCount);
+            batchCount = cleanAllDocbaseFieldValues(procLogger, processStatus, session, params, throttle, pathLeases,
+                    result, batchCount);
+            addPhaseTime(processStatus, ProcessStatus.PHASE_CLEANUP, cleanupStartMillis);
+
+            if (isStopRequested(processStatus, baseFolder)) {
+                procLogger.info("Keeping the checkpoint journal at {} to resume the stopped import.",
+                        journal.getJournalFile().getPath());
+            } else {
+                journal.delete();
+            }
 
             if (processStatus != null) {
                 processStatus.setProgress(1.0);
@@ -199,11 +342,18 @@ public class ContentEximImportService extends AbstractContentEximService {
 
         } catch (Exception e) {
             procLogger.error("Failed to import content.", e);
+            if (processStatus != null) {
+                processStatus.setFailed(true);
+            }
             result.addError(e.toString());
             return Response.serverError().entity(toJsonString(result)).build();
         } finally {
             procLogger.info("ContentEximService#importContentFromZip finally ends.");
 
+            if (journal != null) {
+                journal.unlock();
+            }
+
             if (getProcessMonitor() != null) {
                 try {
                     getProcessMonitor().stopProcess(processStatus);
@@ -231,6 +381,14 @@ public class ContentEximImportService extends AbstractContentEximService {
                 }
             }
 
+            if (dataUrlSpillFolder != null) {
+                try {
+                    FileUtils.deleteDirectory(dataUrlSpillFolder);
+                } catch (Exception e) {
+                    procLogger.error("Failed to delete temporary data URL spill folder.", e);
+                }
+            }
+
             if (tempZipFile != null) {
                 try {
                     tempZipFile.delete();
@@ -255,25 +413,37 @@ public class ContentEximImportService extends AbstractContentEximService {
         return Response.ok(new MultipartBody(attachments, true)).build();
     }
 
-    private int importBinaries(Logger procLogger, ProcessStatus processStatus, FileObject[] jsonFiles,
-            ExecutionParams params, FileObject baseFolder, DefaultBinaryImportTask importTask, Result result,
-            int batchCount) throws Exception {
+    private int importBinaries(Logger procLogger, ProcessStatus processStatus, ContentNodeEntryReader entryReader,
+            int entryCount, ExecutionParams params, BatchThrottle throttle, FileObject baseFolder,
+            DefaultBinaryImportTask importTask, ImportCheckpointJournal journal, Result result, int batchCount)
+            throws Exception {
         final String baseFolderUrlPrefix = baseFolder.getURL().toString();
-        final AntPathMatcher pathMatcher = new AntPathMatcher();
+        final CompiledPathMatcher pathMatcher = createBinaryPathMatcher(params);
+        final Map<ContentMigrationRecord, ContentNode> batchRecords = new LinkedHashMap<>();
 
-        for (FileObject file : jsonFiles) {
-            if (isStopRequested(baseFolder)) {
-                procLogger.info("Stop requested by file at {}/{}", baseFolder.getName().getPath(),
-                        STOP_REQUEST_FILE_REL_PATH);
+        ContentNodeEntry entry;
+        boolean batchBoundary = true;
+
+        while ((entry = readEntry(processStatus, entryReader)) != null) {
+            if (isStopRequested(processStatus, baseFolder, batchBoundary)) {
+                procLogger.info("Stop requested after {} items.", batchCount);
                 break;
             }
 
-            ContentNode contentNode = importTask.readContentNodeFromJsonFile(file);
+            batchBoundary = false;
+
+            if (journal.isCompleted(entry.getName())) {
+                if (processStatus != null) {
+                    processStatus.incrementResumeOffset();
+                }
+                continue;
+            }
+
+            ContentNode contentNode = entry.getContentNode();
 
-            String primaryTypeName = contentNode.getPrimaryType();
             String path = contentNode.getProperty("jcr:path").getValue();
 
-            if (!isBinaryPathIncluded(pathMatcher, params, path)) {
+            if (!pathMatcher.isIncluded(path)) {
                 continue;
             }
 
@@ -288,37 +458,15 @@ public class ContentEximImportService extends AbstractContentEximService {
                         baseFolderUrlPrefix);
 
                 record = importTask.beginRecord("", path);
-                record.setAttribute("file", file.getName().getPath());
+                record.setAttribute("file", entry.getName());
                 record.setProcessed(true);
-
-                String[] folderPathAndName = ContentPathUtils.splitToFolderPathAndName(path);
-                String folderPath = folderPathAndName[0];
-                String name = folderPathAndName[1];
-
-                String folderPrimaryType;
-                String[] folderTypes;
-                String[] galleryTypes;
-
-                if (HippoNodeUtils.isGalleryPath(path)) {
-                    folderPrimaryType = params.getGalleryFolderPrimaryType();
-                    folderTypes = params.getGalleryFolderFolderTypes();
-                    galleryTypes = params.getGalleryFolderGalleryTypes();
-                } else {
-                    folderPrimaryType = params.getAssetFolderPrimaryType();
-                    folderTypes = params.getAssetFolderFolderTypes();
-                    galleryTypes = params.getAssetFolderGalleryTypes();
-                }
-
-                folderPath = importTask.createOrUpdateBinaryFolder(folderPath, folderPrimaryType, folderTypes,
-                        galleryTypes);
+                throttle.addPending(contentNode);
 
                 applyTagContentProperties(contentNode, params.getBinaryTags());
 
-                String updatedPath = importTask.createOrUpdateBinaryFromContentNode(contentNode, primaryTypeName,
-                        folderPath, name);
-
-                HippoBinaryNodeUtils.extractTextFromBinariesAndSaveHippoTextsUnderHandlePath(
-                        importTask.getDocumentManager().getSession(), updatedPath);
+                final long bindStartMillis = System.currentTimeMillis();
+                importBinary(params, importTask, contentNode, path);
+                addPhaseTime(processStatus, ProcessStatus.PHASE_BIND, bindStartMillis);
 
                 record.setSucceeded(true);
             } catch (Exception e) {
@@ -329,54 +477,120 @@ public class ContentEximImportService extends AbstractContentEximService {
             } finally {
                 if (record != null) {
                     importTask.endRecord();
-                    result.addItem(recordToResultItem(record));
-                    result.incrementTotalBinaryCount();
                     if (record.isSucceeded()) {
-                        result.incrementSucceededBinaryCount();
+                        // Added to the result once the batch is saved. See saveBinaryBatch().
+                        batchRecords.put(record, contentNode);
+                        journal.addPending(entry.getName());
                     } else {
-                        result.incrementFailedBinaryCount();
+                        addBinaryResultItem(result, record);
                     }
                     if (processStatus != null) {
                         // the remaining 5% for cleaning paths to convert those to uuids.
-                        processStatus.setProgress(0.95 * ((double) batchCount) / ((double) jsonFiles.length));
+                        processStatus.setProgress(0.95 * ((double) batchCount) / ((double) entryCount));
                     }
                 }
                 ++batchCount;
-                if (batchCount % params.getBatchSize() == 0) {
-                    importTask.getDocumentManager().getSession().save();
+                if (throttle.nextItem()) {
+                    final long saveStartMillis = System.currentTimeMillis();
+                    saveBinaryBatch(procLogger, processStatus, params, importTask, batchRecords, journal, result);
+                    journal.commit();
                     importTask.getDocumentManager().getSession().refresh(false);
-                    if (params.getThrottle() > 0) {
-                        Thread.sleep(params.getThrottle());
-                    }
+                    cleanDataUrlSpillFolder(procLogger, importTask);
+                    throttleBatch(procLogger, processStatus, throttle, System.currentTimeMillis() - saveStartMillis);
+                    batchBoundary = true;
                 }
             }
         }
 
-        importTask.getDocumentManager().getSession().save();
+        saveBinaryBatch(procLogger, processStatus, params, importTask, batchRecords, journal, result);
+        journal.commit();
         importTask.getDocumentManager().getSession().refresh(false);
+        cleanDataUrlSpillFolder(procLogger, importTask);
 
         return batchCount;
     }
 
-    private int importDocuments(Logger procLogger, ProcessStatus processStatus, FileObject[] jsonFiles,
-            ExecutionParams params, FileObject baseFolder, WorkflowDocumentVariantImportTask importTask, Result result,
+    private void importBinary(ExecutionParams params, DefaultBinaryImportTask importTask, ContentNode contentNode,
+            String path) throws Exception {
+        String[] folderPathAndName = ContentPathUtils.splitToFolderPathAndName(path);
+        String folderPath = folderPathAndName[0];
+        String name = folderPathAndName[1];
+
+        String folderPrimaryType;
+        String[] folderTypes;
+        String[] galleryTypes;
+
+        if (HippoNodeUtils.isGalleryPath(path)) {
+            folderPrimaryType = params.getGalleryFolderPrimaryType();
+            folderTypes = params.getGalleryFolderFolderTypes();
+            galleryTypes = params.getGalleryFolderGalleryTypes();
+        } else {
+            folderPrimaryType = params.getAssetFolderPrimaryType();
+            folderTypes = params.getAssetFolderFolderTypes();
+            galleryTypes = params.getAssetFolderGalleryTypes();
+        }
+
+        folderPath = importTask.createOrUpdateBinaryFolder(folderPath, folderPrimaryType, folderTypes,
+                galleryTypes);
+
+        String updatedPath = importTask.createOrUpdateBinaryFromContentNode(contentNode,
+                contentNode.getPrimaryType(), folderPath, name);
+
+        HippoBinaryNodeUtils.extractTextFromBinariesAndSaveHippoTextsUnderHandlePath(
+                importTask.getDocumentManager().getSession(), updatedPath);
+    }
+
+    /**
+     * Saves the binaries imported in the current batch, and adds the records to the {@code result}.
+     * See {@link #saveBatch(Logger, ProcessStatus, AbstractContentImportTask, Collection,
+     * BatchSaveBisector.ItemAction, ImportCheckpointJournal)} for the recovery when saving fails.
+     */
+    private void saveBinaryBatch(Logger procLogger, ProcessStatus processStatus, ExecutionParams params,
+            DefaultBinaryImportTask importTask, Map<ContentMigrationRecord, ContentNode> batchRecords,
+            ImportCheckpointJournal journal, Result result) throws Exception {
+        saveBatch(procLogger, processStatus, importTask, batchRecords.keySet(),
+                record -> importBinary(params, importTask, batchRecords.get(record), record.getContentPath()),
+                journal);
+
+        for (ContentMigrationRecord record : batchRecords.keySet()) {
+            addBinaryResultItem(result, record);
+        }
+
+        batchRecords.clear();
+    }
+
+    private int importDocuments(Logger procLogger, ProcessStatus processStatus, ContentNodeEntryReader entryReader,
+            int entryCount, ExecutionParams params, BatchThrottle throttle, FileObject baseFolder,
+            WorkflowDocumentVariantImportTask importTask, ImportCheckpointJournal journal, Result result,
             int batchCount) throws Exception {
         final String baseFolderUrlPrefix = baseFolder.getURL().toString();
-        final AntPathMatcher pathMatcher = new AntPathMatcher();
+        final CompiledPathMatcher pathMatcher = createDocumentPathMatcher(params);
+        final Map<ContentMigrationRecord, String> deferredPublishRecords = new LinkedHashMap<>();
+        final Map<ContentMigrationRecord, ContentNode> batchRecords = new LinkedHashMap<>();
 
-        for (FileObject file : jsonFiles) {
-            if (isStopRequested(baseFolder)) {
-                procLogger.info("Stop requested by file at {}/{}", baseFolder.getName().getPath(),
-                        STOP_REQUEST_FILE_REL_PATH);
+        ContentNodeEntry entry;
+        boolean batchBoundary = true;
+
+        while ((entry = readEntry(processStatus, entryReader)) != null) {
+            if (isStopRequested(processStatus, baseFolder, batchBoundary)) {
+                procLogger.info("Stop requested after {} items.", batchCount);
                 break;
             }
 
-            ContentNode contentNode = importTask.readContentNodeFromJsonFile(file);
+            batchBoundary = false;
+
+            if (journal.isCompleted(entry.getName())) {
+                if (processStatus != null) {
+                    processStatus.incrementResumeOffset();
+                }
+                continue;
+            }
+
+            ContentNode contentNode = entry.getContentNode();
 
-            String primaryTypeName = contentNode.getPrimaryType();
             String path = contentNode.getProperty("jcr:path").getValue();
 
-            if (!isDocumentPathIncluded(pathMatcher, params, path)) {
+            if (!pathMatcher.isIncluded(path)) {
                 continue;
             }
 
@@ -391,18 +605,15 @@ public class ContentEximImportService extends AbstractContentEximService {
                         baseFolderUrlPrefix);
 
                 record = importTask.beginRecord("", path);
-                record.setAttribute("file", file.getName().getPath());
+                record.setAttribute("file", entry.getName());
                 record.setProcessed(true);
-
-                String locale = (contentNode.hasProperty("hippotranslation:locale"))
-                        ? contentNode.getProperty("hippotranslation:locale").getValue()
-                        : null;
-                String localizedName = contentNode.getProperty("jcr:localizedName").getValue();
+                throttle.addPending(contentNode);
 
                 applyTagContentProperties(contentNode, params.getDocumentTags());
 
-                String updatedPath = importTask.createOrUpdateDocumentFromVariantContentNode(contentNode,
-                        primaryTypeName, path, locale, localizedName);
+                final long bindStartMillis = System.currentTimeMillis();
+                String updatedPath = importDocument(importTask, contentNode, path);
+                addPhaseTime(processStatus, ProcessStatus.PHASE_BIND, bindStartMillis);
 
                 boolean isToPublish = ExecutionParams.PUBLISH_ON_IMPORT_ALL.equals(params.getPublishOnImport());
 
@@ -412,8 +623,8 @@ public class ContentEximImportService extends AbstractContentEximService {
                 }
 
                 if (isToPublish) {
-                    importTask.getDocumentManager().depublishDocument(updatedPath);
-                    importTask.getDocumentManager().publishDocument(updatedPath);
+                    // Published in a batch after the content batch is saved. See publishDeferredDocuments().
+                    deferredPublishRecords.put(record, updatedPath);
                 }
 
                 record.setSucceeded(true);
@@ -425,39 +636,407 @@ public class ContentEximImportService extends AbstractContentEximService {
             } finally {
                 if (record != null) {
                     importTask.endRecord();
-                    result.addItem(recordToResultItem(record));
-                    result.incrementTotalDocumentCount();
                     if (record.isSucceeded()) {
-                        result.incrementSucceededDocumentCount();
+                        // Added to the result once the batch is saved. See saveDocumentBatch().
+                        batchRecords.put(record, contentNode);
+                        journal.addPending(entry.getName());
                     } else {
-                        result.incrementFailedDocumentCount();
+                        addDocumentResultItem(result, record);
                     }
                     if (processStatus != null) {
                         // the remaining 5% for cleaning paths to convert those to uuids.
-                        processStatus.setProgress(0.95 * ((double) batchCount) / ((double) jsonFiles.length));
+                        processStatus.setProgress(0.95 * ((double) batchCount) / ((double) entryCount));
                     }
                 }
                 ++batchCount;
-                if (batchCount % params.getBatchSize() == 0) {
-                    importTask.getDocumentManager().getSession().save();
+                if (throttle.nextItem()) {
+                    final long saveStartMillis = System.currentTimeMillis();
+                    saveDocumentBatch(procLogger, processStatus, importTask, batchRecords, deferredPublishRecords,
+                            journal, result);
+                    publishDeferredDocuments(procLogger, processStatus, importTask.getDocumentManager(),
+                            deferredPublishRecords, journal, result);
+                    journal.commit();
                     importTask.getDocumentManager().getSession().refresh(false);
-                    if (params.getThrottle() > 0) {
-                        Thread.sleep(params.getThrottle());
-                    }
+                    cleanDataUrlSpillFolder(procLogger, importTask);
+                    throttleBatch(procLogger, processStatus, throttle, System.currentTimeMillis() - saveStartMillis);
+                    batchBoundary = true;
                 }
             }
         }
 
-        importTask.getDocumentManager().getSession().save();
+        saveDocumentBatch(procLogger, processStatus, importTask, batchRecords, deferredPublishRecords, journal,
+                result);
+        publishDeferredDocuments(procLogger, processStatus, importTask.getDocumentManager(), deferredPublishRecords,
+                journal, result);
+        journal.commit();
         importTask.getDocumentManager().getSession().refresh(false);
+        cleanDataUrlSpillFolder(procLogger, importTask);
 
         return batchCount;
     }
 
+    /**
+     * Returns the checksum of the execution parameters affecting what gets imported, to keep a separate checkpoint
+     * journal for an import of the same package with different parameters.
+     */
+    private String computeCheckpointParamsChecksum(ExecutionParams params) throws JsonProcessingException {
+        final Map<String, Object> checkpointParams = new LinkedHashMap<>();
+        checkpointParams.put("binaries", params.getBinaries());
+        checkpointParams.put("documents", params.getDocuments());
+        checkpointParams.put("publishOnImport", params.getPublishOnImport());
+        checkpointParams.put("documentManagerType", params.getDocumentManagerType());
+        checkpointParams.put("docbasePropNames", toSortedSet(params.getDocbasePropNames()));
+        checkpointParams.put("documentTags", toSortedSet(params.getDocumentTags()));
+        checkpointParams.put("binaryTags", toSortedSet(params.getBinaryTags()));
+        return ImportCheckpointJournal.computeChecksum(
+                toJsonString(checkpointParams).getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static Set<String> toSortedSet(Set<String> values) {
+        return (values != null) ? new TreeSet<>(values) : null;
+    }
+
+    /**
+     * Reads the next entry by the {@code entryReader}, adding the reading time to the map phase of the process.
+     */
+    private ContentNodeEntry readEntry(ProcessStatus processStatus, ContentNodeEntryReader entryReader)
+            throws Exception {
+        final long readStartMillis = System.currentTimeMillis();
+        final ContentNodeEntry entry = entryReader.next();
+        addPhaseTime(processStatus, ProcessStatus.PHASE_MAP, readStartMillis);
+        return entry;
+    }
+
+    private String importDocument(WorkflowDocumentVariantImportTask importTask, ContentNode contentNode,
+            String path) throws Exception {
+        String locale = (contentNode.hasProperty("hippotranslation:locale"))
+                ? contentNode.getProperty("hippotranslation:locale").getValue()
+                : null;
+        String localizedName = contentNode.getProperty("jcr:localizedName").getValue();
+
+        return importTask.createOrUpdateDocumentFromVariantContentNode(contentNode, contentNode.getPrimaryType(),
+                path, locale, localizedName);
+    }
+
+    /**
+     * Saves the documents imported in the current batch, and adds the records to the {@code result} except the ones
+     * deferred to be published. The records failing to be saved are not published.
+     * See {@link #saveBatch(Logger, ProcessStatus, AbstractContentImportTask, Collection,
+     * BatchSaveBisector.ItemAction, ImportCheckpointJournal)} for the recovery when saving fails.
+     */
+    private void saveDocumentBatch(Logger procLogger, ProcessStatus processStatus,
+            WorkflowDocumentVariantImportTask importTask, Map<ContentMigrationRecord, ContentNode> batchRecords,
+            Map<ContentMigrationRecord, String> deferredPublishRecords, ImportCheckpointJournal journal,
+            Result result) throws Exception {
+        saveBatch(procLogger, processStatus, importTask, batchRecords.keySet(),
+                record -> importDocument(importTask, batchRecords.get(record), record.getContentPath()), journal);
+
+        for (ContentMigrationRecord record : batchRecords.keySet()) {
+            if (!record.isSucceeded()) {
+                deferredPublishRecords.remove(record);
+            }
+
+            if (!deferredPublishRecords.containsKey(record)) {
+                addDocumentResultItem(result, record);
+            }
+        }
+
+        batchRecords.clear();
+    }
+
+    /**
+     * Saves the pending changes of the current batch. If saving fails, discards the pending changes and bisects
+     * the batch by re-importing and saving each half of the {@code batchRecords} separately, to find the records
+     * failing the save. Only those records are marked as failed and removed from the pending entries of the
+     * {@code journal}, while the other records in the batch are saved.
+     */
+    private void saveBatch(Logger procLogger, ProcessStatus processStatus, AbstractContentImportTask importTask,
+            Collection<ContentMigrationRecord> batchRecords,
+            BatchSaveBisector.ItemAction<ContentMigrationRecord> reimporter, ImportCheckpointJournal journal)
+            throws Exception {
+        final Session session = importTask.getDocumentManager().getSession();
+        final long saveStartMillis = System.currentTimeMillis();
+        final Map<ContentMigrationRecord, Exception> failures;
+
+        try {
+            session.save();
+            addPhaseTime(processStatus, ProcessStatus.PHASE_SAVE, saveStartMillis);
+            return;
+        } catch (RepositoryException e) {
+            procLogger.error("Failed to save the batch of {} records. Bisecting the batch to find the failing records.",
+                    batchRecords.size(), e);
+            final BatchSaveBisector<ContentMigrationRecord> bisector = new BatchSaveBisector<>(reimporter,
+                    session::save, importTask::discardPendingChanges);
+            failures = bisector.recover(new ArrayList<>(batchRecords), e);
+            procLogger.info("Recovered the batch of {} records by {} saves, isolating {} failing records.",
+                    batchRecords.size(), bisector.getSaveCount(), failures.size());
+        }
+
+        addPhaseTime(processStatus, ProcessStatus.PHASE_SAVE, saveStartMillis);
+
+        for (Map.Entry<ContentMigrationRecord, Exception> entry : failures.entrySet()) {
+            final ContentMigrationRecord record = entry.getKey();
+            procLogger.error("Failed to save record: {}", record, entry.getValue());
+
+            if (record.isSucceeded()) {
+                record.setSucceeded(false);
+                record.setErrorMessage(entry.getValue().toString());
+                // Not to skip it when resumed, but to retry its import.
+                journal.removePending(record.getAttributeAsString("file"));
+
+                if (processStatus != null) {
+                    processStatus.decrementSucceededCount();
+                    processStatus.incrementFailedCount();
+                }
+            }
+        }
+    }
+
+    /**
+     * Publishes the documents imported in the current batch, which were deferred until the content batch is saved,
+     * in a batch operation, and adds the records to the {@code result}.
+     * Only the documents which are not live yet or have changes since the last publication are published.
+     * If saving the publications fails, those are discarded and the records of the documents to publish are marked
+     * as failed, not to abort the whole import.
+     */
+    private void publishDeferredDocuments(Logger procLogger, ProcessStatus processStatus,
+            DocumentManager documentManager, Map<ContentMigrationRecord, String> deferredPublishRecords,
+            ImportCheckpointJournal journal, Result result) throws Exception {
+        if (deferredPublishRecords.isEmpty()) {
+            return;
+        }
+
+        final long publishStartMillis = System.currentTimeMillis();
+        final Map<String, String> failures = new HashMap<>();
+        final Set<String> toPublish = new LinkedHashSet<>();
+
+        for (String documentPath : deferredPublishRecords.values()) {
+            try {
+                if (isPublicationNeeded(documentManager, documentPath)) {
+                    toPublish.add(documentPath);
+                }
+            } catch (Exception e) {
+                procLogger.error("Failed to check publication state of document at {}.", documentPath, e);
+                failures.put(documentPath, e.toString());
+            }
+        }
+
+        for (DocumentManagerBatchResult publishResult : documentManager.publishDocuments(toPublish)) {
+            if (!publishResult.isSucceeded()) {
+                failures.put(publishResult.getLocation(), publishResult.getException().toString());
+            }
+        }
+
+        // DocumentManager implementations not using workflow leave the publications unsaved.
+        try {
+            documentManager.getSession().save();
+        } catch (RepositoryException e) {
+            procLogger.error("Failed to save the publications of {} documents.", toPublish.size(), e);
+            documentManager.getSession().refresh(false);
+
+            for (String documentPath : toPublish) {
+                failures.putIfAbsent(documentPath, e.toString());
+            }
+        }
+
+        addPhaseTime(processStatus, ProcessStatus.PHASE_PUBLISH, publishStartMillis);
+
+        for (Map.Entry<ContentMigrationRecord, String> entry : deferredPublishRecords.entrySet()) {
+            final ContentMigrationRecord record = entry.getKey();
+            final String failure = failures.get(entry.getValue());
+
+            if (failure != null && record.isSucceeded()) {
+                record.setSucceeded(false);
+                record.setErrorMessage(failure);
+                // Not to skip it when resumed, but to retry its publication.
+                journal.removePending(record.getAttributeAsString("file"));
+
+                if (processStatus != null) {
+                    processStatus.decrementSucceededCount();
+                    processStatus.incrementFailedCount();
+                }
+            }
+
+            addDocumentResultItem(result, record);
+        }
+
+        deferredPublishRecords.clear();
+    }
+
+    /**
+     * Returns true if the document at {@code documentPath} is not live, or its unpublished variant was modified
+     * after the published variant was published and has different content from it. A live document is republished
+     * only in the latter case, which doesn't need to be taken offline first.
+     * <p>
+     * As each import commits the unpublished variant and updates its last modification date, the content is compared
+     * not to republish a live document imported again without changes.
+     */
+    static boolean isPublicationNeeded(DocumentManager documentManager, String documentPath) throws Exception {
+        final Node handle = documentManager.getExistingDocumentHandleNode(documentPath);
+
+        if (!HippoNodeUtils.isDocumentHandleLive(handle)) {
+            return true;
+        }
+
+        final Map<String, Node> variantsMap = HippoNodeUtils.getDocumentVariantsMap(handle);
+        final Node unpublished = variantsMap.get(HippoStdNodeType.UNPUBLISHED);
+        final Node published = variantsMap.get(HippoStdNodeType.PUBLISHED);
+
+        if (unpublished == null || published == null) {
+            return true;
+        }
+
+        final Calendar unpublishedModified = JcrUtils.getDateProperty(unpublished, LAST_MODIFICATION_DATE_PROP, null);
+        final Calendar publishedModified = JcrUtils.getDateProperty(published, LAST_MODIFICATION_DATE_PROP, null);
+
+        if (unpublishedModified != null && publishedModified != null && !unpublishedModified.after(publishedModified)) {
+            return false;
+        }
+
+        return !HippoNodeUtils.hasSameVariantContent(unpublished, published);
+    }
+
+    private void addBinaryResultItem(Result result, ContentMigrationRecord record) {
+        result.addItem(recordToResultItem(record));
+        result.incrementTotalBinaryCount();
+        if (record.isSucceeded()) {
+            result.incrementSucceededBinaryCount();
+        } else {
+            result.incrementFailedBinaryCount();
+        }
+    }
+
+    private void addDocumentResultItem(Result result, ContentMigrationRecord record) {
+        result.addItem(recordToResultItem(record));
+        result.incrementTotalDocumentCount();
+        if (record.isSucceeded()) {
+            result.incrementSucceededDocumentCount();
+        } else {
+            result.incrementFailedDocumentCount();
+        }
+    }
+
+    private void cleanDataUrlSpillFolder(Logger procLogger, AbstractContentMigrationTask importTask) {
+        // The files decoded from data: URL values are no longer needed once the bound content is saved.
+        final FileObject spillFolder = importTask.getDataUrlSpillFolder();
+
+        if (spillFolder != null) {
+            try {
+                spillFolder.delete(Selectors.EXCLUDE_SELF);
+            } catch (Exception e) {
+                procLogger.warn("Failed to clean data URL spill folder at {}.", spillFolder.getName().getPath(), e);
+            }
+        }
+    }
+
+    /**
+     * Plans the path-prefix leases on the subtrees which the binaries and documents in the package are imported into,
+     * by reading only the paths of all the entries in advance: the meta path property of each individual content
+     * file, and the paths in the index file of each bundle file. The existing ancestors are looked up in a session
+     * opened only for the planning, not to hold a session while waiting for the leases.
+     */
+    private Set<String> planPathLeases(AbstractContentMigrationTask packageReadingTask, ExecutionParams params,
+            FileObject[] jsonFiles, FileObject[] bundleFiles) throws Exception {
+        final CompiledPathMatcher binaryPathMatcher = createBinaryPathMatcher(params);
+        final CompiledPathMatcher documentPathMatcher = createDocumentPathMatcher(params);
+        final Set<String> contentPaths = new HashSet<>();
+
+        for (FileObject jsonFile : jsonFiles) {
+            addIncludedContentPath(contentPaths, packageReadingTask.readContentNodePathFromFile(jsonFile),
+                    binaryPathMatcher, documentPathMatcher);
+        }
+
+        for (FileObject bundleFile : bundleFiles) {
+            final List<String> indexedPaths = ContentNodeBundleReader.readIndexedContentPaths(bundleFile);
+
+            if (indexedPaths != null) {
+                for (String indexedPath : indexedPaths) {
+                    // The index has the variant path of each entry, under the handle at its meta path.
+                    addIncludedContentPath(contentPaths, ContentPathUtils.removeIndexNotationInNodePath(
+                            StringUtils.substringBeforeLast(indexedPath, "/")), binaryPathMatcher, documentPathMatcher);
+                }
+            } else {
+                try (ContentNodeBundleReader bundleReader = packageReadingTask.openContentNodeBundle(bundleFile)) {
+                    ContentNode contentNode;
+
+                    while ((contentNode = bundleReader.read()) != null) {
+                        addIncludedContentPath(contentPaths, contentNode.getProperty("jcr:path").getValue(),
+                                binaryPathMatcher, documentPathMatcher);
+                    }
+                }
+            }
+        }
+
+        Session planningSession = null;
+
+        try {
+            planningSession = createSession();
+            final Session session = planningSession;
+
+            return PathLeases.plan(contentPaths, nodePath -> {
+                try {
+                    return session.nodeExists(nodePath);
+                } catch (RepositoryException e) {
+                    // a coarser lease on an ancestor is taken instead.
+                    return false;
+                }
+            }, PathLeases.DEFAULT_MAX_LEASES);
+        } finally {
+            if (planningSession != null) {
+                planningSession.logout();
+            }
+        }
+    }
+
+    private void addIncludedContentPath(Set<String> contentPaths, String path, CompiledPathMatcher binaryPathMatcher,
+            CompiledPathMatcher documentPathMatcher) {
+        if (path == null) {
+            return;
+        }
+
+        if ((HippoNodeUtils.isBinaryPath(path) && binaryPathMatcher.isIncluded(path))
+                || (HippoNodeUtils.isDocumentPath(path) && documentPathMatcher.isIncluded(path))) {
+            contentPaths.add(path);
+        }
+    }
+
+    /**
+     * Returns the paths of the nodes matching the XPath {@code predicate} under the {@code scopePaths},
+     * or in the whole workspace if {@code scopePaths} is empty.
+     */
+    private Set<String> getQueriedNodePathsInScopes(Session session, Collection<String> scopePaths,
+            String predicate) throws RepositoryException {
+        if (CollectionUtils.isEmpty(scopePaths)) {
+            return getQueriedNodePaths(session, "//element(*)" + predicate, Query.XPATH);
+        }
+
+        final Set<String> nodePaths = new LinkedHashSet<>();
+
+        for (String scopePath : scopePaths) {
+            nodePaths.addAll(getQueriedNodePaths(session,
+                    PathLeases.toXPathQueryPath(scopePath) + "//element(*)" + predicate, Query.XPATH));
+        }
+
+        return nodePaths;
+    }
+
+    private FileObject[] filterBundleFiles(FileObject[] bundleFiles, String excludedNamePrefix) {
+        final List<FileObject> filtered = new ArrayList<>();
+
+        for (FileObject bundleFile : bundleFiles) {
+            if (!StringUtils.startsWith(bundleFile.getName().getBaseName(), excludedNamePrefix + "-")) {
+                filtered.add(bundleFile);
+            }
+        }
+
+        return filtered.toArray(new FileObject[filtered.size()]);
+    }
+
     private int cleanMirrorDocbaseValues(Logger procLogger, ProcessStatus processStatus, Session session,
-            ExecutionParams params, Result result, int batchCount) throws Exception {
-        Set<String> mirrorNodePaths = getQueriedNodePaths(session,
-                "//element(*)[jcr:like(@hippo:docbase,'/content/%')]", Query.XPATH);
+            ExecutionParams params, BatchThrottle throttle, Collection<String> scopePaths, Result result,
+            int batchCount) throws Exception {
+        Set<String> mirrorNodePaths = getQueriedNodePathsInScopes(session, scopePaths,
+                "[jcr:like(@hippo:docbase,'/content/%')]");
         session.refresh(false);
 
         for (String mirrorNodePath : mirrorNodePaths) {
@@ -480,12 +1059,11 @@ public class ContentEximImportService extends AbstractContentEximService {
                 procLogger.error("Failed to clean mirror docbase value at {}.", mirrorNodePath, e);
             } finally {
                 ++batchCount;
-                if (batchCount % params.getBatchSize() == 0) {
+                if (throttle.nextItem()) {
+                    final long saveStartMillis = System.currentTimeMillis();
                     session.save();
                     session.refresh(false);
-                    if (params.getThrottle() > 0) {
-                        Thread.sleep(params.getThrottle());
-                    }
+                    throttleBatch(procLogger, processStatus, throttle, System.currentTimeMillis() - saveStartMillis);
                 }
             }
         }
@@ -497,7 +1075,8 @@ public class ContentEximImportService extends AbstractContentEximService {
     }
 
     private int cleanAllDocbaseFieldValues(Logger procLogger, ProcessStatus processStatus, Session session,
-            ExecutionParams params, Result result, int batchCount) throws Exception {
+            ExecutionParams params, BatchThrottle throttle, Collection<String> scopePaths, Result result,
+            int batchCount) throws Exception {
         Set<String> docbasePropNames = params.getDocbasePropNames();
 
         if (CollectionUtils.isEmpty(docbasePropNames)) {
@@ -506,8 +1085,8 @@ public class ContentEximImportService extends AbstractContentEximService {
 
         for (String docbasePropName : docbasePropNames) {
             if (StringUtils.isNotBlank(docbasePropName)) {
-                batchCount = cleanSingleDocbaseFieldValues(procLogger, processStatus, session, params,
-                        StringUtils.trim(docbasePropName), result, batchCount);
+                batchCount = cleanSingleDocbaseFieldValues(procLogger, processStatus, session, params, throttle,
+                        scopePaths, StringUtils.trim(docbasePropName), result, batchCount);
             }
         }
 
@@ -515,9 +1094,10 @@ public class ContentEximImportService extends AbstractContentEximService {
     }
 
     private int cleanSingleDocbaseFieldValues(Logger procLogger, ProcessStatus processStatus, Session session,
-            ExecutionParams params, String docbasePropName, Result result, int batchCount) throws Exception {
-        Set<String> nodePaths = getQueriedNodePaths(session,
-                "//element(*)[jcr:like(@" + docbasePropName + ",'/content/%')]", Query.XPATH);
+            ExecutionParams params, BatchThrottle throttle, Collection<String> scopePaths, String docbasePropName,
+            Result result, int batchCount) throws Exception {
+        Set<String> nodePaths = getQueriedNodePathsInScopes(session, scopePaths,
+                "[jcr:like(@" + docbasePropName + ",'/content/%')]");
 
         session.refresh(false);
 
@@ -567,12 +1147,11 @@ public class ContentEximImportService extends AbstractContentEximService {
                 procLogger.error("Failed to clean mirror docbase value at {}/@{}.", nodePath, docbasePropName, e);
             } finally {
                 ++batchCount;
-                if (batchCount % params.getBatchSize() == 0) {
+                if (throttle.nextItem()) {
+                    final long saveStartMillis = System.currentTimeMillis();
                     session.save();
                     session.refresh(false);
-                    if (params.getThrottle() > 0) {
-                        Thread.sleep(params.getThrottle());
-                    }
+                    throttleBatch(procLogger, processStatus, throttle, System.currentTimeMillis() - saveStartMillis);
                 }
             }
         }
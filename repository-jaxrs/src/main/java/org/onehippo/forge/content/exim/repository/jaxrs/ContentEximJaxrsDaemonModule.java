@@ -33,6 +33,12 @@ public class ContentEximJaxrsDaemonModule extends AbstractReconfigurableDaemonMo
 
     private String modulePath;
     private String endpoint;
+    private int maxRunningProcesses;
+    private int maxRunningExports;
+    private int maxRunningImports;
+    private int maxQueuedProcesses;
+    private boolean pathLeasesEnabled;
+    private int maxHistorySize;
 
     private ProcessMonitor processMonitor;
 
@@ -44,11 +50,34 @@ public class ContentEximJaxrsDaemonModule extends AbstractReconfigurableDaemonMo
     protected void doConfigure(final Node moduleConfig) throws RepositoryException {
         modulePath = moduleConfig.getParent().getPath();
         endpoint = JcrUtils.getStringProperty(moduleConfig, "endpoint", DEFAULT_END_POINT);
+        maxRunningProcesses = JcrUtils.getLongProperty(moduleConfig, "maxRunningProcesses", 0L).intValue();
+        maxRunningExports = JcrUtils.getLongProperty(moduleConfig, "maxRunningExports", 0L).intValue();
+        maxRunningImports = JcrUtils.getLongProperty(moduleConfig, "maxRunningImports", 0L).intValue();
+        maxQueuedProcesses = JcrUtils.getLongProperty(moduleConfig, "maxQueuedProcesses",
+                (long) ProcessMonitor.DEFAULT_MAX_QUEUED_PROCESSES).intValue();
+        pathLeasesEnabled = JcrUtils.getBooleanProperty(moduleConfig, "pathLeases", false);
+        maxHistorySize = JcrUtils.getLongProperty(moduleConfig, "maxHistorySize",
+                (long) ProcessMonitor.DEFAULT_MAX_HISTORY_SIZE).intValue();
+
+        if (processMonitor != null) {
+            processMonitor.setMaxRunningProcesses(maxRunningProcesses);
+            processMonitor.setMaxRunningExports(maxRunningExports);
+            processMonitor.setMaxRunningImports(maxRunningImports);
+            processMonitor.setMaxQueuedProcesses(maxQueuedProcesses);
+            processMonitor.setPathLeasesEnabled(pathLeasesEnabled);
+            processMonitor.setMaxHistorySize(maxHistorySize);
+        }
     }
 
     @Override
     protected void doInitialize(Session session) throws RepositoryException {
         processMonitor = new ProcessMonitor();
+        processMonitor.setMaxRunningProcesses(maxRunningProcesses);
+        processMonitor.setMaxRunningExports(maxRunningExports);
+        processMonitor.setMaxRunningImports(maxRunningImports);
+        processMonitor.setMaxQueuedProcesses(maxQueuedProcesses);
+        processMonitor.setPathLeasesEnabled(pathLeasesEnabled);
+        processMonitor.setMaxHistorySize(maxHistorySize);
 
         contentEximProcessStatusService = new ContentEximProcessStatusService();
         contentEximExportService = new ContentEximExportService();
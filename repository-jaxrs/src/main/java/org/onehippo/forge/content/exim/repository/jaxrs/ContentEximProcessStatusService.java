@@ -21,13 +21,18 @@ import java.io.PrintWriter;
 import java.io.StringWriter;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 
+import jakarta.ws.rs.DELETE;
 import jakarta.ws.rs.GET;
+import jakarta.ws.rs.POST;
 import jakarta.ws.rs.Path;
 import jakarta.ws.rs.PathParam;
 import jakarta.ws.rs.Produces;
 import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.core.Response;
 
+import org.apache.commons.lang3.StringUtils;
 import org.apache.commons.lang3.time.DurationFormatUtils;
 import org.apache.commons.lang3.time.FastDateFormat;
 import org.apache.cxf.jaxrs.ext.multipart.Attachment;
@@ -63,12 +68,32 @@ public class ContentEximProcessStatusService extends AbstractContentEximService
             List<ProcessStatus> processes = getProcessMonitor().getProcesses();
 
             for (ProcessStatus process : processes) {
-                final long startTime = process.getStartTimeMillis();
-                final long duration = System.currentTimeMillis() - startTime;
-                out.printf("%8s %5d %15s %8s %8s %1.2f  %s\r\n", process.getUsername(), process.getId(),
-                        process.getClientInfo(), timeFormat.format(startTime),
-                        DurationFormatUtils.formatDuration(duration, "HH:mm:ss"), process.getProgress(),
-                        process.getCommandInfo());
+                printProcessStatus(out, process);
+            }
+        }
+
+        printProcessStatusReportFooter(out);
+
+        return sw.toString();
+    }
+
+    @Path("/history")
+    @Produces(MediaType.TEXT_PLAIN)
+    @GET
+    public String getProcessHistory() {
+        StringWriter sw = new StringWriter(1024);
+        PrintWriter out = new PrintWriter(sw);
+        out.printf("%8s %5s %8s %8s %8s %8s %8s %12s %9s %s\r\n", "UID", "PID", "STIME", "TIME", "ITEMS", "FAILED",
+                "ITEMS/S", "BYTES", "STATE", "CMD");
+
+        if (getProcessMonitor() != null) {
+            for (ProcessStatus process : getProcessMonitor().getHistory()) {
+                out.printf("%8s %5d %8s %8s %8d %8d %8.2f %12d %9s %s\r\n", process.getUsername(), process.getId(),
+                        timeFormat.format(process.getStartTimeMillis()),
+                        DurationFormatUtils.formatDuration(process.getActiveTimeMillis(), "HH:mm:ss"),
+                        process.getProcessedCount(), process.getFailedCount(), process.getThroughput(),
+                        process.getByteCount(), getHistoryState(process), process.getCommandInfo());
+                printProcessPhaseTimes(out, process);
             }
         }
 
@@ -93,6 +118,15 @@ public class ContentEximProcessStatusService extends AbstractContentEximService
 
             if (process != null) {
                 printProcessStatus(out, process);
+                printProcessRecordCounts(out, process);
+
+                if (process.getThrottleInfo() != null) {
+                    out.printf("Throttle: %s\r\n", process.getThrottleInfo());
+                }
+
+                if (!process.getPathLeases().isEmpty()) {
+                    out.printf("Leases: %s\r\n", StringUtils.join(process.getPathLeases(), ", "));
+                }
 
                 final ExecutionParams params = process.getExecutionParams();
 
@@ -132,8 +166,57 @@ public class ContentEximProcessStatusService extends AbstractContentEximService
         return sw.toString();
     }
 
+    @Path("/{id}")
+    @Produces(MediaType.TEXT_PLAIN)
+    @DELETE
+    public Response cancelProcess(@PathParam("id") long processId) {
+        if (getProcessMonitor() != null && getProcessMonitor().cancelProcess(processId)) {
+            log.info("Cancellation requested on process {}.", processId);
+            return Response.status(Response.Status.ACCEPTED)
+                    .entity("Process " + processId + " will stop at the next item.\r\n").build();
+        }
+
+        return Response.status(Response.Status.NOT_FOUND).entity("Process " + processId + " not found.\r\n")
+                .build();
+    }
+
+    @Path("/{id}/stop")
+    @Produces(MediaType.TEXT_PLAIN)
+    @POST
+    public Response stopProcess(@PathParam("id") long processId) {
+        return cancelProcess(processId);
+    }
+
+    @Path("/{id}/pause")
+    @Produces(MediaType.TEXT_PLAIN)
+    @POST
+    public Response pauseProcess(@PathParam("id") long processId) {
+        if (getProcessMonitor() != null && getProcessMonitor().pauseProcess(processId)) {
+            log.info("Pause requested on process {}.", processId);
+            return Response.status(Response.Status.ACCEPTED)
+                    .entity("Process " + processId + " will pause at the next batch boundary.\r\n").build();
+        }
+
+        return Response.status(Response.Status.NOT_FOUND).entity("Process " + processId + " not found.\r\n")
+                .build();
+    }
+
+    @Path("/{id}/resume")
+    @Produces(MediaType.TEXT_PLAIN)
+    @POST
+    public Response resumeProcess(@PathParam("id") long processId) {
+        if (getProcessMonitor() != null && getProcessMonitor().resumeProcess(processId)) {
+            log.info("Resume requested on process {}.", processId);
+            return Response.ok().entity("Process " + processId + " resumed.\r\n").build();
+        }
+
+        return Response.status(Response.Status.NOT_FOUND).entity("Process " + processId + " not found.\r\n")
+                .build();
+    }
+
     private void printProcessStatusReportHeader(PrintWriter out) {
-        out.printf("%8s %5s %15s %8s %8s %5s %s\r\n", "UID", "PID", "TTY", "STIME", "TIME", "%PRGR", "CMD");
+        out.printf("%8s %5s %15s %8s %8s %8s %5s %5s %s\r\n", "UID", "PID", "TTY", "STIME", "TIME", "PAUSED",
+                "QUEUE", "%PRGR", "CMD");
     }
 
     private void printProcessStatusReportFooter(PrintWriter out) {
@@ -142,14 +225,68 @@ public class ContentEximProcessStatusService extends AbstractContentEximService
 
     private void printProcessStatus(PrintWriter out, ProcessStatus process) {
         final long startTime = process.getStartTimeMillis();
-        final long duration = System.currentTimeMillis() - startTime;
+        final long pausedTime = process.getPausedTimeMillis();
+        final int queuePosition = process.getQueuePosition();
+        final long activeTime = process.getActiveTimeMillis();
 
-        out.printf("%8s %5d %15s %8s %8s %1.2f  %s\r\n", process.getUsername(), process.getId(),
+        out.printf("%8s %5d %15s %8s %8s %8s %5s %1.2f  %s\r\n", process.getUsername(), process.getId(),
                 process.getClientInfo(), timeFormat.format(startTime),
-                DurationFormatUtils.formatDuration(duration, "HH:mm:ss"), process.getProgress(),
+                DurationFormatUtils.formatDuration(activeTime, "HH:mm:ss"),
+                DurationFormatUtils.formatDuration(pausedTime, "HH:mm:ss"),
+                (queuePosition > 0) ? Integer.toString(queuePosition) : "-", process.getProgress(),
                 process.getCommandInfo());
     }
 
+    private void printProcessRecordCounts(PrintWriter out, ProcessStatus process) {
+        out.printf("Processed: %d, Succeeded: %d, Failed: %d, Resumed: %d, State: %s, Current: %s\r\n",
+                process.getProcessedCount(), process.getSucceededCount(), process.getFailedCount(),
+                process.getResumeOffset(), getProcessState(process),
+                StringUtils.defaultString(process.getCurrentContentPath(), "-"));
+    }
+
+    private void printProcessPhaseTimes(PrintWriter out, ProcessStatus process) {
+        final StringBuilder sb = new StringBuilder();
+
+        for (Map.Entry<String, Long> entry : process.getPhaseTimeMillisMap().entrySet()) {
+            if (entry.getValue() > 0L) {
+                if (sb.length() > 0) {
+                    sb.append(", ");
+                }
+
+                sb.append(entry.getKey()).append(' ')
+                        .append(DurationFormatUtils.formatDuration(entry.getValue(), "HH:mm:ss.SSS"));
+            }
+        }
+
+        out.printf("%15s Phases: %s\r\n", "", (sb.length() > 0) ? sb : "-");
+    }
+
+    private String getHistoryState(ProcessStatus process) {
+        if (process.isFailed()) {
+            return "failed";
+        } else if (process.isCancelRequested()) {
+            return "stopped";
+        }
+
+        return "completed";
+    }
+
+    private String getProcessState(ProcessStatus process) {
+        if (process.isCancelRequested()) {
+            return "stopping";
+        } else if (process.getQueuePosition() > 0) {
+            return "queued";
+        } else if (process.isPathLeaseBlocked()) {
+            return "blocked";
+        } else if (process.isPaused()) {
+            return "paused";
+        } else if (process.isPauseRequested()) {
+            return "pausing";
+        }
+
+        return "running";
+    }
+
     private String executionParamsToString(ExecutionParams params) {
         try {
             StringWriter sw = new StringWriter(256);
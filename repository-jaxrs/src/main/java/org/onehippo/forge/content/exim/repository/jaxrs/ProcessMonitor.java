@@ -15,31 +15,373 @@
  */
 package org.onehippo.forge.content.exim.repository.jaxrs;
 
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
 import java.util.concurrent.atomic.AtomicLong;
 
 import org.onehippo.forge.content.exim.repository.jaxrs.status.ProcessStatus;
+import org.onehippo.forge.content.exim.repository.jaxrs.util.PathLeases;
 
+/**
+ * Monitor of the content export and import processes, admitting the processes to run up to
+ * {@link #getMaxRunningProcesses()} at a time, and also up to {@link #getMaxRunningExports()} exports and
+ * {@link #getMaxRunningImports()} imports at a time, and queueing the excess processes in the order of the priority
+ * and the arrival, up to {@link #getMaxQueuedProcesses()}.
+ * <P>
+ * If {@link #isPathLeasesEnabled()}, it also grants path-prefix leases to the processes on the subtrees they are
+ * going to write into, so that processes writing into overlapping subtrees run one after another. The leases are
+ * local to this repository node.
+ * </P>
+ * <P>
+ * It keeps the last {@link #getMaxHistorySize()} processes which were admitted to run and have stopped,
+ * with their final counters, to report the throughput of the past runs.
+ * </P>
+ */
 class ProcessMonitor {
 
+    /**
+     * Result of the admission of a process.
+     */
+    enum Admission {
+
+        /**
+         * The process is admitted to run.
+         */
+        ADMITTED,
+
+        /**
+         * The process is rejected as the queue is full.
+         */
+        REJECTED,
+
+        /**
+         * The process is cancelled while queued.
+         */
+        CANCELLED
+
+    }
+
+    /**
+     * Kind of a process, limited separately by {@link #getMaxRunningExports()} and {@link #getMaxRunningImports()}.
+     */
+    enum ProcessKind {
+
+        /**
+         * Content export process.
+         */
+        EXPORT,
+
+        /**
+         * Content import process.
+         */
+        IMPORT
+
+    }
+
+    /**
+     * Default maximum number of the processes queued when running processes are at the maximum.
+     */
+    static final int DEFAULT_MAX_QUEUED_PROCESSES = 10;
+
+    /**
+     * Default maximum number of the stopped processes kept in the history.
+     */
+    static final int DEFAULT_MAX_HISTORY_SIZE = 100;
+
+    /**
+     * Maximum milliseconds a queued process waits before checking if it was cancelled.
+     */
+    private static final long QUEUE_WAIT_MILLIS = 1000L;
+
     private AtomicLong processCounter = new AtomicLong(0L);
 
     private List<ProcessStatus> processes = Collections.synchronizedList(new ArrayList<>());
 
+    private final Set<ProcessStatus> runningProcesses = new HashSet<>();
+
+    private final List<ProcessStatus> queuedProcesses = new ArrayList<>();
+
+    /**
+     * Kinds of the running and queued processes.
+     */
+    private final Map<ProcessStatus, ProcessKind> processKinds = new HashMap<>();
+
+    private int maxRunningProcesses;
+
+    private int maxRunningExports;
+
+    private int maxRunningImports;
+
+    private int maxQueuedProcesses = DEFAULT_MAX_QUEUED_PROCESSES;
+
+    private boolean pathLeasesEnabled;
+
+    /**
+     * Stopped processes, the latest first.
+     */
+    private final Deque<ProcessStatus> history = new ArrayDeque<>();
+
+    private int maxHistorySize = DEFAULT_MAX_HISTORY_SIZE;
+
+    /**
+     * Path-prefix leases requested by the processes in the order of the requests, whether granted or not.
+     */
+    private final Map<ProcessStatus, Set<String>> pathLeaseRequests = new LinkedHashMap<>();
+
+    /**
+     * Path-prefix leases granted to the processes.
+     */
+    private final Map<ProcessStatus, Set<String>> grantedPathLeases = new LinkedHashMap<>();
+
+    /**
+     * Returns the maximum number of the processes running at a time. Zero or negative if unlimited.
+     * @return the maximum number of the processes running at a time
+     */
+    synchronized int getMaxRunningProcesses() {
+        return maxRunningProcesses;
+    }
+
+    /**
+     * Sets the maximum number of the processes running at a time. Zero or negative if unlimited.
+     * @param maxRunningProcesses the maximum number of the processes running at a time
+     */
+    synchronized void setMaxRunningProcesses(int maxRunningProcesses) {
+        this.maxRunningProcesses = maxRunningProcesses;
+        notifyAll();
+    }
+
+    /**
+     * Returns the maximum number of the export processes running at a time. Zero or negative if unlimited.
+     * @return the maximum number of the export processes running at a time
+     */
+    synchronized int getMaxRunningExports() {
+        return maxRunningExports;
+    }
+
+    /**
+     * Sets the maximum number of the export processes running at a time. Zero or negative if unlimited.
+     * @param maxRunningExports the maximum number of the export processes running at a time
+     */
+    synchronized void setMaxRunningExports(int maxRunningExports) {
+        this.maxRunningExports = maxRunningExports;
+        notifyAll();
+    }
+
+    /**
+     * Returns the maximum number of the import processes running at a time. Zero or negative if unlimited.
+     * @return the maximum number of the import processes running at a time
+     */
+    synchronized int getMaxRunningImports() {
+        return maxRunningImports;
+    }
+
+    /**
+     * Sets the maximum number of the import processes running at a time. Zero or negative if unlimited.
+     * @param maxRunningImports the maximum number of the import processes running at a time
+     */
+    synchronized void setMaxRunningImports(int maxRunningImports) {
+        this.maxRunningImports = maxRunningImports;
+        notifyAll();
+    }
+
+    /**
+     * Returns the maximum number of the processes queued when running processes are at the maximum.
+     * Zero or negative if unlimited.
+     * @return the maximum number of the processes queued when running processes are at the maximum
+     */
+    synchronized int getMaxQueuedProcesses() {
+        return maxQueuedProcesses;
+    }
+
+    /**
+     * Sets the maximum number of the processes queued when running processes are at the maximum.
+     * Zero or negative if unlimited.
+     * @param maxQueuedProcesses the maximum number of the processes queued when running processes are at the maximum
+     */
+    synchronized void setMaxQueuedProcesses(int maxQueuedProcesses) {
+        this.maxQueuedProcesses = maxQueuedProcesses;
+    }
+
+    /**
+     * Returns true if the processes take path-prefix leases on the subtrees they are going to write into.
+     * @return true if the processes take path-prefix leases on the subtrees they are going to write into
+     */
+    synchronized boolean isPathLeasesEnabled() {
+        return pathLeasesEnabled;
+    }
+
+    /**
+     * Sets whether or not the processes take path-prefix leases on the subtrees they are going to write into.
+     * @param pathLeasesEnabled whether or not the processes take path-prefix leases
+     */
+    synchronized void setPathLeasesEnabled(boolean pathLeasesEnabled) {
+        this.pathLeasesEnabled = pathLeasesEnabled;
+    }
+
+    /**
+     * Returns the maximum number of the stopped processes kept in the history. Zero or negative if none kept.
+     * @return the maximum number of the stopped processes kept in the history
+     */
+    synchronized int getMaxHistorySize() {
+        return maxHistorySize;
+    }
+
+    /**
+     * Sets the maximum number of the stopped processes kept in the history. Zero or negative if none kept.
+     * @param maxHistorySize the maximum number of the stopped processes kept in the history
+     */
+    synchronized void setMaxHistorySize(int maxHistorySize) {
+        this.maxHistorySize = maxHistorySize;
+        trimHistory();
+    }
+
     synchronized ProcessStatus startProcess() {
         ProcessStatus process = new ProcessStatus(processCounter.incrementAndGet(), System.currentTimeMillis());
         processes.add(process);
         return process;
     }
 
+    /**
+     * Admits the {@code process} to run if the running processes, in total and of the same {@code kind}, are under
+     * the maximum and no other queued process could run. Otherwise, queues the {@code process} behind the queued
+     * processes of the same or higher priority, and waits until the running processes get under the maximum and
+     * none of the processes queued ahead could run. So, a process waiting for a slot of its own kind does not hold
+     * up the processes of the other kind queued behind it.
+     * @param process process to admit
+     * @param kind kind of the process
+     * @return {@link Admission#ADMITTED} if admitted, {@link Admission#REJECTED} if the queue is full,
+     *         or {@link Admission#CANCELLED} if cancelled while queued
+     * @throws InterruptedException if interrupted while queued
+     */
+    synchronized Admission admitProcess(ProcessStatus process, ProcessKind kind) throws InterruptedException {
+        if (!isAdmissionBlocked(process, kind)) {
+            runningProcesses.add(process);
+            processKinds.put(process, kind);
+            return Admission.ADMITTED;
+        }
+
+        if (maxQueuedProcesses > 0 && queuedProcesses.size() >= maxQueuedProcesses) {
+            return Admission.REJECTED;
+        }
+
+        final long queueStartTimeMillis = System.currentTimeMillis();
+        int index = 0;
+
+        while (index < queuedProcesses.size() && queuedProcesses.get(index).getPriority() >= process.getPriority()) {
+            ++index;
+        }
+
+        queuedProcesses.add(index, process);
+        processKinds.put(process, kind);
+        updateQueuePositions();
+        boolean admitted = false;
+
+        try {
+            while (isAdmissionBlocked(process, kind)) {
+                if (process.isCancelRequested()) {
+                    return Admission.CANCELLED;
+                }
+
+                wait(QUEUE_WAIT_MILLIS);
+            }
+
+            runningProcesses.add(process);
+            admitted = true;
+            return Admission.ADMITTED;
+        } finally {
+            queuedProcesses.remove(process);
+
+            if (!admitted) {
+                processKinds.remove(process);
+            }
+
+            process.setQueuePosition(0);
+            updateQueuePositions();
+            process.setQueuedTimeMillis(System.currentTimeMillis() - queueStartTimeMillis);
+            notifyAll();
+        }
+    }
+
+    /**
+     * Grants the path-prefix {@code leases} to the {@code process} all together, waiting while any of those overlaps
+     * the leases granted to another process or requested earlier by another waiting process. So, the processes
+     * requesting overlapping leases are granted in the order of the requests, without deadlocks.
+     * The leases are released when the process stops.
+     * @param process process requesting the leases
+     * @param leases path-prefix leases
+     * @return true if granted, or false if cancelled while waiting
+     * @throws InterruptedException if interrupted while waiting
+     */
+    synchronized boolean acquirePathLeases(ProcessStatus process, Collection<String> leases)
+            throws InterruptedException {
+        final Set<String> requested = new TreeSet<>(leases);
+        pathLeaseRequests.put(process, requested);
+        boolean granted = false;
+
+        try {
+            while (isPathLeaseBlocked(process, requested)) {
+                if (process.isCancelRequested()) {
+                    return false;
+                }
+
+                process.setPathLeaseBlocked(true);
+                wait(QUEUE_WAIT_MILLIS);
+            }
+
+            grantedPathLeases.put(process, requested);
+            granted = true;
+            return true;
+        } finally {
+            process.setPathLeaseBlocked(false);
+
+            if (granted) {
+                process.setPathLeases(requested);
+            } else {
+                pathLeaseRequests.remove(process);
+                notifyAll();
+            }
+        }
+    }
+
     synchronized void stopProcess(ProcessStatus process) {
         if (process != null) {
             processes.remove(process);
+            pathLeaseRequests.remove(process);
+            grantedPathLeases.remove(process);
+            processKinds.remove(process);
+
+            if (queuedProcesses.remove(process)) {
+                updateQueuePositions();
+            }
+
+            if (runningProcesses.remove(process)) {
+                process.setStopTimeMillis(System.currentTimeMillis());
+                history.addFirst(process);
+                trimHistory();
+            }
+
+            notifyAll();
         }
     }
 
+    /**
+     * Returns the stopped processes kept in the history, the latest first.
+     * @return the stopped processes kept in the history
+     */
+    synchronized List<ProcessStatus> getHistory() {
+        return Collections.unmodifiableList(new ArrayList<>(history));
+    }
+
     synchronized List<ProcessStatus> getProcesses() {
         List<ProcessStatus> list = new ArrayList<>();
         list.addAll(processes);
@@ -56,8 +398,127 @@ class ProcessMonitor {
         return null;
     }
 
+    synchronized boolean cancelProcess(long id) {
+        ProcessStatus process = getProcess(id);
+
+        if (process == null) {
+            return false;
+        }
+
+        process.requestCancel();
+        // wakes up the queued processes to let the cancelled one leave the queue.
+        notifyAll();
+        return true;
+    }
+
+    synchronized boolean pauseProcess(long id) {
+        ProcessStatus process = getProcess(id);
+
+        if (process == null) {
+            return false;
+        }
+
+        process.requestPause();
+        return true;
+    }
+
+    synchronized boolean resumeProcess(long id) {
+        ProcessStatus process = getProcess(id);
+
+        if (process == null) {
+            return false;
+        }
+
+        process.requestResume();
+        return true;
+    }
+
     synchronized void clear() {
         processes.clear();
+        runningProcesses.clear();
+        queuedProcesses.clear();
+        processKinds.clear();
+        pathLeaseRequests.clear();
+        grantedPathLeases.clear();
+        history.clear();
         processCounter.set(0L);
+        notifyAll();
+    }
+
+    private boolean isPathLeaseBlocked(ProcessStatus process, Set<String> requested) {
+        for (Map.Entry<ProcessStatus, Set<String>> entry : grantedPathLeases.entrySet()) {
+            if (entry.getKey() != process && PathLeases.overlaps(requested, entry.getValue())) {
+                return true;
+            }
+        }
+
+        for (Map.Entry<ProcessStatus, Set<String>> entry : pathLeaseRequests.entrySet()) {
+            if (entry.getKey() == process) {
+                break;
+            }
+
+            if (!grantedPathLeases.containsKey(entry.getKey()) && PathLeases.overlaps(requested, entry.getValue())) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    private void trimHistory() {
+        while (!history.isEmpty() && history.size() > Math.max(0, maxHistorySize)) {
+            history.removeLast();
+        }
+    }
+
+    /**
+     * Returns true if the {@code process} of the {@code kind} may not run yet, because the running processes,
+     * in total or of the {@code kind}, are at the maximum, or because a process queued ahead of it could run.
+     * If the {@code process} is not queued, all the queued processes are regarded as ahead of it.
+     */
+    private boolean isAdmissionBlocked(ProcessStatus process, ProcessKind kind) {
+        if (isRunningFull(kind)) {
+            return true;
+        }
+
+        for (ProcessStatus queued : queuedProcesses) {
+            if (queued == process) {
+                break;
+            }
+
+            if (!isRunningFull(processKinds.get(queued))) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    private boolean isRunningFull(ProcessKind kind) {
+        if (maxRunningProcesses > 0 && runningProcesses.size() >= maxRunningProcesses) {
+            return true;
+        }
+
+        final int maxRunningOfKind = (kind == ProcessKind.EXPORT) ? maxRunningExports : maxRunningImports;
+
+        if (maxRunningOfKind <= 0) {
+            return false;
+        }
+
+        int runningOfKind = 0;
+
+        for (ProcessStatus running : runningProcesses) {
+            if (processKinds.get(running) == kind) {
+                ++runningOfKind;
+            }
+        }
+
+        return runningOfKind >= maxRunningOfKind;
+    }
+
+    private void updateQueuePositions() {
+        for (int i = 0; i < queuedProcesses.size(); i++) {
+            queuedProcesses.get(i).setQueuePosition(i + 1);
+        }
     }
 }
@@ -36,6 +36,78 @@ public class ExecutionParams {
      */
     private static final long DEFAULT_THROTTLE = 10L;
 
+    /**
+     * Default target latency milliseconds of a batch save or refresh in the adaptive throttle mode.
+     */
+    private static final long DEFAULT_TARGET_LATENCY = 1000L;
+
+    /**
+     * Default maximum throttle time milliseconds in the adaptive throttle mode.
+     */
+    private static final long DEFAULT_MAX_THROTTLE = 5000L;
+
+    /**
+     * Default minimum batch size in the adaptive throttle mode.
+     */
+    private static final int DEFAULT_MIN_BATCH_SIZE = 10;
+
+    /**
+     * Default maximum batch size in the adaptive throttle mode.
+     */
+    private static final int DEFAULT_MAX_BATCH_SIZE = 2000;
+
+    /**
+     * Default maximum estimated byte size of the content pending in a batch in the auto batch size mode.
+     */
+    private static final long DEFAULT_MAX_PENDING_BYTES = 64L * 1024L * 1024L;
+
+    /**
+     * Default maximum retries of a document import failing transiently by concurrent modifications.
+     */
+    private static final int DEFAULT_MAX_RETRIES = 3;
+
+    /**
+     * Default backoff milliseconds before the first retry of a document import.
+     */
+    private static final long DEFAULT_RETRY_BACKOFF = 100L;
+
+    /**
+     * Default maximum backoff milliseconds before a retry of a document import.
+     */
+    private static final long DEFAULT_MAX_RETRY_BACKOFF = 5000L;
+
+    /**
+     * An option of {@link #batchSizeMode} value, to process the fixed {@link #batchSize} items in each batch.
+     */
+    public static final String BATCH_SIZE_MODE_FIXED = "fixed";
+
+    /**
+     * An option of {@link #batchSizeMode} value, to size each batch by the observed save cost to hold
+     * the {@link #targetLatency} and to keep the content pending in a batch under {@link #maxPendingBytes}.
+     */
+    public static final String BATCH_SIZE_MODE_AUTO = "auto";
+
+    /**
+     * The default option of {@link #batchSizeMode} value.
+     */
+    public static final String BATCH_SIZE_MODE_DEFAULT = BATCH_SIZE_MODE_FIXED;
+
+    /**
+     * An option of {@link #throttleMode} value, to sleep for the fixed {@link #throttle} after each batch.
+     */
+    public static final String THROTTLE_MODE_FIXED = "fixed";
+
+    /**
+     * An option of {@link #throttleMode} value, to adjust the throttle and the batch size after each batch
+     * to hold the {@link #targetLatency}.
+     */
+    public static final String THROTTLE_MODE_ADAPTIVE = "adaptive";
+
+    /**
+     * The default option of {@link #throttleMode} value.
+     */
+    public static final String THROTTLE_MODE_DEFAULT = THROTTLE_MODE_FIXED;
+
     /**
      * Default binary data byte maximum size in DATA URLs.
      */
@@ -62,6 +134,79 @@ public class ExecutionParams {
      */
     public static final String PUBLISH_ON_IMPORT_DEFAULT = PUBLISH_ON_IMPORT_NONE;
 
+    /**
+     * An option of {@link #exportFormat} value, to export each content in pretty-printed JSON.
+     */
+    public static final String EXPORT_FORMAT_JSON = "json";
+
+    /**
+     * An option of {@link #exportFormat} value, to export each content in JSON without whitespaces.
+     */
+    public static final String EXPORT_FORMAT_COMPACT_JSON = "compact-json";
+
+    /**
+     * An option of {@link #exportFormat} value, to export each content in the Smile binary JSON format.
+     */
+    public static final String EXPORT_FORMAT_SMILE = "smile";
+
+    /**
+     * The default option of {@link #exportFormat} value.
+     */
+    public static final String EXPORT_FORMAT_DEFAULT = EXPORT_FORMAT_JSON;
+
+    /**
+     * An option of {@link #archiveLayout} value, to export each content in a separate file.
+     */
+    public static final String ARCHIVE_LAYOUT_FILES = "files";
+
+    /**
+     * An option of {@link #archiveLayout} value, to export contents in newline-delimited JSON bundle files,
+     * each of which contains up to {@link #bundleSize} contents.
+     */
+    public static final String ARCHIVE_LAYOUT_BUNDLES = "bundles";
+
+    /**
+     * The default option of {@link #archiveLayout} value.
+     */
+    public static final String ARCHIVE_LAYOUT_DEFAULT = ARCHIVE_LAYOUT_FILES;
+
+    /**
+     * Default maximum number of contents in a bundle file.
+     */
+    private static final int DEFAULT_BUNDLE_SIZE = 10000;
+
+    /**
+     * An option of {@link #documentManagerType} value, to create and publish documents through Hippo Workflow APIs.
+     */
+    public static final String DOCUMENT_MANAGER_TYPE_WORKFLOW = "workflow";
+
+    /**
+     * An option of {@link #documentManagerType} value, to create and publish documents directly through JCR API,
+     * which is faster for bulk loads into an environment without concurrent editors.
+     */
+    public static final String DOCUMENT_MANAGER_TYPE_DIRECT = "direct";
+
+    /**
+     * The default option of {@link #documentManagerType} value.
+     */
+    public static final String DOCUMENT_MANAGER_TYPE_DEFAULT = DOCUMENT_MANAGER_TYPE_WORKFLOW;
+
+    /**
+     * An option of {@link #collectionMode} value, to collect items from query results by loading each node.
+     */
+    public static final String COLLECTION_MODE_NODES = "nodes";
+
+    /**
+     * An option of {@link #collectionMode} value, to collect items from query result rows by paths only,
+     * deferring node loading to the processing of each item.
+     */
+    public static final String COLLECTION_MODE_ROWS = "rows";
+
+    /**
+     * The default option of {@link #collectionMode} value.
+     */
+    public static final String COLLECTION_MODE_DEFAULT = COLLECTION_MODE_NODES;
+
     /**
      * Default gallery folder's primary node type name.
      */
@@ -93,9 +238,30 @@ public class ExecutionParams {
     private static final String[] DEFAULT_ASSET_FOLDER_GALLERY_TYPES = { "hippogallery:exampleAssetSet" };
 
     private Integer batchSize;
+    private String batchSizeMode = BATCH_SIZE_MODE_DEFAULT;
+    private Long maxPendingBytes;
     private Long throttle;
+    private String throttleMode = THROTTLE_MODE_DEFAULT;
+    private Long targetLatency;
+    private Long maxThrottle;
+    private Integer minBatchSize;
+    private Integer maxBatchSize;
+    private Double maxHeapUsage;
+    private Integer maxRetries;
+    private Long retryBackoff;
+    private Long maxRetryBackoff;
     private String publishOnImport = PUBLISH_ON_IMPORT_DEFAULT;
     private Long dataUrlSizeThreshold;
+    private String exportFormat = EXPORT_FORMAT_DEFAULT;
+    private String archiveLayout = ARCHIVE_LAYOUT_DEFAULT;
+    private Integer bundleSize;
+    private String documentManagerType = DOCUMENT_MANAGER_TYPE_DEFAULT;
+    private String collectionMode = COLLECTION_MODE_DEFAULT;
+    private Integer shardIndex;
+    private Integer shardCount;
+    private String exportId;
+    private Integer priority;
+    private Boolean resume;
     private QueriesAndPaths binaries;
     private QueriesAndPaths documents;
     private Set<String> docbasePropNames;
@@ -121,6 +287,29 @@ public class ExecutionParams {
         this.batchSize = batchSize;
     }
 
+    public String getBatchSizeMode() {
+        return batchSizeMode;
+    }
+
+    public void setBatchSizeMode(String batchSizeMode) {
+        if (StringUtils.equalsIgnoreCase(batchSizeMode, BATCH_SIZE_MODE_AUTO)) {
+            this.batchSizeMode = BATCH_SIZE_MODE_AUTO;
+        } else {
+            this.batchSizeMode = BATCH_SIZE_MODE_FIXED;
+        }
+    }
+
+    public Long getMaxPendingBytes() {
+        if (maxPendingBytes == null || maxPendingBytes <= 0L) {
+            return DEFAULT_MAX_PENDING_BYTES;
+        }
+        return maxPendingBytes;
+    }
+
+    public void setMaxPendingBytes(Long maxPendingBytes) {
+        this.maxPendingBytes = maxPendingBytes;
+    }
+
     public Long getThrottle() {
         if (throttle == null) {
             return DEFAULT_THROTTLE;
@@ -132,6 +321,103 @@ public class ExecutionParams {
         this.throttle = throttle;
     }
 
+    public String getThrottleMode() {
+        return throttleMode;
+    }
+
+    public void setThrottleMode(String throttleMode) {
+        if (StringUtils.equalsIgnoreCase(throttleMode, THROTTLE_MODE_ADAPTIVE)) {
+            this.throttleMode = THROTTLE_MODE_ADAPTIVE;
+        } else {
+            this.throttleMode = THROTTLE_MODE_FIXED;
+        }
+    }
+
+    public Long getTargetLatency() {
+        if (targetLatency == null || targetLatency <= 0L) {
+            return DEFAULT_TARGET_LATENCY;
+        }
+        return targetLatency;
+    }
+
+    public void setTargetLatency(Long targetLatency) {
+        this.targetLatency = targetLatency;
+    }
+
+    public Long getMaxThrottle() {
+        if (maxThrottle == null || maxThrottle < 0L) {
+            return DEFAULT_MAX_THROTTLE;
+        }
+        return maxThrottle;
+    }
+
+    public void setMaxThrottle(Long maxThrottle) {
+        this.maxThrottle = maxThrottle;
+    }
+
+    public Integer getMinBatchSize() {
+        if (minBatchSize == null || minBatchSize <= 0) {
+            return DEFAULT_MIN_BATCH_SIZE;
+        }
+        return minBatchSize;
+    }
+
+    public void setMinBatchSize(Integer minBatchSize) {
+        this.minBatchSize = minBatchSize;
+    }
+
+    public Integer getMaxBatchSize() {
+        if (maxBatchSize == null || maxBatchSize <= 0) {
+            return DEFAULT_MAX_BATCH_SIZE;
+        }
+        return maxBatchSize;
+    }
+
+    public void setMaxBatchSize(Integer maxBatchSize) {
+        this.maxBatchSize = maxBatchSize;
+    }
+
+    public Double getMaxHeapUsage() {
+        return maxHeapUsage;
+    }
+
+    public void setMaxHeapUsage(Double maxHeapUsage) {
+        this.maxHeapUsage = maxHeapUsage;
+    }
+
+    public Integer getMaxRetries() {
+        if (maxRetries == null || maxRetries < 0) {
+            return DEFAULT_MAX_RETRIES;
+        }
+        return maxRetries;
+    }
+
+    public void setMaxRetries(Integer maxRetries) {
+        this.maxRetries = maxRetries;
+    }
+
+    public Long getRetryBackoff() {
+        if (retryBackoff == null || retryBackoff < 0L) {
+            return DEFAULT_RETRY_BACKOFF;
+        }
+        return retryBackoff;
+    }
+
+    public void setRetryBackoff(Long retryBackoff) {
+        this.retryBackoff = retryBackoff;
+    }
+
+    public Long getMaxRetryBackoff() {
+        if (maxRetryBackoff == null || maxRetryBackoff < 0L) {
+            return DEFAULT_MAX_RETRY_BACKOFF;
+        }
+        return maxRetryBackoff;
+    }
+
+    public void setMaxRetryBackoff(Long maxRetryBackoff) {
+        this.maxRetryBackoff = maxRetryBackoff;
+    }
+
     public String getPublishOnImport() {
         return publishOnImport;
     }
@@ -157,6 +443,119 @@ public class ExecutionParams {
         this.dataUrlSizeThreshold = dataUrlSizeThreshold;
     }
 
+    public String getExportFormat() {
+        return exportFormat;
+    }
+
+    public void setExportFormat(String exportFormat) {
+        if (StringUtils.equalsIgnoreCase(exportFormat, EXPORT_FORMAT_COMPACT_JSON)) {
+            this.exportFormat = EXPORT_FORMAT_COMPACT_JSON;
+        } else if (StringUtils.equalsIgnoreCase(exportFormat, EXPORT_FORMAT_SMILE)) {
+            this.exportFormat = EXPORT_FORMAT_SMILE;
+        } else {
+            this.exportFormat = EXPORT_FORMAT_JSON;
+        }
+    }
+
+    public String getArchiveLayout() {
+        return archiveLayout;
+    }
+
+    public void setArchiveLayout(String archiveLayout) {
+        if (StringUtils.equalsIgnoreCase(archiveLayout, ARCHIVE_LAYOUT_BUNDLES)) {
+            this.archiveLayout = ARCHIVE_LAYOUT_BUNDLES;
+        } else {
+            this.archiveLayout = ARCHIVE_LAYOUT_FILES;
+        }
+    }
+
+    public Integer getBundleSize() {
+        if (bundleSize == null || bundleSize <= 0) {
+            return DEFAULT_BUNDLE_SIZE;
+        }
+        return bundleSize;
+    }
+
+    public void setBundleSize(Integer bundleSize) {
+        this.bundleSize = bundleSize;
+    }
+
+    public String getDocumentManagerType() {
+        return documentManagerType;
+    }
+
+    public void setDocumentManagerType(String documentManagerType) {
+        if (StringUtils.equalsIgnoreCase(documentManagerType, DOCUMENT_MANAGER_TYPE_DIRECT)) {
+            this.documentManagerType = DOCUMENT_MANAGER_TYPE_DIRECT;
+        } else {
+            this.documentManagerType = DOCUMENT_MANAGER_TYPE_WORKFLOW;
+        }
+    }
+
+    public String getCollectionMode() {
+        return collectionMode;
+    }
+
+    public void setCollectionMode(String collectionMode) {
+        if (StringUtils.equalsIgnoreCase(collectionMode, COLLECTION_MODE_ROWS)) {
+            this.collectionMode = COLLECTION_MODE_ROWS;
+        } else {
+            this.collectionMode = COLLECTION_MODE_NODES;
+        }
+    }
+
+    public Integer getShardIndex() {
+        if (shardIndex == null) {
+            return 0;
+        }
+        return shardIndex;
+    }
+
+    public void setShardIndex(Integer shardIndex) {
+        this.shardIndex = shardIndex;
+    }
+
+    public Integer getShardCount() {
+        if (shardCount == null || shardCount <= 0) {
+            return 1;
+        }
+        return shardCount;
+    }
+
+    public void setShardCount(Integer shardCount) {
+        this.shardCount = shardCount;
+    }
+
+    public String getExportId() {
+        return exportId;
+    }
+
+    public void setExportId(String exportId) {
+        this.exportId = exportId;
+    }
+
+    public Integer getPriority() {
+        if (priority == null) {
+            return 0;
+        }
+        return priority;
+    }
+
+    public void setPriority(Integer priority) {
+        this.priority = priority;
+    }
+
+    public Boolean getResume() {
+        if (resume == null) {
+            return Boolean.TRUE;
+        }
+        return resume;
+    }
+
+    public void setResume(Boolean resume) {
+        this.resume = resume;
+    }
+
     public QueriesAndPaths getBinaries() {
         return binaries;
     }
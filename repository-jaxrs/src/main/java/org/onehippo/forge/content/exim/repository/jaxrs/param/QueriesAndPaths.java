@@ -25,6 +25,7 @@ public class QueriesAndPaths {
 
     private List<String> queries;
     private List<String> paths;
+    private List<String> roots;
     private List<String> includes;
     private List<String> excludes;
 
@@ -52,6 +53,18 @@ public class QueriesAndPaths {
         this.paths = paths;
     }
 
+    public List<String> getRoots() {
+        if (roots == null) {
+            return Collections.emptyList();
+        }
+
+        return Collections.unmodifiableList(roots);
+    }
+
+    public void setRoots(List<String> roots) {
+        this.roots = roots;
+    }
+
     public List<String> getIncludes() {
         if (includes == null) {
             return Collections.emptyList();
@@ -16,11 +16,59 @@
 package org.onehippo.forge.content.exim.repository.jaxrs.status;
 
 import java.io.File;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.onehippo.forge.content.exim.repository.jaxrs.param.ExecutionParams;
 
 public class ProcessStatus {
 
+    /**
+     * Phase collecting the items to export.
+     */
+    public static final String PHASE_COLLECT = "collect";
+
+    /**
+     * Phase mapping JCR nodes to content nodes on export, or reading content nodes from the package on import.
+     */
+    public static final String PHASE_MAP = "map";
+
+    /**
+     * Phase writing content nodes to files on export, or the uploaded package to a file on import.
+     */
+    public static final String PHASE_WRITE = "write";
+
+    /**
+     * Phase compressing the exported files into the package.
+     */
+    public static final String PHASE_COMPRESS = "compress";
+
+    /**
+     * Phase binding content nodes to JCR nodes on import.
+     */
+    public static final String PHASE_BIND = "bind";
+
+    /**
+     * Phase saving the batches on import.
+     */
+    public static final String PHASE_SAVE = "save";
+
+    /**
+     * Phase publishing the imported documents.
+     */
+    public static final String PHASE_PUBLISH = "publish";
+
+    /**
+     * Phase cleaning up the docbase values on import, or the temporary files on export.
+     */
+    public static final String PHASE_CLEANUP = "cleanup";
+
+    private static final String[] PHASES = { PHASE_COLLECT, PHASE_MAP, PHASE_WRITE, PHASE_COMPRESS, PHASE_BIND,
+            PHASE_SAVE, PHASE_PUBLISH, PHASE_CLEANUP };
+
     private final long id;
     private final long startTimeMillis;
     private String username;
@@ -29,10 +77,33 @@ public class ProcessStatus {
     private double progress;
     private ExecutionParams executionParams;
     private File logFile;
+    private final AtomicLong processedCount = new AtomicLong();
+    private final AtomicLong succeededCount = new AtomicLong();
+    private final AtomicLong failedCount = new AtomicLong();
+    private final AtomicLong resumeOffset = new AtomicLong();
+    private final AtomicLong byteCount = new AtomicLong();
+    private final Map<String, AtomicLong> phaseTimeMillis = new LinkedHashMap<>();
+    private volatile long stopTimeMillis;
+    private volatile boolean failed;
+    private volatile String currentContentPath;
+    private volatile String throttleInfo;
+    private volatile boolean cancelRequested;
+    private volatile boolean pauseRequested;
+    private volatile int priority;
+    private volatile int queuePosition;
+    private volatile long queuedTimeMillis;
+    private volatile Collection<String> pathLeases = Collections.emptySet();
+    private volatile boolean pathLeaseBlocked;
+    private long pauseStartTimeMillis;
+    private long pausedTimeMillis;
 
     public ProcessStatus(final long id, final long startTimeMillis) {
         this.id = id;
         this.startTimeMillis = startTimeMillis;
+
+        for (String phase : PHASES) {
+            phaseTimeMillis.put(phase, new AtomicLong());
+        }
     }
 
     public String getUsername() {
@@ -67,6 +138,53 @@ public class ProcessStatus {
         return startTimeMillis;
     }
 
+    /**
+     * Returns the time milliseconds when this process stopped, or zero if not stopped yet.
+     * @return the time milliseconds when this process stopped, or zero if not stopped yet
+     */
+    public long getStopTimeMillis() {
+        return stopTimeMillis;
+    }
+
+    public void setStopTimeMillis(long stopTimeMillis) {
+        this.stopTimeMillis = stopTimeMillis;
+    }
+
+    /**
+     * Returns the milliseconds this process has been running until it stopped or until now,
+     * excluding the queued and paused time.
+     * @return the milliseconds this process has been running
+     */
+    public long getActiveTimeMillis() {
+        if (queuePosition > 0) {
+            return 0L;
+        }
+
+        final long endTimeMillis = (stopTimeMillis != 0L) ? stopTimeMillis : System.currentTimeMillis();
+        return Math.max(0L, endTimeMillis - startTimeMillis - queuedTimeMillis - getPausedTimeMillis());
+    }
+
+    /**
+     * Returns the number of the processed items per second of the active time.
+     * @return the number of the processed items per second of the active time
+     */
+    public double getThroughput() {
+        final long activeTimeMillis = getActiveTimeMillis();
+        return (activeTimeMillis > 0L) ? 1000.0 * getProcessedCount() / activeTimeMillis : 0.0;
+    }
+
+    /**
+     * Returns true if this process ended by an error.
+     * @return true if this process ended by an error
+     */
+    public boolean isFailed() {
+        return failed;
+    }
+
+    public void setFailed(boolean failed) {
+        this.failed = failed;
+    }
+
     public double getProgress() {
         return progress;
     }
@@ -91,4 +209,228 @@ public class ProcessStatus {
         this.logFile = logFile;
     }
 
+    public long getProcessedCount() {
+        return processedCount.get();
+    }
+
+    public long incrementProcessedCount() {
+        return processedCount.incrementAndGet();
+    }
+
+    public long getSucceededCount() {
+        return succeededCount.get();
+    }
+
+    public long incrementSucceededCount() {
+        return succeededCount.incrementAndGet();
+    }
+
+    public long decrementSucceededCount() {
+        return succeededCount.decrementAndGet();
+    }
+
+    public long getFailedCount() {
+        return failedCount.get();
+    }
+
+    public long incrementFailedCount() {
+        return failedCount.incrementAndGet();
+    }
+
+    public long getResumeOffset() {
+        return resumeOffset.get();
+    }
+
+    public long incrementResumeOffset() {
+        return resumeOffset.incrementAndGet();
+    }
+
+    /**
+     * Returns the number of the bytes of the package exported or imported by this process.
+     * @return the number of the bytes of the package exported or imported
+     */
+    public long getByteCount() {
+        return byteCount.get();
+    }
+
+    public long addByteCount(long bytes) {
+        return byteCount.addAndGet(bytes);
+    }
+
+    /**
+     * Adds {@code millis} to the time spent in the {@code phase}, one of the {@code PHASE_*} constants.
+     * @param phase phase name
+     * @param millis milliseconds spent in the phase
+     */
+    public void addPhaseTimeMillis(String phase, long millis) {
+        final AtomicLong phaseTime = phaseTimeMillis.get(phase);
+
+        if (phaseTime == null) {
+            throw new IllegalArgumentException("Unknown phase: " + phase);
+        }
+
+        phaseTime.addAndGet(millis);
+    }
+
+    /**
+     * Returns the milliseconds spent in the {@code phase}, one of the {@code PHASE_*} constants.
+     * @param phase phase name
+     * @return the milliseconds spent in the {@code phase}
+     */
+    public long getPhaseTimeMillis(String phase) {
+        final AtomicLong phaseTime = phaseTimeMillis.get(phase);
+        return (phaseTime != null) ? phaseTime.get() : 0L;
+    }
+
+    /**
+     * Returns a map of the milliseconds spent in each phase, in the order of the phases.
+     * @return a map of the milliseconds spent in each phase
+     */
+    public Map<String, Long> getPhaseTimeMillisMap() {
+        final Map<String, Long> map = new LinkedHashMap<>();
+
+        for (Map.Entry<String, AtomicLong> entry : phaseTimeMillis.entrySet()) {
+            map.put(entry.getKey(), entry.getValue().get());
+        }
+
+        return Collections.unmodifiableMap(map);
+    }
+
+    public String getCurrentContentPath() {
+        return currentContentPath;
+    }
+
+    public void setCurrentContentPath(String currentContentPath) {
+        this.currentContentPath = currentContentPath;
+    }
+
+    public int getPriority() {
+        return priority;
+    }
+
+    public void setPriority(int priority) {
+        this.priority = priority;
+    }
+
+    /**
+     * Returns the position of this process in the queue waiting to be admitted to run, starting from 1,
+     * or zero if not queued.
+     * @return the position of this process in the queue, or zero if not queued
+     */
+    public int getQueuePosition() {
+        return queuePosition;
+    }
+
+    public void setQueuePosition(int queuePosition) {
+        this.queuePosition = queuePosition;
+    }
+
+    /**
+     * Returns the milliseconds this process waited in the queue before admitted to run.
+     * @return the milliseconds this process waited in the queue
+     */
+    public long getQueuedTimeMillis() {
+        return queuedTimeMillis;
+    }
+
+    public void setQueuedTimeMillis(long queuedTimeMillis) {
+        this.queuedTimeMillis = queuedTimeMillis;
+    }
+
+    /**
+     * Returns the path-prefix leases granted to this process on the subtrees it writes into.
+     * @return the path-prefix leases granted to this process
+     */
+    public Collection<String> getPathLeases() {
+        return pathLeases;
+    }
+
+    public void setPathLeases(Collection<String> pathLeases) {
+        this.pathLeases = (pathLeases != null) ? Collections.unmodifiableCollection(pathLeases)
+                : Collections.emptySet();
+    }
+
+    /**
+     * Returns true if this process is waiting for path-prefix leases overlapping the ones of other processes.
+     * @return true if this process is waiting for path-prefix leases
+     */
+    public boolean isPathLeaseBlocked() {
+        return pathLeaseBlocked;
+    }
+
+    public void setPathLeaseBlocked(boolean pathLeaseBlocked) {
+        this.pathLeaseBlocked = pathLeaseBlocked;
+    }
+
+    public String getThrottleInfo() {
+        return throttleInfo;
+    }
+
+    public void setThrottleInfo(String throttleInfo) {
+        this.throttleInfo = throttleInfo;
+    }
+
+    public boolean isCancelRequested() {
+        return cancelRequested;
+    }
+
+    public synchronized void requestCancel() {
+        this.cancelRequested = true;
+        notifyAll();
+    }
+
+    public boolean isPauseRequested() {
+        return pauseRequested;
+    }
+
+    public synchronized void requestPause() {
+        this.pauseRequested = true;
+    }
+
+    public synchronized void requestResume() {
+        this.pauseRequested = false;
+        notifyAll();
+    }
+
+    /**
+     * Returns true if the process is parked, waiting to be resumed.
+     * @return true if the process is parked, waiting to be resumed
+     */
+    public synchronized boolean isPaused() {
+        return pauseStartTimeMillis != 0L;
+    }
+
+    /**
+     * Returns the total time milliseconds for which the process has been parked, including the current pause.
+     * @return the total time milliseconds for which the process has been parked
+     */
+    public synchronized long getPausedTimeMillis() {
+        if (pauseStartTimeMillis != 0L) {
+            return pausedTimeMillis + (System.currentTimeMillis() - pauseStartTimeMillis);
+        }
+
+        return pausedTimeMillis;
+    }
+
+    /**
+     * Parks the calling thread while pause is requested, until resume or cancellation is requested.
+     * @throws InterruptedException if the calling thread is interrupted while parked
+     */
+    public synchronized void awaitResume() throws InterruptedException {
+        if (!pauseRequested || cancelRequested) {
+            return;
+        }
+
+        pauseStartTimeMillis = System.currentTimeMillis();
+
+        try {
+            while (pauseRequested && !cancelRequested) {
+                wait();
+            }
+        } finally {
+            pausedTimeMillis += System.currentTimeMillis() - pauseStartTimeMillis;
+            pauseStartTimeMillis = 0L;
+        }
+    }
+
 }
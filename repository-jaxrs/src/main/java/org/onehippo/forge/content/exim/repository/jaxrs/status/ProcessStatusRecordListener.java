@@ -0,0 +1,52 @@
+/*
+ * Copyright 2024 Bloomreach B.V. (https://www.bloomreach.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onehippo.forge.content.exim.repository.jaxrs.status;
+
+import org.onehippo.forge.content.exim.core.ContentMigrationRecord;
+import org.onehippo.forge.content.exim.core.ContentMigrationRecordListener;
+import org.onehippo.forge.content.exim.core.ContentMigrationTask;
+
+/**
+ * {@link ContentMigrationRecordListener} which reflects the records of a running task in a {@link ProcessStatus}.
+ */
+public class ProcessStatusRecordListener implements ContentMigrationRecordListener {
+
+    private final ProcessStatus processStatus;
+
+    public ProcessStatusRecordListener(final ProcessStatus processStatus) {
+        this.processStatus = processStatus;
+    }
+
+    @Override
+    public void onRecordBegin(ContentMigrationTask task, ContentMigrationRecord record) {
+        processStatus.setCurrentContentPath(record.getContentPath());
+    }
+
+    @Override
+    public void onRecordEnd(ContentMigrationTask task, ContentMigrationRecord record) {
+        if (record.isProcessed()) {
+            processStatus.incrementProcessedCount();
+
+            if (record.isSucceeded()) {
+                processStatus.incrementSucceededCount();
+            } else {
+                processStatus.incrementFailedCount();
+            }
+        }
+
+        processStatus.setCurrentContentPath(null);
+    }
+}
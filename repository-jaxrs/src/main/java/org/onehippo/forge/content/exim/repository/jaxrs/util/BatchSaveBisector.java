@@ -0,0 +1,158 @@
+/*
+ * Copyright 2024 Bloomreach B.V. (https://www.bloomreach.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onehippo.forge.content.exim.repository.jaxrs.util;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Recovers a batch of items whose pending changes failed to be saved together, by discarding the pending changes
+ * and bisecting the batch: each half is re-applied and saved separately, and a half failing the save again is
+ * bisected further until the items failing the save are isolated.
+ * <P>
+ * So, only the items failing to be applied or saved are reported as failed, at the cost of about
+ * {@code 2 * k * log2(n)} saves for {@code k} failing items in a batch of {@code n} items.
+ * </P>
+ * @param <T> item type
+ */
+public class BatchSaveBisector<T> {
+
+    /**
+     * Action applying the changes of an item, e.g, re-importing a content item in the session.
+     * @param <T> item type
+     */
+    @FunctionalInterface
+    public interface ItemAction<T> {
+
+        /**
+         * Applies the changes of the {@code item}.
+         * @param item item
+         * @throws Exception if applying fails
+         */
+        void apply(T item) throws Exception;
+
+    }
+
+    /**
+     * Action on the pending changes of a batch, e.g, saving or discarding the changes in the session.
+     */
+    @FunctionalInterface
+    public interface BatchAction {
+
+        /**
+         * Runs the action on the pending changes.
+         * @throws Exception if the action fails
+         */
+        void run() throws Exception;
+
+    }
+
+    private final ItemAction<T> applier;
+    private final BatchAction saver;
+    private final BatchAction discarder;
+
+    private final Map<T, Exception> failures = new LinkedHashMap<>();
+    private int saveCount;
+
+    /**
+     * Constructs with the actions applying an item, saving the pending changes and discarding the pending changes.
+     * @param applier action applying the changes of an item
+     * @param saver action saving the pending changes
+     * @param discarder action discarding the pending changes
+     */
+    public BatchSaveBisector(final ItemAction<T> applier, final BatchAction saver, final BatchAction discarder) {
+        this.applier = applier;
+        this.saver = saver;
+        this.discarder = discarder;
+    }
+
+    /**
+     * Discards the pending changes of the {@code items} which failed to be saved with {@code batchFailure},
+     * re-applies and saves the {@code items} by bisecting, and returns the map of the items failing to be applied
+     * or saved to their failures, in the order of the {@code items}.
+     * @param items the items of the batch which failed to be saved
+     * @param batchFailure the failure of saving the batch
+     * @return the map of the items failing to be applied or saved to their failures
+     * @throws Exception if discarding the pending changes fails
+     */
+    public Map<T, Exception> recover(final List<T> items, final Exception batchFailure) throws Exception {
+        failures.clear();
+        saveCount = 0;
+
+        discarder.run();
+        bisect(items, batchFailure);
+
+        final Map<T, Exception> result = new LinkedHashMap<>();
+
+        for (T item : items) {
+            if (failures.containsKey(item)) {
+                result.put(item, failures.get(item));
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * Returns the number of the saves tried in the last recovery.
+     * @return the number of the saves tried in the last recovery
+     */
+    public int getSaveCount() {
+        return saveCount;
+    }
+
+    private void bisect(final List<T> items, final Exception failure) throws Exception {
+        if (items.isEmpty()) {
+            return;
+        }
+
+        if (items.size() == 1) {
+            failures.put(items.get(0), failure);
+            return;
+        }
+
+        final int middle = items.size() / 2;
+        applyAndSave(items.subList(0, middle));
+        applyAndSave(items.subList(middle, items.size()));
+    }
+
+    private void applyAndSave(final List<T> items) throws Exception {
+        final List<T> appliedItems = new ArrayList<>(items.size());
+
+        for (T item : items) {
+            try {
+                applier.apply(item);
+                appliedItems.add(item);
+            } catch (Exception e) {
+                failures.put(item, e);
+            }
+        }
+
+        if (appliedItems.isEmpty()) {
+            return;
+        }
+
+        try {
+            ++saveCount;
+            saver.run();
+        } catch (Exception e) {
+            discarder.run();
+            bisect(appliedItems, e);
+        }
+    }
+}
@@ -0,0 +1,387 @@
+/*
+ * Copyright 2024 Bloomreach B.V. (https://www.bloomreach.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onehippo.forge.content.exim.repository.jaxrs.util;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+
+import org.onehippo.forge.content.exim.core.util.ContentNodeUtils;
+import org.onehippo.forge.content.exim.repository.jaxrs.param.ExecutionParams;
+import org.onehippo.forge.content.pojo.model.ContentNode;
+
+/**
+ * Throttle of a batch processing loop, telling when a batch is full and how long to sleep after each batch.
+ * <P>
+ * In the fixed throttle mode, it always uses the batch size and the throttle given by the {@link ExecutionParams}.
+ * In the adaptive throttle mode, it keeps the exponentially weighted moving averages of the batch save or refresh
+ * latency and the per-item read latency, and adjusts the throttle and the batch size after each batch within
+ * the configured bounds: it slows down if the save latency exceeds the target latency, the read latency becomes
+ * much higher than its baseline, or the heap or GC pressure is too high, and speeds up if the save latency is well
+ * under the target latency.
+ * </P>
+ * <P>
+ * In the auto batch size mode, it tracks the number of nodes and the estimated bytes of the content pending in each
+ * batch, and sizes the next batch by the observed save cost per node to keep the save or refresh latency under
+ * the target latency and the pending bytes under the maximum pending bytes, growing at most twice per batch.
+ * A batch is also full once its pending bytes reach the maximum pending bytes.
+ * </P>
+ */
+public class BatchThrottle {
+
+    /**
+     * Weight of the latest sample in the exponentially weighted moving averages.
+     */
+    private static final double EWMA_WEIGHT = 0.3;
+
+    /**
+     * Ratio of the read latency to its baseline, above which the repository is regarded as contended.
+     */
+    private static final double READ_LATENCY_TOLERANCE = 2.0;
+
+    /**
+     * Ratio by which the read latency baseline may drift up per batch, so that it follows a lasting change.
+     */
+    private static final double READ_LATENCY_BASELINE_DRIFT = 1.01;
+
+    /**
+     * Share of a batch time spent in garbage collection, above which the heap is regarded as under pressure.
+     */
+    private static final double MAX_GC_TIME_SHARE = 0.25;
+
+    /**
+     * Minimum throttle milliseconds when slowing down from zero.
+     */
+    private static final long MIN_THROTTLE_STEP = 10L;
+
+    /**
+     * Share of the target latency which a batch save is sized to take in the auto batch size mode, leaving headroom.
+     */
+    private static final double TARGET_LATENCY_FILL = 0.8;
+
+    private final boolean adaptive;
+    private final boolean autoBatchSize;
+    private final long maxPendingBytes;
+    private final long targetLatencyMillis;
+    private final long maxSleepMillis;
+    private final int minBatchSize;
+    private final int maxBatchSize;
+    private final Double maxHeapUsage;
+
+    private int batchSize;
+    private long sleepMillis;
+
+    private int batchItemCount;
+    private long pendingNodeCount;
+    private long pendingByteCount;
+    private long batchStartNanos = System.nanoTime();
+    private long lastGcTimeMillis = getGarbageCollectionTimeMillis();
+
+    private double saveLatencyMillis = -1.0;
+    private double readLatencyMillis = -1.0;
+    private double readLatencyBaselineMillis = -1.0;
+    private double saveCostPerNodeMillis = -1.0;
+    private double nodesPerItem = -1.0;
+    private double bytesPerItem = -1.0;
+    private double heapUsage;
+    private String lastDecision = "none";
+
+    /**
+     * Constructs a throttle by the batch size and throttle options of the {@code params}.
+     * @param params execution params
+     */
+    public BatchThrottle(final ExecutionParams params) {
+        adaptive = ExecutionParams.THROTTLE_MODE_ADAPTIVE.equals(params.getThrottleMode());
+        autoBatchSize = ExecutionParams.BATCH_SIZE_MODE_AUTO.equals(params.getBatchSizeMode());
+        maxPendingBytes = params.getMaxPendingBytes();
+        targetLatencyMillis = params.getTargetLatency();
+        maxSleepMillis = params.getMaxThrottle();
+        minBatchSize = Math.min(params.getMinBatchSize(), params.getMaxBatchSize());
+        maxBatchSize = params.getMaxBatchSize();
+        maxHeapUsage = params.getMaxHeapUsage();
+
+        if (adaptive || autoBatchSize) {
+            batchSize = Math.max(minBatchSize, Math.min(maxBatchSize, params.getBatchSize()));
+        } else {
+            batchSize = params.getBatchSize();
+        }
+
+        if (adaptive) {
+            sleepMillis = Math.max(0L, Math.min(maxSleepMillis, params.getThrottle()));
+        } else {
+            sleepMillis = params.getThrottle();
+        }
+    }
+
+    /**
+     * Returns true if the throttle and the batch size are adjusted after each batch.
+     * @return true if the throttle and the batch size are adjusted after each batch
+     */
+    public boolean isAdaptive() {
+        return adaptive;
+    }
+
+    /**
+     * Returns true if each batch is sized by the observed save cost and the pending bytes.
+     * @return true if each batch is sized by the observed save cost and the pending bytes
+     */
+    public boolean isAutoBatchSize() {
+        return autoBatchSize;
+    }
+
+    /**
+     * Returns the current batch size.
+     * @return the current batch size
+     */
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    /**
+     * Returns the current throttle milliseconds to sleep after each batch.
+     * @return the current throttle milliseconds to sleep after each batch
+     */
+    public long getSleepMillis() {
+        return sleepMillis;
+    }
+
+    /**
+     * Returns the moving average of the batch save or refresh latency milliseconds, or a negative value if unknown.
+     * @return the moving average of the batch save or refresh latency milliseconds
+     */
+    public double getSaveLatencyMillis() {
+        return saveLatencyMillis;
+    }
+
+    /**
+     * Returns the moving average of the per-item read latency milliseconds, or a negative value if unknown.
+     * @return the moving average of the per-item read latency milliseconds
+     */
+    public double getReadLatencyMillis() {
+        return readLatencyMillis;
+    }
+
+    /**
+     * Returns the last decision made after a batch, e.g, "slow down (save latency)", "speed up" or "hold".
+     * @return the last decision made after a batch
+     */
+    public String getLastDecision() {
+        return lastDecision;
+    }
+
+    /**
+     * Adds the nodes and the estimated bytes of the {@code contentNode} to the content pending in the current batch,
+     * in the auto batch size mode. Otherwise, does nothing.
+     * @param contentNode content node being saved or read in the current batch
+     */
+    public void addPending(final ContentNode contentNode) {
+        if (autoBatchSize) {
+            addPending(ContentNodeUtils.countNodes(contentNode), ContentNodeUtils.estimateByteSize(contentNode));
+        }
+    }
+
+    /**
+     * Counts an item processed in the current batch and returns true if the current batch is full.
+     * @return true if the current batch is full
+     */
+    public boolean nextItem() {
+        ++batchItemCount;
+        return batchItemCount >= batchSize || (autoBatchSize && pendingByteCount >= maxPendingBytes);
+    }
+
+    /**
+     * Ends the current batch by recording the save or refresh latency of the batch, and adjusts the throttle and
+     * the batch size in the adaptive throttle mode.
+     * @param saveLatencyMillis the save or refresh latency milliseconds of the batch
+     * @return true if the throttle or the batch size was changed
+     */
+    public boolean endBatch(final long saveLatencyMillis) {
+        final long batchTimeMillis = (System.nanoTime() - batchStartNanos) / 1000000L;
+        final long gcTimeMillis = getGarbageCollectionTimeMillis();
+        final long gcTimeDeltaMillis = gcTimeMillis - lastGcTimeMillis;
+        lastGcTimeMillis = gcTimeMillis;
+
+        if (!adaptive && !autoBatchSize) {
+            batchItemCount = 0;
+            return false;
+        }
+
+        return adapt(batchTimeMillis, saveLatencyMillis, getHeapUsage(), gcTimeDeltaMillis);
+    }
+
+    /**
+     * Sleeps for the current throttle milliseconds, and starts the next batch.
+     * @throws InterruptedException if interrupted while sleeping
+     */
+    public void sleep() throws InterruptedException {
+        if (sleepMillis > 0L) {
+            Thread.sleep(sleepMillis);
+        }
+
+        batchStartNanos = System.nanoTime();
+    }
+
+    /**
+     * Returns a summary of the current throttle state and the last decision.
+     * @return a summary of the current throttle state and the last decision
+     */
+    public String getSummary() {
+        final StringBuilder sb = new StringBuilder(String.format(
+                "batchSize=%d, throttle=%dms, saveLatency=%.0fms, readLatency=%.2fms, heap=%.0f%%",
+                batchSize, sleepMillis, Math.max(0.0, saveLatencyMillis), Math.max(0.0, readLatencyMillis),
+                heapUsage * 100.0));
+
+        if (autoBatchSize) {
+            sb.append(String.format(", saveCostPerNode=%.2fms, nodesPerItem=%.1f, bytesPerItem=%.0f",
+                    Math.max(0.0, saveCostPerNodeMillis), Math.max(0.0, nodesPerItem), Math.max(0.0, bytesPerItem)));
+        }
+
+        return sb.append(", ").append(lastDecision).toString();
+    }
+
+    boolean adapt(final long batchTimeMillis, final long saveLatencyMillis, final double heapUsage,
+            final long gcTimeDeltaMillis) {
+        final int itemCount = batchItemCount;
+        batchItemCount = 0;
+        this.heapUsage = heapUsage;
+        this.saveLatencyMillis = ewma(this.saveLatencyMillis, saveLatencyMillis);
+
+        if (itemCount > 0) {
+            final double itemReadLatencyMillis = ((double) Math.max(0L, batchTimeMillis - saveLatencyMillis))
+                    / itemCount;
+            readLatencyMillis = ewma(readLatencyMillis, itemReadLatencyMillis);
+
+            if (readLatencyBaselineMillis < 0.0) {
+                readLatencyBaselineMillis = readLatencyMillis;
+            } else {
+                readLatencyBaselineMillis = Math.min(readLatencyMillis,
+                        readLatencyBaselineMillis * READ_LATENCY_BASELINE_DRIFT);
+            }
+        }
+
+        String reason = null;
+
+        if (this.saveLatencyMillis > targetLatencyMillis) {
+            reason = "save latency";
+        } else if (readLatencyBaselineMillis > 0.0
+                && readLatencyMillis > READ_LATENCY_TOLERANCE * readLatencyBaselineMillis) {
+            reason = "read latency";
+        } else if (maxHeapUsage != null && heapUsage > maxHeapUsage) {
+            reason = "heap usage";
+        } else if (maxHeapUsage != null && batchTimeMillis > 0L
+                && ((double) gcTimeDeltaMillis) / batchTimeMillis > MAX_GC_TIME_SHARE) {
+            reason = "gc time";
+        }
+
+        final int oldBatchSize = batchSize;
+        final long oldSleepMillis = sleepMillis;
+        String decision = null;
+
+        if (adaptive) {
+            if (reason != null) {
+                sleepMillis = Math.min(maxSleepMillis, Math.max(MIN_THROTTLE_STEP, sleepMillis * 2L));
+                if (!autoBatchSize) {
+                    batchSize = Math.max(minBatchSize, batchSize * 3 / 4);
+                }
+                decision = "slow down (" + reason + ")";
+            } else if (this.saveLatencyMillis < targetLatencyMillis / 2.0) {
+                sleepMillis = sleepMillis / 2L;
+                if (!autoBatchSize) {
+                    batchSize = Math.min(maxBatchSize, batchSize + Math.max(1, batchSize / 10));
+                }
+                decision = "speed up";
+            } else {
+                decision = "hold";
+            }
+        }
+
+        if (autoBatchSize) {
+            final String sizing = sizeBatch(itemCount, saveLatencyMillis);
+            decision = (decision != null) ? decision + ", " + sizing : sizing;
+        }
+
+        lastDecision = decision;
+        pendingNodeCount = 0L;
+        pendingByteCount = 0L;
+
+        return batchSize != oldBatchSize || sleepMillis != oldSleepMillis;
+    }
+
+    void addPending(final int nodeCount, final long byteCount) {
+        pendingNodeCount += nodeCount;
+        pendingByteCount += byteCount;
+    }
+
+    private String sizeBatch(final int itemCount, final long saveLatencyMillis) {
+        if (itemCount == 0 || pendingNodeCount == 0L) {
+            return "batch size kept";
+        }
+
+        saveCostPerNodeMillis = ewma(saveCostPerNodeMillis, ((double) saveLatencyMillis) / pendingNodeCount);
+        nodesPerItem = ewma(nodesPerItem, ((double) pendingNodeCount) / itemCount);
+        bytesPerItem = ewma(bytesPerItem, ((double) pendingByteCount) / itemCount);
+
+        final double bySaveCost = (saveCostPerNodeMillis > 0.0)
+                ? TARGET_LATENCY_FILL * targetLatencyMillis / (saveCostPerNodeMillis * nodesPerItem)
+                : Double.MAX_VALUE;
+        final double byPendingBytes = (bytesPerItem > 0.0) ? maxPendingBytes / bytesPerItem : Double.MAX_VALUE;
+        final double byGrowth = 2.0 * batchSize;
+
+        String limit;
+        double size;
+
+        if (byGrowth < bySaveCost && byGrowth < byPendingBytes) {
+            limit = "growth";
+            size = byGrowth;
+        } else if (bySaveCost <= byPendingBytes) {
+            limit = "save cost";
+            size = bySaveCost;
+        } else {
+            limit = "pending bytes";
+            size = byPendingBytes;
+        }
+
+        batchSize = (int) Math.max(minBatchSize, Math.min(maxBatchSize, size));
+
+        return "batch sized by " + limit;
+    }
+
+    private static double ewma(final double average, final double sample) {
+        if (average < 0.0) {
+            return sample;
+        }
+
+        return EWMA_WEIGHT * sample + (1.0 - EWMA_WEIGHT) * average;
+    }
+
+    private static double getHeapUsage() {
+        final Runtime runtime = Runtime.getRuntime();
+        return ((double) (runtime.totalMemory() - runtime.freeMemory())) / runtime.maxMemory();
+    }
+
+    private static long getGarbageCollectionTimeMillis() {
+        long total = 0L;
+
+        for (GarbageCollectorMXBean gcBean : ManagementFactory.getGarbageCollectorMXBeans()) {
+            final long time = gcBean.getCollectionTime();
+
+            if (time > 0L) {
+                total += time;
+            }
+        }
+
+        return total;
+    }
+}
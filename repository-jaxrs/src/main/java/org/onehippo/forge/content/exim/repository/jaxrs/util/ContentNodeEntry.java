@@ -0,0 +1,45 @@
+/*
+ * Copyright 2024 Bloomreach B.V. (https://www.bloomreach.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onehippo.forge.content.exim.repository.jaxrs.util;
+
+import org.onehippo.forge.content.pojo.model.ContentNode;
+
+/**
+ * An entry read from a content package, which is either a file containing a {@link ContentNode}
+ * or a line in a bundle file.
+ */
+public class ContentNodeEntry {
+
+    private final String name;
+    private final ContentNode contentNode;
+
+    public ContentNodeEntry(final String name, final ContentNode contentNode) {
+        this.name = name;
+        this.contentNode = contentNode;
+    }
+
+    /**
+     * Returns the entry name, which is the file path, or the bundle file path followed by '#' and the line number.
+     * @return the entry name
+     */
+    public String getName() {
+        return name;
+    }
+
+    public ContentNode getContentNode() {
+        return contentNode;
+    }
+}
@@ -0,0 +1,120 @@
+/*
+ * Copyright 2024 Bloomreach B.V. (https://www.bloomreach.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onehippo.forge.content.exim.repository.jaxrs.util;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+import org.apache.commons.vfs2.FileObject;
+import org.onehippo.forge.content.exim.core.ContentMigrationException;
+import org.onehippo.forge.content.exim.core.impl.AbstractContentMigrationTask;
+import org.onehippo.forge.content.exim.core.util.ContentNodeBundleReader;
+import org.onehippo.forge.content.pojo.model.ContentNode;
+
+/**
+ * Reads {@link ContentNodeEntry}s one by one from the individual content files first, and then from the bundle files,
+ * so that the importing process can handle both archive layouts in the same way.
+ */
+public class ContentNodeEntryReader implements Closeable {
+
+    private final AbstractContentMigrationTask task;
+    private final FileObject[] files;
+    private final FileObject[] bundleFiles;
+
+    private int fileIndex;
+    private int bundleFileIndex;
+    private ContentNodeBundleReader bundleReader;
+
+    /**
+     * Constructs with the individual content files and the bundle files.
+     * @param task the task to read each {@link ContentNode} with
+     * @param files the individual content files
+     * @param bundleFiles the bundle files
+     */
+    public ContentNodeEntryReader(final AbstractContentMigrationTask task, final FileObject[] files,
+            final FileObject[] bundleFiles) {
+        this.task = task;
+        this.files = (files != null) ? files : new FileObject[0];
+        this.bundleFiles = (bundleFiles != null) ? bundleFiles : new FileObject[0];
+    }
+
+    /**
+     * Reads the next entry, or returns null if there's nothing more to read.
+     * @return the next entry, or null if there's nothing more to read
+     * @throws ContentMigrationException if reading fails
+     */
+    public ContentNodeEntry next() throws ContentMigrationException {
+        if (fileIndex < files.length) {
+            final FileObject file = files[fileIndex++];
+            return new ContentNodeEntry(file.getName().getPath(), task.readContentNodeFromFile(file));
+        }
+
+        try {
+            while (true) {
+                if (bundleReader == null) {
+                    if (bundleFileIndex >= bundleFiles.length) {
+                        return null;
+                    }
+
+                    bundleReader = task.openContentNodeBundle(bundleFiles[bundleFileIndex++]);
+                }
+
+                final ContentNode contentNode = bundleReader.read();
+
+                if (contentNode != null) {
+                    return new ContentNodeEntry(
+                            bundleReader.getBundleFile().getName().getPath() + "#" + bundleReader.getLineNumber(),
+                            contentNode);
+                }
+
+                bundleReader.close();
+                bundleReader = null;
+            }
+        } catch (IOException e) {
+            throw new ContentMigrationException(e.toString(), e);
+        }
+    }
+
+    /**
+     * Counts all the entries in the individual content files and the bundle files.
+     * @param files the individual content files
+     * @param bundleFiles the bundle files
+     * @return the number of all the entries
+     * @throws IOException if the entries in a bundle file cannot be counted
+     */
+    public static int countEntries(final FileObject[] files, final FileObject[] bundleFiles) throws IOException {
+        int count = (files != null) ? files.length : 0;
+
+        if (bundleFiles != null) {
+            for (FileObject bundleFile : bundleFiles) {
+                count += ContentNodeBundleReader.countEntries(bundleFile);
+            }
+        }
+
+        return count;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (bundleReader != null) {
+            try {
+                bundleReader.close();
+            } finally {
+                bundleReader = null;
+            }
+        }
+    }
+}
@@ -0,0 +1,251 @@
+/*
+ * Copyright 2024 Bloomreach B.V. (https://www.bloomreach.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onehippo.forge.content.exim.repository.jaxrs.util;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+import org.apache.commons.io.FileUtils;
+import org.onehippo.forge.content.exim.core.util.ContentNodeBundleWriter;
+import org.onehippo.forge.content.exim.repository.jaxrs.param.Result;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Checkpoint of a resumable export run, keeping the collected items, the phase and the cursor of the last
+ * completed batch, so that a follow-up export run can continue from the last completed batch.
+ * <P>
+ * The checkpoint is saved in JSON to a local file by {@link #save(File, ObjectMapper)},
+ * by writing a temporary file first and moving it to the checkpoint file.
+ * </P>
+ * <P>
+ * In the bundled archive layout, the checkpoint also keeps the position of the bundle writer of the current phase,
+ * so that a follow-up export run can truncate the bundle files to the last completed batch.
+ * </P>
+ */
+public class ExportCheckpoint {
+
+    /**
+     * Phase exporting the documents.
+     */
+    public static final String PHASE_DOCUMENTS = "documents";
+
+    /**
+     * Phase exporting the binaries, following the {@link #PHASE_DOCUMENTS} phase.
+     */
+    public static final String PHASE_BINARIES = "binaries";
+
+    private String phase = PHASE_DOCUMENTS;
+    private int cursor;
+    private int batchCount;
+    private Result result;
+    private Set<String> referredNodePaths = new LinkedHashSet<>();
+    private int bundleSeq;
+    private int bundleEntryCount;
+    private long bundleLength;
+    private long bundleIndexLength;
+
+    /**
+     * Loads the checkpoint from the {@code checkpointFile} if it exists. Otherwise, returns null.
+     * @param checkpointFile checkpoint file
+     * @param objectMapper {@link ObjectMapper} to read the checkpoint JSON
+     * @return the checkpoint loaded from the {@code checkpointFile}, or null if the file does not exist
+     * @throws IOException if IO exception occurs
+     */
+    public static ExportCheckpoint load(final File checkpointFile, final ObjectMapper objectMapper)
+            throws IOException {
+        if (!checkpointFile.isFile()) {
+            return null;
+        }
+
+        // ignore the read-only properties written by the getters such as Result#getProgress().
+        return objectMapper.readerFor(ExportCheckpoint.class)
+                .without(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES).readValue(checkpointFile);
+    }
+
+    /**
+     * Returns the current phase, either {@link #PHASE_DOCUMENTS} or {@link #PHASE_BINARIES}.
+     * @return the current phase
+     */
+    public String getPhase() {
+        return phase;
+    }
+
+    public void setPhase(String phase) {
+        this.phase = phase;
+    }
+
+    /**
+     * Returns the index of the next item to process in the collected items in the current phase.
+     * @return the index of the next item to process in the collected items in the current phase
+     */
+    public int getCursor() {
+        return cursor;
+    }
+
+    public void setCursor(int cursor) {
+        this.cursor = cursor;
+    }
+
+    /**
+     * Returns the number of the items iterated until the cursor, across the phases.
+     * @return the number of the items iterated until the cursor
+     */
+    public int getBatchCount() {
+        return batchCount;
+    }
+
+    public void setBatchCount(int batchCount) {
+        this.batchCount = batchCount;
+    }
+
+    /**
+     * Returns the result containing the collected items and the counts until the cursor.
+     * @return the result containing the collected items and the counts until the cursor
+     */
+    public Result getResult() {
+        return result;
+    }
+
+    public void setResult(Result result) {
+        this.result = result;
+    }
+
+    /**
+     * Returns the binary node paths referred by the documents exported until the cursor.
+     * @return the binary node paths referred by the documents exported until the cursor
+     */
+    public Set<String> getReferredNodePaths() {
+        return referredNodePaths;
+    }
+
+    public void setReferredNodePaths(Set<String> referredNodePaths) {
+        this.referredNodePaths = (referredNodePaths != null) ? referredNodePaths : new LinkedHashSet<>();
+    }
+
+    /**
+     * Returns the sequence number of the current bundle file in the current phase, or zero if there is none.
+     * @return the sequence number of the current bundle file in the current phase
+     */
+    public int getBundleSeq() {
+        return bundleSeq;
+    }
+
+    public void setBundleSeq(int bundleSeq) {
+        this.bundleSeq = bundleSeq;
+    }
+
+    /**
+     * Returns the number of the entries in the current bundle file until the cursor.
+     * @return the number of the entries in the current bundle file until the cursor
+     */
+    public int getBundleEntryCount() {
+        return bundleEntryCount;
+    }
+
+    public void setBundleEntryCount(int bundleEntryCount) {
+        this.bundleEntryCount = bundleEntryCount;
+    }
+
+    /**
+     * Returns the byte length of the current bundle file until the cursor.
+     * @return the byte length of the current bundle file until the cursor
+     */
+    public long getBundleLength() {
+        return bundleLength;
+    }
+
+    public void setBundleLength(long bundleLength) {
+        this.bundleLength = bundleLength;
+    }
+
+    /**
+     * Returns the byte length of the index file of the current bundle file until the cursor.
+     * @return the byte length of the index file of the current bundle file until the cursor
+     */
+    public long getBundleIndexLength() {
+        return bundleIndexLength;
+    }
+
+    public void setBundleIndexLength(long bundleIndexLength) {
+        this.bundleIndexLength = bundleIndexLength;
+    }
+
+    /**
+     * Records the position of the {@code bundleWriter} of the current phase, or resets the position
+     * if {@code bundleWriter} is null, e.g, when moving to the next phase.
+     * @param bundleWriter the bundle writer of the current phase, which may be null
+     */
+    public void recordBundlePosition(final ContentNodeBundleWriter bundleWriter) {
+        bundleSeq = (bundleWriter != null) ? bundleWriter.getBundleSeq() : 0;
+        bundleEntryCount = (bundleWriter != null) ? bundleWriter.getBundleEntryCount() : 0;
+        bundleLength = (bundleWriter != null) ? bundleWriter.getBundleLength() : 0L;
+        bundleIndexLength = (bundleWriter != null) ? bundleWriter.getIndexLength() : 0L;
+    }
+
+    /**
+     * Resumes the {@code bundleWriter} of {@code phase} from the position recorded in this checkpoint if
+     * this checkpoint is in {@code phase}. Otherwise, resumes it from the beginning, deleting the bundle files
+     * written after this checkpoint.
+     * @param phase the phase of the {@code bundleWriter}
+     * @param bundleWriter the bundle writer to resume
+     * @throws IOException if IO exception occurs
+     */
+    public void resumeBundleWriter(final String phase, final ContentNodeBundleWriter bundleWriter)
+            throws IOException {
+        if (phase.equals(this.phase)) {
+            bundleWriter.resume(bundleSeq, bundleEntryCount, bundleLength, bundleIndexLength);
+        } else {
+            bundleWriter.resume(0, 0, 0L, 0L);
+        }
+    }
+
+    /**
+     * Moves the cursor to {@code cursor} in {@code phase} and saves this checkpoint to {@code checkpointFile}.
+     * @param phase the current phase
+     * @param cursor the index of the next item to process in the current phase
+     * @param batchCount the number of the items iterated until the cursor
+     * @param checkpointFile checkpoint file
+     * @param objectMapper {@link ObjectMapper} to write the checkpoint JSON
+     * @throws IOException if IO exception occurs
+     */
+    public void advance(final String phase, final int cursor, final int batchCount, final File checkpointFile,
+            final ObjectMapper objectMapper) throws IOException {
+        this.phase = phase;
+        this.cursor = cursor;
+        this.batchCount = batchCount;
+        save(checkpointFile, objectMapper);
+    }
+
+    /**
+     * Saves this checkpoint to {@code checkpointFile} in JSON.
+     * @param checkpointFile checkpoint file
+     * @param objectMapper {@link ObjectMapper} to write the checkpoint JSON
+     * @throws IOException if IO exception occurs
+     */
+    public void save(final File checkpointFile, final ObjectMapper objectMapper) throws IOException {
+        FileUtils.forceMkdirParent(checkpointFile);
+        final File tempFile = new File(checkpointFile.getParentFile(), checkpointFile.getName() + ".tmp");
+        objectMapper.writeValue(tempFile, this);
+        Files.move(tempFile.toPath(), checkpointFile.toPath(), StandardCopyOption.REPLACE_EXISTING,
+                StandardCopyOption.ATOMIC_MOVE);
+    }
+}
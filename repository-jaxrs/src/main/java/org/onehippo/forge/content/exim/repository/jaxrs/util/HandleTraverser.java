@@ -0,0 +1,157 @@
+/*
+ * Copyright 2024 Bloomreach B.V. (https://www.bloomreach.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onehippo.forge.content.exim.repository.jaxrs.util;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+
+import javax.jcr.Node;
+import javax.jcr.NodeIterator;
+import javax.jcr.RepositoryException;
+
+import org.hippoecm.repository.HippoStdNodeType;
+import org.hippoecm.repository.api.HippoNodeType;
+import org.onehippo.forge.content.exim.core.util.AntPathMatcher;
+import org.onehippo.forge.content.exim.core.util.CompiledPathMatcher;
+
+/**
+ * Depth-first traverser of the document handles under a root node, without depending on the query engine.
+ * <P>
+ * It descends only into folder nodes (type of either {@code hippostd:folder} or {@code hippostd:directory})
+ * under the root node, and returns the handle nodes one by one lazily, while it is being traversed.
+ * If a path matcher is given, it doesn't descend into a folder which cannot contain any included handle,
+ * that is, a folder in a subtree excluded by an exclude pattern ending with <code>/**</code>, or a folder out of
+ * the literal path prefixes of the include patterns. And it returns only the handles included by the path matcher.
+ * </P>
+ */
+public class HandleTraverser {
+
+    private final CompiledPathMatcher pathMatcher;
+
+    private final List<String> includePathPrefixes;
+
+    private final CompiledPathMatcher subtreeExcludeMatcher;
+
+    private final Deque<NodeIterator> stack = new ArrayDeque<>();
+
+    private Node rootNode;
+
+    private long traversedFolderCount;
+
+    /**
+     * Constructs with the root node to traverse and the handle path matcher.
+     * @param rootNode root node to traverse
+     * @param pathMatcher handle path matcher, or null if all the handles are included
+     */
+    public HandleTraverser(final Node rootNode, final CompiledPathMatcher pathMatcher) {
+        this.rootNode = rootNode;
+        this.pathMatcher = pathMatcher;
+        includePathPrefixes = ResultItemSetCollector.getQueryPathPrefixes(pathMatcher);
+        subtreeExcludeMatcher = ResultItemSetCollector.createSubtreeExcludeMatcher(pathMatcher);
+    }
+
+    /**
+     * Returns the next handle node in depth-first order, or null if there is no more handle to traverse.
+     * @return the next handle node in depth-first order, or null if there is no more handle to traverse
+     * @throws RepositoryException if repository exception occurs
+     */
+    public Node nextHandle() throws RepositoryException {
+        if (rootNode != null) {
+            final Node root = rootNode;
+            rootNode = null;
+
+            if (root.isNodeType(HippoNodeType.NT_HANDLE)) {
+                if (isHandleIncluded(root)) {
+                    return root;
+                }
+            } else if (isFolderToTraverse(root.getPath())) {
+                pushChildren(root);
+            }
+        }
+
+        while (!stack.isEmpty()) {
+            final NodeIterator nodeIt = stack.peek();
+
+            if (!nodeIt.hasNext()) {
+                stack.pop();
+                continue;
+            }
+
+            final Node node = nodeIt.nextNode();
+
+            if (node == null) {
+                continue;
+            }
+
+            if (node.isNodeType(HippoNodeType.NT_HANDLE)) {
+                if (isHandleIncluded(node)) {
+                    return node;
+                }
+            } else if ((node.isNodeType(HippoStdNodeType.NT_FOLDER) || node.isNodeType(HippoStdNodeType.NT_DIRECTORY))
+                    && isFolderToTraverse(node.getPath())) {
+                pushChildren(node);
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * Returns the number of the folder nodes descended into so far.
+     * @return the number of the folder nodes descended into so far
+     */
+    public long getTraversedFolderCount() {
+        return traversedFolderCount;
+    }
+
+    /**
+     * Returns true if any handle included by the path matcher can be found under the {@code folderPath}.
+     * @param folderPath folder path
+     * @return true if any handle included by the path matcher can be found under the {@code folderPath}
+     */
+    boolean isFolderToTraverse(final String folderPath) {
+        if (subtreeExcludeMatcher != null && subtreeExcludeMatcher.matchesExclude(folderPath)) {
+            return false;
+        }
+
+        if (includePathPrefixes == null) {
+            return true;
+        }
+
+        for (String prefix : includePathPrefixes) {
+            if (isSameOrDescendantPath(folderPath, prefix) || isSameOrDescendantPath(prefix, folderPath)) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    private boolean isHandleIncluded(final Node handle) throws RepositoryException {
+        return pathMatcher == null || pathMatcher.isIncluded(handle.getPath());
+    }
+
+    private void pushChildren(final Node folder) throws RepositoryException {
+        ++traversedFolderCount;
+        stack.push(folder.getNodes());
+    }
+
+    private static boolean isSameOrDescendantPath(final String path, final String basePath) {
+        return path.equals(basePath) || path.startsWith(basePath + AntPathMatcher.DEFAULT_PATH_SEPARATOR)
+                || AntPathMatcher.DEFAULT_PATH_SEPARATOR.equals(basePath);
+    }
+}
@@ -0,0 +1,281 @@
+/*
+ * Copyright 2024 Bloomreach B.V. (https://www.bloomreach.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onehippo.forge.content.exim.repository.jaxrs.util;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.apache.commons.io.FileUtils;
+
+/**
+ * Checkpoint journal of an import run, recording the names of the content entries of a package
+ * which were imported and saved successfully, so that a rerun with the same package can skip those entries.
+ * <P>
+ * The journal is a text file containing an entry name per line, kept in a local folder and named by the SHA-256
+ * checksum of the package and the checksum of the execution parameters affecting what gets imported, so a rerun
+ * with different parameters doesn't skip entries. The entries are first added as pending, and appended to
+ * the journal file only when {@link #commit()} is invoked after the pending changes are saved in the repository.
+ * </P>
+ * <P>
+ * An import run is supposed to {@link #lock()} the journal while running, so that another import of the same
+ * package with the same parameters is rejected instead of appending to and deleting the same journal file.
+ * </P>
+ */
+public class ImportCheckpointJournal {
+
+    private static final String JOURNAL_FILE_EXTENSION = ".journal";
+
+    /**
+     * The absolute paths of the journal files locked by the running imports.
+     */
+    private static final Set<String> LOCKED_JOURNAL_PATHS = ConcurrentHashMap.newKeySet();
+
+    private final File journalFile;
+
+    private boolean locked;
+
+    private final Set<String> completedEntryNames = new HashSet<>();
+
+    private final List<String> pendingEntryNames = new ArrayList<>();
+
+    /**
+     * Constructs with the journal file, loading the completed entry names from the file if it exists.
+     * @param journalFile journal file
+     * @throws IOException if IO exception occurs
+     */
+    public ImportCheckpointJournal(final File journalFile) throws IOException {
+        this.journalFile = journalFile;
+
+        if (journalFile.isFile()) {
+            for (String line : FileUtils.readLines(journalFile, StandardCharsets.UTF_8)) {
+                if (!line.isEmpty()) {
+                    completedEntryNames.add(line);
+                }
+            }
+        }
+    }
+
+    /**
+     * Creates a journal for the {@code packageFile} in the {@code journalFolder}, loading the completed entry names
+     * if there is a journal left by a previous run with the same package.
+     * @param journalFolder the folder where journal files are kept
+     * @param packageFile package file to import
+     * @return a journal for the {@code packageFile}
+     * @throws IOException if IO exception occurs
+     */
+    public static ImportCheckpointJournal forPackage(final File journalFolder, final File packageFile)
+            throws IOException {
+        return forPackage(journalFolder, packageFile, null);
+    }
+
+    /**
+     * Creates a journal for the {@code packageFile} imported with the parameters by {@code paramsChecksum}
+     * in the {@code journalFolder}, loading the completed entry names if there is a journal left by a previous run
+     * with the same package and the same parameters.
+     * @param journalFolder the folder where journal files are kept
+     * @param packageFile package file to import
+     * @param paramsChecksum checksum of the execution parameters affecting what gets imported, which may be null
+     * @return a journal for the {@code packageFile} and the {@code paramsChecksum}
+     * @throws IOException if IO exception occurs
+     */
+    public static ImportCheckpointJournal forPackage(final File journalFolder, final File packageFile,
+            final String paramsChecksum) throws IOException {
+        final String baseName = (paramsChecksum != null) ? computeChecksum(packageFile) + "-" + paramsChecksum
+                : computeChecksum(packageFile);
+        return new ImportCheckpointJournal(new File(journalFolder, baseName + JOURNAL_FILE_EXTENSION));
+    }
+
+    /**
+     * Deletes the journal files in the {@code journalFolder} which are not locked and were not modified for
+     * {@code maxAgeMillis}, left by the imports never rerun to complete.
+     * @param journalFolder the folder where journal files are kept
+     * @param maxAgeMillis the maximum age of a journal file in milliseconds
+     * @return the number of the deleted journal files
+     */
+    public static int deleteExpiredJournals(final File journalFolder, final long maxAgeMillis) {
+        final File[] journalFiles = journalFolder.listFiles(
+                (dir, name) -> name.endsWith(JOURNAL_FILE_EXTENSION));
+
+        if (journalFiles == null) {
+            return 0;
+        }
+
+        final long expiryMillis = System.currentTimeMillis() - maxAgeMillis;
+        int count = 0;
+
+        for (File journalFile : journalFiles) {
+            if (journalFile.lastModified() < expiryMillis
+                    && !LOCKED_JOURNAL_PATHS.contains(journalFile.getAbsolutePath())
+                    && FileUtils.deleteQuietly(journalFile)) {
+                ++count;
+            }
+        }
+
+        return count;
+    }
+
+    /**
+     * Returns the SHA-256 checksum of the {@code file} in hexadecimal string.
+     * @param file file
+     * @return the SHA-256 checksum of the {@code file} in hexadecimal string
+     * @throws IOException if IO exception occurs
+     */
+    public static String computeChecksum(final File file) throws IOException {
+        final MessageDigest digest = createDigest();
+        final byte[] buffer = new byte[8192];
+
+        try (InputStream input = new FileInputStream(file)) {
+            int len;
+
+            while ((len = input.read(buffer)) != -1) {
+                digest.update(buffer, 0, len);
+            }
+        }
+
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    /**
+     * Returns the SHA-256 checksum of the {@code bytes} in hexadecimal string.
+     * @param bytes bytes
+     * @return the SHA-256 checksum of the {@code bytes} in hexadecimal string
+     */
+    public static String computeChecksum(final byte[] bytes) {
+        return HexFormat.of().formatHex(createDigest().digest(bytes));
+    }
+
+    private static MessageDigest createDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Returns the journal file.
+     * @return the journal file
+     */
+    public File getJournalFile() {
+        return journalFile;
+    }
+
+    /**
+     * Locks the journal for this import run, unless another running import locked the same journal.
+     * @return true if locked, or false if another running import locked the same journal
+     */
+    public boolean lock() {
+        if (!locked) {
+            locked = LOCKED_JOURNAL_PATHS.add(journalFile.getAbsolutePath());
+        }
+
+        return locked;
+    }
+
+    /**
+     * Unlocks the journal locked by {@link #lock()}, when the import run ends.
+     */
+    public void unlock() {
+        if (locked) {
+            LOCKED_JOURNAL_PATHS.remove(journalFile.getAbsolutePath());
+            locked = false;
+        }
+    }
+
+    /**
+     * Returns true if the entry by {@code entryName} was already imported and saved by a previous run or this run.
+     * @param entryName content entry name
+     * @return true if the entry by {@code entryName} was already imported and saved
+     */
+    public boolean isCompleted(final String entryName) {
+        return completedEntryNames.contains(entryName);
+    }
+
+    /**
+     * Returns the number of the completed entries.
+     * @return the number of the completed entries
+     */
+    public int getCompletedCount() {
+        return completedEntryNames.size();
+    }
+
+    /**
+     * Adds the entry by {@code entryName}, imported successfully but not saved yet, as pending.
+     * @param entryName content entry name
+     */
+    public void addPending(final String entryName) {
+        pendingEntryNames.add(entryName);
+    }
+
+    /**
+     * Removes the entry by {@code entryName} from the pending entries, e.g, when it failed after being added.
+     * @param entryName content entry name
+     */
+    public void removePending(final String entryName) {
+        pendingEntryNames.remove(entryName);
+    }
+
+    /**
+     * Appends the pending entries to the journal file as completed. This is supposed to be invoked right after
+     * the pending changes are saved in the repository.
+     * @throws IOException if IO exception occurs
+     */
+    public void commit() throws IOException {
+        if (pendingEntryNames.isEmpty()) {
+            return;
+        }
+
+        FileUtils.forceMkdirParent(journalFile);
+
+        try (FileOutputStream output = new FileOutputStream(journalFile, true);
+                Writer writer = new BufferedWriter(new OutputStreamWriter(output, StandardCharsets.UTF_8))) {
+            for (String entryName : pendingEntryNames) {
+                writer.write(entryName);
+                writer.write('\n');
+            }
+
+            writer.flush();
+            output.getFD().sync();
+        }
+
+        completedEntryNames.addAll(pendingEntryNames);
+        pendingEntryNames.clear();
+    }
+
+    /**
+     * Deletes the journal file, e.g, when the import run is completed.
+     */
+    public void delete() {
+        pendingEntryNames.clear();
+        completedEntryNames.clear();
+        FileUtils.deleteQuietly(journalFile);
+    }
+}
@@ -0,0 +1,173 @@
+/*
+ * Copyright 2024 Bloomreach B.V. (https://www.bloomreach.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onehippo.forge.content.exim.repository.jaxrs.util;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.function.Predicate;
+
+import org.apache.commons.lang3.StringUtils;
+
+/**
+ * Utilities to plan and compare path-prefix leases, which a process takes on the subtrees it is going to write into,
+ * so that processes writing into overlapping subtrees run one after another while the others run in parallel.
+ * <P>
+ * A lease is a node path covering the subtree under it, including the node itself. Two leases overlap if one of
+ * them is the same as or an ancestor of the other.
+ * </P>
+ */
+public class PathLeases {
+
+    /**
+     * Default maximum number of the leases of a process, above which the leases are coarsened to their ancestors.
+     */
+    public static final int DEFAULT_MAX_LEASES = 100;
+
+    private PathLeases() {
+    }
+
+    /**
+     * Returns true if the {@code lease1} and the {@code lease2} overlap.
+     * @param lease1 a lease path
+     * @param lease2 another lease path
+     * @return true if the {@code lease1} and the {@code lease2} overlap
+     */
+    public static boolean overlaps(final String lease1, final String lease2) {
+        return isSameOrAncestor(lease1, lease2) || isSameOrAncestor(lease2, lease1);
+    }
+
+    /**
+     * Returns true if any of the {@code leases1} overlaps any of the {@code leases2}.
+     * @param leases1 lease paths
+     * @param leases2 other lease paths
+     * @return true if any of the {@code leases1} overlaps any of the {@code leases2}
+     */
+    public static boolean overlaps(final Collection<String> leases1, final Collection<String> leases2) {
+        for (String lease1 : leases1) {
+            for (String lease2 : leases2) {
+                if (overlaps(lease1, lease2)) {
+                    return true;
+                }
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * Plans the leases covering the subtrees to write the content at the {@code contentPaths} into.
+     * The lease of a content is the deepest existing ancestor of the content, as the missing folders between
+     * are to be created as well. The leases under another lease are left out, and if more than {@code maxLeases}
+     * leases are left, the leases are coarsened to their parents until not.
+     * @param contentPaths the paths of the content to write, e.g, document handle paths
+     * @param nodeExists predicate telling if a node exists at a path
+     * @param maxLeases maximum number of the leases
+     * @return the planned leases in path order
+     */
+    public static Set<String> plan(final Collection<String> contentPaths, final Predicate<String> nodeExists,
+            final int maxLeases) {
+        final Map<String, Boolean> existences = new HashMap<>();
+        Set<String> leases = new TreeSet<>();
+
+        for (String contentPath : contentPaths) {
+            String lease = getParentPath(contentPath);
+
+            while (!"/".equals(lease) && !existences.computeIfAbsent(lease, nodeExists::test)) {
+                lease = getParentPath(lease);
+            }
+
+            leases.add(lease);
+        }
+
+        leases = removeDescendants(leases);
+
+        while (leases.size() > Math.max(1, maxLeases)) {
+            final Set<String> parents = new TreeSet<>();
+
+            for (String lease : leases) {
+                parents.add(getParentPath(lease));
+            }
+
+            leases = removeDescendants(parents);
+        }
+
+        return leases;
+    }
+
+    /**
+     * Returns the XPath query path of the node at the {@code lease}, starting with <code>/jcr:root</code> and
+     * encoding each name in ISO 9075, e.g, to query the descendants of the lease by appending
+     * <code>//element(*)</code> to it.
+     * @param lease lease path
+     * @return the XPath query path of the node at the {@code lease}
+     */
+    public static String toXPathQueryPath(final String lease) {
+        final StringBuilder sb = new StringBuilder("/jcr:root");
+
+        for (String name : StringUtils.split(lease, '/')) {
+            sb.append('/');
+            encodeXPathName(name, sb);
+        }
+
+        return sb.toString();
+    }
+
+    private static void encodeXPathName(final String name, final StringBuilder sb) {
+        for (int i = 0; i < name.length(); i++) {
+            final char c = name.charAt(i);
+            final boolean valid = (i == 0) ? (Character.isLetter(c) || c == '_' || c == ':')
+                    : (Character.isLetterOrDigit(c) || c == '_' || c == ':' || c == '-' || c == '.');
+
+            // an underscore followed by 'x' is escaped not to be decoded as an escape sequence.
+            if (!valid || (c == '_' && name.startsWith("_x", i))) {
+                sb.append("_x").append(String.format("%04X", (int) c)).append('_');
+            } else {
+                sb.append(c);
+            }
+        }
+    }
+
+    private static Set<String> removeDescendants(final Set<String> leases) {
+        final Set<String> result = new TreeSet<>();
+
+        for (String lease : leases) {
+            boolean covered = false;
+
+            for (String ancestor = lease; !covered && !"/".equals(ancestor); ) {
+                ancestor = getParentPath(ancestor);
+                covered = leases.contains(ancestor);
+            }
+
+            if (!covered) {
+                result.add(lease);
+            }
+        }
+
+        return result;
+    }
+
+    private static boolean isSameOrAncestor(final String ancestor, final String path) {
+        return "/".equals(ancestor) || ancestor.equals(path) || path.startsWith(ancestor + "/");
+    }
+
+    private static String getParentPath(final String path) {
+        final String parentPath = StringUtils.substringBeforeLast(StringUtils.removeEnd(path, "/"), "/");
+        return parentPath.isEmpty() ? "/" : parentPath;
+    }
+}
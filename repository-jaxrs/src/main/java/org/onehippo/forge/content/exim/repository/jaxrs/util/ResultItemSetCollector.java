@@ -15,19 +15,30 @@
  */
 package org.onehippo.forge.content.exim.repository.jaxrs.util;
 
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashSet;
 import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
 import javax.jcr.Node;
-import javax.jcr.NodeIterator;
+import javax.jcr.Property;
 import javax.jcr.RepositoryException;
 import javax.jcr.Session;
+import javax.jcr.Value;
 import javax.jcr.query.Query;
 import javax.jcr.query.QueryResult;
+import javax.jcr.query.Row;
+import javax.jcr.query.RowIterator;
 
+import org.apache.commons.lang3.ArrayUtils;
 import org.apache.commons.lang3.StringUtils;
+import org.onehippo.forge.content.exim.core.util.AntPathMatcher;
+import org.onehippo.forge.content.exim.core.util.CompiledPathMatcher;
 import org.onehippo.forge.content.exim.core.util.HippoNodeUtils;
 import org.onehippo.forge.content.exim.repository.jaxrs.param.ExecutionParams;
 import org.onehippo.forge.content.exim.repository.jaxrs.param.QueriesAndPaths;
@@ -39,6 +50,22 @@ import org.onehippo.forge.content.exim.repository.jaxrs.param.ResultItem;
  */
 public class ResultItemSetCollector {
 
+    /**
+     * Path segment name which can be put in an XPath query path constraint without escaping.
+     */
+    private static final String SAFE_XPATH_NAME = "[A-Za-z_][A-Za-z0-9_.\\-]*(?::[A-Za-z_][A-Za-z0-9_.\\-]*)?";
+
+    private static final Pattern SAFE_XPATH_NAME_PATTERN = Pattern.compile(SAFE_XPATH_NAME);
+
+    /**
+     * XPath query pattern of either {@code /jcr:root/some/path//rest} or {@code //rest}, capturing the scope path
+     * and the rest of the query after the descendant axis.
+     */
+    private static final Pattern DESCENDANT_XPATH_QUERY_PATTERN = Pattern
+            .compile("^(?:/jcr:root((?:/" + SAFE_XPATH_NAME + ")*))?//(.+)$", Pattern.DOTALL);
+
+    private static final String SUBTREE_PATTERN_SUFFIX = "/**";
+
     private ResultItemSetCollector() {
     }
 
@@ -52,27 +79,104 @@ public class ResultItemSetCollector {
      */
     public static Result collectItemsFromExecutionParams(final Session session, final ExecutionParams params)
             throws RepositoryException {
+        return collectItemsFromExecutionParams(session, params, null, null);
+    }
+
+    /**
+     * Collect {@link ResultItem}s from the given {@code params} by picking nodes from the given paths or querying
+     * nodes from the given queries, filtering the handle paths by the given path matchers.
+     * <P>
+     * The queries are narrowed down to the literal path prefixes of the include patterns if possible, and each
+     * query result path is checked before its node gets loaded. So, the nodes out of the included or in the
+     * excluded paths are not loaded at all.
+     * </P>
+     * <P>
+     * If the {@link ExecutionParams#getCollectionMode()} is {@link ExecutionParams#COLLECTION_MODE_ROWS},
+     * the items from the queries are collected from the query result rows without loading any node.
+     * See {@link #fillResultItemPathsFromQueries(Session, Collection, boolean, CompiledPathMatcher, Set, Result)}.
+     * </P>
+     * <P>
+     * The items under the root paths, {@link QueriesAndPaths#getRoots()}, are collected by traversing the folders
+     * without queries. See {@link #fillResultItemsByTraversal(Session, Collection, boolean, CompiledPathMatcher, Set, Result)}.
+     * </P>
+     * <P>
+     * If the {@link ExecutionParams#getShardCount()} is greater than 1, only the items in the shard at
+     * {@link ExecutionParams#getShardIndex()} are kept. See {@link #isInShard(String, int, int)}.
+     * </P>
+     * @param session JCR session
+     * @param params ExecutionParams instance
+     * @param binaryPathMatcher binary handle path matcher, or null if all the binary paths are included
+     * @param documentPathMatcher document handle path matcher, or null if all the document paths are included
+     * @return collected {@link ResultItem}s
+     * @throws RepositoryException if repository exception occurs
+     */
+    public static Result collectItemsFromExecutionParams(final Session session, final ExecutionParams params,
+            final CompiledPathMatcher binaryPathMatcher, final CompiledPathMatcher documentPathMatcher)
+            throws RepositoryException {
         Result result = new Result();
+        final boolean pathsOnly = ExecutionParams.COLLECTION_MODE_ROWS.equals(params.getCollectionMode());
 
         QueriesAndPaths binaries = params.getBinaries();
 
         if (binaries != null) {
             Set<String> binaryPathsCache = new LinkedHashSet<>();
-            fillResultItemsForNodePaths(session, binaries.getPaths(), true, binaryPathsCache, result);
-            fillResultItemsFromQueries(session, binaries.getQueries(), true, binaryPathsCache, result);
+            fillResultItemsForNodePaths(session, binaries.getPaths(), true, binaryPathMatcher, binaryPathsCache,
+                    result);
+            fillResultItemsByTraversal(session, binaries.getRoots(), true, binaryPathMatcher, binaryPathsCache,
+                    result);
+            fillResultItemsFromQueries(session, binaries.getQueries(), true, binaryPathMatcher, pathsOnly,
+                    binaryPathsCache, result);
         }
 
         QueriesAndPaths documents = params.getDocuments();
 
         if (documents != null) {
             Set<String> documentPathsCache = new LinkedHashSet<>();
-            fillResultItemsForNodePaths(session, documents.getPaths(), false, documentPathsCache, result);
-            fillResultItemsFromQueries(session, documents.getQueries(), false, documentPathsCache, result);
+            fillResultItemsForNodePaths(session, documents.getPaths(), false, documentPathMatcher,
+                    documentPathsCache, result);
+            fillResultItemsByTraversal(session, documents.getRoots(), false, documentPathMatcher,
+                    documentPathsCache, result);
+            fillResultItemsFromQueries(session, documents.getQueries(), false, documentPathMatcher, pathsOnly,
+                    documentPathsCache, result);
+        }
+
+        final int shardCount = params.getShardCount();
+
+        if (shardCount > 1) {
+            final int shardIndex = params.getShardIndex();
+
+            if (shardIndex < 0 || shardIndex >= shardCount) {
+                throw new IllegalArgumentException(
+                        "Invalid shardIndex: " + shardIndex + ". It must be in [0, " + shardCount + ").");
+            }
+
+            final List<ResultItem> shardItems = new ArrayList<>();
+
+            for (ResultItem item : result.getItems()) {
+                if (isInShard(item.getPath(), shardIndex, shardCount)) {
+                    shardItems.add(item);
+                }
+            }
+
+            result.setItems(shardItems);
         }
 
         return result;
     }
 
+    /**
+     * Returns true if the handle at {@code handlePath} belongs to the shard at {@code shardIndex} out of
+     * {@code shardCount} shards. The shard is decided by the hash code of the handle path, which is known in
+     * every collection mode without loading any node, and which is the same in every cluster node.
+     * @param handlePath handle path
+     * @param shardIndex zero-based shard index
+     * @param shardCount the number of shards
+     * @return true if the handle at {@code handlePath} belongs to the shard at {@code shardIndex}
+     */
+    public static boolean isInShard(final String handlePath, final int shardIndex, final int shardCount) {
+        return Math.floorMod(handlePath.hashCode(), shardCount) == shardIndex;
+    }
+
     /**
      * Collect nodes from {@code nodePaths} with validations and fill {@link ResultItem} instances in {@code resultOut}.
      * @param session JCR session
@@ -85,6 +189,26 @@ public class ResultItemSetCollector {
      */
     public static void fillResultItemsForNodePaths(Session session, Collection<String> nodePaths,
             boolean binary, Set<String> pathsCache, Result resultOut) throws RepositoryException {
+        fillResultItemsForNodePaths(session, nodePaths, binary, null, pathsCache, resultOut);
+    }
+
+    /**
+     * Collect nodes from {@code nodePaths} with validations and fill {@link ResultItem} instances in {@code resultOut}
+     * only for the handle paths included by the {@code pathMatcher}.
+     * @param session JCR session
+     * @param nodePaths document or binary node paths to validate
+     * @param binary flag whether the node paths are for binary content or not
+     * @param pathMatcher handle path matcher, or null if all the handle paths are included
+     * @param pathsCache node path cache set, which can be useful if you want to avoid putting the same items multiple times.
+     *                   This can be null.
+     * @param resultOut {@link Result} instance
+     * @throws RepositoryException if repository exception occurs
+     */
+    public static void fillResultItemsForNodePaths(Session session, Collection<String> nodePaths,
+            boolean binary, CompiledPathMatcher pathMatcher, Set<String> pathsCache, Result resultOut)
+            throws RepositoryException {
+        final CompiledPathMatcher subtreeExcludeMatcher = createSubtreeExcludeMatcher(pathMatcher);
+
         if (pathsCache == null) {
             pathsCache = new HashSet<>();
         }
@@ -94,6 +218,10 @@ public class ResultItemSetCollector {
                 continue;
             }
 
+            if (!isCandidatePathIncluded(path, pathMatcher, subtreeExcludeMatcher)) {
+                continue;
+            }
+
             if (!session.nodeExists(path)) {
                 continue;
             }
@@ -110,6 +238,10 @@ public class ResultItemSetCollector {
                 continue;
             }
 
+            if (pathMatcher != null && !pathMatcher.isIncluded(handlePath)) {
+                continue;
+            }
+
             Node firstVariant = HippoNodeUtils.getFirstVariantNode(handle);
 
             if (firstVariant == null) {
@@ -122,6 +254,56 @@ public class ResultItemSetCollector {
         }
     }
 
+    /**
+     * Collect handle nodes by traversing the folders under the {@code rootPaths} depth-first by {@link HandleTraverser}
+     * without queries, and fill {@link ResultItem} instances in {@code resultOut} only for the handle paths
+     * included by the {@code pathMatcher}. So, it doesn't depend on the freshness of the search index.
+     * <P>
+     * The primary type of each item is left null not to load any variant node, so the caller is supposed to find it
+     * when it loads the variant node to process the item.
+     * </P>
+     * @param session JCR session
+     * @param rootPaths root node paths to traverse, usually folder paths
+     * @param binary flag whether the node paths are for binary content or not
+     * @param pathMatcher handle path matcher, or null if all the handle paths are included
+     * @param pathsCache node path cache set, which can be useful if you want to avoid putting the same items multiple times.
+     *                   This can be null.
+     * @param resultOut {@link Result} instance
+     * @throws RepositoryException if repository exception occurs
+     */
+    public static void fillResultItemsByTraversal(Session session, Collection<String> rootPaths,
+            boolean binary, CompiledPathMatcher pathMatcher, Set<String> pathsCache, Result resultOut)
+            throws RepositoryException {
+        if (pathsCache == null) {
+            pathsCache = new HashSet<>();
+        }
+
+        for (String rootPath : rootPaths) {
+            if (StringUtils.isBlank(rootPath) || !session.nodeExists(rootPath)) {
+                continue;
+            }
+
+            final HandleTraverser traverser = new HandleTraverser(session.getNode(rootPath), pathMatcher);
+
+            for (Node handle = traverser.nextHandle(); handle != null; handle = traverser.nextHandle()) {
+                String handlePath = handle.getPath();
+
+                if ((binary && !HippoNodeUtils.isBinaryPath(handlePath))
+                        || (!binary && !HippoNodeUtils.isDocumentPath(handlePath))) {
+                    continue;
+                }
+
+                if (pathsCache.contains(handlePath)) {
+                    continue;
+                }
+
+                pathsCache.add(handlePath);
+                ResultItem item = new ResultItem(handlePath, null);
+                resultOut.addItem(item);
+            }
+        }
+    }
+
     /**
      * Collect nodes by executing the {@code queries} with validations and fill {@link ResultItem} instances in
      * {@code resultOut}.
@@ -135,6 +317,215 @@ public class ResultItemSetCollector {
      */
     public static void fillResultItemsFromQueries(Session session, Collection<String> queries,
             boolean binary, Set<String> pathsCache, Result resultOut) throws RepositoryException {
+        fillResultItemsFromQueries(session, queries, binary, null, pathsCache, resultOut);
+    }
+
+    /**
+     * Collect nodes by executing the {@code queries} with validations and fill {@link ResultItem} instances in
+     * {@code resultOut} only for the handle paths included by the {@code pathMatcher}.
+     * <P>
+     * Each query is narrowed down to the literal path prefixes of the include patterns of the {@code pathMatcher}
+     * by {@link #narrowQueryToPathPrefixes(String, Collection)} if possible, and each query result row path is checked
+     * before its node gets loaded.
+     * </P>
+     * @param session JCR session
+     * @param queries JCR query statements for documents or binaries
+     * @param binary flag whether the node paths are for binary content or not
+     * @param pathMatcher handle path matcher, or null if all the handle paths are included
+     * @param pathsCache node path cache set, which can be useful if you want to avoid putting the same items multiple times.
+     *                   This can be null.
+     * @param resultOut {@link Result} instance
+     * @throws RepositoryException if repository exception occurs
+     */
+    public static void fillResultItemsFromQueries(Session session, Collection<String> queries,
+            boolean binary, CompiledPathMatcher pathMatcher, Set<String> pathsCache, Result resultOut)
+            throws RepositoryException {
+        fillResultItemsFromQueries(session, queries, binary, pathMatcher, false, pathsCache, resultOut);
+    }
+
+    /**
+     * Collect handle paths by executing the {@code queries} and fill {@link ResultItem} instances in
+     * {@code resultOut} only for the handle paths included by the {@code pathMatcher}, without loading any node.
+     * <P>
+     * Each handle path is derived lexically from the query result row path, which is either a handle path or
+     * a variant path whose node name is the same as the handle node name. The primary type of an item is read from
+     * the row if the row is for a variant, or left null otherwise. So, the caller is supposed to check if the
+     * node at the item path is really a handle when it loads the node to process the item.
+     * </P>
+     * @param session JCR session
+     * @param queries JCR query statements for documents or binaries
+     * @param binary flag whether the node paths are for binary content or not
+     * @param pathMatcher handle path matcher, or null if all the handle paths are included
+     * @param pathsCache node path cache set, which can be useful if you want to avoid putting the same items multiple times.
+     *                   This can be null.
+     * @param resultOut {@link Result} instance
+     * @throws RepositoryException if repository exception occurs
+     */
+    public static void fillResultItemPathsFromQueries(Session session, Collection<String> queries,
+            boolean binary, CompiledPathMatcher pathMatcher, Set<String> pathsCache, Result resultOut)
+            throws RepositoryException {
+        fillResultItemsFromQueries(session, queries, binary, pathMatcher, true, pathsCache, resultOut);
+    }
+
+    /**
+     * Returns the literal path prefixes of all the include patterns of the {@code pathMatcher}, under which
+     * all the included paths can be found, without any prefix being under another one.
+     * Returns null if there is no include pattern or any include pattern doesn't start with a literal path segment
+     * which can be put in a query path constraint.
+     * @param pathMatcher path matcher
+     * @return the literal path prefixes of all the include patterns, or null if it cannot narrow down the paths
+     */
+    public static List<String> getQueryPathPrefixes(final CompiledPathMatcher pathMatcher) {
+        if (pathMatcher == null || pathMatcher.getIncludes().isEmpty()) {
+            return null;
+        }
+
+        final List<String> prefixes = new ArrayList<>();
+
+        for (String include : pathMatcher.getIncludes()) {
+            final String prefix = getQueryPathPrefix(include);
+
+            if (StringUtils.isEmpty(prefix)) {
+                return null;
+            }
+
+            prefixes.add(prefix);
+        }
+
+        final List<String> topPrefixes = new ArrayList<>();
+
+        for (String prefix : prefixes) {
+            boolean nested = false;
+
+            for (String other : prefixes) {
+                if (isSameOrDescendantPath(prefix, other) && (!prefix.equals(other) || topPrefixes.contains(other))) {
+                    nested = true;
+                    break;
+                }
+            }
+
+            if (!nested) {
+                topPrefixes.add(prefix);
+            }
+        }
+
+        return topPrefixes;
+    }
+
+    /**
+     * Narrows down the XPath {@code query} in the form of either {@code /jcr:root/some/path//rest} or
+     * {@code //rest} to the {@code pathPrefixes}, by replacing its path constraint by each path prefix.
+     * If a path prefix is an ancestor of the query path constraint, the query is kept as it is for the prefix.
+     * If a path prefix is not related to the query path constraint at all, no query is returned for the prefix.
+     * If the {@code query} is not in those forms, returns a list containing only the {@code query}.
+     * <P>
+     * Note that an ordering clause in the {@code query} applies only to each narrowed query.
+     * </P>
+     * @param query XPath query statement
+     * @param pathPrefixes literal path prefixes, not containing any other prefix
+     * @return narrowed queries
+     */
+    public static List<String> narrowQueryToPathPrefixes(final String query, final Collection<String> pathPrefixes) {
+        final Matcher m = DESCENDANT_XPATH_QUERY_PATTERN.matcher(query);
+
+        if (!m.matches()) {
+            return Collections.singletonList(query);
+        }
+
+        final String scopePath = StringUtils.defaultString(m.group(1));
+        final String rest = m.group(2);
+        final Set<String> narrowedQueries = new LinkedHashSet<>();
+
+        for (String prefix : pathPrefixes) {
+            if (isSameOrDescendantPath(prefix, scopePath)) {
+                narrowedQueries.add("/jcr:root" + prefix + "//" + rest);
+            } else if (isSameOrDescendantPath(scopePath, prefix)) {
+                narrowedQueries.add(query);
+            }
+        }
+
+        return new ArrayList<>(narrowedQueries);
+    }
+
+    /**
+     * Returns true if the {@code nodePath}, which is either a document handle path or a path under a document handle,
+     * may belong to a handle included by the {@code pathMatcher}. This is to check the path before loading the node,
+     * as the handle path is not known yet.
+     * <P>
+     * It is regarded as included if any of the node path or its ancestor paths is included, unless the node path
+     * is in a subtree excluded by an exclude pattern ending with <code>/**</code>.
+     * </P>
+     * @param nodePath node path
+     * @param pathMatcher handle path matcher, or null if all the handle paths are included
+     * @param subtreeExcludeMatcher path matcher with the exclude patterns ending with <code>/**</code> only,
+     *        or null if there is none
+     * @return true if the {@code nodePath} may belong to a handle included by the {@code pathMatcher}
+     */
+    static boolean isCandidatePathIncluded(final String nodePath, final CompiledPathMatcher pathMatcher,
+            final CompiledPathMatcher subtreeExcludeMatcher) {
+        if (pathMatcher == null) {
+            return true;
+        }
+
+        if (subtreeExcludeMatcher != null && subtreeExcludeMatcher.matchesExclude(nodePath)) {
+            return false;
+        }
+
+        for (String path = nodePath; StringUtils.isNotEmpty(path); path = StringUtils.substringBeforeLast(path,
+                AntPathMatcher.DEFAULT_PATH_SEPARATOR)) {
+            if (pathMatcher.isIncluded(path)) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    static CompiledPathMatcher createSubtreeExcludeMatcher(final CompiledPathMatcher pathMatcher) {
+        if (pathMatcher == null) {
+            return null;
+        }
+
+        final List<String> subtreeExcludes = new ArrayList<>();
+
+        for (String exclude : pathMatcher.getExcludes()) {
+            if (StringUtils.endsWith(exclude, SUBTREE_PATTERN_SUFFIX)) {
+                subtreeExcludes.add(exclude);
+            }
+        }
+
+        return (subtreeExcludes.isEmpty()) ? null : new CompiledPathMatcher(null, subtreeExcludes);
+    }
+
+    /**
+     * Returns the handle path derived lexically from the {@code nodePath}, which is either a handle path or
+     * a variant path whose node name is the same as the handle node name.
+     * @param nodePath either a handle path or a variant path
+     * @return the handle path derived lexically from the {@code nodePath}
+     */
+    public static String getHandlePathOfRowPath(final String nodePath) {
+        final String parentPath = StringUtils.substringBeforeLast(nodePath, "/");
+
+        if (StringUtils.isEmpty(parentPath)) {
+            return nodePath;
+        }
+
+        final String nodeName = StringUtils.substringBefore(StringUtils.substringAfterLast(nodePath, "/"), "[");
+        final String parentName = StringUtils.substringBefore(StringUtils.substringAfterLast(parentPath, "/"), "[");
+
+        return (nodeName.equals(parentName)) ? parentPath : nodePath;
+    }
+
+    private static void fillResultItemsFromQueries(Session session, Collection<String> queries,
+            boolean binary, CompiledPathMatcher pathMatcher, boolean pathsOnly, Set<String> pathsCache,
+            Result resultOut) throws RepositoryException {
+        final List<String> pathPrefixes = getQueryPathPrefixes(pathMatcher);
+        final CompiledPathMatcher subtreeExcludeMatcher = createSubtreeExcludeMatcher(pathMatcher);
+
+        if (pathsCache == null) {
+            pathsCache = new HashSet<>();
+        }
+
         for (String query : queries) {
             if (StringUtils.isBlank(query)) {
                 continue;
@@ -144,45 +535,152 @@ public class ResultItemSetCollector {
                 continue;
             }
 
-            final String language = (StringUtils.startsWithIgnoreCase(query, "select")) ? Query.SQL : Query.XPATH;
-            Query jcrQuery = session.getWorkspace().getQueryManager().createQuery(query, language);
-            QueryResult queryResult = jcrQuery.execute();
+            final List<String> narrowedQueries = (pathPrefixes != null)
+                    ? narrowQueryToPathPrefixes(query, pathPrefixes) : Collections.singletonList(query);
 
-            for (NodeIterator nodeIt = queryResult.getNodes(); nodeIt.hasNext();) {
-                Node node = nodeIt.nextNode();
-
-                if (node == null) {
-                    continue;
+            for (String narrowedQuery : narrowedQueries) {
+                if (pathsOnly) {
+                    fillResultItemPathsFromQuery(session, narrowedQuery, binary, pathMatcher, pathsCache,
+                            resultOut);
+                } else {
+                    fillResultItemsFromQuery(session, narrowedQuery, binary, pathMatcher, subtreeExcludeMatcher,
+                            pathsCache, resultOut);
                 }
+            }
+        }
+    }
 
-                String nodePath = node.getPath();
+    private static void fillResultItemsFromQuery(Session session, String query, boolean binary,
+            CompiledPathMatcher pathMatcher, CompiledPathMatcher subtreeExcludeMatcher, Set<String> pathsCache,
+            Result resultOut) throws RepositoryException {
+        final String language = (StringUtils.startsWithIgnoreCase(query, "select")) ? Query.SQL : Query.XPATH;
+        Query jcrQuery = session.getWorkspace().getQueryManager().createQuery(query, language);
+        QueryResult queryResult = jcrQuery.execute();
 
-                if ((binary && !HippoNodeUtils.isBinaryPath(nodePath)) || (!binary && !HippoNodeUtils.isDocumentPath(nodePath))) {
-                    continue;
-                }
+        for (RowIterator rowIt = queryResult.getRows(); rowIt.hasNext();) {
+            Row row = rowIt.nextRow();
+            String nodePath = row.getPath();
 
-                Node handle = HippoNodeUtils.getHippoDocumentHandle(node);
+            if (nodePath == null) {
+                continue;
+            }
 
-                if (handle == null) {
-                    continue;
-                }
+            if ((binary && !HippoNodeUtils.isBinaryPath(nodePath)) || (!binary && !HippoNodeUtils.isDocumentPath(nodePath))) {
+                continue;
+            }
 
-                String handlePath = handle.getPath();
+            if (!isCandidatePathIncluded(nodePath, pathMatcher, subtreeExcludeMatcher)) {
+                continue;
+            }
 
-                if (pathsCache.contains(handlePath)) {
-                    continue;
-                }
+            Node node = row.getNode();
 
-                Node firstVariant = HippoNodeUtils.getFirstVariantNode(handle);
+            if (node == null) {
+                continue;
+            }
 
-                if (firstVariant == null) {
-                    continue;
-                }
+            Node handle = HippoNodeUtils.getHippoDocumentHandle(node);
 
-                pathsCache.add(handlePath);
-                ResultItem item = new ResultItem(handlePath, firstVariant.getPrimaryNodeType().getName());
-                resultOut.addItem(item);
+            if (handle == null) {
+                continue;
+            }
+
+            String handlePath = handle.getPath();
+
+            if (pathsCache.contains(handlePath)) {
+                continue;
+            }
+
+            if (pathMatcher != null && !pathMatcher.isIncluded(handlePath)) {
+                continue;
+            }
+
+            Node firstVariant = HippoNodeUtils.getFirstVariantNode(handle);
+
+            if (firstVariant == null) {
+                continue;
+            }
+
+            pathsCache.add(handlePath);
+            ResultItem item = new ResultItem(handlePath, firstVariant.getPrimaryNodeType().getName());
+            resultOut.addItem(item);
+        }
+    }
+
+    private static void fillResultItemPathsFromQuery(Session session, String query, boolean binary,
+            CompiledPathMatcher pathMatcher, Set<String> pathsCache, Result resultOut) throws RepositoryException {
+        final String language = (StringUtils.startsWithIgnoreCase(query, "select")) ? Query.SQL : Query.XPATH;
+        Query jcrQuery = session.getWorkspace().getQueryManager().createQuery(query, language);
+        QueryResult queryResult = jcrQuery.execute();
+        final boolean primaryTypeColumn = ArrayUtils.contains(queryResult.getColumnNames(),
+                Property.JCR_PRIMARY_TYPE);
+
+        for (RowIterator rowIt = queryResult.getRows(); rowIt.hasNext();) {
+            Row row = rowIt.nextRow();
+            String nodePath = row.getPath();
+
+            if (nodePath == null) {
+                continue;
+            }
+
+            if ((binary && !HippoNodeUtils.isBinaryPath(nodePath)) || (!binary && !HippoNodeUtils.isDocumentPath(nodePath))) {
+                continue;
+            }
+
+            String handlePath = getHandlePathOfRowPath(nodePath);
+
+            if (pathsCache.contains(handlePath)) {
+                continue;
+            }
+
+            if (pathMatcher != null && !pathMatcher.isIncluded(handlePath)) {
+                continue;
+            }
+
+            String primaryType = null;
+
+            if (primaryTypeColumn && !handlePath.equals(nodePath)) {
+                Value value = row.getValue(Property.JCR_PRIMARY_TYPE);
+                primaryType = (value != null) ? value.getString() : null;
+            }
+
+            pathsCache.add(handlePath);
+            ResultItem item = new ResultItem(handlePath, primaryType);
+            resultOut.addItem(item);
+        }
+    }
+
+    /**
+     * Returns the literal path prefix of the {@code include} pattern, under which all the paths matched by the pattern
+     * can be found as descendants, or null if the pattern is not absolute or has no such a prefix.
+     * A literal path prefix followed only by <code>/**</code> is regarded as a folder, not as a document handle itself.
+     */
+    private static String getQueryPathPrefix(final String include) {
+        if (!StringUtils.startsWith(include, AntPathMatcher.DEFAULT_PATH_SEPARATOR)) {
+            return null;
+        }
+
+        final String[] pattDirs = AntPathMatcher.tokenizeToStringArray(include,
+                AntPathMatcher.DEFAULT_PATH_SEPARATOR);
+        final String[] prefixDirs = CompiledPathMatcher.getLiteralPrefixDirs(include);
+        // a fully literal pattern matches the handle path itself, so its parent path should be the constraint.
+        final int count = (prefixDirs.length == pattDirs.length) ? prefixDirs.length - 1 : prefixDirs.length;
+
+        final StringBuilder sb = new StringBuilder();
+
+        for (int i = 0; i < count; i++) {
+            if (!SAFE_XPATH_NAME_PATTERN.matcher(prefixDirs[i]).matches()) {
+                break;
             }
+
+            sb.append(AntPathMatcher.DEFAULT_PATH_SEPARATOR).append(prefixDirs[i]);
         }
+
+        return (sb.length() > 0) ? sb.toString() : null;
+    }
+
+    private static boolean isSameOrDescendantPath(final String path, final String basePath) {
+        return StringUtils.isEmpty(basePath) || path.equals(basePath)
+                || path.startsWith(basePath + AntPathMatcher.DEFAULT_PATH_SEPARATOR);
     }
 }
@@ -19,11 +19,18 @@ import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.util.Enumeration;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Properties;
+import java.util.Set;
 
 import org.apache.commons.compress.archivers.zip.ZipArchiveEntry;
 import org.apache.commons.compress.archivers.zip.ZipArchiveOutputStream;
+import org.apache.commons.compress.archivers.zip.ZipFile;
 import org.apache.commons.io.IOUtils;
 import org.apache.commons.lang3.StringUtils;
+import org.onehippo.forge.content.exim.core.util.ContentNodeBundleWriter;
 
 /**
  * ZIP Compressing Utilities.
@@ -35,6 +42,19 @@ import org.apache.commons.lang3.StringUtils;
  */
 public class ZipCompressUtils {
 
+    /**
+     * ZIP entry name of the shard header properties in a shard archive, containing {@code shardIndex} and
+     * {@code shardCount} properties.
+     */
+    public static final String SHARD_INFO_ENTRY_NAME = "EXIM-INF/shard.properties";
+
+    /**
+     * The prefix of the ZIP entry names of the EXIM-INF files of each shard in a merged archive.
+     */
+    public static final String MERGED_SHARDS_ENTRY_NAME_PREFIX = "EXIM-INF/shards/shard-";
+
+    private static final String EXIM_INF_ENTRY_NAME_PREFIX = "EXIM-INF/";
+
     private ZipCompressUtils() {
     }
 
@@ -126,4 +146,110 @@ public class ZipCompressUtils {
             }
         }
     }
+
+    /**
+     * Merges the shard archives, each of which was exported for a shard, into {@code zipOutput}.
+     * <P>
+     * The content entries are copied as they are, except that the same entry in multiple archives
+     * (e.g, a binary referred to by documents in multiple shards) is copied only once from the first archive.
+     * The bundle files at the root and their index files are renamed to keep their name prefix with the shard index,
+     * e.g, <code>documents-shard1-0001.ndjson</code> and <code>documents-shard1-0001.idx</code>, not to collide with
+     * each other. And the files directly under
+     * <code>EXIM-INF/</code> such as logs and the shard header are moved to <code>EXIM-INF/shards/shard-N/</code>,
+     * where <code>N</code> is the shard index in the shard header, or the index of the archive in
+     * {@code shardZipFiles} if there is no shard header.
+     * </P>
+     * @param shardZipFiles shard archive files
+     * @param zipOutput ZipArchiveOutputStream instance
+     * @throws IOException if IO exception occurs
+     */
+    public static void mergeShardArchives(List<File> shardZipFiles, ZipArchiveOutputStream zipOutput)
+            throws IOException {
+        final Set<String> entryNames = new HashSet<>();
+
+        for (int i = 0; i < shardZipFiles.size(); i++) {
+            try (ZipFile zipFile = new ZipFile(shardZipFiles.get(i))) {
+                final int shardIndex = getShardIndex(zipFile, i);
+
+                for (Enumeration<ZipArchiveEntry> entries = zipFile.getEntries(); entries.hasMoreElements();) {
+                    final ZipArchiveEntry entry = entries.nextElement();
+
+                    if (entry.isDirectory()) {
+                        continue;
+                    }
+
+                    final String entryName = getMergedEntryName(entry.getName(), shardIndex);
+
+                    if (!entryNames.add(entryName)) {
+                        continue;
+                    }
+
+                    final ZipArchiveEntry mergedEntry = new ZipArchiveEntry(entryName);
+                    mergedEntry.setSize(entry.getSize());
+                    InputStream input = null;
+
+                    try {
+                        zipOutput.putArchiveEntry(mergedEntry);
+                        input = zipFile.getInputStream(entry);
+                        IOUtils.copyLarge(input, zipOutput);
+                    } finally {
+                        IOUtils.closeQuietly(input);
+                        zipOutput.closeArchiveEntry();
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the ZIP entry name in a merged archive for the {@code entryName} in the shard archive at
+     * {@code shardIndex}.
+     * @param entryName ZIP entry name in a shard archive
+     * @param shardIndex shard index
+     * @return the ZIP entry name in a merged archive
+     */
+    static String getMergedEntryName(final String entryName, final int shardIndex) {
+        if (StringUtils.startsWith(entryName, EXIM_INF_ENTRY_NAME_PREFIX)) {
+            final String relName = entryName.substring(EXIM_INF_ENTRY_NAME_PREFIX.length());
+
+            if (!StringUtils.contains(relName, '/')) {
+                return MERGED_SHARDS_ENTRY_NAME_PREFIX + shardIndex + "/" + relName;
+            }
+
+            return entryName;
+        }
+
+        final int offset = entryName.indexOf('-');
+
+        if (!StringUtils.contains(entryName, '/') && isBundleOrIndexFileName(entryName) && offset > 0) {
+            return entryName.substring(0, offset) + "-shard" + shardIndex + entryName.substring(offset);
+        }
+
+        return entryName;
+    }
+
+    private static boolean isBundleOrIndexFileName(final String entryName) {
+        return StringUtils.endsWith(entryName, ContentNodeBundleWriter.BUNDLE_FILE_EXTENSION)
+                || StringUtils.endsWith(entryName, ContentNodeBundleWriter.INDEX_FILE_EXTENSION);
+    }
+
+    private static int getShardIndex(final ZipFile zipFile, final int defaultShardIndex) throws IOException {
+        final ZipArchiveEntry shardInfoEntry = zipFile.getEntry(SHARD_INFO_ENTRY_NAME);
+
+        if (shardInfoEntry == null) {
+            return defaultShardIndex;
+        }
+
+        final Properties shardInfo = new Properties();
+
+        try (InputStream input = zipFile.getInputStream(shardInfoEntry)) {
+            shardInfo.load(input);
+        }
+
+        try {
+            return Integer.parseInt(StringUtils.trim(shardInfo.getProperty("shardIndex")));
+        } catch (NumberFormatException e) {
+            return defaultShardIndex;
+        }
+    }
 }
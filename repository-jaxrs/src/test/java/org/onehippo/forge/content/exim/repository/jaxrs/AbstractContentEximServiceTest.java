@@ -39,9 +39,12 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.io.TempDir;
 import org.onehippo.forge.content.exim.core.ContentMigrationRecord;
+import org.onehippo.forge.content.exim.core.ContentNodeFileFormat;
+import org.onehippo.forge.content.exim.core.util.CompiledPathMatcher;
 import org.onehippo.forge.content.exim.repository.jaxrs.param.ExecutionParams;
 import org.onehippo.forge.content.exim.repository.jaxrs.param.QueriesAndPaths;
 import org.onehippo.forge.content.exim.repository.jaxrs.param.ResultItem;
+import org.onehippo.forge.content.exim.repository.jaxrs.status.ProcessStatus;
 import org.onehippo.forge.content.pojo.model.ContentNode;
 
 import static org.easymock.EasyMock.*;
@@ -96,6 +99,34 @@ class AbstractContentEximServiceTest {
         verify(mockFolder);
     }
 
+    @Test
+    void isStopRequested_whenProcessCancelRequested_returnsTrueWithoutLookingUpStopFile() throws Exception {
+        FileObject mockFolder = createMock(FileObject.class);
+        replay(mockFolder);
+
+        ProcessStatus processStatus = new ProcessStatus(1L, System.currentTimeMillis());
+        assertFalse(processStatus.isCancelRequested());
+        processStatus.requestCancel();
+
+        assertTrue(service.callIsStopRequested(processStatus, mockFolder, false));
+        assertTrue(service.callIsStopRequested(processStatus, mockFolder));
+        verify(mockFolder);
+    }
+
+    @Test
+    void isStopRequested_whenStopFileExists_foundOnlyAtBatchBoundary() throws Exception {
+        File baseDir = tempDir.resolve("base3").toFile();
+        new File(baseDir, "EXIM-INF").mkdirs();
+        new File(baseDir, "EXIM-INF/_stop_").createNewFile();
+        FileObject baseFolder = VFS.getManager().resolveFile(baseDir.toURI());
+
+        ProcessStatus processStatus = new ProcessStatus(1L, System.currentTimeMillis());
+
+        assertFalse(service.callIsStopRequested(processStatus, baseFolder, false));
+        assertTrue(service.callIsStopRequested(processStatus, baseFolder, true));
+        assertTrue(processStatus.isCancelRequested());
+    }
+
     // ========================================================================
     // attachmentToString tests
     // ========================================================================
@@ -453,6 +484,29 @@ class AbstractContentEximServiceTest {
         assertFalse(service.callIsDocumentPathIncluded(params, "/content/documents/excluded/test"));
     }
 
+    @Test
+    void createDocumentPathMatcher_appliesIncludesAndExcludes() {
+        ExecutionParams params = new ExecutionParams();
+        QueriesAndPaths documents = new QueriesAndPaths();
+        documents.setIncludes(Collections.singletonList("/content/documents/**"));
+        documents.setExcludes(Collections.singletonList("/content/documents/excluded/**"));
+        params.setDocuments(documents);
+
+        CompiledPathMatcher matcher = service.callCreateDocumentPathMatcher(params);
+
+        assertTrue(matcher.isIncluded("/content/documents/included/test"));
+        assertFalse(matcher.isIncluded("/content/documents/excluded/test"));
+        assertFalse(matcher.isIncluded("/content/other/test"));
+    }
+
+    @Test
+    void createBinaryPathMatcher_withNullQueriesAndPaths_includesAll() {
+        ExecutionParams params = new ExecutionParams();
+        params.setBinaries(null);
+
+        assertTrue(service.callCreateBinaryPathMatcher(params).isIncluded("/content/gallery/test.jpg"));
+    }
+
     // ========================================================================
     // recordToResultItem tests
     // ========================================================================
@@ -503,6 +557,32 @@ class AbstractContentEximServiceTest {
         assertTrue(json.contains("100"));
     }
 
+    // ========================================================================
+    // getContentNodeFileFormat tests
+    // ========================================================================
+
+    @Test
+    void getContentNodeFileFormat_defaultsToPrettyJson() {
+        ExecutionParams params = new ExecutionParams();
+
+        assertEquals(ContentNodeFileFormat.PRETTY_JSON, service.callGetContentNodeFileFormat(params));
+    }
+
+    @Test
+    void getContentNodeFileFormat_mapsExportFormatCaseInsensitively() {
+        ExecutionParams params = new ExecutionParams();
+
+        params.setExportFormat("Compact-JSON");
+        assertEquals(ContentNodeFileFormat.COMPACT_JSON, service.callGetContentNodeFileFormat(params));
+
+        params.setExportFormat("SMILE");
+        assertEquals(ContentNodeFileFormat.SMILE, service.callGetContentNodeFileFormat(params));
+
+        params.setExportFormat("unknown");
+        assertEquals(ExecutionParams.EXPORT_FORMAT_JSON, params.getExportFormat());
+        assertEquals(ContentNodeFileFormat.PRETTY_JSON, service.callGetContentNodeFileFormat(params));
+    }
+
     /**
      * Testable subclass that exposes protected methods for testing.
      */
@@ -512,6 +592,14 @@ class AbstractContentEximServiceTest {
             return isStopRequested(baseFolder);
         }
 
+        boolean callIsStopRequested(ProcessStatus processStatus, FileObject baseFolder) {
+            return isStopRequested(processStatus, baseFolder);
+        }
+
+        boolean callIsStopRequested(ProcessStatus processStatus, FileObject baseFolder, boolean batchBoundary) {
+            return isStopRequested(processStatus, baseFolder, batchBoundary);
+        }
+
         String callAttachmentToString(Attachment attachment, String charset) throws Exception {
             return attachmentToString(attachment, charset);
         }
@@ -543,6 +631,14 @@ class AbstractContentEximServiceTest {
             return isDocumentPathIncluded(new org.onehippo.forge.content.exim.core.util.AntPathMatcher(), params, path);
         }
 
+        CompiledPathMatcher callCreateBinaryPathMatcher(ExecutionParams params) {
+            return createBinaryPathMatcher(params);
+        }
+
+        CompiledPathMatcher callCreateDocumentPathMatcher(ExecutionParams params) {
+            return createDocumentPathMatcher(params);
+        }
+
         ResultItem callRecordToResultItem(ContentMigrationRecord record) {
             return recordToResultItem(record);
         }
@@ -550,5 +646,9 @@ class AbstractContentEximServiceTest {
         String callToJsonString(Object object) throws Exception {
             return toJsonString(object);
         }
+
+        ContentNodeFileFormat callGetContentNodeFileFormat(ExecutionParams params) {
+            return getContentNodeFileFormat(params);
+        }
     }
 }
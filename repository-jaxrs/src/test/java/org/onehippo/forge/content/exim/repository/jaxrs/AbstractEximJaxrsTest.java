@@ -20,11 +20,13 @@ import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.nio.charset.StandardCharsets;
 import java.util.Arrays;
+import java.util.Calendar;
 import java.util.List;
 import java.util.Map;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipOutputStream;
 
+import javax.jcr.Node;
 import javax.jcr.Repository;
 import javax.jcr.Session;
 import javax.jcr.SimpleCredentials;
@@ -36,6 +38,7 @@ import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 
 import org.bloomreach.forge.brut.resources.AbstractJaxrsTest;
+import org.hippoecm.repository.HippoStdNodeType;
 import org.junit.jupiter.api.AfterAll;
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.BeforeEach;
@@ -60,6 +63,10 @@ public abstract class AbstractEximJaxrsTest extends AbstractJaxrsTest {
     protected static final String DOCS_QUERY = "/jcr:root/content/documents/exim//element(*,hippo:document)";
     protected static final String BINARIES_QUERY = "/jcr:root/content/gallery//element(*,hippo:document)";
 
+    private static final String NAMESPACES_PATH = "/hippo:namespaces";
+    private static final String PROTOTYPE_PATH = NAMESPACES_PATH
+            + "/exim/testdocument/hipposysedit:prototypes/hipposysedit:prototype";
+
     private static final String BOUNDARY = "----TestBoundary7MA4YWxkTrZu0gW";
     private static final String MULTIPART_CONTENT_TYPE = "multipart/form-data; boundary=" + BOUNDARY;
 
@@ -214,6 +221,40 @@ public abstract class AbstractEximJaxrsTest extends AbstractJaxrsTest {
         }
     }
 
+    // ========== Repository Content Helpers ==========
+
+    /**
+     * Adds the <code>exim:testdocument</code> prototype which the folder workflow copies a new document from.
+     */
+    protected void addTestDocumentPrototype() throws Exception {
+        if (session.nodeExists(PROTOTYPE_PATH)) {
+            return;
+        }
+
+        Node namespaces = session.nodeExists(NAMESPACES_PATH) ? session.getNode(NAMESPACES_PATH)
+                : session.getRootNode().addNode("hippo:namespaces", "hipposysedit:namespacefolder");
+        Node namespace = namespaces.hasNode("exim") ? namespaces.getNode("exim")
+                : namespaces.addNode("exim", "hipposysedit:namespace");
+        if (!namespace.isNodeType("mix:referenceable")) {
+            namespace.addMixin("mix:referenceable");
+        }
+        Node templateType = namespace.addNode("testdocument", "hipposysedit:templatetype");
+        templateType.addMixin("mix:referenceable");
+        Node prototype = templateType.addNode("hipposysedit:prototypes", "hipposysedit:prototypeset")
+                .addNode("hipposysedit:prototype", "exim:testdocument");
+        prototype.addMixin("mix:referenceable");
+        prototype.setProperty("hippostd:holder", "holder");
+        prototype.setProperty(HippoStdNodeType.HIPPOSTD_STATE, HippoStdNodeType.DRAFT);
+        prototype.setProperty("hippostdpubwf:createdBy", "");
+        prototype.setProperty("hippostdpubwf:creationDate", Calendar.getInstance());
+        prototype.setProperty("hippostdpubwf:lastModifiedBy", "");
+        prototype.setProperty("hippostdpubwf:lastModificationDate", Calendar.getInstance());
+        prototype.setProperty("hippotranslation:id", "document-type-locale-id");
+        prototype.setProperty("hippotranslation:locale", "document-type-locale");
+        prototype.setProperty("exim:title", "");
+        session.save();
+    }
+
     // ========== Assertion Helpers ==========
 
     protected String invokeAndAssertValid() throws Exception {
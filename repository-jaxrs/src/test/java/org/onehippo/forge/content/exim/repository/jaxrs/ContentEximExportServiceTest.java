@@ -15,17 +15,26 @@
  */
 package org.onehippo.forge.content.exim.repository.jaxrs;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import java.util.stream.Stream;
 
+import javax.jcr.Repository;
+import javax.jcr.Session;
+import javax.jcr.SimpleCredentials;
+
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.Arguments;
 import org.junit.jupiter.params.provider.MethodSource;
 import org.junit.jupiter.params.provider.ValueSource;
+import org.onehippo.forge.content.exim.core.util.CompiledPathMatcher;
 import org.onehippo.forge.content.exim.repository.jaxrs.param.ExecutionParams;
 import org.onehippo.forge.content.exim.repository.jaxrs.param.QueriesAndPaths;
+import org.onehippo.forge.content.exim.repository.jaxrs.param.Result;
+import org.onehippo.forge.content.exim.repository.jaxrs.param.ResultItem;
+import org.onehippo.forge.content.exim.repository.jaxrs.util.ResultItemSetCollector;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -108,7 +117,11 @@ public class ContentEximExportServiceTest extends AbstractEximJaxrsTest {
             Arguments.of("Binary path excludes",
                 "{\"binaries\":{\"queries\":[\"/jcr:root/content/gallery//element(*,hippo:document)\"],\"excludes\":[\"/content/gallery/common\"]}}"),
             Arguments.of("Combined includes and excludes",
-                "{\"documents\":{\"queries\":[\"/jcr:root/content/documents//element(*,hippo:document)\"],\"includes\":[\"/content/documents/exim\"],\"excludes\":[\"/content/documents/exim/private\"]}}")
+                "{\"documents\":{\"queries\":[\"/jcr:root/content/documents//element(*,hippo:document)\"],\"includes\":[\"/content/documents/exim\"],\"excludes\":[\"/content/documents/exim/private\"]}}"),
+            Arguments.of("Folder traversal roots with excludes",
+                "{\"documents\":{\"roots\":[\"/content/documents\"],\"excludes\":[\"/content/documents/common/**\"]}}"),
+            Arguments.of("Row collection mode with includes",
+                "{\"collectionMode\":\"rows\",\"documents\":{\"queries\":[\"/jcr:root/content/documents//element(*,hippo:document)\"],\"includes\":[\"/content/documents/exim/**\"]}}")
         );
     }
 
@@ -211,6 +224,56 @@ public class ContentEximExportServiceTest extends AbstractEximJaxrsTest {
         assertExportSuccess(invokeFilter());
     }
 
+    // ========== Collection Tests ==========
+
+    @Test
+    void testFillResultItemsByTraversal_collectsIncludedHandlesOnly() throws Exception {
+        Result result = new Result();
+        ResultItemSetCollector.fillResultItemsByTraversal(session, List.of("/content/documents"), false,
+                new CompiledPathMatcher(List.of("/content/documents/exim/**"), null), null, result);
+
+        List<String> paths = result.getItems().stream().map(ResultItem::getPath).toList();
+        assertTrue(paths.contains("/content/documents/exim/news/test-document"));
+        assertTrue(paths.stream().allMatch(path -> path.startsWith("/content/documents/exim/")));
+
+        result = new Result();
+        ResultItemSetCollector.fillResultItemsByTraversal(session, List.of("/content/documents"), false,
+                new CompiledPathMatcher(null, List.of("/content/documents/exim/**")), null, result);
+
+        assertTrue(result.getItems().stream().noneMatch(item -> item.getPath().startsWith("/content/documents/exim/")));
+    }
+
+    @Test
+    void testCollectItemsFromExecutionParams_withShards_partitionsItems() throws Exception {
+        ExecutionParams params = paramsWithDocQueries("/jcr:root/content/documents//element(*,hippo:document)");
+        List<String> allPaths = ResultItemSetCollector.collectItemsFromExecutionParams(session, params).getItems()
+            .stream().map(ResultItem::getPath).toList();
+        assertFalse(allPaths.isEmpty());
+
+        final int shardCount = 3;
+        List<String> shardPaths = new ArrayList<>();
+
+        for (int shardIndex = 0; shardIndex < shardCount; shardIndex++) {
+            params.setShardIndex(shardIndex);
+            params.setShardCount(shardCount);
+            Session shardSession = getComponentManager().getComponent(Repository.class)
+                .login(new SimpleCredentials("admin", "admin".toCharArray()));
+
+            try {
+                for (ResultItem item : ResultItemSetCollector.collectItemsFromExecutionParams(shardSession, params)
+                        .getItems()) {
+                    assertTrue(ResultItemSetCollector.isInShard(item.getPath(), shardIndex, shardCount));
+                    shardPaths.add(item.getPath());
+                }
+            } finally {
+                shardSession.logout();
+            }
+        }
+
+        assertEquals(allPaths.size(), shardPaths.size(), "Shards should not overlap");
+        assertTrue(shardPaths.containsAll(allPaths), "Shards should cover all the items");
+    }
+
     // ========== Error Handling Tests ==========
 
     @Test
@@ -19,15 +19,29 @@ import java.util.List;
 import java.util.Map;
 import java.util.stream.Stream;
 
+import javax.jcr.Node;
+
 import com.fasterxml.jackson.databind.JsonNode;
 
+import org.hippoecm.repository.HippoStdNodeType;
+import org.hippoecm.repository.api.Document;
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.Arguments;
 import org.junit.jupiter.params.provider.MethodSource;
 import org.junit.jupiter.params.provider.ValueSource;
+import org.onehippo.forge.content.exim.core.DocumentManager;
+import org.onehippo.forge.content.exim.core.impl.DirectJcrDocumentManagerImpl;
+import org.onehippo.forge.content.exim.core.impl.WorkflowDocumentManagerImpl;
+import org.onehippo.forge.content.exim.core.impl.WorkflowDocumentVariantExportTask;
+import org.onehippo.forge.content.exim.core.impl.WorkflowDocumentVariantImportTask;
+import org.onehippo.forge.content.exim.core.util.HippoNodeUtils;
 import org.onehippo.forge.content.exim.repository.jaxrs.param.ExecutionParams;
 import org.onehippo.forge.content.exim.repository.jaxrs.param.QueriesAndPaths;
+import org.onehippo.forge.content.pojo.model.ContentNode;
+import org.onehippo.forge.content.pojo.model.ContentProperty;
+import org.onehippo.forge.content.pojo.model.ContentPropertyType;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -36,14 +50,26 @@ import static org.junit.jupiter.api.Assertions.*;
  */
 public class ContentEximImportServiceTest extends AbstractEximJaxrsTest {
 
+    private static final String PUBLICATION_HANDLE_PATH = DOCS_PATH + "/news/publication-document";
+
     private ContentEximImportService importService;
 
     @Override
-    protected void initService() {
+    protected void initService() throws Exception {
         importService = getComponentManager().getComponent("contentEximImportService");
         if (importService != null) {
             importService.setDaemonSession(session);
         }
+        addTestDocumentPrototype();
+    }
+
+    @AfterEach
+    void afterEach() throws Exception {
+        session.refresh(false);
+        if (session.nodeExists(PUBLICATION_HANDLE_PATH)) {
+            session.getNode(PUBLICATION_HANDLE_PATH).remove();
+            session.save();
+        }
     }
 
     @Override
@@ -281,6 +307,83 @@ public class ContentEximImportServiceTest extends AbstractEximJaxrsTest {
         invokeAndAssertValid();
     }
 
+    // ========== Publication On Import Tests ==========
+
+    @ParameterizedTest(name = "{0}")
+    @ValueSource(strings = { "workflow", "direct" })
+    void isPublicationNeeded_whenDocumentIsNotLive_returnsTrue(String documentManagerName) throws Exception {
+        DocumentManager documentManager = createDocumentManager(documentManagerName);
+
+        importDocument(documentManager, titledContentNode("Title"));
+
+        assertTrue(ContentEximImportService.isPublicationNeeded(documentManager, PUBLICATION_HANDLE_PATH));
+    }
+
+    @ParameterizedTest(name = "{0}")
+    @ValueSource(strings = { "workflow", "direct" })
+    void isPublicationNeeded_whenSameLiveDocumentIsImportedAgain_returnsFalse(String documentManagerName)
+            throws Exception {
+        DocumentManager documentManager = createDocumentManager(documentManagerName);
+
+        importDocument(documentManager, titledContentNode("Title"));
+        publish(documentManager);
+        importDocument(documentManager, exportPublishedVariant(documentManager));
+
+        assertFalse(ContentEximImportService.isPublicationNeeded(documentManager, PUBLICATION_HANDLE_PATH));
+    }
+
+    @ParameterizedTest(name = "{0}")
+    @ValueSource(strings = { "workflow", "direct" })
+    void isPublicationNeeded_whenChangedLiveDocumentIsImported_returnsTrue(String documentManagerName)
+            throws Exception {
+        DocumentManager documentManager = createDocumentManager(documentManagerName);
+
+        importDocument(documentManager, titledContentNode("Title"));
+        publish(documentManager);
+        ContentNode changed = exportPublishedVariant(documentManager);
+        changed.setProperty(titleProperty("Changed Title"));
+        importDocument(documentManager, changed);
+
+        assertTrue(ContentEximImportService.isPublicationNeeded(documentManager, PUBLICATION_HANDLE_PATH));
+    }
+
+    private DocumentManager createDocumentManager(String documentManagerName) {
+        return "direct".equals(documentManagerName) ? new DirectJcrDocumentManagerImpl(session)
+                : new WorkflowDocumentManagerImpl(session);
+    }
+
+    private ContentNode titledContentNode(String title) {
+        ContentNode contentNode = new ContentNode("publication-document", "exim:testdocument");
+        contentNode.setProperty(titleProperty(title));
+        return contentNode;
+    }
+
+    private ContentProperty titleProperty(String title) {
+        ContentProperty contentProperty = new ContentProperty("exim:title", ContentPropertyType.STRING, false);
+        contentProperty.addValue(title);
+        return contentProperty;
+    }
+
+    private void importDocument(DocumentManager documentManager, ContentNode contentNode) throws Exception {
+        WorkflowDocumentVariantImportTask importTask = new WorkflowDocumentVariantImportTask(documentManager);
+        importTask.createOrUpdateDocumentFromVariantContentNode(contentNode, "exim:testdocument",
+                PUBLICATION_HANDLE_PATH, "en", "Publication Document");
+        session.save();
+    }
+
+    private void publish(DocumentManager documentManager) throws Exception {
+        assertTrue(documentManager.publishDocument(PUBLICATION_HANDLE_PATH));
+        session.save();
+        assertTrue(HippoNodeUtils.isDocumentHandleLive(session.getNode(PUBLICATION_HANDLE_PATH)));
+    }
+
+    private ContentNode exportPublishedVariant(DocumentManager documentManager) throws Exception {
+        Node published = HippoNodeUtils.getDocumentVariantByHippoStdState(session.getNode(PUBLICATION_HANDLE_PATH),
+                HippoStdNodeType.PUBLISHED);
+        return new WorkflowDocumentVariantExportTask(documentManager).exportVariantToContentNode(
+                new Document(published));
+    }
+
     // ========== Import-Specific Assertion Helpers ==========
 
     private void assertImportErrorOrEmptyResult(String response) {
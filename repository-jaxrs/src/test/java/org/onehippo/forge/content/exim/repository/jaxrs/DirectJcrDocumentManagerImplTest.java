@@ -0,0 +1,257 @@
+/*
+ * Copyright 2024 Bloomreach B.V. (https://www.bloomreach.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onehippo.forge.content.exim.repository.jaxrs;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+
+import javax.jcr.Node;
+import javax.jcr.NodeIterator;
+import javax.jcr.nodetype.NodeType;
+
+import org.hippoecm.repository.HippoStdNodeType;
+import org.hippoecm.repository.api.Document;
+import org.hippoecm.repository.api.HippoNodeType;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.onehippo.forge.content.exim.core.DocumentCreationRequest;
+import org.onehippo.forge.content.exim.core.DocumentManagerBatchResult;
+import org.onehippo.forge.content.exim.core.impl.DirectJcrDocumentManagerImpl;
+import org.onehippo.forge.content.exim.core.impl.WorkflowDocumentManagerImpl;
+import org.onehippo.forge.content.exim.core.util.HippoNodeUtils;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Verifies that documents created, committed and published by {@link DirectJcrDocumentManagerImpl} have the same
+ * structure and the same workflow property values as the ones created, committed and published through
+ * {@link WorkflowDocumentManagerImpl}.
+ */
+public class DirectJcrDocumentManagerImplTest extends AbstractEximJaxrsTest {
+
+    private static final String FOLDER_PATH = DOCS_PATH + "/news";
+    private static final String WORKFLOW_HANDLE_PATH = FOLDER_PATH + "/workflow-document";
+    private static final String DIRECT_HANDLE_PATH = FOLDER_PATH + "/direct-document";
+    private static final String DIRECT_HANDLE_PATH_2 = FOLDER_PATH + "/direct-document-2";
+
+    private static final String[] VARIANT_STATES = { HippoStdNodeType.PUBLISHED, HippoStdNodeType.UNPUBLISHED,
+            HippoStdNodeType.DRAFT };
+
+    private static final String[] SAME_VALUE_PROPERTIES = { HippoStdNodeType.HIPPOSTD_STATE,
+            "hippostd:stateSummary", "hippostdpubwf:createdBy", "hippostdpubwf:lastModifiedBy",
+            "hippotranslation:locale" };
+
+    private static final String[] SAME_PRESENCE_PROPERTIES = { "hippostd:holder",
+            "hippostdpubwf:creationDate", "hippostdpubwf:lastModificationDate", "hippostdpubwf:publicationDate",
+            "hippotranslation:id" };
+
+    @Override
+    protected void initService() throws Exception {
+        ContentEximImportService importService = getComponentManager().getComponent("contentEximImportService");
+        if (importService != null) {
+            importService.setDaemonSession(session);
+        }
+        addTestDocumentPrototype();
+    }
+
+    @Override
+    protected String getEndpointUri() {
+        return "/site/api/import/";
+    }
+
+    @AfterEach
+    void afterEach() throws Exception {
+        session.refresh(false);
+        for (String path : new String[] { WORKFLOW_HANDLE_PATH, DIRECT_HANDLE_PATH, DIRECT_HANDLE_PATH_2 }) {
+            if (session.nodeExists(path)) {
+                session.getNode(path).remove();
+                session.save();
+            }
+        }
+    }
+
+    @Test
+    void createDocument_createsHandleAndUnpublishedVariantLikeWorkflow() throws Exception {
+        WorkflowDocumentManagerImpl workflowDocumentManager = new WorkflowDocumentManagerImpl(session);
+        DirectJcrDocumentManagerImpl documentManager = new DirectJcrDocumentManagerImpl(session);
+
+        workflowDocumentManager.createDocument(FOLDER_PATH, "exim:testdocument", "workflow-document", "en",
+                "Workflow Document");
+        String handlePath = documentManager.createDocument(FOLDER_PATH, "exim:testdocument", "direct-document", "en",
+                "Direct Document");
+        session.save();
+
+        assertEquals(DIRECT_HANDLE_PATH, handlePath);
+
+        Node handle = session.getNode(handlePath);
+        Node workflowHandle = session.getNode(WORKFLOW_HANDLE_PATH);
+        assertEquals(workflowHandle.getPrimaryNodeType().getName(), handle.getPrimaryNodeType().getName());
+        assertEquals(mixinNames(workflowHandle), mixinNames(handle));
+        assertEquals("Direct Document", handle.getProperty("hippo:name").getString());
+        assertEquals("exim:testdocument",
+                HippoNodeUtils.getDocumentVariantByHippoStdState(handle, HippoStdNodeType.UNPUBLISHED)
+                        .getPrimaryNodeType().getName());
+
+        assertSameVariants(workflowHandle, handle);
+    }
+
+    @Test
+    void commitAndPublish_resultInVariantsLikeWorkflow() throws Exception {
+        createCommitAndPublish(new WorkflowDocumentManagerImpl(session), "workflow-document", "Workflow Title");
+        String handlePath = createCommitAndPublish(new DirectJcrDocumentManagerImpl(session), "direct-document",
+                "Direct Title");
+
+        Node handle = session.getNode(handlePath);
+        Node workflowHandle = session.getNode(WORKFLOW_HANDLE_PATH);
+
+        assertSameVariants(workflowHandle, handle);
+        assertEquals(countVariants(workflowHandle), countVariants(handle));
+
+        Node published = HippoNodeUtils.getDocumentVariantByHippoStdState(handle, HippoStdNodeType.PUBLISHED);
+        Node unpublished = HippoNodeUtils.getDocumentVariantByHippoStdState(handle, HippoStdNodeType.UNPUBLISHED);
+        assertTrue(HippoNodeUtils.isDocumentHandleLive(handle));
+        assertNotEquals(unpublished.getIdentifier(), published.getIdentifier());
+        assertEquals(unpublished.getProperty("hippotranslation:id").getString(),
+                published.getProperty("hippotranslation:id").getString());
+        assertEquals("Direct Title", published.getProperty("exim:title").getString());
+        assertEquals("Direct Title", unpublished.getProperty("exim:title").getString());
+    }
+
+    @Test
+    void depublishDocument_takesPublishedVariantOffline() throws Exception {
+        DirectJcrDocumentManagerImpl documentManager = new DirectJcrDocumentManagerImpl(session);
+
+        String handlePath = documentManager.createDocument(FOLDER_PATH, "exim:testdocument", "direct-document", "en",
+                "Direct Document");
+        documentManager.commitEditableDocument(handlePath);
+        documentManager.publishDocument(handlePath);
+        assertTrue(documentManager.depublishDocument(handlePath));
+        session.save();
+
+        assertFalse(HippoNodeUtils.isDocumentHandleLive(session.getNode(handlePath)));
+    }
+
+    @Test
+    void batchOperations_reportPerItemResults() throws Exception {
+        DirectJcrDocumentManagerImpl documentManager = new DirectJcrDocumentManagerImpl(session);
+
+        List<DocumentManagerBatchResult> created = documentManager.createDocuments(FOLDER_PATH, Arrays.asList(
+                new DocumentCreationRequest("exim:testdocument", "direct-document", "en", "Direct Document"),
+                new DocumentCreationRequest("exim:testdocument", "test-document", "en", "Existing Document"),
+                new DocumentCreationRequest("exim:testdocument", "direct-document-2", "en", "Direct Document 2")));
+
+        assertEquals(3, created.size());
+        assertTrue(created.get(0).isSucceeded());
+        assertEquals(DIRECT_HANDLE_PATH, created.get(0).getDocumentPath());
+        assertFalse(created.get(1).isSucceeded());
+        assertEquals("test-document", created.get(1).getLocation());
+        assertNotNull(created.get(1).getException());
+        assertTrue(created.get(2).isSucceeded());
+        assertEquals(DIRECT_HANDLE_PATH_2, created.get(2).getDocumentPath());
+
+        List<DocumentManagerBatchResult> committed = documentManager.commitEditableDocuments(Arrays.asList(
+                documentManager.obtainEditableDocument(DIRECT_HANDLE_PATH),
+                documentManager.obtainEditableDocument(DIRECT_HANDLE_PATH_2)));
+        assertTrue(committed.stream().allMatch(DocumentManagerBatchResult::isSucceeded));
+        assertNotNull(committed.get(0).getDocument());
+
+        List<DocumentManagerBatchResult> published = documentManager.publishDocuments(
+                Arrays.asList(DIRECT_HANDLE_PATH, FOLDER_PATH + "/non-existing", DIRECT_HANDLE_PATH_2));
+        assertTrue(published.get(0).isSucceeded());
+        assertFalse(published.get(1).isSucceeded());
+        assertTrue(published.get(2).isSucceeded());
+        session.save();
+
+        assertTrue(HippoNodeUtils.isDocumentHandleLive(session.getNode(DIRECT_HANDLE_PATH)));
+        assertTrue(HippoNodeUtils.isDocumentHandleLive(session.getNode(DIRECT_HANDLE_PATH_2)));
+    }
+
+    private String createCommitAndPublish(final WorkflowDocumentManagerImpl documentManager, final String nodeName,
+            final String title) throws Exception {
+        String handlePath = documentManager.createDocument(FOLDER_PATH, "exim:testdocument", nodeName, "en",
+                nodeName);
+        Document editable = documentManager.obtainEditableDocument(handlePath);
+        editable.getCheckedOutNode(session).setProperty("exim:title", title);
+        session.save();
+        documentManager.commitEditableDocument(editable);
+        assertTrue(documentManager.publishDocument(handlePath));
+        session.save();
+        return handlePath;
+    }
+
+    /**
+     * Asserts that each variant of the {@code handle} has the same workflow property values as the variant
+     * in the same state of the {@code workflowHandle}, and that a variant exists in {@code handle} if and only if
+     * it exists in {@code workflowHandle}.
+     */
+    private static void assertSameVariants(final Node workflowHandle, final Node handle) throws Exception {
+        for (String state : VARIANT_STATES) {
+            Node workflowVariant = HippoNodeUtils.getDocumentVariantByHippoStdState(workflowHandle, state);
+            Node variant = HippoNodeUtils.getDocumentVariantByHippoStdState(handle, state);
+
+            assertEquals(workflowVariant != null, variant != null, state + " variant");
+
+            if (workflowVariant == null) {
+                continue;
+            }
+
+            assertEquals(mixinNames(workflowVariant), mixinNames(variant), state + " mixins");
+            assertArrayEquals(availability(workflowVariant), availability(variant), state + " availability");
+
+            for (String propName : SAME_VALUE_PROPERTIES) {
+                assertEquals(stringValue(workflowVariant, propName), stringValue(variant, propName),
+                        state + " " + propName);
+            }
+
+            for (String propName : SAME_PRESENCE_PROPERTIES) {
+                assertEquals(workflowVariant.hasProperty(propName), variant.hasProperty(propName),
+                        state + " " + propName);
+            }
+        }
+    }
+
+    private static String stringValue(final Node variant, final String propName) throws Exception {
+        return variant.hasProperty(propName) ? variant.getProperty(propName).getString() : null;
+    }
+
+    private static Set<String> mixinNames(final Node node) throws Exception {
+        Set<String> names = new TreeSet<>();
+        for (NodeType mixin : node.getMixinNodeTypes()) {
+            names.add(mixin.getName());
+        }
+        return names;
+    }
+
+    private static String[] availability(final Node variant) throws Exception {
+        return Arrays.stream(variant.getProperty(HippoNodeType.HIPPO_AVAILABILITY).getValues()).map(value -> {
+            try {
+                return value.getString();
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        }).toArray(String[]::new);
+    }
+
+    private static int countVariants(final Node handle) throws Exception {
+        int count = 0;
+        for (NodeIterator nodeIt = handle.getNodes(handle.getName()); nodeIt.hasNext(); nodeIt.nextNode()) {
+            ++count;
+        }
+        return count;
+    }
+}
@@ -0,0 +1,221 @@
+/*
+ * Copyright 2024 Bloomreach B.V. (https://www.bloomreach.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onehippo.forge.content.exim.repository.jaxrs;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.onehippo.forge.content.exim.repository.jaxrs.status.ProcessStatus;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.onehippo.forge.content.exim.repository.jaxrs.ProcessMonitor.ProcessKind.EXPORT;
+import static org.onehippo.forge.content.exim.repository.jaxrs.ProcessMonitor.ProcessKind.IMPORT;
+
+class ProcessMonitorTest {
+
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void admitProcess_unlimited_admitsAll() throws Exception {
+        ProcessMonitor monitor = new ProcessMonitor();
+
+        for (int i = 0; i < 5; i++) {
+            assertEquals(ProcessMonitor.Admission.ADMITTED, monitor.admitProcess(monitor.startProcess(), EXPORT));
+        }
+    }
+
+    @Test
+    void admitProcess_runningFull_queuesUntilStopped() throws Exception {
+        ProcessMonitor monitor = new ProcessMonitor();
+        monitor.setMaxRunningProcesses(1);
+        monitor.setMaxQueuedProcesses(1);
+
+        ProcessStatus first = monitor.startProcess();
+        assertEquals(ProcessMonitor.Admission.ADMITTED, monitor.admitProcess(first, EXPORT));
+
+        ProcessStatus second = monitor.startProcess();
+        Future<ProcessMonitor.Admission> secondAdmission = executor.submit(() -> monitor.admitProcess(second, EXPORT));
+        awaitCondition(() -> second.getQueuePosition() == 1);
+
+        assertEquals(ProcessMonitor.Admission.REJECTED, monitor.admitProcess(monitor.startProcess(), EXPORT));
+        assertFalse(secondAdmission.isDone());
+
+        monitor.stopProcess(first);
+
+        assertEquals(ProcessMonitor.Admission.ADMITTED, secondAdmission.get(5, TimeUnit.SECONDS));
+        assertEquals(0, second.getQueuePosition());
+    }
+
+    @Test
+    void admitProcess_queued_ordersByPriorityThenArrival() throws Exception {
+        ProcessMonitor monitor = new ProcessMonitor();
+        monitor.setMaxRunningProcesses(1);
+
+        ProcessStatus running = monitor.startProcess();
+        monitor.admitProcess(running, EXPORT);
+
+        ProcessStatus low = monitor.startProcess();
+        executor.submit(() -> monitor.admitProcess(low, EXPORT));
+        awaitCondition(() -> low.getQueuePosition() == 1);
+
+        ProcessStatus lowLater = monitor.startProcess();
+        executor.submit(() -> monitor.admitProcess(lowLater, EXPORT));
+        awaitCondition(() -> lowLater.getQueuePosition() == 2);
+
+        ProcessStatus high = monitor.startProcess();
+        high.setPriority(5);
+        Future<ProcessMonitor.Admission> highAdmission = executor.submit(() -> monitor.admitProcess(high, EXPORT));
+        awaitCondition(() -> high.getQueuePosition() == 1);
+
+        assertEquals(2, low.getQueuePosition());
+        assertEquals(3, lowLater.getQueuePosition());
+
+        monitor.stopProcess(running);
+
+        assertEquals(ProcessMonitor.Admission.ADMITTED, highAdmission.get(5, TimeUnit.SECONDS));
+        assertEquals(1, low.getQueuePosition());
+        assertEquals(2, lowLater.getQueuePosition());
+    }
+
+    @Test
+    void admitProcess_cancelledWhileQueued_leavesQueue() throws Exception {
+        ProcessMonitor monitor = new ProcessMonitor();
+        monitor.setMaxRunningProcesses(1);
+        monitor.admitProcess(monitor.startProcess(), EXPORT);
+
+        ProcessStatus queued = monitor.startProcess();
+        Future<ProcessMonitor.Admission> admission = executor.submit(() -> monitor.admitProcess(queued, EXPORT));
+        awaitCondition(() -> queued.getQueuePosition() == 1);
+
+        assertTrue(monitor.cancelProcess(queued.getId()));
+
+        assertEquals(ProcessMonitor.Admission.CANCELLED, admission.get(5, TimeUnit.SECONDS));
+        assertEquals(0, queued.getQueuePosition());
+    }
+
+    @Test
+    void admitProcess_importsFull_admitsExportQueuedBehindImport() throws Exception {
+        ProcessMonitor monitor = new ProcessMonitor();
+        monitor.setMaxRunningImports(1);
+
+        ProcessStatus runningImport = monitor.startProcess();
+        assertEquals(ProcessMonitor.Admission.ADMITTED, monitor.admitProcess(runningImport, IMPORT));
+
+        ProcessStatus queuedImport = monitor.startProcess();
+        Future<ProcessMonitor.Admission> importAdmission = executor.submit(
+                () -> monitor.admitProcess(queuedImport, IMPORT));
+        awaitCondition(() -> queuedImport.getQueuePosition() == 1);
+
+        assertEquals(ProcessMonitor.Admission.ADMITTED, monitor.admitProcess(monitor.startProcess(), EXPORT));
+        assertFalse(importAdmission.isDone());
+
+        monitor.stopProcess(runningImport);
+
+        assertEquals(ProcessMonitor.Admission.ADMITTED, importAdmission.get(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void acquirePathLeases_overlapping_waitsUntilStopped() throws Exception {
+        ProcessMonitor monitor = new ProcessMonitor();
+
+        ProcessStatus first = monitor.startProcess();
+        assertTrue(monitor.acquirePathLeases(first, Arrays.asList("/content/documents/site/news")));
+
+        ProcessStatus second = monitor.startProcess();
+        Future<Boolean> secondLeases = executor.submit(
+                () -> monitor.acquirePathLeases(second, Arrays.asList("/content/documents/site")));
+        awaitCondition(second::isPathLeaseBlocked);
+
+        ProcessStatus third = monitor.startProcess();
+        assertTrue(monitor.acquirePathLeases(third, Arrays.asList("/content/documents/other")));
+        assertFalse(secondLeases.isDone());
+
+        monitor.stopProcess(first);
+
+        assertTrue(secondLeases.get(5, TimeUnit.SECONDS));
+        assertFalse(second.isPathLeaseBlocked());
+        assertEquals(Arrays.asList("/content/documents/site"), new ArrayList<>(second.getPathLeases()));
+    }
+
+    @Test
+    void acquirePathLeases_cancelledWhileBlocked_returnsFalse() throws Exception {
+        ProcessMonitor monitor = new ProcessMonitor();
+        monitor.acquirePathLeases(monitor.startProcess(), Arrays.asList("/content/gallery"));
+
+        ProcessStatus blocked = monitor.startProcess();
+        Future<Boolean> leases = executor.submit(
+                () -> monitor.acquirePathLeases(blocked, Arrays.asList("/content/gallery/site")));
+        awaitCondition(blocked::isPathLeaseBlocked);
+
+        assertTrue(monitor.cancelProcess(blocked.getId()));
+
+        assertFalse(leases.get(5, TimeUnit.SECONDS));
+        assertTrue(blocked.getPathLeases().isEmpty());
+    }
+
+    @Test
+    void stopProcess_admitted_keptInBoundedHistory() throws Exception {
+        ProcessMonitor monitor = new ProcessMonitor();
+        monitor.setMaxHistorySize(2);
+
+        ProcessStatus rejected = monitor.startProcess();
+        monitor.stopProcess(rejected);
+
+        for (int i = 0; i < 3; i++) {
+            ProcessStatus process = monitor.startProcess();
+            monitor.admitProcess(process, EXPORT);
+            monitor.stopProcess(process);
+            assertTrue(process.getStopTimeMillis() > 0L);
+        }
+
+        List<ProcessStatus> history = monitor.getHistory();
+        assertEquals(2, history.size());
+        assertEquals(4L, history.get(0).getId());
+        assertEquals(3L, history.get(1).getId());
+        assertTrue(monitor.getProcesses().isEmpty());
+
+        monitor.setMaxHistorySize(1);
+        assertEquals(1, monitor.getHistory().size());
+        assertEquals(4L, monitor.getHistory().get(0).getId());
+    }
+
+    private static void awaitCondition(BooleanSupplier condition) throws InterruptedException {
+        final long deadline = System.currentTimeMillis() + 5000L;
+
+        while (!condition.getAsBoolean()) {
+            if (System.currentTimeMillis() > deadline) {
+                throw new AssertionError("Condition not met in time.");
+            }
+
+            Thread.sleep(10L);
+        }
+    }
+}
@@ -0,0 +1,45 @@
+/*
+ * Copyright 2024 Bloomreach B.V. (https://www.bloomreach.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onehippo.forge.content.exim.repository.jaxrs.status;
+
+import org.junit.jupiter.api.Test;
+import org.onehippo.forge.content.exim.core.ContentMigrationRecord;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class ProcessStatusRecordListenerTest {
+
+    @Test
+    void onRecordEnd_countsOnlyProcessedRecords() {
+        ProcessStatus process = new ProcessStatus(1L, System.currentTimeMillis());
+        ProcessStatusRecordListener listener = new ProcessStatusRecordListener(process);
+
+        listener.onRecordEnd(null, createRecord(true, true));
+        listener.onRecordEnd(null, createRecord(true, false));
+        listener.onRecordEnd(null, createRecord(false, false));
+
+        assertEquals(2L, process.getProcessedCount());
+        assertEquals(1L, process.getSucceededCount());
+        assertEquals(1L, process.getFailedCount());
+    }
+
+    private ContentMigrationRecord createRecord(boolean processed, boolean succeeded) {
+        ContentMigrationRecord record = new ContentMigrationRecord();
+        record.setProcessed(processed);
+        record.setSucceeded(succeeded);
+        return record;
+    }
+}
@@ -0,0 +1,123 @@
+/*
+ * Copyright 2024 Bloomreach B.V. (https://www.bloomreach.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onehippo.forge.content.exim.repository.jaxrs.status;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ProcessStatusTest {
+
+    @Test
+    void awaitResume_withoutPauseRequest_returnsImmediately() throws Exception {
+        ProcessStatus process = new ProcessStatus(1L, System.currentTimeMillis());
+
+        process.awaitResume();
+
+        assertFalse(process.isPaused());
+        assertEquals(0L, process.getPausedTimeMillis());
+    }
+
+    @Test
+    void awaitResume_pauseRequested_parksUntilResumed() throws Exception {
+        ProcessStatus process = new ProcessStatus(1L, System.currentTimeMillis());
+        process.requestPause();
+
+        CountDownLatch resumed = new CountDownLatch(1);
+        Thread worker = new Thread(() -> {
+            try {
+                process.awaitResume();
+                resumed.countDown();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        worker.start();
+
+        assertFalse(resumed.await(200, TimeUnit.MILLISECONDS));
+        assertTrue(process.isPaused());
+
+        process.requestResume();
+
+        assertTrue(resumed.await(5, TimeUnit.SECONDS));
+        worker.join();
+        assertFalse(process.isPaused());
+        assertTrue(process.getPausedTimeMillis() >= 200L);
+    }
+
+    @Test
+    void awaitResume_cancelRequestedWhilePaused_stopsParking() throws Exception {
+        ProcessStatus process = new ProcessStatus(1L, System.currentTimeMillis());
+        process.requestPause();
+
+        CountDownLatch released = new CountDownLatch(1);
+        Thread worker = new Thread(() -> {
+            try {
+                process.awaitResume();
+                released.countDown();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        worker.start();
+
+        process.requestCancel();
+
+        assertTrue(released.await(5, TimeUnit.SECONDS));
+        worker.join();
+        assertTrue(process.isCancelRequested());
+        assertTrue(process.isPauseRequested());
+    }
+
+    @Test
+    void getThroughput_stopped_dividesProcessedByActiveTime() {
+        ProcessStatus process = new ProcessStatus(1L, 10000L);
+        process.setQueuedTimeMillis(2000L);
+        process.setStopTimeMillis(14000L);
+
+        for (int i = 0; i < 10; i++) {
+            process.incrementProcessedCount();
+        }
+
+        assertEquals(2000L, process.getActiveTimeMillis());
+        assertEquals(5.0, process.getThroughput(), 0.001);
+    }
+
+    @Test
+    void addPhaseTimeMillis_accumulatesPerPhaseInOrder() {
+        ProcessStatus process = new ProcessStatus(1L, System.currentTimeMillis());
+        process.addPhaseTimeMillis(ProcessStatus.PHASE_SAVE, 30L);
+        process.addPhaseTimeMillis(ProcessStatus.PHASE_BIND, 20L);
+        process.addPhaseTimeMillis(ProcessStatus.PHASE_SAVE, 15L);
+
+        assertEquals(45L, process.getPhaseTimeMillis(ProcessStatus.PHASE_SAVE));
+        assertEquals(20L, process.getPhaseTimeMillis(ProcessStatus.PHASE_BIND));
+        assertEquals(0L, process.getPhaseTimeMillis(ProcessStatus.PHASE_COLLECT));
+        assertEquals(Arrays.asList(ProcessStatus.PHASE_COLLECT, ProcessStatus.PHASE_MAP, ProcessStatus.PHASE_WRITE,
+                ProcessStatus.PHASE_COMPRESS, ProcessStatus.PHASE_BIND, ProcessStatus.PHASE_SAVE,
+                ProcessStatus.PHASE_PUBLISH, ProcessStatus.PHASE_CLEANUP),
+                new ArrayList<>(process.getPhaseTimeMillisMap().keySet()));
+        assertThrows(IllegalArgumentException.class, () -> process.addPhaseTimeMillis("unknown", 1L));
+    }
+}
@@ -0,0 +1,117 @@
+/*
+ * Copyright 2024 Bloomreach B.V. (https://www.bloomreach.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onehippo.forge.content.exim.repository.jaxrs.util;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BatchSaveBisectorTest {
+
+    private final List<Integer> pending = new ArrayList<>();
+    private final List<Integer> saved = new ArrayList<>();
+    private final Set<Integer> unsavable = new HashSet<>();
+    private final Set<Integer> unappliable = new HashSet<>();
+
+    @Test
+    void recover_oneFailingItem_isolatesIt() throws Exception {
+        unsavable.add(5);
+        final List<Integer> items = applyBatch(16);
+
+        final BatchSaveBisector<Integer> bisector = createBisector();
+        final Map<Integer, Exception> failures = bisector.recover(items, new IllegalStateException("batch"));
+
+        assertEquals(Arrays.asList(5), new ArrayList<>(failures.keySet()));
+        assertEquals("unsavable 5", failures.get(5).getMessage());
+        assertEquals(15, saved.size());
+        assertFalse(saved.contains(5));
+        assertTrue(bisector.getSaveCount() <= 2 * 4, "save count: " + bisector.getSaveCount());
+    }
+
+    @Test
+    void recover_severalFailingItems_isolatesThemInOrder() throws Exception {
+        unsavable.add(9);
+        unsavable.add(2);
+        unappliable.add(6);
+        final List<Integer> items = applyBatch(10);
+
+        final Map<Integer, Exception> failures = createBisector().recover(items, new IllegalStateException("batch"));
+
+        assertEquals(Arrays.asList(2, 6, 9), new ArrayList<>(failures.keySet()));
+        assertEquals("unappliable 6", failures.get(6).getMessage());
+        assertEquals(Arrays.asList(0, 1, 3, 4, 5, 7, 8), saved);
+        assertTrue(pending.isEmpty());
+    }
+
+    @Test
+    void recover_transientBatchFailure_savesAllItems() throws Exception {
+        final List<Integer> items = applyBatch(7);
+
+        final Map<Integer, Exception> failures = createBisector().recover(items, new IllegalStateException("batch"));
+
+        assertTrue(failures.isEmpty());
+        assertEquals(items, saved);
+    }
+
+    @Test
+    void recover_singleItemBatch_failsItWithBatchFailure() throws Exception {
+        final List<Integer> items = applyBatch(1);
+        final Exception batchFailure = new IllegalStateException("batch");
+
+        final Map<Integer, Exception> failures = createBisector().recover(items, batchFailure);
+
+        assertEquals(batchFailure, failures.get(0));
+        assertTrue(saved.isEmpty());
+        assertTrue(pending.isEmpty());
+    }
+
+    private List<Integer> applyBatch(final int size) {
+        final List<Integer> items = new ArrayList<>();
+
+        for (int i = 0; i < size; i++) {
+            items.add(i);
+            pending.add(i);
+        }
+
+        return items;
+    }
+
+    private BatchSaveBisector<Integer> createBisector() {
+        return new BatchSaveBisector<>(item -> {
+            if (unappliable.contains(item)) {
+                throw new IllegalStateException("unappliable " + item);
+            }
+            pending.add(item);
+        }, () -> {
+            for (Integer item : pending) {
+                if (unsavable.contains(item)) {
+                    throw new IllegalStateException("unsavable " + item);
+                }
+            }
+            saved.addAll(pending);
+            pending.clear();
+        }, pending::clear);
+    }
+}
@@ -0,0 +1,182 @@
+/*
+ * Copyright 2024 Bloomreach B.V. (https://www.bloomreach.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onehippo.forge.content.exim.repository.jaxrs.util;
+
+import org.junit.jupiter.api.Test;
+import org.onehippo.forge.content.exim.repository.jaxrs.param.ExecutionParams;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BatchThrottleTest {
+
+    @Test
+    void nextItem_fixedMode_fullAtBatchSize() {
+        ExecutionParams params = new ExecutionParams();
+        params.setBatchSize(3);
+        params.setThrottle(20L);
+
+        BatchThrottle throttle = new BatchThrottle(params);
+
+        assertFalse(throttle.isAdaptive());
+        assertFalse(throttle.nextItem());
+        assertFalse(throttle.nextItem());
+        assertTrue(throttle.nextItem());
+        assertFalse(throttle.endBatch(5000L));
+        assertEquals(3, throttle.getBatchSize());
+        assertEquals(20L, throttle.getSleepMillis());
+        assertFalse(throttle.nextItem());
+    }
+
+    @Test
+    void adapt_saveLatencyOverTarget_slowsDownWithinBounds() {
+        BatchThrottle throttle = new BatchThrottle(createAdaptiveParams());
+
+        assertTrue(throttle.adapt(2000L, 1500L, 0.5, 0L));
+        assertEquals(75, throttle.getBatchSize());
+        assertEquals(20L, throttle.getSleepMillis());
+        assertEquals("slow down (save latency)", throttle.getLastDecision());
+
+        for (int i = 0; i < 20; i++) {
+            throttle.adapt(2000L, 1500L, 0.5, 0L);
+        }
+
+        assertEquals(10, throttle.getBatchSize());
+        assertEquals(1000L, throttle.getSleepMillis());
+    }
+
+    @Test
+    void adapt_saveLatencyWellUnderTarget_speedsUpWithinBounds() {
+        BatchThrottle throttle = new BatchThrottle(createAdaptiveParams());
+
+        assertTrue(throttle.adapt(200L, 100L, 0.5, 0L));
+        assertEquals(110, throttle.getBatchSize());
+        assertEquals(5L, throttle.getSleepMillis());
+        assertEquals("speed up", throttle.getLastDecision());
+
+        for (int i = 0; i < 50; i++) {
+            throttle.adapt(200L, 100L, 0.5, 0L);
+        }
+
+        assertEquals(300, throttle.getBatchSize());
+        assertEquals(0L, throttle.getSleepMillis());
+    }
+
+    @Test
+    void adapt_heapUsageOverMax_slowsDown() {
+        BatchThrottle throttle = new BatchThrottle(createAdaptiveParams());
+
+        throttle.adapt(200L, 100L, 0.95, 0L);
+
+        assertEquals("slow down (heap usage)", throttle.getLastDecision());
+        assertTrue(throttle.getSummary().contains("heap=95%"), throttle.getSummary());
+    }
+
+    @Test
+    void adapt_readLatencyOverBaseline_slowsDown() {
+        BatchThrottle throttle = new BatchThrottle(createAdaptiveParams());
+
+        for (int i = 0; i < 100; i++) {
+            throttle.nextItem();
+        }
+        throttle.adapt(700L, 600L, 0.5, 0L);
+        assertEquals("hold", throttle.getLastDecision());
+
+        for (int i = 0; i < 5; i++) {
+            for (int j = 0; j < throttle.getBatchSize(); j++) {
+                throttle.nextItem();
+            }
+            throttle.adapt(600L + 10L * throttle.getBatchSize(), 600L, 0.5, 0L);
+        }
+
+        assertEquals("slow down (read latency)", throttle.getLastDecision());
+    }
+
+    @Test
+    void adapt_autoBatchSize_sizesBySaveCost() {
+        BatchThrottle throttle = new BatchThrottle(createAutoBatchSizeParams(64L * 1024L * 1024L));
+
+        assertTrue(throttle.isAutoBatchSize());
+        assertFalse(throttle.isAdaptive());
+
+        for (int i = 0; i < 100; i++) {
+            throttle.addPending(5, 1000L);
+            throttle.nextItem();
+        }
+
+        assertTrue(throttle.adapt(2500L, 2000L, 0.5, 0L));
+        assertEquals(40, throttle.getBatchSize());
+        assertEquals(10L, throttle.getSleepMillis());
+        assertEquals("batch sized by save cost", throttle.getLastDecision());
+    }
+
+    @Test
+    void adapt_autoBatchSize_growsAtMostTwice() {
+        BatchThrottle throttle = new BatchThrottle(createAutoBatchSizeParams(64L * 1024L * 1024L));
+
+        for (int i = 0; i < 100; i++) {
+            throttle.addPending(5, 1000L);
+            throttle.nextItem();
+        }
+
+        throttle.adapt(100L, 50L, 0.5, 0L);
+        assertEquals(200, throttle.getBatchSize());
+        assertEquals("batch sized by growth", throttle.getLastDecision());
+    }
+
+    @Test
+    void nextItem_autoBatchSize_fullAtMaxPendingBytes() {
+        BatchThrottle throttle = new BatchThrottle(createAutoBatchSizeParams(5000L));
+
+        for (int i = 0; i < 4; i++) {
+            throttle.addPending(1, 1000L);
+            assertFalse(throttle.nextItem());
+        }
+
+        throttle.addPending(1, 1000L);
+        assertTrue(throttle.nextItem());
+
+        throttle.adapt(20L, 10L, 0.5, 0L);
+        assertEquals(10, throttle.getBatchSize());
+        assertEquals("batch sized by pending bytes", throttle.getLastDecision());
+    }
+
+    private ExecutionParams createAutoBatchSizeParams(long maxPendingBytes) {
+        ExecutionParams params = new ExecutionParams();
+        params.setBatchSizeMode("auto");
+        params.setBatchSize(100);
+        params.setThrottle(10L);
+        params.setTargetLatency(1000L);
+        params.setMinBatchSize(10);
+        params.setMaxBatchSize(2000);
+        params.setMaxPendingBytes(maxPendingBytes);
+        return params;
+    }
+
+    private ExecutionParams createAdaptiveParams() {
+        ExecutionParams params = new ExecutionParams();
+        params.setThrottleMode("adaptive");
+        params.setBatchSize(100);
+        params.setThrottle(10L);
+        params.setTargetLatency(1000L);
+        params.setMaxThrottle(1000L);
+        params.setMinBatchSize(10);
+        params.setMaxBatchSize(300);
+        params.setMaxHeapUsage(0.9);
+        return params;
+    }
+}
@@ -0,0 +1,105 @@
+/*
+ * Copyright 2024 Bloomreach B.V. (https://www.bloomreach.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onehippo.forge.content.exim.repository.jaxrs.util;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Path;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.onehippo.forge.content.exim.repository.jaxrs.param.Result;
+import org.onehippo.forge.content.exim.repository.jaxrs.param.ResultItem;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ExportCheckpointTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void load_noCheckpointFile_returnsNull() throws IOException {
+        assertNull(ExportCheckpoint.load(tempDir.resolve("none.checkpoint.json").toFile(), objectMapper));
+    }
+
+    @Test
+    void advance_savedCheckpoint_loadedWithItemsAndCursor() throws IOException {
+        File checkpointFile = tempDir.resolve("checkpoints/export-1.checkpoint.json").toFile();
+
+        Result result = new Result();
+        result.addItem(new ResultItem("/content/documents/a", "ns:doc"));
+        result.addItem(new ResultItem("/content/documents/b", null));
+        result.incrementTotalDocumentCount();
+        result.incrementSucceededDocumentCount();
+
+        ExportCheckpoint checkpoint = new ExportCheckpoint();
+        checkpoint.setResult(result);
+        checkpoint.getReferredNodePaths().add("/content/gallery/img.png");
+        checkpoint.advance(ExportCheckpoint.PHASE_DOCUMENTS, 1, 1, checkpointFile, objectMapper);
+
+        assertTrue(checkpointFile.isFile());
+        assertFalse(new File(checkpointFile.getParentFile(), checkpointFile.getName() + ".tmp").exists());
+
+        ExportCheckpoint loaded = ExportCheckpoint.load(checkpointFile, objectMapper);
+
+        assertEquals(ExportCheckpoint.PHASE_DOCUMENTS, loaded.getPhase());
+        assertEquals(1, loaded.getCursor());
+        assertEquals(1, loaded.getBatchCount());
+        assertEquals(2, loaded.getResult().getItems().size());
+        assertEquals("/content/documents/b", loaded.getResult().getItems().get(1).getPath());
+        assertEquals(1, loaded.getResult().getSucceededDocumentCount());
+        assertTrue(loaded.getReferredNodePaths().contains("/content/gallery/img.png"));
+
+        loaded.advance(ExportCheckpoint.PHASE_BINARIES, 0, 2, checkpointFile, objectMapper);
+
+        assertEquals(ExportCheckpoint.PHASE_BINARIES, ExportCheckpoint.load(checkpointFile, objectMapper).getPhase());
+    }
+
+    @Test
+    void advance_bundlePosition_loadedUntilReset() throws IOException {
+        File checkpointFile = tempDir.resolve("checkpoints/export-2.checkpoint.json").toFile();
+
+        ExportCheckpoint checkpoint = new ExportCheckpoint();
+        checkpoint.setResult(new Result());
+        checkpoint.setBundleSeq(2);
+        checkpoint.setBundleEntryCount(3);
+        checkpoint.setBundleLength(300L);
+        checkpoint.setBundleIndexLength(90L);
+        checkpoint.advance(ExportCheckpoint.PHASE_DOCUMENTS, 5, 5, checkpointFile, objectMapper);
+
+        ExportCheckpoint loaded = ExportCheckpoint.load(checkpointFile, objectMapper);
+
+        assertEquals(2, loaded.getBundleSeq());
+        assertEquals(3, loaded.getBundleEntryCount());
+        assertEquals(300L, loaded.getBundleLength());
+        assertEquals(90L, loaded.getBundleIndexLength());
+
+        loaded.recordBundlePosition(null);
+        loaded.advance(ExportCheckpoint.PHASE_BINARIES, 0, 5, checkpointFile, objectMapper);
+        loaded = ExportCheckpoint.load(checkpointFile, objectMapper);
+
+        assertEquals(0, loaded.getBundleSeq());
+        assertEquals(0L, loaded.getBundleLength());
+    }
+}
@@ -0,0 +1,175 @@
+/*
+ * Copyright 2024 Bloomreach B.V. (https://www.bloomreach.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onehippo.forge.content.exim.repository.jaxrs.util;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ImportCheckpointJournalTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void commit_pendingEntries_completedInNextRunWithSamePackage() throws IOException {
+        File packageFile = createPackageFile("package.zip", "content");
+        File journalFolder = tempDir.resolve("journals").toFile();
+
+        ImportCheckpointJournal journal = ImportCheckpointJournal.forPackage(journalFolder, packageFile);
+        journal.addPending("/content/documents/a.json");
+        journal.addPending("/documents-0001.ndjson#2");
+        journal.addPending("/content/documents/b.json");
+        journal.removePending("/content/documents/b.json");
+
+        assertFalse(journal.isCompleted("/content/documents/a.json"));
+
+        journal.commit();
+
+        assertTrue(journal.isCompleted("/content/documents/a.json"));
+
+        journal.addPending("/content/documents/c.json");
+
+        ImportCheckpointJournal resumed = ImportCheckpointJournal.forPackage(journalFolder, packageFile);
+
+        assertEquals(2, resumed.getCompletedCount());
+        assertTrue(resumed.isCompleted("/content/documents/a.json"));
+        assertTrue(resumed.isCompleted("/documents-0001.ndjson#2"));
+        assertFalse(resumed.isCompleted("/content/documents/b.json"));
+        assertFalse(resumed.isCompleted("/content/documents/c.json"));
+    }
+
+    @Test
+    void forPackage_differentPackage_startsEmpty() throws IOException {
+        File journalFolder = tempDir.resolve("journals").toFile();
+        ImportCheckpointJournal journal = ImportCheckpointJournal.forPackage(journalFolder,
+                createPackageFile("package1.zip", "content 1"));
+        journal.addPending("/content/documents/a.json");
+        journal.commit();
+
+        ImportCheckpointJournal other = ImportCheckpointJournal.forPackage(journalFolder,
+                createPackageFile("package2.zip", "content 2"));
+
+        assertNotEquals(journal.getJournalFile(), other.getJournalFile());
+        assertEquals(0, other.getCompletedCount());
+    }
+
+    @Test
+    void forPackage_differentParams_startsEmpty() throws IOException {
+        File packageFile = createPackageFile("package.zip", "content");
+        File journalFolder = tempDir.resolve("journals").toFile();
+        ImportCheckpointJournal journal = ImportCheckpointJournal.forPackage(journalFolder, packageFile, "params1");
+        journal.addPending("/content/documents/a.json");
+        journal.commit();
+
+        ImportCheckpointJournal other = ImportCheckpointJournal.forPackage(journalFolder, packageFile, "params2");
+
+        assertNotEquals(journal.getJournalFile(), other.getJournalFile());
+        assertEquals(0, other.getCompletedCount());
+        assertEquals(1, ImportCheckpointJournal.forPackage(journalFolder, packageFile, "params1").getCompletedCount());
+    }
+
+    @Test
+    void lock_sameJournalLocked_failsUntilUnlocked() throws IOException {
+        File packageFile = createPackageFile("package.zip", "content");
+        File journalFolder = tempDir.resolve("journals").toFile();
+        ImportCheckpointJournal journal = ImportCheckpointJournal.forPackage(journalFolder, packageFile, "params");
+        ImportCheckpointJournal other = ImportCheckpointJournal.forPackage(journalFolder, packageFile, "params");
+
+        try {
+            assertTrue(journal.lock());
+            assertFalse(other.lock());
+
+            journal.unlock();
+
+            assertTrue(other.lock());
+        } finally {
+            journal.unlock();
+            other.unlock();
+        }
+    }
+
+    @Test
+    void deleteExpiredJournals_deletesOnlyExpiredUnlockedJournals() throws IOException {
+        File journalFolder = tempDir.resolve("journals").toFile();
+        ImportCheckpointJournal expired = createCommittedJournal(journalFolder, "package1.zip", "content 1");
+        ImportCheckpointJournal expiredLocked = createCommittedJournal(journalFolder, "package2.zip", "content 2");
+        ImportCheckpointJournal recent = createCommittedJournal(journalFolder, "package3.zip", "content 3");
+        long expiredMillis = System.currentTimeMillis() - TimeUnit.DAYS.toMillis(2);
+        assertTrue(expired.getJournalFile().setLastModified(expiredMillis));
+        assertTrue(expiredLocked.getJournalFile().setLastModified(expiredMillis));
+
+        try {
+            assertTrue(expiredLocked.lock());
+
+            assertEquals(1, ImportCheckpointJournal.deleteExpiredJournals(journalFolder, TimeUnit.DAYS.toMillis(1)));
+
+            assertFalse(expired.getJournalFile().exists());
+            assertTrue(expiredLocked.getJournalFile().isFile());
+            assertTrue(recent.getJournalFile().isFile());
+        } finally {
+            expiredLocked.unlock();
+        }
+    }
+
+    @Test
+    void delete_removesJournalFile() throws IOException {
+        File packageFile = createPackageFile("package.zip", "content");
+        File journalFolder = tempDir.resolve("journals").toFile();
+        ImportCheckpointJournal journal = ImportCheckpointJournal.forPackage(journalFolder, packageFile);
+        journal.addPending("/content/documents/a.json");
+        journal.commit();
+
+        assertTrue(journal.getJournalFile().isFile());
+
+        journal.delete();
+
+        assertFalse(journal.getJournalFile().exists());
+        assertEquals(0, ImportCheckpointJournal.forPackage(journalFolder, packageFile).getCompletedCount());
+    }
+
+    @Test
+    void computeChecksum_returnsSha256Hex() throws IOException {
+        assertEquals("ed7002b439e9ac845f22357d822bac1444730fbdb6016d3ec9432297b9ec9f73",
+                ImportCheckpointJournal.computeChecksum(createPackageFile("package.zip", "content")));
+    }
+
+    private ImportCheckpointJournal createCommittedJournal(File journalFolder, String fileName, String content)
+            throws IOException {
+        ImportCheckpointJournal journal = ImportCheckpointJournal.forPackage(journalFolder,
+                createPackageFile(fileName, content));
+        journal.addPending("/content/documents/a.json");
+        journal.commit();
+        return journal;
+    }
+
+    private File createPackageFile(String fileName, String content) throws IOException {
+        Path file = tempDir.resolve(fileName);
+        Files.write(file, content.getBytes(StandardCharsets.UTF_8));
+        return file.toFile();
+    }
+}
@@ -0,0 +1,79 @@
+/*
+ * Copyright 2024 Bloomreach B.V. (https://www.bloomreach.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onehippo.forge.content.exim.repository.jaxrs.util;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PathLeasesTest {
+
+    @Test
+    void overlaps_ancestorOrSame_true() {
+        assertTrue(PathLeases.overlaps("/content/documents", "/content/documents/site"));
+        assertTrue(PathLeases.overlaps("/content/documents/site", "/content/documents"));
+        assertTrue(PathLeases.overlaps("/content/documents", "/content/documents"));
+        assertTrue(PathLeases.overlaps("/", "/content/gallery"));
+    }
+
+    @Test
+    void overlaps_siblingsWithCommonPrefix_false() {
+        assertFalse(PathLeases.overlaps("/content/documents/site", "/content/documents/site-2"));
+        assertFalse(PathLeases.overlaps(Arrays.asList("/content/documents/a", "/content/gallery/a"),
+                Arrays.asList("/content/documents/b", "/content/assets")));
+    }
+
+    @Test
+    void plan_missingFolders_leasesDeepestExistingAncestors() {
+        final Set<String> existing = new HashSet<>(Arrays.asList("/content", "/content/documents",
+                "/content/documents/site", "/content/documents/site/news", "/content/documents/site-2",
+                "/content/gallery"));
+
+        final Set<String> leases = PathLeases.plan(Arrays.asList(
+                "/content/documents/site/news/2024/article-1",
+                "/content/documents/site/news/article-2",
+                "/content/documents/site-2/about/contact",
+                "/content/gallery/site/images/logo.png"), existing::contains, PathLeases.DEFAULT_MAX_LEASES);
+
+        assertEquals(Arrays.asList("/content/documents/site-2", "/content/documents/site/news", "/content/gallery"),
+                Arrays.asList(leases.toArray()));
+    }
+
+    @Test
+    void plan_tooManyLeases_coarsensToAncestors() {
+        final Set<String> leases = PathLeases.plan(Arrays.asList(
+                "/content/documents/site/a/doc", "/content/documents/site/b/doc",
+                "/content/documents/site/c/doc", "/content/gallery/site/d/image.png"), path -> true, 2);
+
+        assertEquals(Arrays.asList("/content/documents/site", "/content/gallery/site"),
+                Arrays.asList(leases.toArray()));
+    }
+
+    @Test
+    void toXPathQueryPath_encodesInvalidNameCharacters() {
+        assertEquals("/jcr:root", PathLeases.toXPathQueryPath("/"));
+        assertEquals("/jcr:root/content/documents/site-2", PathLeases.toXPathQueryPath("/content/documents/site-2"));
+        assertEquals("/jcr:root/content/documents/news/_x0032_016/my_x0020_news",
+                PathLeases.toXPathQueryPath("/content/documents/news/2016/my news"));
+        assertEquals("/jcr:root/content/_x005F_x0032_", PathLeases.toXPathQueryPath("/content/_x0032_"));
+    }
+}
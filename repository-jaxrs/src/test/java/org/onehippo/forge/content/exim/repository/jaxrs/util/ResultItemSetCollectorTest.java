@@ -0,0 +1,156 @@
+/*
+ * Copyright 2024 Bloomreach B.V. (https://www.bloomreach.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onehippo.forge.content.exim.repository.jaxrs.util;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.onehippo.forge.content.exim.core.util.CompiledPathMatcher;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ResultItemSetCollectorTest {
+
+    private static final String QUERY = "//element(*,hippo:document)[@hippo:paths='cafebabe']";
+
+    // ==================== getQueryPathPrefixes ====================
+
+    @Test
+    void getQueryPathPrefixes_noIncludes_returnsNull() {
+        assertNull(ResultItemSetCollector.getQueryPathPrefixes(null));
+        assertNull(ResultItemSetCollector.getQueryPathPrefixes(
+                new CompiledPathMatcher(null, Arrays.asList("/content/documents/news/**"))));
+    }
+
+    @Test
+    void getQueryPathPrefixes_literalPrefixes_returnsTopPrefixes() {
+        CompiledPathMatcher matcher = new CompiledPathMatcher(Arrays.asList("/content/documents/news/**",
+                "/content/documents/news/2024/*/article", "/content/gallery/*.jpg", "/content/documents/news/**"),
+                null);
+
+        assertEquals(Arrays.asList("/content/documents/news", "/content/gallery"),
+                ResultItemSetCollector.getQueryPathPrefixes(matcher));
+    }
+
+    @Test
+    void getQueryPathPrefixes_literalInclude_returnsParentPath() {
+        CompiledPathMatcher matcher = new CompiledPathMatcher(
+                Arrays.asList("/content/documents/news/article", "/content/assets/events/**"), null);
+
+        assertEquals(Arrays.asList("/content/documents/news", "/content/assets/events"),
+                ResultItemSetCollector.getQueryPathPrefixes(matcher));
+    }
+
+    @Test
+    void getQueryPathPrefixes_unsafeSegment_truncatesPrefix() {
+        CompiledPathMatcher matcher = new CompiledPathMatcher(
+                Arrays.asList("/content/documents/2024 news/*.xml"), null);
+
+        assertEquals(Collections.singletonList("/content/documents"),
+                ResultItemSetCollector.getQueryPathPrefixes(matcher));
+    }
+
+    @Test
+    void getQueryPathPrefixes_wildcardOrRelativeInclude_returnsNull() {
+        assertNull(ResultItemSetCollector.getQueryPathPrefixes(
+                new CompiledPathMatcher(Arrays.asList("/content/documents/**", "/**/news/**"), null)));
+        assertNull(ResultItemSetCollector.getQueryPathPrefixes(
+                new CompiledPathMatcher(Arrays.asList("content/documents/**"), null)));
+    }
+
+    // ==================== narrowQueryToPathPrefixes ====================
+
+    @Test
+    void narrowQueryToPathPrefixes_descendantQuery_narrowsToEachPrefix() {
+        List<String> queries = ResultItemSetCollector.narrowQueryToPathPrefixes(QUERY,
+                Arrays.asList("/content/documents/news", "/content/gallery"));
+
+        assertEquals(Arrays.asList("/jcr:root/content/documents/news" + QUERY,
+                "/jcr:root/content/gallery" + QUERY), queries);
+    }
+
+    @Test
+    void narrowQueryToPathPrefixes_scopedQuery_keepsOrDropsQueryByScope() {
+        String query = "/jcr:root/content/documents//element(*,hippo:handle)";
+
+        assertEquals(Collections.singletonList("/jcr:root/content/documents/news//element(*,hippo:handle)"),
+                ResultItemSetCollector.narrowQueryToPathPrefixes(query,
+                        Arrays.asList("/content/documents/news", "/content/gallery")));
+        assertEquals(Collections.singletonList(query),
+                ResultItemSetCollector.narrowQueryToPathPrefixes(query, Collections.singletonList("/content")));
+        assertTrue(ResultItemSetCollector.narrowQueryToPathPrefixes(query,
+                Collections.singletonList("/content/documentsx")).isEmpty());
+    }
+
+    @Test
+    void narrowQueryToPathPrefixes_otherQuery_returnsQueryAsItIs() {
+        String query = "/jcr:root/content/documents/news/element(*,hippo:handle)";
+
+        assertEquals(Collections.singletonList(query), ResultItemSetCollector.narrowQueryToPathPrefixes(query,
+                Collections.singletonList("/content/documents/news")));
+    }
+
+    // ==================== getHandlePathOfRowPath ====================
+
+    @Test
+    void getHandlePathOfRowPath_variantPath_returnsParentPath() {
+        assertEquals("/content/documents/news/article",
+                ResultItemSetCollector.getHandlePathOfRowPath("/content/documents/news/article/article"));
+        assertEquals("/content/documents/news/article",
+                ResultItemSetCollector.getHandlePathOfRowPath("/content/documents/news/article/article[3]"));
+    }
+
+    @Test
+    void getHandlePathOfRowPath_handlePath_returnsPathAsItIs() {
+        assertEquals("/content/documents/news/article",
+                ResultItemSetCollector.getHandlePathOfRowPath("/content/documents/news/article"));
+        assertEquals("/content", ResultItemSetCollector.getHandlePathOfRowPath("/content"));
+    }
+
+    // ==================== isCandidatePathIncluded ====================
+
+    @Test
+    void isCandidatePathIncluded_variantUnderIncludedHandle_returnsTrue() {
+        CompiledPathMatcher matcher = new CompiledPathMatcher(Arrays.asList("/content/documents/news/article"),
+                null);
+
+        assertTrue(ResultItemSetCollector.isCandidatePathIncluded("/content/documents/news/article/article[2]",
+                matcher, ResultItemSetCollector.createSubtreeExcludeMatcher(matcher)));
+        assertFalse(ResultItemSetCollector.isCandidatePathIncluded("/content/documents/events/event/event",
+                matcher, ResultItemSetCollector.createSubtreeExcludeMatcher(matcher)));
+    }
+
+    @Test
+    void isCandidatePathIncluded_pathInExcludedSubtree_returnsFalse() {
+        CompiledPathMatcher matcher = new CompiledPathMatcher(Arrays.asList("/content/documents/news/**"),
+                Arrays.asList("/content/documents/news/secret/**"));
+
+        assertFalse(ResultItemSetCollector.isCandidatePathIncluded("/content/documents/news/secret/article/article",
+                matcher, ResultItemSetCollector.createSubtreeExcludeMatcher(matcher)));
+        assertTrue(ResultItemSetCollector.isCandidatePathIncluded("/content/documents/news/public/article/article",
+                matcher, ResultItemSetCollector.createSubtreeExcludeMatcher(matcher)));
+    }
+
+    @Test
+    void isCandidatePathIncluded_nullMatcher_returnsTrue() {
+        assertTrue(ResultItemSetCollector.isCandidatePathIncluded("/content/documents/news/article", null, null));
+    }
+}
@@ -21,6 +21,9 @@ import java.io.IOException;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipInputStream;
 
@@ -314,4 +317,85 @@ class ZipCompressUtilsTest {
             zis.close();
         }
     }
+
+    /**
+     * Test that shard archives are merged with the EXIM-INF files of each shard kept separately.
+     */
+    @Test
+    void testMergeShardArchives() throws IOException {
+        File shard0 = createZipFile("shard0.zip",
+            "EXIM-INF/shard.properties", "shardIndex=0\nshardCount=2\n",
+            "EXIM-INF/execution.log", "log 0",
+            "EXIM-INF/data/attachments/common.bin", "common",
+            "content/documents/a.json", "a",
+            "documents-0001.ndjson", "bundle 0",
+            "documents-0001.idx", "index 0");
+        File shard1 = createZipFile("shard1.zip",
+            "EXIM-INF/shard.properties", "shardIndex=1\nshardCount=2\n",
+            "EXIM-INF/execution.log", "log 1",
+            "EXIM-INF/data/attachments/common.bin", "common",
+            "content/documents/b.json", "b",
+            "documents-0001.ndjson", "bundle 1",
+            "documents-0001.idx", "index 1");
+
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        ZipArchiveOutputStream zipOutput = new ZipArchiveOutputStream(baos);
+
+        try {
+            ZipCompressUtils.mergeShardArchives(List.of(shard0, shard1), zipOutput);
+        } finally {
+            zipOutput.finish();
+            zipOutput.close();
+        }
+
+        Map<String, String> entries = new LinkedHashMap<>();
+        ZipInputStream zis = new ZipInputStream(new java.io.ByteArrayInputStream(baos.toByteArray()),
+            StandardCharsets.UTF_8);
+        try {
+            for (ZipEntry entry = zis.getNextEntry(); entry != null; entry = zis.getNextEntry()) {
+                entries.put(entry.getName(), new String(zis.readAllBytes(), StandardCharsets.UTF_8));
+            }
+        } finally {
+            zis.close();
+        }
+
+        assertEquals(11, entries.size(), "The same attachment should be merged only once");
+        assertEquals("log 0", entries.get("EXIM-INF/shards/shard-0/execution.log"));
+        assertEquals("log 1", entries.get("EXIM-INF/shards/shard-1/execution.log"));
+        assertTrue(entries.containsKey("EXIM-INF/shards/shard-1/shard.properties"));
+        assertEquals("common", entries.get("EXIM-INF/data/attachments/common.bin"));
+        assertEquals("a", entries.get("content/documents/a.json"));
+        assertEquals("b", entries.get("content/documents/b.json"));
+        assertEquals("bundle 0", entries.get("documents-shard0-0001.ndjson"));
+        assertEquals("bundle 1", entries.get("documents-shard1-0001.ndjson"));
+        assertEquals("index 0", entries.get("documents-shard0-0001.idx"));
+        assertEquals("index 1", entries.get("documents-shard1-0001.idx"));
+    }
+
+    /**
+     * Test that the index files are renamed in a merged archive like the bundle files they index, so that each
+     * bundle file keeps finding its index file by the name.
+     */
+    @Test
+    void testGetMergedEntryName_renamesIndexFilesLikeBundleFiles() {
+        assertEquals("documents-shard1-0001.ndjson", ZipCompressUtils.getMergedEntryName("documents-0001.ndjson", 1));
+        assertEquals("documents-shard1-0001.idx", ZipCompressUtils.getMergedEntryName("documents-0001.idx", 1));
+        assertEquals("content/documents/a.idx", ZipCompressUtils.getMergedEntryName("content/documents/a.idx", 1));
+    }
+
+    private File createZipFile(String fileName, String... namesAndContents) throws IOException {
+        File file = tempDir.resolve(fileName).toFile();
+        ZipArchiveOutputStream zipOutput = new ZipArchiveOutputStream(file);
+
+        try {
+            for (int i = 0; i < namesAndContents.length; i += 2) {
+                ZipCompressUtils.addEntryToZip(namesAndContents[i], namesAndContents[i + 1], "UTF-8", zipOutput);
+            }
+        } finally {
+            zipOutput.finish();
+            zipOutput.close();
+        }
+
+        return file;
+    }
 }